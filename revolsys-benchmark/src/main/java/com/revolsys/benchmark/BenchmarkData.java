@@ -0,0 +1,165 @@
+package com.revolsys.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.jeometry.common.io.PathName;
+
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Polygon;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionBuilder;
+
+/**
+ * Deterministic test data for the benchmarks. All of the data is generated from a
+ * {@link Random} with a fixed seed (the algorithm of which is defined by the JDK
+ * specification) so the same geometries and records are used on every run and
+ * results can be compared across releases.
+ */
+public class BenchmarkData {
+
+  public static final long SEED = 0x5245564F4C535953L;
+
+  public static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.fixed2d(3005, 1000.0,
+    1000.0);
+
+  /** The extent (in metres) of the area the data is generated in. */
+  public static final double EXTENT = 100000;
+
+  public static final double MIN_X = 1000000;
+
+  public static final double MIN_Y = 500000;
+
+  public static Random newRandom() {
+    return new Random(SEED);
+  }
+
+  public static BoundingBox[] newBoundingBoxes(final Random random, final int count,
+    final double size) {
+    final BoundingBox[] boundingBoxes = new BoundingBox[count];
+    for (int i = 0; i < count; i++) {
+      final double x = randomX(random);
+      final double y = randomY(random);
+      final double width = random.nextDouble() * size;
+      final double height = random.nextDouble() * size;
+      boundingBoxes[i] = GEOMETRY_FACTORY.newBoundingBox(x, y, x + width, y + height);
+    }
+    return boundingBoxes;
+  }
+
+  /**
+   * Construct a random walk line string starting at a random location.
+   */
+  public static LineString newLineString(final Random random, final int vertexCount,
+    final double segmentLength) {
+    final double[] coordinates = new double[vertexCount * 2];
+    double x = randomX(random);
+    double y = randomY(random);
+    double angle = random.nextDouble() * Math.PI * 2;
+    for (int i = 0; i < vertexCount; i++) {
+      coordinates[i * 2] = x;
+      coordinates[i * 2 + 1] = y;
+      angle += (random.nextDouble() - 0.5) * Math.PI / 2;
+      x += Math.cos(angle) * segmentLength;
+      y += Math.sin(angle) * segmentLength;
+    }
+    return GEOMETRY_FACTORY.lineString(2, coordinates);
+  }
+
+  public static List<LineString> newLineStrings(final Random random, final int count,
+    final int vertexCount, final double segmentLength) {
+    final List<LineString> lines = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      lines.add(newLineString(random, vertexCount, segmentLength));
+    }
+    return lines;
+  }
+
+  public static Point newPoint(final Random random) {
+    return GEOMETRY_FACTORY.point(randomX(random), randomY(random));
+  }
+
+  /**
+   * Construct a random star shaped polygon (so it is always valid) centred at a
+   * random location. The vertices are at sorted angles around the centre with a
+   * random radius between half and all of the radius.
+   */
+  public static Polygon newPolygon(final Random random, final int vertexCount,
+    final double radius) {
+    final double centreX = randomX(random);
+    final double centreY = randomY(random);
+    return newPolygon(random, centreX, centreY, vertexCount, radius);
+  }
+
+  public static Polygon newPolygon(final Random random, final double centreX,
+    final double centreY, final int vertexCount, final double radius) {
+    final double[] angles = new double[vertexCount];
+    for (int i = 0; i < vertexCount; i++) {
+      angles[i] = random.nextDouble() * Math.PI * 2;
+    }
+    Arrays.sort(angles);
+    final double[] coordinates = new double[(vertexCount + 1) * 2];
+    for (int i = 0; i < vertexCount; i++) {
+      final double vertexRadius = radius * (0.5 + random.nextDouble() / 2);
+      coordinates[i * 2] = centreX + Math.cos(angles[i]) * vertexRadius;
+      coordinates[i * 2 + 1] = centreY + Math.sin(angles[i]) * vertexRadius;
+    }
+    coordinates[vertexCount * 2] = coordinates[0];
+    coordinates[vertexCount * 2 + 1] = coordinates[1];
+    return GEOMETRY_FACTORY.polygon(2, coordinates);
+  }
+
+  public static List<Polygon> newPolygons(final Random random, final int count,
+    final int vertexCount, final double radius) {
+    final List<Polygon> polygons = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      polygons.add(newPolygon(random, vertexCount, radius));
+    }
+    return polygons;
+  }
+
+  public static RecordDefinition newRecordDefinition() {
+    return new RecordDefinitionBuilder(PathName.newPathName("/BENCHMARK")) //
+      .addField("ID", DataTypes.INT, true)
+      .addField("NAME", DataTypes.STRING, 30, true)
+      .addField("CATEGORY", DataTypes.STRING, 10, false)
+      .addField("VALUE", DataTypes.DOUBLE, 19, 5, false)
+      .addField("COUNT", DataTypes.INT, false)
+      .addField("GEOMETRY", GeometryDataTypes.LINE_STRING, true)
+      .setGeometryFactory(GEOMETRY_FACTORY)
+      .getRecordDefinition();
+  }
+
+  public static List<Record> newRecords(final Random random,
+    final RecordDefinition recordDefinition, final int count, final int vertexCount) {
+    final List<Record> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final Record record = new ArrayRecord(recordDefinition);
+      record.setValue("ID", i + 1);
+      record.setValue("NAME", "Feature " + (i + 1));
+      record.setValue("CATEGORY", "C" + random.nextInt(20));
+      record.setValue("VALUE", Math.round(random.nextDouble() * 1000000) / 100.0);
+      record.setValue("COUNT", random.nextInt(1000));
+      record.setValue("GEOMETRY", newLineString(random, vertexCount, 50));
+      records.add(record);
+    }
+    return records;
+  }
+
+  private static double randomX(final Random random) {
+    return MIN_X + random.nextDouble() * EXTENT;
+  }
+
+  private static double randomY(final Random random) {
+    return MIN_Y + random.nextDouble() * EXTENT;
+  }
+}
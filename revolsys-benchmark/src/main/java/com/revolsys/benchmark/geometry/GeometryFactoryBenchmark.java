@@ -0,0 +1,81 @@
+package com.revolsys.benchmark.geometry;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.revolsys.benchmark.BenchmarkData;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Polygon;
+
+/**
+ * Lookup of cached {@link GeometryFactory} instances and construction of
+ * geometries from coordinate arrays.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GeometryFactoryBenchmark {
+
+  @Param({
+    "10", "1000"
+  })
+  public int vertexCount;
+
+  private double[] lineCoordinates;
+
+  private double[] ringCoordinates;
+
+  private final GeometryFactory geometryFactory = BenchmarkData.GEOMETRY_FACTORY;
+
+  @Setup
+  public void setup() {
+    final Random random = BenchmarkData.newRandom();
+    this.lineCoordinates = BenchmarkData.newLineString(random, this.vertexCount, 50)
+      .getCoordinates();
+    this.ringCoordinates = BenchmarkData.newPolygon(random, this.vertexCount, 1000)
+      .getShell()
+      .getCoordinates();
+  }
+
+  @Benchmark
+  public GeometryFactory fixed2d() {
+    return GeometryFactory.fixed2d(3005, 1000.0, 1000.0);
+  }
+
+  @Benchmark
+  public GeometryFactory floating3d() {
+    return GeometryFactory.floating3d(3005);
+  }
+
+  @Benchmark
+  public LineString lineString() {
+    return this.geometryFactory.lineString(2, this.lineCoordinates);
+  }
+
+  @Benchmark
+  public Point point() {
+    return this.geometryFactory.point(1234567.8915, 567890.1234);
+  }
+
+  @Benchmark
+  public Polygon polygon() {
+    return this.geometryFactory.polygon(2, this.ringCoordinates);
+  }
+}
@@ -0,0 +1,112 @@
+package com.revolsys.benchmark.geometry;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.revolsys.benchmark.BenchmarkData;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Polygon;
+
+/**
+ * Spatial predicates between line strings, polygons and points. Each benchmark
+ * invocation tests one geometry against a fixed set of others generated close
+ * enough that some of them interact.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GeometryPredicateBenchmark {
+
+  private static final int OTHER_COUNT = 100;
+
+  @Param({
+    "10", "100", "1000"
+  })
+  public int vertexCount;
+
+  private LineString line;
+
+  private List<LineString> lines;
+
+  private Polygon polygon;
+
+  private List<Polygon> polygons;
+
+  private Point[] points;
+
+  @Setup
+  public void setup() {
+    final Random random = BenchmarkData.newRandom();
+    final double centreX = BenchmarkData.MIN_X + BenchmarkData.EXTENT / 2;
+    final double centreY = BenchmarkData.MIN_Y + BenchmarkData.EXTENT / 2;
+    final double radius = BenchmarkData.EXTENT / 4;
+    this.polygon = BenchmarkData.newPolygon(random, centreX, centreY, this.vertexCount, radius);
+    this.line = BenchmarkData.newLineString(random, this.vertexCount,
+      BenchmarkData.EXTENT / this.vertexCount);
+    this.lines = BenchmarkData.newLineStrings(random, OTHER_COUNT, this.vertexCount,
+      BenchmarkData.EXTENT / this.vertexCount);
+    this.polygons = BenchmarkData.newPolygons(random, OTHER_COUNT, this.vertexCount, radius / 4);
+    this.points = new Point[OTHER_COUNT];
+    for (int i = 0; i < OTHER_COUNT; i++) {
+      this.points[i] = BenchmarkData.newPoint(random);
+    }
+  }
+
+  @Benchmark
+  public void lineIntersectsLine(final Blackhole blackhole) {
+    final LineString line = this.line;
+    for (final LineString other : this.lines) {
+      blackhole.consume(line.intersects(other));
+    }
+  }
+
+  @Benchmark
+  public void lineIsWithinDistance(final Blackhole blackhole) {
+    final LineString line = this.line;
+    for (final LineString other : this.lines) {
+      blackhole.consume(line.isWithinDistance(other, 1000));
+    }
+  }
+
+  @Benchmark
+  public void polygonContainsPoint(final Blackhole blackhole) {
+    final Polygon polygon = this.polygon;
+    for (final Point point : this.points) {
+      blackhole.consume(polygon.contains(point));
+    }
+  }
+
+  @Benchmark
+  public void polygonIntersectsLine(final Blackhole blackhole) {
+    final Polygon polygon = this.polygon;
+    for (final LineString line : this.lines) {
+      blackhole.consume(polygon.intersects(line));
+    }
+  }
+
+  @Benchmark
+  public void polygonIntersectsPolygon(final Blackhole blackhole) {
+    final Polygon polygon = this.polygon;
+    for (final Polygon other : this.polygons) {
+      blackhole.consume(polygon.intersects(other));
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.revolsys.benchmark.index;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.revolsys.benchmark.BenchmarkData;
+import com.revolsys.geometry.index.SpatialIndex;
+import com.revolsys.geometry.index.quadtree.QuadTree;
+import com.revolsys.geometry.index.rstartree.RStarTree;
+import com.revolsys.geometry.model.BoundingBox;
+
+/**
+ * Bounding box queries, nearest neighbour queries and inserts on the
+ * {@link RStarTree} and {@link QuadTree}.
+ * Both indexes contain the same randomly sized boxes and are queried with the
+ * same set of query boxes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SpatialIndexBenchmark {
+
+  private static final int QUERY_COUNT = 100;
+
+  private static void nearest(final SpatialIndex<Integer> index, final BoundingBox[] queries,
+    final Blackhole blackhole) {
+    for (final BoundingBox query : queries) {
+      blackhole.consume(index.nearest(query.getCentreX(), query.getCentreY(), 10,
+        Double.POSITIVE_INFINITY, null));
+    }
+  }
+
+  private static void query(final SpatialIndex<Integer> index, final BoundingBox[] queries,
+    final Blackhole blackhole) {
+    for (final BoundingBox query : queries) {
+      index.forEach(query, blackhole::consume);
+    }
+  }
+
+  @Param({
+    "10000", "100000"
+  })
+  public int itemCount;
+
+  private BoundingBox[] items;
+
+  private QuadTree<Integer> quadTree;
+
+  private BoundingBox[] queries;
+
+  private RStarTree<Integer> rStarTree;
+
+  @Benchmark
+  public QuadTree<Integer> quadTreeInsert() {
+    final QuadTree<Integer> index = new QuadTree<>(BenchmarkData.GEOMETRY_FACTORY);
+    final BoundingBox[] items = this.items;
+    for (int i = 0; i < items.length; i++) {
+      index.insertItem(items[i], i);
+    }
+    return index;
+  }
+
+  @Benchmark
+  public void quadTreeNearest(final Blackhole blackhole) {
+    nearest(this.quadTree, this.queries, blackhole);
+  }
+
+  @Benchmark
+  public void quadTreeQuery(final Blackhole blackhole) {
+    query(this.quadTree, this.queries, blackhole);
+  }
+
+  @Benchmark
+  public RStarTree<Integer> rStarTreeInsert() {
+    final RStarTree<Integer> index = new RStarTree<>(BenchmarkData.GEOMETRY_FACTORY);
+    final BoundingBox[] items = this.items;
+    for (int i = 0; i < items.length; i++) {
+      index.insertItem(items[i], i);
+    }
+    return index;
+  }
+
+  @Benchmark
+  public void rStarTreeNearest(final Blackhole blackhole) {
+    nearest(this.rStarTree, this.queries, blackhole);
+  }
+
+  @Benchmark
+  public void rStarTreeQuery(final Blackhole blackhole) {
+    query(this.rStarTree, this.queries, blackhole);
+  }
+
+  @Setup
+  public void setup() {
+    final Random random = BenchmarkData.newRandom();
+    this.items = BenchmarkData.newBoundingBoxes(random, this.itemCount, 200);
+    this.queries = BenchmarkData.newBoundingBoxes(random, QUERY_COUNT, 2000);
+    this.quadTree = quadTreeInsert();
+    this.rStarTree = rStarTreeInsert();
+  }
+}
@@ -0,0 +1,118 @@
+package com.revolsys.benchmark.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.revolsys.benchmark.BenchmarkData;
+import com.revolsys.io.FileUtil;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.io.RecordWriter;
+import com.revolsys.record.io.format.csv.CsvRecordReader;
+import com.revolsys.record.io.format.geojson.GeoJsonRecordWriter;
+import com.revolsys.record.io.format.shp.ShapefileRecordReader;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.spring.resource.PathResource;
+
+/**
+ * Reading all the records from a shapefile and a CSV file and writing records as
+ * GeoJSON. The files are written to a temporary directory from the same generated
+ * records before the benchmark is run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordIoBenchmark {
+
+  @Param({
+    "10000"
+  })
+  public int recordCount;
+
+  private PathResource csvResource;
+
+  private File directory;
+
+  private RecordDefinition recordDefinition;
+
+  private List<Record> records;
+
+  private PathResource shpResource;
+
+  @Benchmark
+  public void csvRead(final Blackhole blackhole) {
+    try (
+      CsvRecordReader reader = new CsvRecordReader(this.csvResource)) {
+      for (final Record record : reader) {
+        blackhole.consume(record);
+      }
+    }
+  }
+
+  @Benchmark
+  public void geoJsonWrite() {
+    try (
+      GeoJsonRecordWriter writer = new GeoJsonRecordWriter(Writer.nullWriter(),
+        this.recordDefinition)) {
+      for (final Record record : this.records) {
+        writer.write(record);
+      }
+    }
+  }
+
+  @Setup
+  public void setup() {
+    this.recordDefinition = BenchmarkData.newRecordDefinition();
+    this.records = BenchmarkData.newRecords(BenchmarkData.newRandom(), this.recordDefinition,
+      this.recordCount, 20);
+    this.directory = FileUtil.newTempDirectory("benchmark", ".dir");
+    this.shpResource = new PathResource(new File(this.directory, "records.shp"));
+    this.csvResource = new PathResource(new File(this.directory, "records.csv"));
+    for (final PathResource resource : new PathResource[] {
+      this.shpResource, this.csvResource
+    }) {
+      try (
+        RecordWriter writer = RecordWriter.newRecordWriter(this.recordDefinition, resource)) {
+        for (final Record record : this.records) {
+          writer.write(record);
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void shapefileRead(final Blackhole blackhole) throws IOException {
+    try (
+      ShapefileRecordReader reader = new ShapefileRecordReader(this.shpResource,
+        ArrayRecord.FACTORY)) {
+      for (final Record record : reader) {
+        blackhole.consume(record);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    FileUtil.deleteDirectory(this.directory);
+  }
+}
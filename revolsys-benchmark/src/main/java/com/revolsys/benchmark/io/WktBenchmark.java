@@ -0,0 +1,77 @@
+package com.revolsys.benchmark.io;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.revolsys.benchmark.BenchmarkData;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.wkb.ParseException;
+import com.revolsys.geometry.wkb.WKTReader;
+import com.revolsys.record.io.format.wkt.WktParser;
+
+/**
+ * Parsing of line string and polygon WKT using the JTS derived {@link WKTReader}
+ * and the {@link WktParser}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WktBenchmark {
+
+  @Param({
+    "10", "1000"
+  })
+  public int vertexCount;
+
+  private String lineWkt;
+
+  private String polygonWkt;
+
+  private WktParser wktParser;
+
+  private WKTReader wktReader;
+
+  @Setup
+  public void setup() {
+    final Random random = BenchmarkData.newRandom();
+    this.lineWkt = BenchmarkData.newLineString(random, this.vertexCount, 50).toWkt();
+    this.polygonWkt = BenchmarkData.newPolygon(random, this.vertexCount, 1000).toWkt();
+    this.wktParser = new WktParser(BenchmarkData.GEOMETRY_FACTORY);
+    this.wktReader = new WKTReader(BenchmarkData.GEOMETRY_FACTORY);
+  }
+
+  @Benchmark
+  public Geometry wktParserLineString() {
+    return this.wktParser.parseGeometry(this.lineWkt);
+  }
+
+  @Benchmark
+  public Geometry wktParserPolygon() {
+    return this.wktParser.parseGeometry(this.polygonWkt);
+  }
+
+  @Benchmark
+  public Geometry wktReaderLineString() throws ParseException {
+    return this.wktReader.read(this.lineWkt);
+  }
+
+  @Benchmark
+  public Geometry wktReaderPolygon() throws ParseException {
+    return this.wktReader.read(this.polygonWkt);
+  }
+}
@@ -0,0 +1,107 @@
+package com.revolsys.benchmark.record;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.revolsys.benchmark.BenchmarkData;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.schema.RecordDefinition;
+
+/**
+ * Getting and setting {@link Record} values by field index and by field name.
+ * The set benchmarks include the conversion of the value to the field's data
+ * type.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordBenchmark {
+
+  private static final int RECORD_COUNT = 1000;
+
+  private int fieldCount;
+
+  private String[] fieldNames;
+
+  private RecordDefinition recordDefinition;
+
+  private List<Record> records;
+
+  @Benchmark
+  public void getValueByIndex(final Blackhole blackhole) {
+    final int fieldCount = this.fieldCount;
+    for (final Record record : this.records) {
+      for (int i = 0; i < fieldCount; i++) {
+        blackhole.consume(record.<Object> getValue(i));
+      }
+    }
+  }
+
+  @Benchmark
+  public void getValueByName(final Blackhole blackhole) {
+    final String[] fieldNames = this.fieldNames;
+    for (final Record record : this.records) {
+      for (final String fieldName : fieldNames) {
+        blackhole.consume(record.<Object> getValue(fieldName));
+      }
+    }
+  }
+
+  @Benchmark
+  public Record newRecord() {
+    return new ArrayRecord(this.recordDefinition);
+  }
+
+  @Benchmark
+  public void setValueByIndex() {
+    final int fieldCount = this.fieldCount;
+    for (final Record record : this.records) {
+      for (int i = 0; i < fieldCount; i++) {
+        record.setValue(i, record.getValue(i));
+      }
+    }
+  }
+
+  @Benchmark
+  public void setValueByName() {
+    final String[] fieldNames = this.fieldNames;
+    for (final Record record : this.records) {
+      for (final String fieldName : fieldNames) {
+        record.setValue(fieldName, record.getValue(fieldName));
+      }
+    }
+  }
+
+  @Benchmark
+  public void setValueConvert() {
+    int i = 0;
+    for (final Record record : this.records) {
+      record.setValue("COUNT", Integer.toString(i++));
+    }
+  }
+
+  @Setup
+  public void setup() {
+    this.recordDefinition = BenchmarkData.newRecordDefinition();
+    this.records = BenchmarkData.newRecords(BenchmarkData.newRandom(), this.recordDefinition,
+      RECORD_COUNT, 10);
+    this.fieldCount = this.recordDefinition.getFieldCount();
+    this.fieldNames = this.recordDefinition.getFieldNames().toArray(new String[0]);
+  }
+}
@@ -93,6 +93,22 @@ public class ThreadSharedProperties {
     }
   }
 
+  /**
+   * Use the properties of the thread group for the current thread. Used for
+   * threads (e.g. virtual threads) that cannot be created in the thread group.
+   */
+  public static void initialiseThread(final ThreadGroup threadGroup) {
+    Map<Object, Object> properties = null;
+    if (threadGroup != null) {
+      synchronized (threadGroupProperties) {
+        properties = threadGroupProperties.get(threadGroup);
+      }
+    }
+    if (properties != null) {
+      threadProperties.set(properties);
+    }
+  }
+
   public static void initialiseThreadGroup(final ThreadGroup threadGroup) {
     final Map<Object, Object> properties = getLocalProperties();
     synchronized (threadGroupProperties) {
@@ -0,0 +1,261 @@
+package com.revolsys.elevation.cloud.las;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.jeometry.common.logging.Logs;
+
+import com.revolsys.elevation.cloud.las.pointformat.LasPoint;
+import com.revolsys.elevation.cloud.las.zip.LasZipChunkDecoder;
+import com.revolsys.elevation.cloud.las.zip.LasZipChunkTable;
+import com.revolsys.elevation.cloud.las.zip.LasZipHeader;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.io.channels.ChannelReader;
+import com.revolsys.io.channels.ChannelWriter;
+import com.revolsys.io.channels.DataReader;
+import com.revolsys.spring.resource.Resource;
+
+/**
+ * A spatial index of the chunks of consecutive points in a LAS or LAZ file.
+ * For a LAZ file the chunks are the chunks in the {@link LasZipChunkTable},
+ * for a LAS file each chunk has {@link #DEFAULT_CHUNK_SIZE} point records. The
+ * bounding box of each chunk is stored so a read with a bounding box only reads
+ * the chunks that intersect the bounding box. The index is most effective if
+ * the points are spatially sorted so each chunk covers a small area.
+ * <p>
+ * The index can be saved to a sidecar file with the {@link #FILE_EXTENSION}
+ * added to the file name so it is only built once.
+ */
+public class LasPointChunkIndex {
+
+  public static final int DEFAULT_CHUNK_SIZE = 50000;
+
+  public static final String FILE_EXTENSION = "lasidx";
+
+  private static final String FILE_TYPE = "LASINDEX";
+
+  private static final int VERSION = 1;
+
+  /**
+   * Build the index by reading the x, y, z of all the points. The chunks in a
+   * LAZ file are decompressed in parallel.
+   *
+   * @param pointCloud The point cloud.
+   * @param reader The reader positioned at the start of the point data.
+   * @return The index or null if the points can't be read by chunk.
+   */
+  static LasPointChunkIndex newChunkIndex(final LasPointCloud pointCloud,
+    final ChannelReader reader) {
+    final long pointCount = pointCloud.getPointCount();
+    final LasZipHeader lasZipHeader = LasZipHeader.getLasZipHeader(pointCloud);
+    if (lasZipHeader == null) {
+      final int chunkCount = (int)((pointCount + DEFAULT_CHUNK_SIZE - 1) / DEFAULT_CHUNK_SIZE);
+      final LasPointChunkIndex index = new LasPointChunkIndex(pointCloud, chunkCount);
+      final int skipCount = pointCloud.getHeader().getRecordLength() - 12;
+      for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+        final long startIndex = index.pointIndexes[chunkIndex];
+        final long endIndex = Math.min(startIndex + DEFAULT_CHUNK_SIZE, pointCount);
+        index.pointIndexes[chunkIndex + 1] = endIndex;
+        for (long i = startIndex; i < endIndex; i++) {
+          final int x = reader.getInt();
+          final int y = reader.getInt();
+          final int z = reader.getInt();
+          reader.skipBytes(skipCount);
+          index.expand(chunkIndex, x, y, z);
+        }
+      }
+      return index;
+    } else {
+      final LasZipChunkTable chunkTable = LasZipChunkTable.readChunkTable(pointCloud, reader);
+      if (chunkTable == null) {
+        return null;
+      }
+      final int chunkCount = chunkTable.getChunkCount();
+      final LasPointChunkIndex index = new LasPointChunkIndex(pointCloud, chunkCount);
+      for (int chunkIndex = 0; chunkIndex <= chunkCount; chunkIndex++) {
+        index.pointIndexes[chunkIndex] = chunkTable.getPointIndex(chunkIndex);
+      }
+      IntStream.range(0, chunkCount).parallel().forEach(chunkIndex -> {
+        final LasZipChunkDecoder decoder = new LasZipChunkDecoder(pointCloud);
+        decoder.init(chunkTable, reader, chunkIndex);
+        while (decoder.hasNext()) {
+          final LasPoint point = decoder.next();
+          index.expand(chunkIndex, point.getXInt(), point.getYInt(), point.getZInt());
+        }
+      });
+      return index;
+    }
+  }
+
+  /**
+   * Read the index from the sidecar file.
+   *
+   * @param pointCloud The point cloud.
+   * @param resource The index file.
+   * @return The index or null if the file is not a valid index for the point
+   *         cloud.
+   */
+  static LasPointChunkIndex readChunkIndex(final LasPointCloud pointCloud,
+    final Resource resource) {
+    try (
+      DataReader reader = resource.newChannelReader(8192, ByteOrder.LITTLE_ENDIAN)) {
+      if (reader == null) {
+        return null;
+      }
+      final String fileType = reader.getUsAsciiString(FILE_TYPE.length());
+      final int version = reader.getInt();
+      final long pointCount = reader.getLong();
+      if (!FILE_TYPE.equals(fileType) || version != VERSION
+        || pointCount != pointCloud.getPointCount()) {
+        return null;
+      }
+      final int chunkCount = reader.getInt();
+      final LasPointChunkIndex index = new LasPointChunkIndex(pointCloud, chunkCount);
+      for (int i = 0; i <= chunkCount; i++) {
+        index.pointIndexes[i] = reader.getLong();
+      }
+      for (int i = 0; i < index.bounds.length; i++) {
+        index.bounds[i] = reader.getInt();
+      }
+      if (index.pointIndexes[chunkCount] != pointCount) {
+        return null;
+      }
+      return index;
+    } catch (final RuntimeException e) {
+      Logs.error(LasPointChunkIndex.class, "Error reading: " + resource, e);
+      return null;
+    }
+  }
+
+  /** The minX, minY, minZ, maxX, maxY, maxZ of each chunk. */
+  private final int[] bounds;
+
+  private final int chunkCount;
+
+  private final LasPointCloud pointCloud;
+
+  /** The index of the first point in each chunk followed by the point count. */
+  private final long[] pointIndexes;
+
+  private LasPointChunkIndex(final LasPointCloud pointCloud, final int chunkCount) {
+    this.pointCloud = pointCloud;
+    this.chunkCount = chunkCount;
+    this.pointIndexes = new long[chunkCount + 1];
+    this.bounds = new int[chunkCount * 6];
+    for (int i = 0; i < this.bounds.length; i += 6) {
+      Arrays.fill(this.bounds, i, i + 3, Integer.MAX_VALUE);
+      Arrays.fill(this.bounds, i + 3, i + 6, Integer.MIN_VALUE);
+    }
+  }
+
+  private void expand(final int chunkIndex, final int x, final int y, final int z) {
+    final int[] bounds = this.bounds;
+    final int offset = chunkIndex * 6;
+    if (x < bounds[offset]) {
+      bounds[offset] = x;
+    }
+    if (y < bounds[offset + 1]) {
+      bounds[offset + 1] = y;
+    }
+    if (z < bounds[offset + 2]) {
+      bounds[offset + 2] = z;
+    }
+    if (x > bounds[offset + 3]) {
+      bounds[offset + 3] = x;
+    }
+    if (y > bounds[offset + 4]) {
+      bounds[offset + 4] = y;
+    }
+    if (z > bounds[offset + 5]) {
+      bounds[offset + 5] = z;
+    }
+  }
+
+  /**
+   * Get the bounding box of the points in the chunk.
+   */
+  public BoundingBox getBoundingBox(final int chunkIndex) {
+    final LasPointCloud pointCloud = this.pointCloud;
+    final GeometryFactory geometryFactory = pointCloud.getGeometryFactory();
+    final int offset = chunkIndex * 6;
+    final int[] bounds = this.bounds;
+    if (bounds[offset] > bounds[offset + 3]) {
+      return geometryFactory.bboxEmpty();
+    }
+    return geometryFactory.newBoundingBox(3, //
+      pointCloud.toDoubleX(bounds[offset]), //
+      pointCloud.toDoubleY(bounds[offset + 1]), //
+      pointCloud.toDoubleZ(bounds[offset + 2]), //
+      pointCloud.toDoubleX(bounds[offset + 3]), //
+      pointCloud.toDoubleY(bounds[offset + 4]), //
+      pointCloud.toDoubleZ(bounds[offset + 5]));
+  }
+
+  public int getChunkCount() {
+    return this.chunkCount;
+  }
+
+  /**
+   * Get the indexes of the chunks that intersect the bounding box in x and y.
+   *
+   * @param boundingBox The bounding box in the point cloud's coordinate system.
+   * @return The chunk indexes in file order.
+   */
+  public int[] getChunkIndexes(final BoundingBox boundingBox) {
+    if (boundingBox.isEmpty()) {
+      return new int[0];
+    }
+    final LasPointCloud pointCloud = this.pointCloud;
+    // Compare in doubles as the bounding box may be outside the integer range
+    final double minX = boundingBox.getMinX();
+    final double minY = boundingBox.getMinY();
+    final double maxX = boundingBox.getMaxX();
+    final double maxY = boundingBox.getMaxY();
+    final int[] bounds = this.bounds;
+    final int[] chunkIndexes = new int[this.chunkCount];
+    int count = 0;
+    for (int chunkIndex = 0; chunkIndex < this.chunkCount; chunkIndex++) {
+      final int offset = chunkIndex * 6;
+      if (bounds[offset] <= bounds[offset + 3]
+        && pointCloud.toDoubleX(bounds[offset]) <= maxX
+        && pointCloud.toDoubleX(bounds[offset + 3]) >= minX
+        && pointCloud.toDoubleY(bounds[offset + 1]) <= maxY
+        && pointCloud.toDoubleY(bounds[offset + 4]) >= minY) {
+        chunkIndexes[count++] = chunkIndex;
+      }
+    }
+    return Arrays.copyOf(chunkIndexes, count);
+  }
+
+  /**
+   * Get the index of the first point in the chunk. Using
+   * {@link #getChunkCount()} as the chunk index returns the total number of
+   * points.
+   */
+  public long getPointIndex(final int chunkIndex) {
+    return this.pointIndexes[chunkIndex];
+  }
+
+  /**
+   * Write the index to the sidecar file.
+   *
+   * @param resource The index file.
+   */
+  public void writeChunkIndex(final Resource resource) {
+    try (
+      ChannelWriter writer = resource.newChannelWriter(8192, ByteOrder.LITTLE_ENDIAN)) {
+      writer.putString(FILE_TYPE, FILE_TYPE.length());
+      writer.putInt(VERSION);
+      writer.putLong(this.pointIndexes[this.chunkCount]);
+      writer.putInt(this.chunkCount);
+      for (final long pointIndex : this.pointIndexes) {
+        writer.putLong(pointIndex);
+      }
+      for (final int bound : this.bounds) {
+        writer.putInt(bound);
+      }
+    }
+  }
+}
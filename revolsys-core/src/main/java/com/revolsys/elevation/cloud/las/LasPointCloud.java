@@ -10,13 +10,20 @@ import java.util.Collections;
 import java.util.GregorianCalendar;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.revolsys.collection.map.MapEx;
 import com.revolsys.elevation.cloud.PointCloud;
 import com.revolsys.elevation.cloud.las.pointformat.LasPoint;
 import com.revolsys.elevation.cloud.las.pointformat.LasPointFormat;
+import com.revolsys.elevation.cloud.las.zip.LasZipChunkDecoder;
+import com.revolsys.elevation.cloud.las.zip.LasZipChunkSpliterator;
+import com.revolsys.elevation.cloud.las.zip.LasZipChunkTable;
 import com.revolsys.elevation.cloud.las.zip.LasZipCompressorType;
 import com.revolsys.elevation.cloud.las.zip.LasZipHeader;
 import com.revolsys.elevation.cloud.las.zip.LasZipPointCloudWriterFactory;
@@ -62,6 +69,8 @@ public class LasPointCloud extends BaseObjectWithProperties
 
   private ByteBuffer byteBuffer;
 
+  private LasPointChunkIndex chunkIndex;
+
   private final long[] classificationCounts = new long[256];
 
   private boolean classificationsLoaded;
@@ -76,6 +85,8 @@ public class LasPointCloud extends BaseObjectWithProperties
 
   private Resource lasResource;
 
+  private LasPointColumns pointColumns;
+
   private List<LasPoint> points = new ArrayList<>();
 
   private ChannelReader reader;
@@ -115,6 +126,8 @@ public class LasPointCloud extends BaseObjectWithProperties
   public <P extends LasPoint> P addPoint(final double x, final double y, final double z) {
     final LasPoint lasPoint = newLasPoint(x, y, z);
     this.points.add(lasPoint);
+    this.chunkIndex = null;
+    this.pointColumns = null;
     this.header.addCounts(lasPoint);
     return (P)lasPoint;
   }
@@ -123,6 +136,8 @@ public class LasPointCloud extends BaseObjectWithProperties
     closeReader();
     this.header.clear();
     this.points = new ArrayList<>();
+    this.chunkIndex = null;
+    this.pointColumns = null;
   }
 
   @Override
@@ -138,6 +153,75 @@ public class LasPointCloud extends BaseObjectWithProperties
     }
   }
 
+  /**
+   * Call the action for each point whose x, y is covered by the bounding box.
+   * If the points can be read by chunk only the chunks in the
+   * {@link #getChunkIndex()} that intersect the bounding box are read.
+   *
+   * @param boundingBox The bounding box.
+   * @param action The action to call for each point.
+   */
+  public void forEachPoint(final BoundingBox boundingBox,
+    final Consumer<? super LasPoint> action) {
+    final BoundingBox convertedBoundingBox = boundingBox.bboxToCs(this);
+    final Consumer<LasPoint> filteredAction = point -> {
+      if (convertedBoundingBox.bboxCovers(point.getX(), point.getY())) {
+        action.accept(point);
+      }
+    };
+    if (this.allLoaded || !this.points.isEmpty()) {
+      this.points.forEach(filteredAction);
+      return;
+    }
+    final LasPointChunkIndex chunkIndex = getChunkIndex();
+    if (chunkIndex == null) {
+      forEachPoint(filteredAction);
+      return;
+    }
+    final int[] chunkIndexes = chunkIndex.getChunkIndexes(convertedBoundingBox);
+    if (chunkIndexes.length == 0) {
+      return;
+    }
+    final ChannelReader reader = openReader();
+    if (reader != null) {
+      try {
+        final LasZipHeader lasZipHeader = LasZipHeader.getLasZipHeader(this);
+        if (lasZipHeader == null) {
+          final LasPointFormat pointFormat = getPointFormat();
+          final long pointRecordsOffset = this.header.getPointRecordsOffset();
+          final int recordLength = this.header.getRecordLength();
+          for (final int chunk : chunkIndexes) {
+            final long startIndex = chunkIndex.getPointIndex(chunk);
+            final long endIndex = chunkIndex.getPointIndex(chunk + 1);
+            reader.seek(pointRecordsOffset + startIndex * recordLength);
+            for (long i = startIndex; i < endIndex; i++) {
+              final LasPoint point = pointFormat.readLasPoint(this, reader);
+              filteredAction.accept(point);
+            }
+          }
+        } else {
+          final LasZipChunkTable chunkTable = LasZipChunkTable.readChunkTable(this, reader);
+          if (chunkTable == null || chunkTable.getChunkCount() != chunkIndex.getChunkCount()) {
+            // The index doesn't match the file so read all the points
+            final LasZipCompressorType compressor = lasZipHeader.getCompressor();
+            compressor.newIterator(this, reader).forEach(filteredAction);
+          } else {
+            final LasZipChunkDecoder decoder = new LasZipChunkDecoder(this);
+            for (final int chunk : chunkIndexes) {
+              decoder.init(chunkTable, reader, chunk);
+              while (decoder.hasNext()) {
+                final LasPoint point = decoder.next();
+                filteredAction.accept(point);
+              }
+            }
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    }
+  }
+
   @Override
   public void forEachPoint(final Consumer<? super LasPoint> action) {
     final Iterable<LasPoint> iterable = iterable();
@@ -160,6 +244,40 @@ public class LasPointCloud extends BaseObjectWithProperties
     }
   }
 
+  /**
+   * Get the spatial index of the chunks of points. The index is read from the
+   * sidecar file with the {@link LasPointChunkIndex#FILE_EXTENSION} added to the
+   * file name if it is newer than the point cloud file, otherwise the index is
+   * built by reading the points. Use {@link #writeChunkIndex()} to save the
+   * index to the sidecar file.
+   *
+   * @return The index or null if the points can't be read by chunk.
+   */
+  public synchronized LasPointChunkIndex getChunkIndex() {
+    if (this.chunkIndex == null && this.lasResource != null) {
+      final Resource indexResource = getChunkIndexResource();
+      if (Resource.exists(indexResource)
+        && indexResource.getLastModified() >= this.resource.getLastModified()) {
+        this.chunkIndex = LasPointChunkIndex.readChunkIndex(this, indexResource);
+      }
+      if (this.chunkIndex == null) {
+        final ChannelReader reader = openReader();
+        if (reader != null) {
+          try {
+            this.chunkIndex = LasPointChunkIndex.newChunkIndex(this, reader);
+          } finally {
+            reader.close();
+          }
+        }
+      }
+    }
+    return this.chunkIndex;
+  }
+
+  private Resource getChunkIndexResource() {
+    return this.resource.newResourceAddExtension(LasPointChunkIndex.FILE_EXTENSION);
+  }
+
   public long[] getClassificationCounts() {
     return this.classificationCounts.clone();
   }
@@ -199,6 +317,52 @@ public class LasPointCloud extends BaseObjectWithProperties
     return this.header;
   }
 
+  /**
+   * Get the points stored in a {@link LasPointColumns} with a primitive array
+   * for each attribute instead of a {@link LasPoint} object for each point. The
+   * columns are loaded the first time this method is called.
+   *
+   * @return The point columns.
+   */
+  public synchronized LasPointColumns getPointColumns() {
+    if (this.pointColumns == null) {
+      final long pointCount = getPointCount();
+      if (pointCount > Integer.MAX_VALUE - 8) {
+        throw new IllegalStateException("Too many points to load " + pointCount);
+      }
+      final LasPointColumns columns = new LasPointColumns(this, (int)pointCount);
+      if (this.allLoaded || !this.points.isEmpty()) {
+        for (final LasPoint point : this.points) {
+          columns.addPoint(point);
+        }
+      } else {
+        final ChannelReader reader = openReader();
+        if (reader != null) {
+          try {
+            final LasZipHeader lasZipHeader = LasZipHeader.getLasZipHeader(this);
+            if (lasZipHeader == null) {
+              columns.readPoints(reader, (int)pointCount);
+            } else {
+              final LasZipChunkTable chunkTable = LasZipChunkTable.readChunkTable(this, reader);
+              if (chunkTable == null) {
+                final LasZipCompressorType compressor = lasZipHeader.getCompressor();
+                for (final LasPoint point : compressor.newIterator(this, reader)) {
+                  columns.addPoint(point);
+                }
+              } else {
+                readPointColumns(columns, reader, chunkTable);
+              }
+            }
+          } finally {
+            reader.close();
+          }
+        }
+      }
+      this.pointColumns = columns;
+    }
+    return this.pointColumns;
+  }
+
   public long getPointCount() {
     return this.header.getPointCount();
   }
@@ -229,11 +393,7 @@ public class LasPointCloud extends BaseObjectWithProperties
     if (this.allLoaded || !this.points.isEmpty()) {
       return this.points;
     } else {
-      ChannelReader reader = this.reader;
-      this.reader = null;
-      if (reader == null) {
-        reader = open();
-      }
+      final ChannelReader reader = openReader();
       if (reader == null) {
         return Collections.emptyList();
       } else {
@@ -325,13 +485,90 @@ public class LasPointCloud extends BaseObjectWithProperties
     return reader;
   }
 
+  /**
+   * Get the reader opened by the constructor if it hasn't been used, otherwise
+   * open a new reader positioned at the first point record.
+   */
+  private synchronized ChannelReader openReader() {
+    ChannelReader reader = this.reader;
+    this.reader = null;
+    if (reader == null) {
+      reader = open();
+    }
+    return reader;
+  }
+
+  /**
+   * Get a parallel stream of the points. For a chunked LAZ file with a chunk
+   * table the chunks are decompressed independently on the threads of the
+   * {@link java.util.concurrent.ForkJoinPool} running the stream, otherwise the
+   * points are read sequentially. The stream is ordered, use
+   * {@link Stream#forEachOrdered} to process the points in file order or
+   * {@link Stream#unordered()} if the order is not required. Closing the stream
+   * closes the reader.
+   *
+   * @return The stream.
+   */
+  public Stream<LasPoint> parallelStream() {
+    if (this.allLoaded || !this.points.isEmpty()) {
+      return this.points.parallelStream();
+    }
+    final ChannelReader reader = openReader();
+    if (reader == null) {
+      return Stream.empty();
+    }
+    try {
+      final LasZipChunkTable chunkTable = LasZipChunkTable.readChunkTable(this, reader);
+      final Spliterator<LasPoint> spliterator;
+      if (chunkTable == null) {
+        final LasZipHeader lasZipHeader = LasZipHeader.getLasZipHeader(this);
+        if (lasZipHeader == null) {
+          spliterator = new LasPointCloudIterator(this, reader).spliterator();
+        } else {
+          final LasZipCompressorType compressor = lasZipHeader.getCompressor();
+          spliterator = compressor.newIterator(this, reader).spliterator();
+        }
+      } else {
+        spliterator = new LasZipChunkSpliterator(this, reader, chunkTable);
+      }
+      return StreamSupport.stream(spliterator, true).onClose(reader::close);
+    } catch (RuntimeException | Error e) {
+      reader.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Decompress the chunks in parallel setting the points in the columns at the
+   * index of each point.
+   */
+  private void readPointColumns(final LasPointColumns columns, final ChannelReader reader,
+    final LasZipChunkTable chunkTable) {
+    columns.setPointCount((int)chunkTable.getPointIndex(chunkTable.getChunkCount()));
+    IntStream.range(0, chunkTable.getChunkCount()).parallel().forEach(chunkIndex -> {
+      final LasZipChunkDecoder decoder = new LasZipChunkDecoder(this);
+      decoder.init(chunkTable, reader, chunkIndex);
+      int index = (int)chunkTable.getPointIndex(chunkIndex);
+      while (decoder.hasNext()) {
+        final LasPoint point = decoder.next();
+        columns.setPoint(index++, point);
+      }
+    });
+  }
+
   @Override
   public void refreshClassificationCounts() {
-    Arrays.fill(this.classificationCounts, 0);
-    forEachPoint(point -> {
-      final short classification = point.getClassification();
-      this.classificationCounts[classification]++;
-    });
+    final LasPointColumns pointColumns = this.pointColumns;
+    if (pointColumns == null) {
+      Arrays.fill(this.classificationCounts, 0);
+      forEachPoint(point -> {
+        final short classification = point.getClassification();
+        this.classificationCounts[classification]++;
+      });
+    } else {
+      final long[] counts = pointColumns.getClassificationCounts();
+      System.arraycopy(counts, 0, this.classificationCounts, 0, counts.length);
+    }
     this.classificationsLoaded = true;
   }
 
@@ -396,6 +633,24 @@ public class LasPointCloud extends BaseObjectWithProperties
     return map;
   }
 
+  /**
+   * Write the {@link #getChunkIndex()} to the sidecar file with the
+   * {@link LasPointChunkIndex#FILE_EXTENSION} added to the file name.
+   *
+   * @return True if the index was written.
+   */
+  public boolean writeChunkIndex() {
+    final LasPointChunkIndex chunkIndex = getChunkIndex();
+    if (chunkIndex != null) {
+      final Resource indexResource = getChunkIndexResource();
+      if (indexResource != null) {
+        chunkIndex.writeChunkIndex(indexResource);
+        return true;
+      }
+    }
+    return false;
+  }
+
   public void writeHtml(final HtmlWriter writer) {
     writer.divClass("las");
     writer.attribute(HtmlAttr.CLASS, "las");
@@ -417,5 +672,4 @@ public class LasPointCloud extends BaseObjectWithProperties
     }
     writer.endTag();
   }
-
 }
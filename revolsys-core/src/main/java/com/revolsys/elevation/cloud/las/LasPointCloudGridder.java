@@ -0,0 +1,317 @@
+package com.revolsys.elevation.cloud.las;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import com.revolsys.elevation.cloud.las.pointformat.LasPoint;
+import com.revolsys.elevation.gridded.IntArrayScaleGriddedElevationModel;
+import com.revolsys.elevation.gridded.scaledint.ScaledIntegerGriddedDigitalElevation;
+import com.revolsys.elevation.gridded.scaledint.TiledMemoryScaledIntegerGriddedDigitalElevationModel;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.io.file.Paths;
+
+/**
+ * Create a gridded elevation model by binning the points from a
+ * {@link LasPointCloud} directly into the grid cells, instead of building a
+ * TIN and interpolating the triangles. The points are streamed from the point
+ * cloud and only the accumulated values for the cells of the grid being
+ * created are held in memory. The elevation of each cell is calculated from
+ * the points within the cell using the {@link LasPointGridAggregation}. Cells
+ * without any points are null.
+ * <p>
+ * {@link #writeTiles(Path, String)} creates a grid for each tile of
+ * {@link #getGridTileSize()} cells using
+ * {@link LasPointCloud#forEachPoint(BoundingBox, Consumer)}, so only the
+ * chunks of points that intersect the tile are read and the memory used is
+ * bounded by the tile size. The tiles can be created in parallel.
+ */
+public class LasPointCloudGridder {
+
+  private LasPointGridAggregation aggregation = LasPointGridAggregation.MEAN;
+
+  private Predicate<? super LasPoint> filter;
+
+  private final GeometryFactory geometryFactory;
+
+  private final double gridCellSize;
+
+  private int gridTileSize = 1000;
+
+  private boolean parallel = true;
+
+  private final LasPointCloud pointCloud;
+
+  /**
+   * Construct a new gridder using the point cloud's
+   * {@link LasPointCloud#getDefaultFilter()}.
+   *
+   * @param pointCloud The point cloud.
+   * @param gridCellSize The width and height of the grid cells.
+   */
+  public LasPointCloudGridder(final LasPointCloud pointCloud, final double gridCellSize) {
+    this.pointCloud = pointCloud;
+    this.gridCellSize = gridCellSize;
+    final double scaleXy = 1 / gridCellSize;
+    this.geometryFactory = pointCloud.getGeometryFactory()
+      .convertAxisCountAndScales(3, scaleXy, scaleXy, 1000.0);
+    this.filter = pointCloud.getDefaultFilter();
+  }
+
+  public LasPointGridAggregation getAggregation() {
+    return this.aggregation;
+  }
+
+  public double getGridCellSize() {
+    return this.gridCellSize;
+  }
+
+  public int getGridTileSize() {
+    return this.gridTileSize;
+  }
+
+  public boolean isParallel() {
+    return this.parallel;
+  }
+
+  /**
+   * Create a grid covering the point cloud's bounding box.
+   *
+   * @return The grid.
+   */
+  public IntArrayScaleGriddedElevationModel newGriddedElevationModel() {
+    final BoundingBox boundingBox = this.pointCloud.getBoundingBox();
+    final double gridCellSize = this.gridCellSize;
+    final double minX = Math.floor(boundingBox.getMinX() / gridCellSize) * gridCellSize;
+    final double minY = Math.floor(boundingBox.getMinY() / gridCellSize) * gridCellSize;
+    final int gridWidth = (int)Math.floor((boundingBox.getMaxX() - minX) / gridCellSize) + 1;
+    final int gridHeight = (int)Math.floor((boundingBox.getMaxY() - minY) / gridCellSize) + 1;
+    return newGriddedElevationModel(minX, minY, gridWidth, gridHeight);
+  }
+
+  /**
+   * Create a grid from the points within the grid's extent.
+   *
+   * @param minX The x coordinate of the lower left corner of the grid.
+   * @param minY The y coordinate of the lower left corner of the grid.
+   * @param gridWidth The number of columns.
+   * @param gridHeight The number of rows.
+   * @return The grid.
+   */
+  public IntArrayScaleGriddedElevationModel newGriddedElevationModel(final double minX,
+    final double minY, final int gridWidth, final int gridHeight) {
+    final CellAccumulator accumulator = new CellAccumulator(minX, minY, gridWidth, gridHeight);
+    final double maxX = minX + gridWidth * this.gridCellSize;
+    final double maxY = minY + gridHeight * this.gridCellSize;
+    final BoundingBox boundingBox = this.geometryFactory.newBoundingBox(minX, minY, maxX, maxY);
+    this.pointCloud.forEachPoint(boundingBox, accumulator);
+    return accumulator.newGriddedElevationModel();
+  }
+
+  public LasPointCloudGridder setAggregation(final LasPointGridAggregation aggregation) {
+    this.aggregation = aggregation;
+    return this;
+  }
+
+  public LasPointCloudGridder setFilter(final Predicate<? super LasPoint> filter) {
+    if (filter == null) {
+      this.filter = point -> true;
+    } else {
+      this.filter = filter;
+    }
+    return this;
+  }
+
+  public LasPointCloudGridder setGridTileSize(final int gridTileSize) {
+    if (gridTileSize < 1) {
+      throw new IllegalArgumentException("gridTileSize must be > 0: " + gridTileSize);
+    }
+    this.gridTileSize = gridTileSize;
+    return this;
+  }
+
+  public LasPointCloudGridder setParallel(final boolean parallel) {
+    this.parallel = parallel;
+    return this;
+  }
+
+  private boolean writeTile(final Path tileDirectory, final String tilePrefix, final int tileX,
+    final int tileY) {
+    final int gridTileSize = this.gridTileSize;
+    final IntArrayScaleGriddedElevationModel grid = newGriddedElevationModel(tileX, tileY,
+      gridTileSize, gridTileSize);
+    if (grid.isEmpty()) {
+      return false;
+    } else {
+      final String fileName = tilePrefix + "_" + tileX + "_" + tileY + "."
+        + ScaledIntegerGriddedDigitalElevation.FILE_EXTENSION;
+      final Path file = tileDirectory //
+        .resolve(Integer.toString(tileX)) //
+        .resolve(fileName);
+      Paths.createParentDirectories(file);
+      grid.writeGriddedElevationModel(file);
+      return true;
+    }
+  }
+
+  /**
+   * Create a grid for each tile that intersects the point cloud and write it
+   * using the {@link ScaledIntegerGriddedDigitalElevation} format with the
+   * directory structure and file names used by
+   * {@link TiledMemoryScaledIntegerGriddedDigitalElevationModel}. Tiles
+   * without any values are not written.
+   *
+   * @param baseDirectory The base directory.
+   * @param filePrefix The prefix for the tile file names.
+   * @return The number of tiles written.
+   */
+  public int writeTiles(final Path baseDirectory, final String filePrefix) {
+    final int tileWidth = (int)(this.gridTileSize * this.gridCellSize);
+    if (tileWidth != this.gridTileSize * this.gridCellSize) {
+      throw new IllegalArgumentException("gridTileSize * gridCellSize must be an integer: "
+        + this.gridTileSize + " * " + this.gridCellSize);
+    }
+    final BoundingBox boundingBox = this.pointCloud.getBoundingBox();
+    if (boundingBox.isEmpty()) {
+      return 0;
+    }
+    final int minTileX = (int)Math.floor(boundingBox.getMinX() / tileWidth);
+    final int minTileY = (int)Math.floor(boundingBox.getMinY() / tileWidth);
+    final int tileCountX = (int)Math.floor(boundingBox.getMaxX() / tileWidth) - minTileX + 1;
+    final int tileCountY = (int)Math.floor(boundingBox.getMaxY() / tileWidth) - minTileY + 1;
+
+    final int coordinateSystemId = this.geometryFactory.getHorizontalCoordinateSystemId();
+    final String tileWidthString = Integer.toString(tileWidth);
+    final Path tileDirectory = baseDirectory
+      .resolve(ScaledIntegerGriddedDigitalElevation.FILE_EXTENSION)
+      .resolve(Integer.toString(coordinateSystemId))
+      .resolve(tileWidthString);
+    final String tilePrefix = filePrefix + "_" + coordinateSystemId + "_" + tileWidthString;
+
+    IntStream tileIndexes = IntStream.range(0, tileCountX * tileCountY);
+    if (this.parallel) {
+      tileIndexes = tileIndexes.parallel();
+    }
+    return (int)tileIndexes.filter(tileIndex -> {
+      final int tileX = (minTileX + tileIndex % tileCountX) * tileWidth;
+      final int tileY = (minTileY + tileIndex / tileCountX) * tileWidth;
+      return writeTile(tileDirectory, tilePrefix, tileX, tileY);
+    }).count();
+  }
+
+  /**
+   * Accumulate the elevations of the points in each cell of a grid.
+   */
+  private class CellAccumulator implements Consumer<LasPoint> {
+
+    private final int gridHeight;
+
+    private final int gridWidth;
+
+    private final double minDistanceSquared;
+
+    private final double minX;
+
+    private final double minY;
+
+    /** The sum for weighted aggregations otherwise the current value. */
+    private final double[] values;
+
+    /** The sum of the weights for weighted aggregations. */
+    private final double[] weights;
+
+    private CellAccumulator(final double minX, final double minY, final int gridWidth,
+      final int gridHeight) {
+      this.minX = minX;
+      this.minY = minY;
+      this.gridWidth = gridWidth;
+      this.gridHeight = gridHeight;
+      final double minDistance = LasPointCloudGridder.this.gridCellSize / 1000;
+      this.minDistanceSquared = minDistance * minDistance;
+      final int cellCount = gridWidth * gridHeight;
+      this.values = new double[cellCount];
+      if (LasPointCloudGridder.this.aggregation.isWeighted()) {
+        this.weights = new double[cellCount];
+      } else {
+        this.weights = null;
+        Arrays.fill(this.values, Double.NaN);
+      }
+    }
+
+    @Override
+    public void accept(final LasPoint point) {
+      if (!LasPointCloudGridder.this.filter.test(point)) {
+        return;
+      }
+      final double gridCellSize = LasPointCloudGridder.this.gridCellSize;
+      final double x = point.getX();
+      final double y = point.getY();
+      final int gridX = (int)Math.floor((x - this.minX) / gridCellSize);
+      final int gridY = (int)Math.floor((y - this.minY) / gridCellSize);
+      if (gridX < 0 || gridX >= this.gridWidth || gridY < 0 || gridY >= this.gridHeight) {
+        return;
+      }
+      final int index = gridY * this.gridWidth + gridX;
+      final double z = point.getZ();
+      final double[] values = this.values;
+      switch (LasPointCloudGridder.this.aggregation) {
+        case IDW:
+          final double dx = x - (this.minX + (gridX + 0.5) * gridCellSize);
+          final double dy = y - (this.minY + (gridY + 0.5) * gridCellSize);
+          final double weight = 1 / Math.max(dx * dx + dy * dy, this.minDistanceSquared);
+          values[index] += weight * z;
+          this.weights[index] += weight;
+        break;
+        case LAST_RETURN:
+          if (point.getReturnNumber() == point.getNumberOfReturns() && !(values[index] <= z)) {
+            values[index] = z;
+          }
+        break;
+        case MAX:
+          if (!(values[index] >= z)) {
+            values[index] = z;
+          }
+        break;
+        case MEAN:
+          values[index] += z;
+          this.weights[index]++;
+        break;
+        case MIN:
+          if (!(values[index] <= z)) {
+            values[index] = z;
+          }
+        break;
+        default:
+        break;
+      }
+    }
+
+    private IntArrayScaleGriddedElevationModel newGriddedElevationModel() {
+      final int gridWidth = this.gridWidth;
+      final IntArrayScaleGriddedElevationModel grid = new IntArrayScaleGriddedElevationModel(
+        LasPointCloudGridder.this.geometryFactory, this.minX, this.minY, gridWidth,
+        this.gridHeight, LasPointCloudGridder.this.gridCellSize);
+      final double[] values = this.values;
+      final double[] weights = this.weights;
+      for (int index = 0; index < values.length; index++) {
+        double value = values[index];
+        if (weights != null) {
+          final double weight = weights[index];
+          if (weight > 0) {
+            value /= weight;
+          } else {
+            value = Double.NaN;
+          }
+        }
+        if (!Double.isNaN(value)) {
+          grid.setValue(index % gridWidth, index / gridWidth, value);
+        }
+      }
+      grid.updateValues();
+      return grid;
+    }
+  }
+}
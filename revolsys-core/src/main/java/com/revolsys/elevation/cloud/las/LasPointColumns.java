@@ -0,0 +1,694 @@
+package com.revolsys.elevation.cloud.las;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+import com.revolsys.elevation.cloud.las.pointformat.LasPoint;
+import com.revolsys.elevation.cloud.las.pointformat.LasPointExtended;
+import com.revolsys.elevation.cloud.las.pointformat.LasPointFormat;
+import com.revolsys.elevation.cloud.las.pointformat.LasPointWavePackets;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.io.channels.ChannelWriter;
+import com.revolsys.io.channels.DataReader;
+
+/**
+ * <p>
+ * Columnar (struct of arrays) in memory storage for the points of a
+ * {@link LasPointCloud}. Each attribute is stored in a primitive array indexed
+ * by the point index. The arrays are only allocated for the attributes the
+ * {@link LasPointFormat} has so a point format 3 point uses 36 bytes instead of
+ * a {@link LasPoint} object.
+ * </p>
+ * <p>
+ * The points are accessed using a {@link LasPointCursor} flyweight. The
+ * {@link #iterator()} and {@link #forEachPoint(Consumer)} methods return the
+ * same cursor for each point, use {@link LasPointCursor#clone()} to keep a
+ * reference to a point.
+ * </p>
+ */
+public class LasPointColumns implements Iterable<LasPoint> {
+
+  private static char[] copy(final char[] values, final int[] indexes, final int count) {
+    if (values == null) {
+      return null;
+    } else {
+      final char[] newValues = new char[count];
+      for (int i = 0; i < count; i++) {
+        newValues[i] = values[indexes[i]];
+      }
+      return newValues;
+    }
+  }
+
+  private static double[] copy(final double[] values, final int[] indexes, final int count) {
+    if (values == null) {
+      return null;
+    } else {
+      final double[] newValues = new double[count];
+      for (int i = 0; i < count; i++) {
+        newValues[i] = values[indexes[i]];
+      }
+      return newValues;
+    }
+  }
+
+  private static float[] copy(final float[] values, final int[] indexes, final int count) {
+    if (values == null) {
+      return null;
+    } else {
+      final float[] newValues = new float[count];
+      for (int i = 0; i < count; i++) {
+        newValues[i] = values[indexes[i]];
+      }
+      return newValues;
+    }
+  }
+
+  private static int[] copy(final int[] values, final int[] indexes, final int count) {
+    if (values == null) {
+      return null;
+    } else {
+      final int[] newValues = new int[count];
+      for (int i = 0; i < count; i++) {
+        newValues[i] = values[indexes[i]];
+      }
+      return newValues;
+    }
+  }
+
+  private static long[] copy(final long[] values, final int[] indexes, final int count) {
+    if (values == null) {
+      return null;
+    } else {
+      final long[] newValues = new long[count];
+      for (int i = 0; i < count; i++) {
+        newValues[i] = values[indexes[i]];
+      }
+      return newValues;
+    }
+  }
+
+  private static short[] copy(final short[] values, final int[] indexes, final int count) {
+    if (values == null) {
+      return null;
+    } else {
+      final short[] newValues = new short[count];
+      for (int i = 0; i < count; i++) {
+        newValues[i] = values[indexes[i]];
+      }
+      return newValues;
+    }
+  }
+
+  private static byte[] copy(final byte[] values, final int[] indexes, final int count) {
+    if (values == null) {
+      return null;
+    } else {
+      final byte[] newValues = new byte[count];
+      for (int i = 0; i < count; i++) {
+        newValues[i] = values[indexes[i]];
+      }
+      return newValues;
+    }
+  }
+
+  char[] blue;
+
+  long[] byteOffsetToWaveformData;
+
+  private int capacity;
+
+  byte[] classification;
+
+  /**
+   * The synthetic, keyPoint, withheld, overlap, scanner channel, scan direction
+   * and edge of flight line flags using the LAS 1.4 classification flags bit
+   * layout for all point formats.
+   */
+  byte[] flags;
+
+  double[] gpsTime;
+
+  char[] green;
+
+  char[] intensity;
+
+  char[] nir;
+
+  private final LasPointCloud pointCloud;
+
+  private final LasPointFormat pointFormat;
+
+  char[] pointSourceId;
+
+  char[] red;
+
+  float[] returnPointWaveformLocation;
+
+  /** The return number (bits 0-3) and number of returns (bits 4-7). */
+  byte[] returns;
+
+  /**
+   * The scan angle rank in degrees for formats 0-5 or the scan angle in 0.006
+   * degree units for the extended formats.
+   */
+  short[] scanAngle;
+
+  private int size;
+
+  byte[] userData;
+
+  /** Unsigned int values. */
+  int[] waveformPacketSizeInBytes;
+
+  byte[] wavePacketDescriptorIndex;
+
+  int[] x;
+
+  float[] xT;
+
+  int[] y;
+
+  float[] yT;
+
+  int[] z;
+
+  float[] zT;
+
+  public LasPointColumns(final LasPointCloud pointCloud, final int capacity) {
+    this.pointCloud = pointCloud;
+    this.pointFormat = pointCloud.getPointFormat();
+    this.capacity = capacity;
+    this.x = new int[capacity];
+    this.y = new int[capacity];
+    this.z = new int[capacity];
+    this.intensity = new char[capacity];
+    this.returns = new byte[capacity];
+    this.flags = new byte[capacity];
+    this.classification = new byte[capacity];
+    this.scanAngle = new short[capacity];
+    this.userData = new byte[capacity];
+    this.pointSourceId = new char[capacity];
+    if (this.pointFormat.isGpsTime()) {
+      this.gpsTime = new double[capacity];
+    }
+    if (this.pointFormat.isRgb()) {
+      this.red = new char[capacity];
+      this.green = new char[capacity];
+      this.blue = new char[capacity];
+    }
+    if (this.pointFormat.isNir()) {
+      this.nir = new char[capacity];
+    }
+    if (this.pointFormat.isWavePackets()) {
+      this.wavePacketDescriptorIndex = new byte[capacity];
+      this.byteOffsetToWaveformData = new long[capacity];
+      this.waveformPacketSizeInBytes = new int[capacity];
+      this.returnPointWaveformLocation = new float[capacity];
+      this.xT = new float[capacity];
+      this.yT = new float[capacity];
+      this.zT = new float[capacity];
+    }
+  }
+
+  private LasPointColumns(final LasPointColumns columns, final int[] indexes, final int count) {
+    this.pointCloud = columns.pointCloud;
+    this.pointFormat = columns.pointFormat;
+    this.capacity = count;
+    this.size = count;
+    this.x = copy(columns.x, indexes, count);
+    this.y = copy(columns.y, indexes, count);
+    this.z = copy(columns.z, indexes, count);
+    this.intensity = copy(columns.intensity, indexes, count);
+    this.returns = copy(columns.returns, indexes, count);
+    this.flags = copy(columns.flags, indexes, count);
+    this.classification = copy(columns.classification, indexes, count);
+    this.scanAngle = copy(columns.scanAngle, indexes, count);
+    this.userData = copy(columns.userData, indexes, count);
+    this.pointSourceId = copy(columns.pointSourceId, indexes, count);
+    this.gpsTime = copy(columns.gpsTime, indexes, count);
+    this.red = copy(columns.red, indexes, count);
+    this.green = copy(columns.green, indexes, count);
+    this.blue = copy(columns.blue, indexes, count);
+    this.nir = copy(columns.nir, indexes, count);
+    this.wavePacketDescriptorIndex = copy(columns.wavePacketDescriptorIndex, indexes, count);
+    this.byteOffsetToWaveformData = copy(columns.byteOffsetToWaveformData, indexes, count);
+    this.waveformPacketSizeInBytes = copy(columns.waveformPacketSizeInBytes, indexes, count);
+    this.returnPointWaveformLocation = copy(columns.returnPointWaveformLocation, indexes, count);
+    this.xT = copy(columns.xT, indexes, count);
+    this.yT = copy(columns.yT, indexes, count);
+    this.zT = copy(columns.zT, indexes, count);
+  }
+
+  /**
+   * Add a copy of the point's values.
+   *
+   * @param point The point to add.
+   * @return The index of the point.
+   */
+  public int addPoint(final LasPoint point) {
+    final int index = this.size;
+    ensureCapacity(index + 1);
+    this.size++;
+    setPoint(index, point);
+    return index;
+  }
+
+  private void ensureCapacity(final int capacity) {
+    if (capacity > this.capacity) {
+      int newCapacity = Math.max(16, this.capacity + (this.capacity >> 1));
+      if (newCapacity < capacity || newCapacity < 0) {
+        newCapacity = capacity;
+      }
+      this.capacity = newCapacity;
+      this.x = Arrays.copyOf(this.x, newCapacity);
+      this.y = Arrays.copyOf(this.y, newCapacity);
+      this.z = Arrays.copyOf(this.z, newCapacity);
+      this.intensity = Arrays.copyOf(this.intensity, newCapacity);
+      this.returns = Arrays.copyOf(this.returns, newCapacity);
+      this.flags = Arrays.copyOf(this.flags, newCapacity);
+      this.classification = Arrays.copyOf(this.classification, newCapacity);
+      this.scanAngle = Arrays.copyOf(this.scanAngle, newCapacity);
+      this.userData = Arrays.copyOf(this.userData, newCapacity);
+      this.pointSourceId = Arrays.copyOf(this.pointSourceId, newCapacity);
+      if (this.gpsTime != null) {
+        this.gpsTime = Arrays.copyOf(this.gpsTime, newCapacity);
+      }
+      if (this.red != null) {
+        this.red = Arrays.copyOf(this.red, newCapacity);
+        this.green = Arrays.copyOf(this.green, newCapacity);
+        this.blue = Arrays.copyOf(this.blue, newCapacity);
+      }
+      if (this.nir != null) {
+        this.nir = Arrays.copyOf(this.nir, newCapacity);
+      }
+      if (this.wavePacketDescriptorIndex != null) {
+        this.wavePacketDescriptorIndex = Arrays.copyOf(this.wavePacketDescriptorIndex,
+          newCapacity);
+        this.byteOffsetToWaveformData = Arrays.copyOf(this.byteOffsetToWaveformData,
+          newCapacity);
+        this.waveformPacketSizeInBytes = Arrays.copyOf(this.waveformPacketSizeInBytes,
+          newCapacity);
+        this.returnPointWaveformLocation = Arrays.copyOf(this.returnPointWaveformLocation,
+          newCapacity);
+        this.xT = Arrays.copyOf(this.xT, newCapacity);
+        this.yT = Arrays.copyOf(this.yT, newCapacity);
+        this.zT = Arrays.copyOf(this.zT, newCapacity);
+      }
+    }
+  }
+
+  /**
+   * Get a new columns with the points that match the filter.
+   *
+   * @param filter The filter on the point index.
+   * @return The new columns.
+   */
+  public LasPointColumns filter(final IntPredicate filter) {
+    final int size = this.size;
+    final int[] indexes = new int[size];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (filter.test(i)) {
+        indexes[count++] = i;
+      }
+    }
+    return new LasPointColumns(this, indexes, count);
+  }
+
+  /**
+   * Get a new columns with the points that intersect the bounding box.
+   */
+  public LasPointColumns filterBoundingBox(final BoundingBox boundingBox) {
+    final LasPointCloud pointCloud = this.pointCloud;
+    final BoundingBox convertedBoundingBox = boundingBox
+      .bboxToCs(pointCloud.getGeometryFactory());
+    final double minX = convertedBoundingBox.getMinX();
+    final double minY = convertedBoundingBox.getMinY();
+    final double maxX = convertedBoundingBox.getMaxX();
+    final double maxY = convertedBoundingBox.getMaxY();
+    final int[] xs = this.x;
+    final int[] ys = this.y;
+    return filter(index -> {
+      final double x = pointCloud.toDoubleX(xs[index]);
+      if (x >= minX && x <= maxX) {
+        final double y = pointCloud.toDoubleY(ys[index]);
+        return y >= minY && y <= maxY;
+      }
+      return false;
+    });
+  }
+
+  /**
+   * Get a new columns with the points that have one of the classifications.
+   */
+  public LasPointColumns filterClassification(final int... classifications) {
+    final boolean[] matches = new boolean[256];
+    for (final int classification : classifications) {
+      if (classification >= 0 && classification < 256) {
+        matches[classification] = true;
+      }
+    }
+    final byte[] classification = this.classification;
+    return filter(index -> matches[classification[index] & 0xff]);
+  }
+
+  /**
+   * Perform the action on each point. The same cursor is passed to the action for
+   * each point.
+   */
+  public void forEachPoint(final Consumer<? super LasPoint> action) {
+    final LasPointCursor cursor = new LasPointCursor(this, 0);
+    final int size = this.size;
+    for (int i = 0; i < size; i++) {
+      cursor.setIndex(i);
+      action.accept(cursor);
+    }
+  }
+
+  /**
+   * Calculate the bounding box of the points from the x, y, z columns.
+   */
+  public BoundingBox getBoundingBox() {
+    final GeometryFactory geometryFactory = this.pointCloud.getGeometryFactory();
+    final int size = this.size;
+    if (size == 0) {
+      return geometryFactory.bboxEmpty();
+    }
+    final int[] xs = this.x;
+    final int[] ys = this.y;
+    final int[] zs = this.z;
+    int minX = Integer.MAX_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int minZ = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int maxY = Integer.MIN_VALUE;
+    int maxZ = Integer.MIN_VALUE;
+    for (int i = 0; i < size; i++) {
+      final int x = xs[i];
+      if (x < minX) {
+        minX = x;
+      }
+      if (x > maxX) {
+        maxX = x;
+      }
+      final int y = ys[i];
+      if (y < minY) {
+        minY = y;
+      }
+      if (y > maxY) {
+        maxY = y;
+      }
+      final int z = zs[i];
+      if (z < minZ) {
+        minZ = z;
+      }
+      if (z > maxZ) {
+        maxZ = z;
+      }
+    }
+    final LasPointCloud pointCloud = this.pointCloud;
+    return geometryFactory.newBoundingBox(3, //
+      pointCloud.toDoubleX(minX), pointCloud.toDoubleY(minY), pointCloud.toDoubleZ(minZ), //
+      pointCloud.toDoubleX(maxX), pointCloud.toDoubleY(maxY), pointCloud.toDoubleZ(maxZ));
+  }
+
+  /**
+   * Count the number of points with each classification.
+   *
+   * @return The counts indexed by classification.
+   */
+  public long[] getClassificationCounts() {
+    final long[] counts = new long[256];
+    final byte[] classification = this.classification;
+    final int size = this.size;
+    for (int i = 0; i < size; i++) {
+      counts[classification[i] & 0xff]++;
+    }
+    return counts;
+  }
+
+  /**
+   * Get a new cursor positioned at the point.
+   */
+  public LasPointCursor getPoint(final int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException(index + " not in 0.." + (this.size - 1));
+    }
+    return new LasPointCursor(this, index);
+  }
+
+  public LasPointCloud getPointCloud() {
+    return this.pointCloud;
+  }
+
+  public int getPointCount() {
+    return this.size;
+  }
+
+  public LasPointFormat getPointFormat() {
+    return this.pointFormat;
+  }
+
+  boolean isExtended() {
+    return this.pointFormat.isExtended();
+  }
+
+  /**
+   * The iterator returns the same cursor for each point.
+   */
+  @Override
+  public Iterator<LasPoint> iterator() {
+    final LasPointCursor cursor = new LasPointCursor(this, -1);
+    return new Iterator<LasPoint>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return this.index < LasPointColumns.this.size;
+      }
+
+      @Override
+      public LasPoint next() {
+        if (this.index < LasPointColumns.this.size) {
+          cursor.setIndex(this.index++);
+          return cursor;
+        } else {
+          throw new NoSuchElementException();
+        }
+      }
+    };
+  }
+
+  /**
+   * Read the point record into the columns at the index. The fields are read in
+   * the same order as the {@link LasPoint} implementations.
+   */
+  void readPoint(final int index, final DataReader reader) {
+    this.x[index] = reader.getInt();
+    this.y[index] = reader.getInt();
+    this.z[index] = reader.getInt();
+    this.intensity[index] = (char)reader.getUnsignedShort();
+    final byte returnByte = reader.getByte();
+    if (isExtended()) {
+      this.returns[index] = returnByte;
+      this.flags[index] = reader.getByte();
+      this.classification[index] = (byte)reader.getUnsignedByte();
+      this.userData[index] = (byte)reader.getUnsignedByte();
+      this.scanAngle[index] = reader.getShort();
+      this.pointSourceId[index] = (char)reader.getUnsignedShort();
+      this.gpsTime[index] = reader.getDouble();
+      readRgbNir(index, reader);
+    } else {
+      final byte classificationByte = reader.getByte();
+      setReturnByte(index, returnByte);
+      setClassificationByte(index, classificationByte);
+      this.scanAngle[index] = reader.getByte();
+      this.userData[index] = (byte)reader.getUnsignedByte();
+      this.pointSourceId[index] = (char)reader.getUnsignedShort();
+      readRgbNir(index, reader);
+      if (this.gpsTime != null) {
+        this.gpsTime[index] = reader.getDouble();
+      }
+    }
+    if (this.wavePacketDescriptorIndex != null) {
+      this.wavePacketDescriptorIndex[index] = (byte)reader.getUnsignedByte();
+      this.byteOffsetToWaveformData[index] = reader.getUnsignedLong();
+      this.waveformPacketSizeInBytes[index] = (int)reader.getUnsignedInt();
+      this.returnPointWaveformLocation[index] = reader.getFloat();
+      this.xT[index] = reader.getFloat();
+      this.yT[index] = reader.getFloat();
+      this.zT[index] = reader.getFloat();
+    }
+  }
+
+  /**
+   * Read the point records and add them to the columns.
+   *
+   * @param reader The reader positioned at the first point record.
+   * @param count The number of points to read.
+   */
+  public void readPoints(final DataReader reader, final int count) {
+    final int startIndex = this.size;
+    ensureCapacity(startIndex + count);
+    for (int i = 0; i < count; i++) {
+      readPoint(startIndex + i, reader);
+      this.size++;
+    }
+  }
+
+  private void readRgbNir(final int index, final DataReader reader) {
+    if (this.red != null) {
+      this.red[index] = (char)reader.getUnsignedShort();
+      this.green[index] = (char)reader.getUnsignedShort();
+      this.blue[index] = (char)reader.getUnsignedShort();
+    }
+    if (this.nir != null) {
+      this.nir[index] = (char)reader.getUnsignedShort();
+    }
+  }
+
+  void setClassificationByte(final int index, final byte classificationByte) {
+    this.classification[index] = (byte)(classificationByte & 0b11111);
+    byte flags = this.flags[index];
+    flags &= 0b11111000;
+    flags |= classificationByte >> 5 & 0b111;
+    this.flags[index] = flags;
+  }
+
+  /**
+   * Set the values of the point at the index to a copy of the values from the
+   * point.
+   */
+  public void setPoint(final int index, final LasPoint point) {
+    this.x[index] = point.getXInt();
+    this.y[index] = point.getYInt();
+    this.z[index] = point.getZInt();
+    this.intensity[index] = (char)point.getIntensity();
+    this.returns[index] = (byte)(point.getReturnNumber() & 0b1111
+      | (point.getNumberOfReturns() & 0b1111) << 4);
+    int flags = 0;
+    if (point.isSynthetic()) {
+      flags |= 0b1;
+    }
+    if (point.isKeyPoint()) {
+      flags |= 0b10;
+    }
+    if (point.isWithheld()) {
+      flags |= 0b100;
+    }
+    if (point instanceof LasPointExtended && ((LasPointExtended)point).isOverlap()) {
+      flags |= 0b1000;
+    }
+    flags |= (point.getScannerChannel() & 0b11) << 4;
+    if (point.isScanDirectionFlag()) {
+      flags |= 0b1000000;
+    }
+    if (point.isEdgeOfFlightLine()) {
+      flags |= 0b10000000;
+    }
+    this.flags[index] = (byte)flags;
+    this.classification[index] = (byte)point.getClassification();
+    if (isExtended()) {
+      this.scanAngle[index] = point.getScanAngle();
+    } else {
+      this.scanAngle[index] = point.getScanAngleRank();
+    }
+    this.userData[index] = (byte)point.getUserData();
+    this.pointSourceId[index] = (char)point.getPointSourceID();
+    if (this.gpsTime != null) {
+      this.gpsTime[index] = point.getGpsTime();
+    }
+    if (this.red != null) {
+      this.red[index] = (char)point.getRed();
+      this.green[index] = (char)point.getGreen();
+      this.blue[index] = (char)point.getBlue();
+    }
+    if (this.nir != null) {
+      this.nir[index] = (char)point.getNir();
+    }
+    if (this.wavePacketDescriptorIndex != null && point instanceof LasPointWavePackets) {
+      final LasPointWavePackets wavePoint = (LasPointWavePackets)point;
+      this.wavePacketDescriptorIndex[index] = (byte)wavePoint.getWavePacketDescriptorIndex();
+      this.byteOffsetToWaveformData[index] = wavePoint.getByteOffsetToWaveformData();
+      this.waveformPacketSizeInBytes[index] = (int)wavePoint.getWaveformPacketSizeInBytes();
+      this.returnPointWaveformLocation[index] = wavePoint.getReturnPointWaveformLocation();
+      this.xT[index] = wavePoint.getXT();
+      this.yT[index] = wavePoint.getYT();
+      this.zT[index] = wavePoint.getZT();
+    }
+  }
+
+  /**
+   * Set the number of points so the points can be set by index with
+   * {@link #setPoint(int, LasPoint)} in any order.
+   */
+  void setPointCount(final int pointCount) {
+    ensureCapacity(pointCount);
+    this.size = pointCount;
+  }
+
+  void setReturnByte(final int index, final byte returnByte) {
+    this.returns[index] = (byte)(returnByte & 0b111 | (returnByte >> 3 & 0b111) << 4);
+    byte flags = this.flags[index];
+    flags &= 0b00111111;
+    flags |= returnByte & 0b11000000;
+    this.flags[index] = flags;
+  }
+
+  /**
+   * Write the point record for the point at the index. The fields are written in
+   * the same order as the {@link LasPoint} implementations.
+   */
+  void writePoint(final int index, final ChannelWriter out) {
+    out.putInt(this.x[index]);
+    out.putInt(this.y[index]);
+    out.putInt(this.z[index]);
+    out.putUnsignedShort(this.intensity[index]);
+    if (isExtended()) {
+      out.putByte(this.returns[index]);
+      out.putByte(this.flags[index]);
+      out.putUnsignedByte((short)(this.classification[index] & 0xff));
+      out.putUnsignedByte((short)(this.userData[index] & 0xff));
+      out.putShort(this.scanAngle[index]);
+      out.putUnsignedShort(this.pointSourceId[index]);
+      out.putDouble(this.gpsTime[index]);
+      writeRgbNir(index, out);
+    } else {
+      final LasPointCursor cursor = new LasPointCursor(this, index);
+      out.putByte(cursor.getReturnByte());
+      out.putByte(cursor.getClassificationByte());
+      out.putByte((byte)this.scanAngle[index]);
+      out.putUnsignedByte((short)(this.userData[index] & 0xff));
+      out.putUnsignedShort(this.pointSourceId[index]);
+      writeRgbNir(index, out);
+      if (this.gpsTime != null) {
+        out.putDouble(this.gpsTime[index]);
+      }
+    }
+    if (this.wavePacketDescriptorIndex != null) {
+      out.putUnsignedByte((short)(this.wavePacketDescriptorIndex[index] & 0xff));
+      out.putUnsignedLong(this.byteOffsetToWaveformData[index]);
+      out.putUnsignedInt(this.waveformPacketSizeInBytes[index] & 0xFFFFFFFFL);
+      out.putFloat(this.returnPointWaveformLocation[index]);
+      out.putFloat(this.xT[index]);
+      out.putFloat(this.yT[index]);
+      out.putFloat(this.zT[index]);
+    }
+  }
+
+  private void writeRgbNir(final int index, final ChannelWriter out) {
+    if (this.red != null) {
+      out.putUnsignedShort(this.red[index]);
+      out.putUnsignedShort(this.green[index]);
+      out.putUnsignedShort(this.blue[index]);
+    }
+    if (this.nir != null) {
+      out.putUnsignedShort(this.nir[index]);
+    }
+  }
+}
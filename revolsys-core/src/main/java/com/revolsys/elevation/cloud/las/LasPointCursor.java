@@ -0,0 +1,695 @@
+package com.revolsys.elevation.cloud.las;
+
+import com.revolsys.elevation.cloud.las.pointformat.LasPoint;
+import com.revolsys.elevation.cloud.las.pointformat.LasPointFormat;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.impl.AbstractPoint;
+import com.revolsys.io.channels.ChannelWriter;
+import com.revolsys.io.channels.DataReader;
+import com.revolsys.record.io.format.json.JsonObject;
+import com.revolsys.record.io.format.json.JsonObjectHash;
+
+/**
+ * A flyweight {@link LasPoint} for the point at an index in a
+ * {@link LasPointColumns}. The getters read from and the setters write to the
+ * columns.
+ */
+public class LasPointCursor extends AbstractPoint implements LasPoint {
+  private final LasPointColumns columns;
+
+  private int index;
+
+  public LasPointCursor(final LasPointColumns columns, final int index) {
+    this.columns = columns;
+    this.index = index;
+  }
+
+  /**
+   * Get a new cursor for the current point. Unlike this cursor the clone is not
+   * moved to other points during iteration, but it still reads from and writes
+   * to the columns.
+   */
+  @Override
+  public LasPointCursor clone() {
+    return new LasPointCursor(this.columns, this.index);
+  }
+
+  @Override
+  public int getAxisCount() {
+    return 3;
+  }
+
+  @Override
+  public int getBlue() {
+    final char[] blue = this.columns.blue;
+    if (blue == null) {
+      return 0;
+    } else {
+      return blue[this.index];
+    }
+  }
+
+  public long getByteOffsetToWaveformData() {
+    final long[] values = this.columns.byteOffsetToWaveformData;
+    if (values == null) {
+      return 0;
+    } else {
+      return values[this.index];
+    }
+  }
+
+  @Override
+  public short getClassification() {
+    return (short)(this.columns.classification[this.index] & 0xff);
+  }
+
+  @Override
+  public byte getClassificationByte() {
+    final int classification = this.columns.classification[this.index] & 0b11111;
+    final int flags = this.columns.flags[this.index] & 0b111;
+    return (byte)(classification | flags << 5);
+  }
+
+  @Override
+  public byte getClassificationFlags() {
+    if (this.columns.isExtended()) {
+      return this.columns.flags[this.index];
+    } else {
+      return 0;
+    }
+  }
+
+  public LasPointColumns getColumns() {
+    return this.columns;
+  }
+
+  @Override
+  public double getCoordinate(final int axisIndex) {
+    if (axisIndex == X) {
+      return getX();
+    } else if (axisIndex == Y) {
+      return getY();
+    } else if (axisIndex == Z) {
+      return getZ();
+    } else {
+      return java.lang.Double.NaN;
+    }
+  }
+
+  @Override
+  public double[] getCoordinates() {
+    return new double[] {
+      getX(), getY(), getZ()
+    };
+  }
+
+  @Override
+  public GeometryFactory getGeometryFactory() {
+    return this.columns.getPointCloud().getGeometryFactory();
+  }
+
+  @Override
+  public double getGpsTime() {
+    final double[] gpsTime = this.columns.gpsTime;
+    if (gpsTime == null) {
+      return LasPoint.super.getGpsTime();
+    } else {
+      return gpsTime[this.index];
+    }
+  }
+
+  @Override
+  public int getGreen() {
+    final char[] green = this.columns.green;
+    if (green == null) {
+      return 0;
+    } else {
+      return green[this.index];
+    }
+  }
+
+  public int getIndex() {
+    return this.index;
+  }
+
+  @Override
+  public int getIntensity() {
+    return this.columns.intensity[this.index];
+  }
+
+  @Override
+  public int getNir() {
+    final char[] nir = this.columns.nir;
+    if (nir == null) {
+      return 0;
+    } else {
+      return nir[this.index];
+    }
+  }
+
+  @Override
+  public byte getNumberOfReturns() {
+    return (byte)(this.columns.returns[this.index] >> 4 & 0b1111);
+  }
+
+  @Override
+  public LasPointFormat getPointFormat() {
+    return this.columns.getPointFormat();
+  }
+
+  @Override
+  public int getPointSourceID() {
+    return this.columns.pointSourceId[this.index];
+  }
+
+  @Override
+  public int getRed() {
+    final char[] red = this.columns.red;
+    if (red == null) {
+      return 0;
+    } else {
+      return red[this.index];
+    }
+  }
+
+  @Override
+  public byte getReturnByte() {
+    final int returns = this.columns.returns[this.index];
+    final int flags = this.columns.flags[this.index];
+    return (byte)(returns & 0b111 | (returns >> 4 & 0b111) << 3 | flags & 0b11000000);
+  }
+
+  @Override
+  public byte getReturnNumber() {
+    return (byte)(this.columns.returns[this.index] & 0b1111);
+  }
+
+  public float getReturnPointWaveformLocation() {
+    final float[] values = this.columns.returnPointWaveformLocation;
+    if (values == null) {
+      return 0;
+    } else {
+      return values[this.index];
+    }
+  }
+
+  @Override
+  public short getScanAngle() {
+    final short scanAngle = this.columns.scanAngle[this.index];
+    if (this.columns.isExtended()) {
+      return scanAngle;
+    } else {
+      return (short)(scanAngle / 0.006);
+    }
+  }
+
+  @Override
+  public double getScanAngleDegrees() {
+    final short scanAngle = this.columns.scanAngle[this.index];
+    if (this.columns.isExtended()) {
+      return scanAngle * 0.006;
+    } else {
+      return scanAngle;
+    }
+  }
+
+  @Override
+  public byte getScanAngleRank() {
+    return (byte)getScanAngleDegrees();
+  }
+
+  @Override
+  public byte getScannerChannel() {
+    return (byte)(this.columns.flags[this.index] >> 4 & 0b11);
+  }
+
+  @Override
+  public short getUserData() {
+    return (short)(this.columns.userData[this.index] & 0xff);
+  }
+
+  public long getWaveformPacketSizeInBytes() {
+    final int[] values = this.columns.waveformPacketSizeInBytes;
+    if (values == null) {
+      return 0;
+    } else {
+      return values[this.index] & 0xFFFFFFFFL;
+    }
+  }
+
+  public short getWavePacketDescriptorIndex() {
+    final byte[] values = this.columns.wavePacketDescriptorIndex;
+    if (values == null) {
+      return 0;
+    } else {
+      return (short)(values[this.index] & 0xff);
+    }
+  }
+
+  @Override
+  public double getX() {
+    return this.columns.getPointCloud().toDoubleX(this.columns.x[this.index]);
+  }
+
+  @Override
+  public int getXInt() {
+    return this.columns.x[this.index];
+  }
+
+  public float getXT() {
+    final float[] values = this.columns.xT;
+    if (values == null) {
+      return 0;
+    } else {
+      return values[this.index];
+    }
+  }
+
+  @Override
+  public double getY() {
+    return this.columns.getPointCloud().toDoubleY(this.columns.y[this.index]);
+  }
+
+  @Override
+  public int getYInt() {
+    return this.columns.y[this.index];
+  }
+
+  public float getYT() {
+    final float[] values = this.columns.yT;
+    if (values == null) {
+      return 0;
+    } else {
+      return values[this.index];
+    }
+  }
+
+  @Override
+  public double getZ() {
+    return this.columns.getPointCloud().toDoubleZ(this.columns.z[this.index]);
+  }
+
+  @Override
+  public int getZInt() {
+    return this.columns.z[this.index];
+  }
+
+  public float getZT() {
+    final float[] values = this.columns.zT;
+    if (values == null) {
+      return 0;
+    } else {
+      return values[this.index];
+    }
+  }
+
+  @Override
+  public boolean isEdgeOfFlightLine() {
+    return (this.columns.flags[this.index] & 0b10000000) != 0;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return false;
+  }
+
+  @Override
+  public boolean isKeyPoint() {
+    return (this.columns.flags[this.index] & 0b10) != 0;
+  }
+
+  public boolean isOverlap() {
+    return (this.columns.flags[this.index] & 0b1000) != 0;
+  }
+
+  @Override
+  public boolean isScanDirectionFlag() {
+    return (this.columns.flags[this.index] & 0b1000000) != 0;
+  }
+
+  @Override
+  public boolean isSynthetic() {
+    return (this.columns.flags[this.index] & 0b1) != 0;
+  }
+
+  @Override
+  public boolean isWithheld() {
+    return (this.columns.flags[this.index] & 0b100) != 0;
+  }
+
+  /**
+   * Read the point record into the columns for the current point.
+   */
+  @Override
+  public void read(final LasPointCloud pointCloud, final DataReader reader) {
+    this.columns.readPoint(this.index, reader);
+  }
+
+  @Override
+  public LasPointCursor setBlue(final int blue) {
+    final char[] values = this.columns.blue;
+    if (values != null) {
+      if (blue >= 0 && blue <= 65535) {
+        values[this.index] = (char)blue;
+      } else {
+        throw new IllegalArgumentException("blue must be in range 0..65535: " + blue);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setByteOffsetToWaveformData(final long byteOffsetToWaveformData) {
+    final long[] values = this.columns.byteOffsetToWaveformData;
+    if (values == null) {
+      throw new UnsupportedOperationException();
+    }
+    values[this.index] = byteOffsetToWaveformData;
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setClassification(final short classification) {
+    final int maxClassification = this.columns.isExtended() ? 255 : 31;
+    if (classification >= 0 && classification <= maxClassification) {
+      this.columns.classification[this.index] = (byte)classification;
+    } else {
+      throw new IllegalArgumentException(
+        "classification must be in range 0.." + maxClassification + ": " + classification);
+    }
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setClassificationByte(final byte classificationByte) {
+    this.columns.setClassificationByte(this.index, classificationByte);
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setClassificationFlags(final byte classificationFlags) {
+    if (this.columns.isExtended()) {
+      this.columns.flags[this.index] = classificationFlags;
+    }
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setEdgeOfFlightLine(final boolean edgeOfFlightLine) {
+    setFlag(0b10000000, edgeOfFlightLine);
+    return this;
+  }
+
+  private void setFlag(final int mask, final boolean value) {
+    final byte[] flags = this.columns.flags;
+    if (value) {
+      flags[this.index] |= mask;
+    } else {
+      flags[this.index] &= ~mask;
+    }
+  }
+
+  @Override
+  public LasPointCursor setGpsTime(final double gpsTime) {
+    final double[] values = this.columns.gpsTime;
+    if (values != null) {
+      values[this.index] = gpsTime;
+    }
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setGreen(final int green) {
+    final char[] values = this.columns.green;
+    if (values != null) {
+      if (green >= 0 && green <= 65535) {
+        values[this.index] = (char)green;
+      } else {
+        throw new IllegalArgumentException("green must be in range 0..65535: " + green);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Move the cursor to the point at the index.
+   */
+  public LasPointCursor setIndex(final int index) {
+    this.index = index;
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setIntensity(final int intensity) {
+    if (intensity >= 0 && intensity <= 65535) {
+      this.columns.intensity[this.index] = (char)intensity;
+    } else {
+      throw new IllegalArgumentException("intensity must be in range 0..65535: " + intensity);
+    }
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setKeyPoint(final boolean keyPoint) {
+    setFlag(0b10, keyPoint);
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setNir(final int nir) {
+    final char[] values = this.columns.nir;
+    if (values != null) {
+      if (nir >= 0 && nir <= 65535) {
+        values[this.index] = (char)nir;
+      } else {
+        throw new IllegalArgumentException("nir must be in range 0..65535: " + nir);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setNumberOfReturns(final byte numberOfReturns) {
+    if (numberOfReturns >= 0 && numberOfReturns <= 15) {
+      final byte[] returns = this.columns.returns;
+      returns[this.index] = (byte)(returns[this.index] & 0b1111 | numberOfReturns << 4);
+    } else {
+      throw new IllegalArgumentException(
+        "numberOfReturns must be in range 1..15: " + numberOfReturns);
+    }
+    return this;
+  }
+
+  public void setOverlap(final boolean overlap) {
+    setFlag(0b1000, overlap);
+  }
+
+  @Override
+  public LasPointCursor setPointSourceID(final int pointSourceID) {
+    if (pointSourceID >= 1 && pointSourceID <= 65535) {
+      this.columns.pointSourceId[this.index] = (char)pointSourceID;
+    } else {
+      throw new IllegalArgumentException(
+        "pointSourceID must be in range 1..65535: " + pointSourceID);
+    }
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setRed(final int red) {
+    final char[] values = this.columns.red;
+    if (values != null) {
+      if (red >= 0 && red <= 65535) {
+        values[this.index] = (char)red;
+      } else {
+        throw new IllegalArgumentException("red must be in range 0..65535: " + red);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setReturnByte(final byte returnByte) {
+    this.columns.setReturnByte(this.index, returnByte);
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setReturnNumber(final byte returnNumber) {
+    if (returnNumber >= 0 && returnNumber <= 15) {
+      final byte[] returns = this.columns.returns;
+      returns[this.index] = (byte)(returns[this.index] & 0b11110000 | returnNumber);
+    } else {
+      throw new IllegalArgumentException("returnNumber must be in range 1..15: " + returnNumber);
+    }
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setReturnPointWaveformLocation(final float returnPointWaveformLocation) {
+    final float[] values = this.columns.returnPointWaveformLocation;
+    if (values == null) {
+      throw new UnsupportedOperationException();
+    }
+    values[this.index] = returnPointWaveformLocation;
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setScanAngle(final short scanAngle) {
+    if (this.columns.isExtended()) {
+      this.columns.scanAngle[this.index] = scanAngle;
+    } else {
+      this.columns.scanAngle[this.index] = (byte)(scanAngle * 0.006);
+    }
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setScanAngleRank(final byte scanAngleRank) {
+    if (this.columns.isExtended()) {
+      this.columns.scanAngle[this.index] = (short)(scanAngleRank / 0.006);
+    } else {
+      this.columns.scanAngle[this.index] = scanAngleRank;
+    }
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setScanDirectionFlag(final boolean scanDirectionFlag) {
+    setFlag(0b1000000, scanDirectionFlag);
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setScannerChannel(final byte scannerChannel) {
+    final byte[] flags = this.columns.flags;
+    flags[this.index] = (byte)(flags[this.index] & 0b11001111 | (scannerChannel & 0b11) << 4);
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setSynthetic(final boolean synthetic) {
+    setFlag(0b1, synthetic);
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setUserData(final short userData) {
+    this.columns.userData[this.index] = (byte)userData;
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setWaveformPacketSizeInBytes(final long waveformPacketSizeInBytes) {
+    final int[] values = this.columns.waveformPacketSizeInBytes;
+    if (values == null) {
+      throw new UnsupportedOperationException();
+    }
+    values[this.index] = (int)waveformPacketSizeInBytes;
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setWavePacketDescriptorIndex(final short wavePacketDescriptorIndex) {
+    final byte[] values = this.columns.wavePacketDescriptorIndex;
+    if (values == null) {
+      throw new UnsupportedOperationException();
+    }
+    values[this.index] = (byte)wavePacketDescriptorIndex;
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setWithheld(final boolean withheld) {
+    setFlag(0b100, withheld);
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setXInt(final int x) {
+    this.columns.x[this.index] = x;
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setXT(final float xT) {
+    final float[] values = this.columns.xT;
+    if (values == null) {
+      throw new UnsupportedOperationException();
+    }
+    values[this.index] = xT;
+    return this;
+  }
+
+  @Override
+  public void setXYZ(final int x, final int y, final int z) {
+    final LasPointColumns columns = this.columns;
+    final int index = this.index;
+    columns.x[index] = x;
+    columns.y[index] = y;
+    columns.z[index] = z;
+  }
+
+  @Override
+  public LasPointCursor setYInt(final int y) {
+    this.columns.y[this.index] = y;
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setYT(final float yT) {
+    final float[] values = this.columns.yT;
+    if (values == null) {
+      throw new UnsupportedOperationException();
+    }
+    values[this.index] = yT;
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setZInt(final int z) {
+    this.columns.z[this.index] = z;
+    return this;
+  }
+
+  @Override
+  public LasPointCursor setZT(final float zT) {
+    final float[] values = this.columns.zT;
+    if (values == null) {
+      throw new UnsupportedOperationException();
+    }
+    values[this.index] = zT;
+    return this;
+  }
+
+  @Override
+  public JsonObject toMap() {
+    final JsonObject map = new JsonObjectHash();
+    addToMap(map, "x", getX());
+    addToMap(map, "y", getY());
+    addToMap(map, "z", getZ());
+    addToMap(map, "intensity", getIntensity(), 0);
+    addToMap(map, "returnNumber", getReturnNumber(), 0);
+    addToMap(map, "numberOfReturns", getNumberOfReturns(), 0);
+    addToMap(map, "classification", getClassification());
+    addToMap(map, "pointSourceID", getPointSourceID(), 0);
+    if (this.columns.gpsTime != null) {
+      addToMap(map, "gpsTime", getGpsTime());
+    }
+    return map;
+  }
+
+  @Override
+  public String toString() {
+    return toEwkt();
+  }
+
+  /**
+   * Write the point record for the current point.
+   */
+  @Override
+  public void writeLasPoint(final ChannelWriter out) {
+    this.columns.writePoint(this.index, out);
+  }
+}
@@ -0,0 +1,23 @@
+package com.revolsys.elevation.cloud.las;
+
+/**
+ * The method used by the {@link LasPointCloudGridder} to calculate the
+ * elevation of a grid cell from the points within the cell.
+ */
+public enum LasPointGridAggregation {
+  /** Inverse distance (squared) weighted average using the distance to the cell centre. */
+  IDW, //
+  /** Minimum elevation of the points that are the last return of their pulse. */
+  LAST_RETURN, //
+  /** Maximum elevation. */
+  MAX, //
+  /** Average elevation. */
+  MEAN, //
+  /** Minimum elevation. */
+  MIN //
+  ;
+
+  boolean isWeighted() {
+    return this == IDW || this == MEAN;
+  }
+}
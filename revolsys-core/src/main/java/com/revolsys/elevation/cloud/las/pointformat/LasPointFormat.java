@@ -143,6 +143,30 @@ public enum LasPointFormat implements Code {
     return this.recordReader;
   }
 
+  /**
+   * @return True if the format is one of the LAS 1.4 extended formats 6-10.
+   */
+  public boolean isExtended() {
+    return this.id >= 6;
+  }
+
+  public boolean isGpsTime() {
+    return this.id == 1 || this.id >= 3;
+  }
+
+  public boolean isNir() {
+    return this.id == 8 || this.id == 10;
+  }
+
+  public boolean isRgb() {
+    return this.id == 2 || this.id == 3 || this.id == 5 || this.id == 7 || this.id == 8
+      || this.id == 10;
+  }
+
+  public boolean isWavePackets() {
+    return this.id == 4 || this.id == 5 || this.id == 9 || this.id == 10;
+  }
+
   public LasPoint newLasPoint(final LasPointCloud pointCloud) {
     return this.constructor.apply(pointCloud);
   }
@@ -177,19 +201,18 @@ public enum LasPointFormat implements Code {
       .addField("pointSourceID", DataTypes.INT, true) //
       .setGeometryFactory(geometryFactory) //
     ;
-    if (this.id == 1 || this.id >= 3) {
+    if (isGpsTime()) {
       builder.addField("gpsTime", DataTypes.DOUBLE, true);
     }
-    if (this.id == 2 || this.id == 3 || this.id == 5 || this.id == 7 || this.id == 8
-      || this.id == 10) {
+    if (isRgb()) {
       builder.addField("red", DataTypes.INT, true);
       builder.addField("green", DataTypes.INT, true);
       builder.addField("blue", DataTypes.INT, true);
     }
-    if (this.id == 8 || this.id == 10) {
+    if (isNir()) {
       builder.addField("nir", DataTypes.INT, true);
     }
-    if (this.id == 4 || this.id == 5 || this.id == 9 || this.id == 10) {
+    if (isWavePackets()) {
       builder.addField("wavePacketDescriptorIndex", DataTypes.SHORT, true);
       builder.addField("byteOffsetToWaveformData", DataTypes.LONG, true);
       builder.addField("waveformPacketSizeInBytes", DataTypes.LONG, true);
@@ -0,0 +1,130 @@
+package com.revolsys.elevation.cloud.las.zip;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.elevation.cloud.las.LasPointCloud;
+import com.revolsys.elevation.cloud.las.pointformat.LasPoint;
+import com.revolsys.elevation.cloud.las.pointformat.LasPointFormat;
+import com.revolsys.io.channels.ChannelReader;
+import com.revolsys.io.channels.DataReader;
+import com.revolsys.math.arithmeticcoding.ArithmeticDecoder;
+
+/**
+ * Decompress the points in a single chunk of a chunked LAZ file from the bytes
+ * for the chunk. Each decoder has its own {@link ArithmeticDecoder} and codecs
+ * so a decoder can be used on each thread to decompress chunks in parallel. A
+ * decoder can be re-used for another chunk once the current chunk is read.
+ */
+public class LasZipChunkDecoder implements Iterator<LasPoint> {
+
+  private final LasZipItemCodec[] codecs;
+
+  private int context = 0;
+
+  private final ArithmeticDecoder decoder = new ArithmeticDecoder();
+
+  private int index;
+
+  private final boolean layered;
+
+  private final LasPointCloud pointCloud;
+
+  private int pointCount;
+
+  private final LasPointFormat pointFormat;
+
+  private DataReader reader;
+
+  public LasZipChunkDecoder(final LasPointCloud pointCloud) {
+    this.pointCloud = pointCloud;
+    this.pointFormat = pointCloud.getPointFormat();
+    final LasZipHeader lasZipHeader = LasZipHeader.getLasZipHeader(pointCloud);
+    this.codecs = lasZipHeader.newLazCodecs(this.decoder);
+    this.layered = lasZipHeader.isCompressor(LasZipCompressorType.LAYERED_CHUNKED);
+  }
+
+  public int getRemainingCount() {
+    return this.pointCount - this.index;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return this.index < this.pointCount;
+  }
+
+  /**
+   * Start decompressing a chunk.
+   *
+   * @param bytes The compressed bytes for the chunk.
+   * @param pointCount The number of points in the chunk.
+   */
+  public void init(final byte[] bytes, final int pointCount) {
+    final DataReader reader = new ChannelReader(new ByteArrayInputStream(bytes));
+    reader.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+    this.reader = reader;
+    this.pointCount = pointCount;
+    this.index = 0;
+  }
+
+  /**
+   * Read the bytes for a chunk from the reader and start decompressing it.
+   *
+   * @param chunkTable The chunk table.
+   * @param reader The reader for the LAZ file.
+   * @param chunkIndex The index of the chunk.
+   */
+  public void init(final LasZipChunkTable chunkTable, final DataReader reader,
+    final int chunkIndex) {
+    final byte[] bytes = chunkTable.readChunk(reader, chunkIndex);
+    final int pointCount = (int)chunkTable.getPointCount(chunkIndex, chunkIndex + 1);
+    init(bytes, pointCount);
+  }
+
+  @Override
+  public LasPoint next() {
+    if (this.index >= this.pointCount) {
+      throw new NoSuchElementException();
+    }
+    try {
+      final DataReader reader = this.reader;
+      final LasPoint point;
+      if (this.index == 0) {
+        point = this.pointFormat.readLasPoint(this.pointCloud, reader);
+        if (this.layered) {
+          this.decoder.init(reader, false);
+          reader.getInt(); // count unused
+          for (final LasZipItemCodec codec : this.codecs) {
+            codec.readChunkSizes();
+          }
+          for (final LasZipItemCodec codec : this.codecs) {
+            this.context = codec.init(point, this.context);
+          }
+        } else {
+          for (final LasZipItemCodec codec : this.codecs) {
+            this.context = codec.init(point, this.context);
+          }
+          this.decoder.init(reader);
+        }
+      } else {
+        point = this.pointFormat.newLasPoint(this.pointCloud);
+        for (final LasZipItemCodec codec : this.codecs) {
+          this.context = codec.read(point, this.context);
+        }
+      }
+      this.index++;
+      if (this.index == this.pointCount) {
+        this.reader = null;
+      }
+      return point;
+    } catch (final Exception e) {
+      this.pointCount = 0;
+      this.reader = null;
+      throw Exceptions.wrap("Error decompressing: " + this.pointCloud.getResource(), e);
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.revolsys.elevation.cloud.las.zip;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import com.revolsys.elevation.cloud.las.LasPointCloud;
+import com.revolsys.elevation.cloud.las.pointformat.LasPoint;
+import com.revolsys.io.channels.DataReader;
+
+/**
+ * A {@link Spliterator} over the points in a chunked LAZ file. The chunks are
+ * split using the {@link LasZipChunkTable} and each spliterator decompresses
+ * its chunks with its own {@link LasZipChunkDecoder}, so the chunks can be
+ * decompressed in parallel. The prefix is returned by {@link #trySplit()} so
+ * the stream encounter order is the file order.
+ */
+public class LasZipChunkSpliterator implements Spliterator<LasPoint> {
+
+  private final LasZipChunkTable chunkTable;
+
+  private LasZipChunkDecoder decoder;
+
+  private int endChunkIndex;
+
+  private final LasPointCloud pointCloud;
+
+  private final DataReader reader;
+
+  private int startChunkIndex;
+
+  public LasZipChunkSpliterator(final LasPointCloud pointCloud, final DataReader reader,
+    final LasZipChunkTable chunkTable) {
+    this(pointCloud, reader, chunkTable, 0, chunkTable.getChunkCount());
+  }
+
+  private LasZipChunkSpliterator(final LasPointCloud pointCloud, final DataReader reader,
+    final LasZipChunkTable chunkTable, final int startChunkIndex, final int endChunkIndex) {
+    this.pointCloud = pointCloud;
+    this.reader = reader;
+    this.chunkTable = chunkTable;
+    this.startChunkIndex = startChunkIndex;
+    this.endChunkIndex = endChunkIndex;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL | SIZED | SUBSIZED;
+  }
+
+  @Override
+  public long estimateSize() {
+    long size = this.chunkTable.getPointCount(this.startChunkIndex, this.endChunkIndex);
+    if (this.decoder != null) {
+      size += this.decoder.getRemainingCount();
+    }
+    return size;
+  }
+
+  private boolean hasPoints() {
+    return this.decoder != null && this.decoder.hasNext();
+  }
+
+  @Override
+  public boolean tryAdvance(final Consumer<? super LasPoint> action) {
+    while (!hasPoints()) {
+      if (this.startChunkIndex >= this.endChunkIndex) {
+        return false;
+      } else {
+        if (this.decoder == null) {
+          this.decoder = new LasZipChunkDecoder(this.pointCloud);
+        }
+        this.decoder.init(this.chunkTable, this.reader, this.startChunkIndex++);
+      }
+    }
+    final LasPoint point = this.decoder.next();
+    action.accept(point);
+    return true;
+  }
+
+  @Override
+  public Spliterator<LasPoint> trySplit() {
+    if (hasPoints()) {
+      // The current chunk precedes the remaining chunks so the prefix can't be split off
+      return null;
+    }
+    final int chunkCount = this.endChunkIndex - this.startChunkIndex;
+    if (chunkCount < 2) {
+      return null;
+    }
+    final int splitStart = this.startChunkIndex;
+    final int splitEnd = splitStart + chunkCount / 2;
+    this.startChunkIndex = splitEnd;
+    return new LasZipChunkSpliterator(this.pointCloud, this.reader, this.chunkTable, splitStart,
+      splitEnd);
+  }
+}
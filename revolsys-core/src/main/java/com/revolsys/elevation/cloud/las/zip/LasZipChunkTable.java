@@ -0,0 +1,145 @@
+package com.revolsys.elevation.cloud.las.zip;
+
+import com.revolsys.elevation.cloud.las.LasPointCloud;
+import com.revolsys.io.channels.DataReader;
+import com.revolsys.math.arithmeticcoding.ArithmeticCodingInteger;
+import com.revolsys.math.arithmeticcoding.ArithmeticDecoder;
+
+/**
+ * The table of the byte offsets and point counts for the chunks in a chunked
+ * LAZ file. Each chunk is compressed with its own arithmetic coder and codec
+ * state so the chunks can be read using the table and decompressed
+ * independently.
+ */
+public class LasZipChunkTable {
+
+  /**
+   * Read the chunk table for the point cloud. The reader must be positioned at
+   * the start of the point data and is returned to that position.
+   *
+   * @param pointCloud The point cloud.
+   * @param reader The reader.
+   * @return The chunk table or null if the file is not chunked, the reader is
+   *         not seekable or the table is missing or invalid.
+   */
+  public static LasZipChunkTable readChunkTable(final LasPointCloud pointCloud,
+    final DataReader reader) {
+    final LasZipHeader lasZipHeader = LasZipHeader.getLasZipHeader(pointCloud);
+    if (lasZipHeader == null || lasZipHeader.isCompressor(LasZipCompressorType.POINTWISE)
+      || !reader.isSeekable()) {
+      return null;
+    }
+    final long pointDataStart = reader.position();
+    try {
+      long chunkTableStart = reader.getLong();
+      final long chunksStart = reader.position();
+      if (chunkTableStart == -1) {
+        // Written to a non-seekable stream with the chunk table start at the end
+        reader.seekEnd(8);
+        chunkTableStart = reader.getLong();
+      }
+      if (chunkTableStart < chunksStart) {
+        // The compressor was interrupted before writing the chunk table
+        return null;
+      }
+      reader.seek(chunkTableStart);
+      final int version = reader.getInt();
+      if (version != 0) {
+        return null;
+      }
+      final int chunkCount = reader.getInt();
+      final long pointCount = pointCloud.getPointCount();
+      final long chunkSize = lasZipHeader.getChunkSize();
+      final boolean variableChunkSize = chunkSize == Integer.MAX_VALUE;
+      final long[] offsets = new long[chunkCount + 1];
+      final long[] pointIndexes = new long[chunkCount + 1];
+      offsets[0] = chunksStart;
+      if (chunkCount > 0) {
+        final ArithmeticDecoder decoder = new ArithmeticDecoder();
+        decoder.init(reader);
+        final ArithmeticCodingInteger ic = new ArithmeticCodingInteger(decoder, 32, 2);
+        ic.initDecompressor();
+        int chunkPointCount = 0;
+        int chunkByteCount = 0;
+        for (int i = 1; i <= chunkCount; i++) {
+          if (variableChunkSize) {
+            chunkPointCount = ic.decompress(chunkPointCount, 0);
+            pointIndexes[i] = pointIndexes[i - 1] + chunkPointCount;
+          } else {
+            pointIndexes[i] = Math.min(pointIndexes[i - 1] + chunkSize, pointCount);
+          }
+          chunkByteCount = ic.decompress(chunkByteCount, 1);
+          offsets[i] = offsets[i - 1] + chunkByteCount;
+          if (chunkByteCount <= 0 || pointIndexes[i] <= pointIndexes[i - 1]) {
+            return null;
+          }
+        }
+      }
+      if (pointIndexes[chunkCount] != pointCount || offsets[chunkCount] > chunkTableStart) {
+        return null;
+      }
+      return new LasZipChunkTable(offsets, pointIndexes);
+    } catch (final RuntimeException e) {
+      return null;
+    } finally {
+      reader.seek(pointDataStart);
+    }
+  }
+
+  private final long[] offsets;
+
+  private final long[] pointIndexes;
+
+  private LasZipChunkTable(final long[] offsets, final long[] pointIndexes) {
+    this.offsets = offsets;
+    this.pointIndexes = pointIndexes;
+  }
+
+  public int getChunkCount() {
+    return this.offsets.length - 1;
+  }
+
+  public long getOffset(final int chunkIndex) {
+    return this.offsets[chunkIndex];
+  }
+
+  /**
+   * Get the number of points in the chunks from startChunkIndex (inclusive) to
+   * endChunkIndex (exclusive).
+   */
+  public long getPointCount(final int startChunkIndex, final int endChunkIndex) {
+    return this.pointIndexes[endChunkIndex] - this.pointIndexes[startChunkIndex];
+  }
+
+  /**
+   * Get the index of the first point in the chunk. Using
+   * {@link #getChunkCount()} as the chunk index returns the total number of
+   * points.
+   */
+  public long getPointIndex(final int chunkIndex) {
+    return this.pointIndexes[chunkIndex];
+  }
+
+  /**
+   * Read the compressed bytes for the chunk. The reads are synchronized on the
+   * reader so the chunks can be read from multiple threads using the same
+   * reader.
+   *
+   * @param reader The seekable reader.
+   * @param chunkIndex The index of the chunk.
+   * @return The bytes.
+   */
+  public byte[] readChunk(final DataReader reader, final int chunkIndex) {
+    final long offset = this.offsets[chunkIndex];
+    final int byteCount = (int)(this.offsets[chunkIndex + 1] - offset);
+    final byte[] bytes;
+    synchronized (reader) {
+      bytes = reader.getBytes(offset, byteCount);
+    }
+    if (bytes.length != byteCount) {
+      throw new IllegalStateException("Expecting " + byteCount + " bytes for chunk " + chunkIndex
+        + " not " + bytes.length);
+    }
+    return bytes;
+  }
+}
@@ -1,5 +1,6 @@
 package com.revolsys.elevation.gridded;
 
+import java.util.Arrays;
 import java.util.Map;
 
 import org.jeometry.common.collection.map.LruMap;
@@ -88,6 +89,44 @@ public abstract class AbstractTiledGriddedDigitalElevationModel extends Abstract
     }
   }
 
+  /**
+   * Get the values for the window by getting the values for the part of the
+   * window within each tile from the tile's model.
+   */
+  @Override
+  public void getValues(final int gridX, final int gridY, final int width, final int height,
+    final double[] values) {
+    final int tileSize = this.gridTileSize;
+    double[] tileValues = null;
+    for (int tileMinY = gridY; tileMinY < gridY + height;) {
+      final int tileMaxY = Math.min(Math.floorDiv(tileMinY, tileSize) * tileSize + tileSize,
+        gridY + height);
+      final int tileHeight = tileMaxY - tileMinY;
+      for (int tileMinX = gridX; tileMinX < gridX + width;) {
+        final int tileMaxX = Math.min(Math.floorDiv(tileMinX, tileSize) * tileSize + tileSize,
+          gridX + width);
+        final int tileWidth = tileMaxX - tileMinX;
+        final int cellCount = tileWidth * tileHeight;
+        if (tileValues == null || tileValues.length < cellCount) {
+          tileValues = new double[cellCount];
+        }
+        final GriddedElevationModel model = getModel(tileMinX, tileMinY);
+        if (model == null) {
+          Arrays.fill(tileValues, 0, cellCount, Double.NaN);
+        } else {
+          model.getValues(Math.floorMod(tileMinX, tileSize), Math.floorMod(tileMinY, tileSize),
+            tileWidth, tileHeight, tileValues);
+        }
+        for (int j = 0; j < tileHeight; j++) {
+          System.arraycopy(tileValues, j * tileWidth, values,
+            (tileMinY - gridY + j) * width + tileMinX - gridX, tileWidth);
+        }
+        tileMinX = tileMaxX;
+      }
+      tileMinY = tileMaxY;
+    }
+  }
+
   @Override
   public boolean isEmpty() {
     return false;
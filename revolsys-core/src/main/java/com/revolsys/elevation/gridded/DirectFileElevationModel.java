@@ -1,5 +1,7 @@
 package com.revolsys.elevation.gridded;
 
+import java.util.Arrays;
+
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.grid.AbstractGrid;
 import com.revolsys.io.BaseCloseable;
@@ -47,6 +49,33 @@ public abstract class DirectFileElevationModel extends AbstractGrid
     return readElevation(offset);
   }
 
+  /**
+   * Get the values for the window reading the part of each row of the window
+   * that is within the grid using {@link #readElevations(int, double[], int, int)}.
+   */
+  @Override
+  public void getValues(final int gridX, final int gridY, final int width, final int height,
+    final double[] values) {
+    final int gridWidth = this.gridWidth;
+    final int gridHeight = this.gridHeight;
+    final int minX = Math.max(gridX, 0);
+    final int maxX = Math.min(gridX + width, gridWidth);
+    final int count = maxX - minX;
+    for (int j = 0; j < height; j++) {
+      final int y = gridY + j;
+      final int rowIndex = j * width;
+      if (y < 0 || y >= gridHeight || count <= 0) {
+        Arrays.fill(values, rowIndex, rowIndex + width, Double.NaN);
+      } else {
+        final int startIndex = rowIndex + minX - gridX;
+        Arrays.fill(values, rowIndex, startIndex, Double.NaN);
+        final int offset = this.headerSize + (y * gridWidth + minX) * this.elevationByteCount;
+        readElevations(offset, values, startIndex, count);
+        Arrays.fill(values, startIndex + count, rowIndex + width, Double.NaN);
+      }
+    }
+  }
+
   @Override
   public boolean isEmpty() {
     return false;
@@ -70,6 +99,23 @@ public abstract class DirectFileElevationModel extends AbstractGrid
 
   protected abstract double readElevation(final int offset);
 
+  /**
+   * Read the consecutive elevations starting at the offset. Subclasses should
+   * override this to read all the elevations in a single read.
+   *
+   * @param offset The offset in the file of the first elevation.
+   * @param values The array to store the elevations in.
+   * @param index The index in the array of the first elevation.
+   * @param count The number of elevations to read.
+   */
+  protected void readElevations(int offset, final double[] values, final int index,
+    final int count) {
+    for (int i = 0; i < count; i++) {
+      values[index + i] = readElevation(offset);
+      offset += this.elevationByteCount;
+    }
+  }
+
   @Override
   public void setValue(final int gridX, final int gridY, final double elevation) {
     final int gridWidth = getGridWidth();
@@ -2,6 +2,7 @@ package com.revolsys.elevation.gridded.scaledint;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.charset.StandardCharsets;
@@ -10,6 +11,7 @@ import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileAttribute;
+import java.util.Arrays;
 import java.util.Set;
 
 import org.jeometry.common.exception.Exceptions;
@@ -25,6 +27,18 @@ import com.revolsys.io.channels.ChannelWriter;
 import com.revolsys.io.channels.DataReader;
 import com.revolsys.io.file.Paths;
 
+/**
+ * A {@link ScaledIntegerGriddedDigitalElevation} file where the elevations are
+ * read and written directly from the file instead of loading the grid into
+ * memory.
+ * <p>
+ * By default each elevation is read using a positioned read on the file
+ * channel and {@link #getValues(int, int, int, int, double[])} reads each row
+ * of the window in a single read. If {@link #setMemoryMapped(boolean)} is
+ * enabled the file is memory mapped on the first read and the elevations are
+ * read from the mapped buffer without any system calls. Memory mapping is
+ * intended for read only access to the file.
+ */
 public class ScaledIntegerGriddedDigitalElevationModelFile extends DirectFileElevationModel {
   private static final int ELEVATION_BYTE_COUNT = 4;
 
@@ -55,6 +69,12 @@ public class ScaledIntegerGriddedDigitalElevationModelFile extends DirectFileEle
 
   private ByteBuffer rowBuffer;
 
+  private ByteBuffer readBuffer;
+
+  private MappedByteBuffer mappedBuffer;
+
+  private boolean memoryMapped = false;
+
   private double scaleZ;
 
   private boolean createMissing = false;
@@ -90,6 +110,7 @@ public class ScaledIntegerGriddedDigitalElevationModelFile extends DirectFileEle
     super.close();
     final FileChannel fileChannel = this.channel;
     this.channel = null;
+    this.mappedBuffer = null;
     if (fileChannel != null) {
       try {
         fileChannel.close();
@@ -140,6 +161,16 @@ public class ScaledIntegerGriddedDigitalElevationModelFile extends DirectFileEle
     return this.channel;
   }
 
+  private synchronized MappedByteBuffer getMappedBuffer() throws IOException {
+    if (this.mappedBuffer == null) {
+      final FileChannel fileChannel = getFileChannel();
+      if (fileChannel != null) {
+        this.mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+      }
+    }
+    return this.mappedBuffer;
+  }
+
   private DataReader getReader() throws IOException {
     getFileChannel();
     return this.reader;
@@ -149,12 +180,35 @@ public class ScaledIntegerGriddedDigitalElevationModelFile extends DirectFileEle
     return this.createMissing;
   }
 
+  public boolean isMemoryMapped() {
+    return this.memoryMapped;
+  }
+
   public boolean isUseLocks() {
     return this.useLocks;
   }
 
   @Override
-  protected synchronized double readElevation(final int offset) {
+  protected double readElevation(final int offset) {
+    if (this.memoryMapped) {
+      try {
+        final MappedByteBuffer mappedBuffer = getMappedBuffer();
+        if (mappedBuffer == null || offset + ELEVATION_BYTE_COUNT > mappedBuffer.limit()) {
+          return Double.NaN;
+        } else {
+          return toElevation(mappedBuffer.getInt(offset));
+        }
+      } catch (final NoSuchFileException e) {
+        return Double.NaN;
+      } catch (final IOException e) {
+        throw Exceptions.wrap("Unable to read: " + this.path, e);
+      }
+    } else {
+      return readElevationChannel(offset);
+    }
+  }
+
+  private synchronized double readElevationChannel(final int offset) {
     try {
       final FileChannel fileChannel = getFileChannel();
       if (fileChannel == null) {
@@ -162,17 +216,13 @@ public class ScaledIntegerGriddedDigitalElevationModelFile extends DirectFileEle
       } else {
         this.buffer.clear();
         while (this.buffer.hasRemaining()) {
-          if (fileChannel.read(this.buffer, offset) == -1) {
+          if (fileChannel.read(this.buffer, offset + this.buffer.position()) == -1) {
             return Double.NaN;
           }
         }
         this.buffer.flip();
         final int elevationInt = this.buffer.getInt();
-        if (elevationInt == Integer.MIN_VALUE) {
-          return Double.NaN;
-        } else {
-          return elevationInt / this.scaleZ;
-        }
+        return toElevation(elevationInt);
       }
     } catch (final NoSuchFileException e) {
       return Double.NaN;
@@ -183,6 +233,57 @@ public class ScaledIntegerGriddedDigitalElevationModelFile extends DirectFileEle
     }
   }
 
+  /**
+   * Read the elevations from the mapped buffer or using a single read from the
+   * file channel.
+   */
+  @Override
+  protected void readElevations(final int offset, final double[] values, final int index,
+    final int count) {
+    final int byteCount = count * ELEVATION_BYTE_COUNT;
+    try {
+      if (this.memoryMapped) {
+        final MappedByteBuffer mappedBuffer = getMappedBuffer();
+        if (mappedBuffer == null || offset + byteCount > mappedBuffer.limit()) {
+          Arrays.fill(values, index, index + count, Double.NaN);
+        } else {
+          for (int i = 0; i < count; i++) {
+            final int elevationInt = mappedBuffer.getInt(offset + i * ELEVATION_BYTE_COUNT);
+            values[index + i] = toElevation(elevationInt);
+          }
+        }
+      } else {
+        synchronized (this) {
+          final FileChannel fileChannel = getFileChannel();
+          ByteBuffer buffer = this.readBuffer;
+          if (buffer == null || buffer.capacity() < byteCount) {
+            buffer = ByteBuffer.allocateDirect(byteCount);
+            this.readBuffer = buffer;
+          }
+          buffer.clear();
+          buffer.limit(byteCount);
+          while (fileChannel != null && buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, offset + buffer.position()) == -1) {
+              break;
+            }
+          }
+          buffer.flip();
+          for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < ELEVATION_BYTE_COUNT) {
+              values[index + i] = Double.NaN;
+            } else {
+              values[index + i] = toElevation(buffer.getInt());
+            }
+          }
+        }
+      }
+    } catch (final NoSuchFileException e) {
+      Arrays.fill(values, index, index + count, Double.NaN);
+    } catch (final IOException e) {
+      throw Exceptions.wrap("Unable to read: " + this.path, e);
+    }
+  }
+
   private void readHeader() {
     try {
       final DataReader reader = getReader();
@@ -277,6 +378,18 @@ public class ScaledIntegerGriddedDigitalElevationModelFile extends DirectFileEle
     }
   }
 
+  /**
+   * Set whether the file is memory mapped for reading.
+   *
+   * @param memoryMapped True if the file is memory mapped.
+   */
+  public synchronized void setMemoryMapped(final boolean memoryMapped) {
+    this.memoryMapped = memoryMapped;
+    if (!memoryMapped) {
+      this.mappedBuffer = null;
+    }
+  }
+
   public void setUseLocks(final boolean useLocks) {
     this.useLocks = useLocks;
   }
@@ -288,6 +401,14 @@ public class ScaledIntegerGriddedDigitalElevationModelFile extends DirectFileEle
     writeElevation(offset, Integer.MIN_VALUE);
   }
 
+  private double toElevation(final int elevationInt) {
+    if (elevationInt == Integer.MIN_VALUE) {
+      return Double.NaN;
+    } else {
+      return elevationInt / this.scaleZ;
+    }
+  }
+
   @Override
   protected synchronized void writeElevation(final int offset, final double elevation) {
     int elevationInt;
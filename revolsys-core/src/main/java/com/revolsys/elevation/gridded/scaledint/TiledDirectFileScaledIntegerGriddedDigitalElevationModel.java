@@ -17,6 +17,8 @@ public class TiledDirectFileScaledIntegerGriddedDigitalElevationModel
 
   private final String filePrefix;
 
+  private boolean memoryMapped = false;
+
   private final String tileWidthString;
 
   public TiledDirectFileScaledIntegerGriddedDigitalElevationModel(final Path baseDirectory,
@@ -40,6 +42,10 @@ public class TiledDirectFileScaledIntegerGriddedDigitalElevationModel
       gridCellSize);
   }
 
+  public boolean isMemoryMapped() {
+    return this.memoryMapped;
+  }
+
   @Override
   protected GriddedElevationModel newModel(final double tileX, final double tileY) {
     final int tileXInt = (int)tileX;
@@ -55,8 +61,23 @@ public class TiledDirectFileScaledIntegerGriddedDigitalElevationModel
       .resolve(Integer.toString(tileXInt)) //
       .resolve(fileName);
 
-    return new ScaledIntegerGriddedDigitalElevationModelFile(path, geometryFactory, tileXInt,
-      tileYInt, tileSize, tileSize, this.gridCellWidth);
+    final ScaledIntegerGriddedDigitalElevationModelFile model = new ScaledIntegerGriddedDigitalElevationModelFile(
+      path, geometryFactory, tileXInt, tileYInt, tileSize, tileSize, this.gridCellWidth);
+    model.setMemoryMapped(this.memoryMapped);
+    return model;
+  }
+
+  /**
+   * Set whether the tile files are memory mapped for reading. Only applies to
+   * tiles opened after this is set.
+   *
+   * @param memoryMapped True if the tile files are memory mapped.
+   * @see ScaledIntegerGriddedDigitalElevationModelFile#setMemoryMapped(boolean)
+   */
+  public TiledDirectFileScaledIntegerGriddedDigitalElevationModel setMemoryMapped(
+    final boolean memoryMapped) {
+    this.memoryMapped = memoryMapped;
+    return this;
   }
 
 }
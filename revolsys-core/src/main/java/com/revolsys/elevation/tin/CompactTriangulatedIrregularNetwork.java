@@ -25,6 +25,11 @@ public class CompactTriangulatedIrregularNetwork extends BaseCompactTriangulated
     this.triangleSpatialIndex = new IdObjectQuadTree<>(geometryFactory) {
       private static final long serialVersionUID = 1L;
 
+      @Override
+      protected BoundingBox getItemBoundingBox(final Integer triangleIndex) {
+        return newTriangleBoundingBox(triangleIndex);
+      }
+
       @Override
       protected boolean intersectsBounds(final Object id, final double x, final double y) {
         final Integer triangleIndex = (Integer)id;
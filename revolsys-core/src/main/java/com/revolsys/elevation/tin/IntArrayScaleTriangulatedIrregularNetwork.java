@@ -1,5 +1,7 @@
 package com.revolsys.elevation.tin;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 import com.revolsys.geometry.index.SpatialIndex;
@@ -219,12 +221,13 @@ public class IntArrayScaleTriangulatedIrregularNetwork extends BaseObjectWithPro
     if (this.triangleSpatialIndex == null) {
       synchronized (this) {
         if (this.triangleSpatialIndex == null) {
-          final SpatialIndex<Triangle> index = new RStarTree<>(this.geometryFactory);
+          final List<Triangle> triangles = new ArrayList<>(this.triangleCount);
           for (int triangleIndex = 0; triangleIndex < this.triangleCount; triangleIndex++) {
             final Triangle triangle = newTriangle(triangleIndex);
-            final BoundingBox boundingBox = triangle.getBoundingBox();
-            index.insertItem(boundingBox, triangle);
+            triangles.add(triangle);
           }
+          final SpatialIndex<Triangle> index = new RStarTree<>(this.geometryFactory);
+          index.insertItems(triangles, Triangle::getBoundingBox, true);
           this.triangleSpatialIndex = index;
         }
       }
@@ -0,0 +1,257 @@
+package com.revolsys.geometry.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.revolsys.geometry.graph.Edge;
+import com.revolsys.geometry.graph.Node;
+
+/**
+ * A point to point router over a {@link CsrGraph} using a bidirectional A*
+ * search. The forward search from the source and the backward search from the
+ * target use the average of the straight line distance potentials to the target
+ * and from the source (scaled by {@link CsrGraph#getHeuristicFactor()}) so the
+ * potentials are consistent and the searches can stop as soon as the sum of the
+ * minimum keys of both queues exceeds the shortest path found so far.
+ * <p>
+ * The working arrays are allocated once and reused for each query so a router
+ * must only be used by one thread at a time. Create one router per thread to
+ * route in parallel over the same {@link CsrGraph}.
+ * </p>
+ *
+ * @param <T> The type of object stored on the edges.
+ */
+public class BidirectionalAStar<T> {
+
+  private final double[] backwardDistances;
+
+  private final int[] backwardGenerations;
+
+  private final NodeDistanceHeap backwardHeap;
+
+  private final int[] backwardPredecessorEdges;
+
+  private final int[] backwardPredecessorNodes;
+
+  private final int[] backwardSettled;
+
+  private final double[] forwardDistances;
+
+  private final int[] forwardGenerations;
+
+  private final NodeDistanceHeap forwardHeap;
+
+  private final int[] forwardPredecessorEdges;
+
+  private final int[] forwardPredecessorNodes;
+
+  private final int[] forwardSettled;
+
+  private int generation;
+
+  private final CsrGraph<T> graph;
+
+  private double pathDistance = Double.POSITIVE_INFINITY;
+
+  private int settledCount;
+
+  private int source;
+
+  private int target;
+
+  public BidirectionalAStar(final CsrGraph<T> graph) {
+    this.graph = graph;
+    final int nodeCount = graph.getNodeCount();
+    this.forwardDistances = new double[nodeCount];
+    this.forwardGenerations = new int[nodeCount];
+    this.forwardSettled = new int[nodeCount];
+    this.forwardPredecessorEdges = new int[nodeCount];
+    this.forwardPredecessorNodes = new int[nodeCount];
+    this.forwardHeap = new NodeDistanceHeap(nodeCount / 16);
+    this.backwardDistances = new double[nodeCount];
+    this.backwardGenerations = new int[nodeCount];
+    this.backwardSettled = new int[nodeCount];
+    this.backwardPredecessorEdges = new int[nodeCount];
+    this.backwardPredecessorNodes = new int[nodeCount];
+    this.backwardHeap = new NodeDistanceHeap(nodeCount / 16);
+  }
+
+  private double getPotential(final int nodeIndex) {
+    final CsrGraph<T> graph = this.graph;
+    final double toTarget = graph.distance(nodeIndex, this.target);
+    final double fromSource = graph.distance(nodeIndex, this.source);
+    return graph.getHeuristicFactor() * (toTarget - fromSource) / 2;
+  }
+
+  public CsrGraph<T> getGraph() {
+    return this.graph;
+  }
+
+  /**
+   * Get the shortest path between the nodes. The edges are returned in order from
+   * the source node.
+   *
+   * @param sourceNode The node to start from.
+   * @param targetNode The node to end at.
+   * @return The edges in the path, an empty list if the nodes are the same or
+   * there is no path.
+   */
+  public List<Edge<T>> getPath(final Node<T> sourceNode, final Node<T> targetNode) {
+    this.pathDistance = Double.POSITIVE_INFINITY;
+    this.settledCount = 0;
+    final CsrGraph<T> graph = this.graph;
+    final int source = graph.getNodeIndex(sourceNode);
+    final int target = graph.getNodeIndex(targetNode);
+    if (source == -1 || target == -1) {
+      return Collections.emptyList();
+    } else if (source == target) {
+      this.pathDistance = 0;
+      return Collections.emptyList();
+    }
+    this.source = source;
+    this.target = target;
+    final int generation = nextGeneration();
+
+    final double[] forwardDistances = this.forwardDistances;
+    final double[] backwardDistances = this.backwardDistances;
+    final int[] forwardGenerations = this.forwardGenerations;
+    final int[] backwardGenerations = this.backwardGenerations;
+    final NodeDistanceHeap forwardHeap = this.forwardHeap;
+    final NodeDistanceHeap backwardHeap = this.backwardHeap;
+    forwardHeap.clear();
+    backwardHeap.clear();
+
+    forwardDistances[source] = 0;
+    forwardGenerations[source] = generation;
+    this.forwardPredecessorNodes[source] = -1;
+    forwardHeap.add(getPotential(source), source);
+
+    backwardDistances[target] = 0;
+    backwardGenerations[target] = generation;
+    this.backwardPredecessorNodes[target] = -1;
+    backwardHeap.add(-getPotential(target), target);
+
+    final int[] offsets = graph.getOffsets();
+    final int[] targets = graph.getTargets();
+    final int[] edgeIndexes = graph.getEdgeIndexes();
+    final double[] weights = graph.getWeights();
+
+    double bestDistance = Double.POSITIVE_INFINITY;
+    int meetingNode = -1;
+    while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+      final double forwardKey = forwardHeap.peekKey();
+      final double backwardKey = backwardHeap.peekKey();
+      if (forwardKey + backwardKey >= bestDistance) {
+        break;
+      }
+      final boolean forward = forwardKey <= backwardKey;
+      final NodeDistanceHeap heap;
+      final double[] distances;
+      final int[] generations;
+      final int[] settled;
+      final int[] predecessorNodes;
+      final int[] predecessorEdges;
+      final double[] otherDistances;
+      final int[] otherGenerations;
+      final double potentialSign;
+      if (forward) {
+        heap = forwardHeap;
+        distances = forwardDistances;
+        generations = forwardGenerations;
+        settled = this.forwardSettled;
+        predecessorNodes = this.forwardPredecessorNodes;
+        predecessorEdges = this.forwardPredecessorEdges;
+        otherDistances = backwardDistances;
+        otherGenerations = backwardGenerations;
+        potentialSign = 1;
+      } else {
+        heap = backwardHeap;
+        distances = backwardDistances;
+        generations = backwardGenerations;
+        settled = this.backwardSettled;
+        predecessorNodes = this.backwardPredecessorNodes;
+        predecessorEdges = this.backwardPredecessorEdges;
+        otherDistances = forwardDistances;
+        otherGenerations = forwardGenerations;
+        potentialSign = -1;
+      }
+      final int node = heap.poll();
+      if (settled[node] != generation) {
+        settled[node] = generation;
+        this.settledCount++;
+        final double nodeDistance = distances[node];
+        final int end = offsets[node + 1];
+        for (int entry = offsets[node]; entry < end; entry++) {
+          final int nextNode = targets[entry];
+          if (settled[nextNode] != generation) {
+            final double distance = nodeDistance + weights[entry];
+            if (generations[nextNode] != generation || distance < distances[nextNode]) {
+              distances[nextNode] = distance;
+              generations[nextNode] = generation;
+              predecessorNodes[nextNode] = node;
+              predecessorEdges[nextNode] = edgeIndexes[entry];
+              heap.add(distance + potentialSign * getPotential(nextNode), nextNode);
+              if (otherGenerations[nextNode] == generation) {
+                final double pathDistance = distance + otherDistances[nextNode];
+                if (pathDistance < bestDistance) {
+                  bestDistance = pathDistance;
+                  meetingNode = nextNode;
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+    if (meetingNode == -1) {
+      return Collections.emptyList();
+    } else {
+      this.pathDistance = forwardDistances[meetingNode] + backwardDistances[meetingNode];
+      return newPath(meetingNode);
+    }
+  }
+
+  /**
+   * Get the distance (total weight) of the path returned by the last call to
+   * {@link #getPath(Node, Node)}, infinity if there was no path.
+   */
+  public double getPathDistance() {
+    return this.pathDistance;
+  }
+
+  /**
+   * Get the number of nodes settled by both searches in the last call to
+   * {@link #getPath(Node, Node)}.
+   */
+  public int getSettledCount() {
+    return this.settledCount;
+  }
+
+  private List<Edge<T>> newPath(final int meetingNode) {
+    final CsrGraph<T> graph = this.graph;
+    final List<Edge<T>> path = new ArrayList<>();
+    for (int node = meetingNode; node != this.source; node = this.forwardPredecessorNodes[node]) {
+      final Edge<T> edge = graph.getEdge(this.forwardPredecessorEdges[node]);
+      path.add(edge);
+    }
+    Collections.reverse(path);
+    for (int node = meetingNode; node != this.target; node = this.backwardPredecessorNodes[node]) {
+      final Edge<T> edge = graph.getEdge(this.backwardPredecessorEdges[node]);
+      path.add(edge);
+    }
+    return path;
+  }
+
+  private int nextGeneration() {
+    if (this.generation == Integer.MAX_VALUE) {
+      Arrays.fill(this.forwardGenerations, 0);
+      Arrays.fill(this.forwardSettled, 0);
+      Arrays.fill(this.backwardGenerations, 0);
+      Arrays.fill(this.backwardSettled, 0);
+      this.generation = 0;
+    }
+    return ++this.generation;
+  }
+}
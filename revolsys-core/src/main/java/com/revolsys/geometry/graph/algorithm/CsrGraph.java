@@ -0,0 +1,212 @@
+package com.revolsys.geometry.graph.algorithm;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.ToDoubleFunction;
+
+import com.revolsys.geometry.graph.Edge;
+import com.revolsys.geometry.graph.Graph;
+import com.revolsys.geometry.graph.Node;
+
+/**
+ * A read only compressed sparse row (CSR) snapshot of the nodes and edges of a
+ * {@link Graph} for routing. Nodes are numbered 0..nodeCount-1, the adjacent
+ * entries of node i are offsets[i]..offsets[i+1]-1 in the targets, edgeIndexes
+ * and weights arrays. Each edge is added to the adjacency of both of its nodes
+ * so the graph is undirected, the same as {@link Edge#getOppositeNode(Node)}.
+ * <p>
+ * The snapshot is not updated if the graph is modified.
+ * </p>
+ *
+ * @param <T> The type of object stored on the edges.
+ */
+public class CsrGraph<T> {
+
+  private final int[] edgeIndexes;
+
+  private final Edge<T>[] edges;
+
+  private final double heuristicFactor;
+
+  private final int[] nodeIndexById;
+
+  private final Node<T>[] nodes;
+
+  private final double[] nodeX;
+
+  private final double[] nodeY;
+
+  private final int[] offsets;
+
+  private final int[] targets;
+
+  private final double[] weights;
+
+  /**
+   * Construct a new graph using the length of the edges as the weight.
+   */
+  public CsrGraph(final Graph<T> graph) {
+    this(graph, Edge::getLength);
+  }
+
+  /**
+   * Construct a new graph.
+   *
+   * @param graph The graph.
+   * @param weightFunction The function to get the weight (cost) of an edge. Edges
+   * with an infinite or NaN weight are not included.
+   * @throws IllegalArgumentException If an edge has a negative weight.
+   */
+  @SuppressWarnings("unchecked")
+  public CsrGraph(final Graph<T> graph, final ToDoubleFunction<? super Edge<T>> weightFunction) {
+    final Collection<Integer> nodeIds = graph.getNodeIds();
+    final int nodeCount = nodeIds.size();
+    int maxNodeId = 0;
+    for (final int nodeId : nodeIds) {
+      if (nodeId > maxNodeId) {
+        maxNodeId = nodeId;
+      }
+    }
+    this.nodes = new Node[nodeCount];
+    this.nodeX = new double[nodeCount];
+    this.nodeY = new double[nodeCount];
+    this.nodeIndexById = new int[maxNodeId + 1];
+    Arrays.fill(this.nodeIndexById, -1);
+    int nodeIndex = 0;
+    for (final int nodeId : nodeIds) {
+      final Node<T> node = graph.getNode(nodeId);
+      this.nodes[nodeIndex] = node;
+      this.nodeX[nodeIndex] = node.getX();
+      this.nodeY[nodeIndex] = node.getY();
+      this.nodeIndexById[nodeId] = nodeIndex;
+      nodeIndex++;
+    }
+
+    final Collection<Integer> edgeIds = graph.getEdgeIds();
+    final Edge<T>[] edges = new Edge[edgeIds.size()];
+    final int[] fromIndexes = new int[edges.length];
+    final int[] toIndexes = new int[edges.length];
+    final double[] edgeWeights = new double[edges.length];
+    final int[] degrees = new int[nodeCount + 1];
+    double heuristicFactor = Double.POSITIVE_INFINITY;
+    int edgeCount = 0;
+    for (final int edgeId : edgeIds) {
+      final Edge<T> edge = graph.getEdge(edgeId);
+      final int fromIndex = getNodeIndex(edge.getFromNode());
+      final int toIndex = getNodeIndex(edge.getToNode());
+      if (fromIndex != -1 && toIndex != -1 && fromIndex != toIndex) {
+        final double weight = weightFunction.applyAsDouble(edge);
+        if (weight < 0) {
+          throw new IllegalArgumentException("Edge " + edgeId + " has negative weight " + weight);
+        } else if (Double.isFinite(weight)) {
+          edges[edgeCount] = edge;
+          fromIndexes[edgeCount] = fromIndex;
+          toIndexes[edgeCount] = toIndex;
+          edgeWeights[edgeCount] = weight;
+          degrees[fromIndex]++;
+          degrees[toIndex]++;
+          final double distance = distance(fromIndex, toIndex);
+          if (distance > 0) {
+            heuristicFactor = Math.min(heuristicFactor, weight / distance);
+          }
+          edgeCount++;
+        }
+      }
+    }
+    this.edges = Arrays.copyOf(edges, edgeCount);
+    if (Double.isInfinite(heuristicFactor)) {
+      this.heuristicFactor = 0;
+    } else {
+      this.heuristicFactor = heuristicFactor;
+    }
+
+    this.offsets = new int[nodeCount + 1];
+    for (int i = 0; i < nodeCount; i++) {
+      this.offsets[i + 1] = this.offsets[i] + degrees[i];
+    }
+    final int entryCount = this.offsets[nodeCount];
+    this.targets = new int[entryCount];
+    this.edgeIndexes = new int[entryCount];
+    this.weights = new double[entryCount];
+    final int[] positions = Arrays.copyOf(this.offsets, nodeCount);
+    for (int edgeIndex = 0; edgeIndex < edgeCount; edgeIndex++) {
+      final int fromIndex = fromIndexes[edgeIndex];
+      final int toIndex = toIndexes[edgeIndex];
+      final double weight = edgeWeights[edgeIndex];
+      addEntry(positions[fromIndex]++, toIndex, edgeIndex, weight);
+      addEntry(positions[toIndex]++, fromIndex, edgeIndex, weight);
+    }
+  }
+
+  private void addEntry(final int position, final int target, final int edgeIndex,
+    final double weight) {
+    this.targets[position] = target;
+    this.edgeIndexes[position] = edgeIndex;
+    this.weights[position] = weight;
+  }
+
+  /**
+   * Get the straight line distance between two nodes.
+   */
+  public double distance(final int nodeIndex1, final int nodeIndex2) {
+    final double deltaX = this.nodeX[nodeIndex1] - this.nodeX[nodeIndex2];
+    final double deltaY = this.nodeY[nodeIndex1] - this.nodeY[nodeIndex2];
+    return Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+  }
+
+  public Edge<T> getEdge(final int edgeIndex) {
+    return this.edges[edgeIndex];
+  }
+
+  public int getEdgeCount() {
+    return this.edges.length;
+  }
+
+  int[] getEdgeIndexes() {
+    return this.edgeIndexes;
+  }
+
+  /**
+   * Get the minimum ratio of the weight of an edge to the straight line distance
+   * between its nodes. The straight line distance multiplied by this factor is a
+   * lower bound of the weight of a path between two nodes.
+   */
+  public double getHeuristicFactor() {
+    return this.heuristicFactor;
+  }
+
+  public Node<T> getNode(final int nodeIndex) {
+    return this.nodes[nodeIndex];
+  }
+
+  public int getNodeCount() {
+    return this.nodes.length;
+  }
+
+  /**
+   * Get the index of the node in this graph.
+   *
+   * @return The index or -1 if the node is not in this graph.
+   */
+  public int getNodeIndex(final Node<T> node) {
+    if (node != null) {
+      final int nodeId = node.getId();
+      if (nodeId >= 0 && nodeId < this.nodeIndexById.length) {
+        return this.nodeIndexById[nodeId];
+      }
+    }
+    return -1;
+  }
+
+  int[] getOffsets() {
+    return this.offsets;
+  }
+
+  int[] getTargets() {
+    return this.targets;
+  }
+
+  double[] getWeights() {
+    return this.weights;
+  }
+}
@@ -0,0 +1,96 @@
+package com.revolsys.geometry.graph.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * A binary min heap of node indexes ordered by a double key, stored in
+ * primitive arrays. Nodes are not removed when their key is decreased, instead
+ * the node is added again and the caller ignores the entries for nodes it has
+ * already settled.
+ */
+class NodeDistanceHeap {
+  private double[] keys;
+
+  private int[] nodes;
+
+  private int size;
+
+  NodeDistanceHeap(final int capacity) {
+    final int initialCapacity = Math.max(16, capacity);
+    this.keys = new double[initialCapacity];
+    this.nodes = new int[initialCapacity];
+  }
+
+  void add(final double key, final int node) {
+    if (this.size == this.keys.length) {
+      final int newCapacity = this.size * 2;
+      this.keys = Arrays.copyOf(this.keys, newCapacity);
+      this.nodes = Arrays.copyOf(this.nodes, newCapacity);
+    }
+    final double[] keys = this.keys;
+    final int[] nodes = this.nodes;
+    int index = this.size++;
+    while (index > 0) {
+      final int parent = index - 1 >>> 1;
+      final double parentKey = keys[parent];
+      if (key >= parentKey) {
+        break;
+      }
+      keys[index] = parentKey;
+      nodes[index] = nodes[parent];
+      index = parent;
+    }
+    keys[index] = key;
+    nodes[index] = node;
+  }
+
+  void clear() {
+    this.size = 0;
+  }
+
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  double peekKey() {
+    return this.keys[0];
+  }
+
+  /**
+   * Remove the node with the minimum key.
+   */
+  int poll() {
+    final double[] keys = this.keys;
+    final int[] nodes = this.nodes;
+    final int result = nodes[0];
+    final int size = --this.size;
+    if (size > 0) {
+      final double key = keys[size];
+      final int node = nodes[size];
+      int index = 0;
+      final int half = size >>> 1;
+      while (index < half) {
+        int child = 2 * index + 1;
+        double childKey = keys[child];
+        final int right = child + 1;
+        if (right < size && keys[right] < childKey) {
+          child = right;
+          childKey = keys[right];
+        }
+        if (key <= childKey) {
+          break;
+        }
+        keys[index] = childKey;
+        nodes[index] = nodes[child];
+        index = child;
+      }
+      keys[index] = key;
+      nodes[index] = node;
+    }
+    return result;
+  }
+
+  int size() {
+    return this.size;
+  }
+}
@@ -1,97 +1,116 @@
 package com.revolsys.geometry.graph.algorithm;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
 
 import com.revolsys.geometry.graph.Edge;
 import com.revolsys.geometry.graph.Graph;
 import com.revolsys.geometry.graph.Node;
 
+/**
+ * The shortest paths from a source node to all the other nodes in a graph
+ * (Dijkstra's algorithm). Use {@link BidirectionalAStar} if only the path
+ * between two nodes is required.
+ *
+ * @param <T> The type of object stored on the edges.
+ */
 public class ShortestPath<T> {
 
-  private final Map<Node<T>, Double> distanceByNode = new HashMap<>();
+  private final double[] distances;
 
-  private final Set<Node<T>> nodesToProcess = new TreeSet<>((a, b) -> {
-    if (a.getId() == b.getId()) {
-      return 0;
-    } else {
-      final double distance1 = getDistance(a);
-      final double distance2 = getDistance(b);
-      final int compare = Double.compare(distance1, distance2);
-      if (compare == 0) {
-        return -1;
-      } else {
-        return compare;
-      }
-    }
-  });
+  private final CsrGraph<T> graph;
 
-  private final Map<Node<T>, Edge<T>> predecessorEdgeByNode = new HashMap<>();
+  private final int[] predecessorEdges;
 
-  private final Set<Node<T>> processeNodes = new HashSet<>();
+  private final int[] predecessorNodes;
 
-  public ShortestPath(final Graph<T> graph, final Node<T> source) {
-    this.distanceByNode.put(source, 0.0);
-    this.nodesToProcess.add(source);
-    while (!this.nodesToProcess.isEmpty()) {
-      final Node<T> node = getNextNode();
-      processNode(node);
-    }
-  }
+  public ShortestPath(final CsrGraph<T> graph, final Node<T> source) {
+    this.graph = graph;
+    final int nodeCount = graph.getNodeCount();
+    this.distances = new double[nodeCount];
+    this.predecessorEdges = new int[nodeCount];
+    this.predecessorNodes = new int[nodeCount];
+    Arrays.fill(this.distances, Double.POSITIVE_INFINITY);
+    Arrays.fill(this.predecessorEdges, -1);
 
-  private double getDistance(final Node<T> destination) {
-    return this.distanceByNode.getOrDefault(destination, Double.MAX_VALUE);
+    final int sourceIndex = graph.getNodeIndex(source);
+    if (sourceIndex != -1) {
+      final double[] distances = this.distances;
+      final int[] offsets = graph.getOffsets();
+      final int[] targets = graph.getTargets();
+      final int[] edgeIndexes = graph.getEdgeIndexes();
+      final double[] weights = graph.getWeights();
+      final boolean[] settled = new boolean[nodeCount];
+      final NodeDistanceHeap heap = new NodeDistanceHeap(nodeCount / 16);
+      distances[sourceIndex] = 0;
+      heap.add(0, sourceIndex);
+      while (!heap.isEmpty()) {
+        final int node = heap.poll();
+        if (!settled[node]) {
+          settled[node] = true;
+          final double nodeDistance = distances[node];
+          final int end = offsets[node + 1];
+          for (int entry = offsets[node]; entry < end; entry++) {
+            final int target = targets[entry];
+            if (!settled[target]) {
+              final double distance = nodeDistance + weights[entry];
+              if (distance < distances[target]) {
+                distances[target] = distance;
+                this.predecessorEdges[target] = edgeIndexes[entry];
+                this.predecessorNodes[target] = node;
+                heap.add(distance, target);
+              }
+            }
+          }
+        }
+      }
+    }
   }
 
-  private Node<T> getNextNode() {
-    for (final Iterator<Node<T>> iterator = this.nodesToProcess.iterator(); iterator.hasNext();) {
-      final Node<T> node = iterator.next();
-      iterator.remove();
-      this.processeNodes.add(node);
-      return node;
-    }
-    return null;
+  public ShortestPath(final Graph<T> graph, final Node<T> source) {
+    this(new CsrGraph<>(graph), source);
   }
 
-  public List<Edge<T>> getPath(final Node<T> target) {
-    final LinkedList<Edge<T>> path = new LinkedList<>();
-    Node<T> currentNode = target;
-    Edge<T> currentEdge = this.predecessorEdgeByNode.get(currentNode);
-    while (currentEdge != null) {
-      path.addFirst(currentEdge);
-      currentNode = currentEdge.getOppositeNode(currentNode);
-      currentEdge = this.predecessorEdgeByNode.get(currentNode);
+  /**
+   * Get the distance (total weight) of the shortest path to the target.
+   *
+   * @return The distance, infinity if there is no path.
+   */
+  public double getDistance(final Node<T> target) {
+    final int targetIndex = this.graph.getNodeIndex(target);
+    if (targetIndex == -1) {
+      return Double.POSITIVE_INFINITY;
+    } else {
+      return this.distances[targetIndex];
     }
-    return path;
   }
 
-  private boolean isProcessed(final Node<T> vertex) {
-    return this.processeNodes.contains(vertex);
+  public CsrGraph<T> getGraph() {
+    return this.graph;
   }
 
-  private void processNode(final Node<T> node) {
-    for (final Edge<T> edge : node.getEdges()) {
-      final Node<T> target = edge.getOppositeNode(node);
-      if (!isProcessed(target)) {
-        final double nodeShortestDistance = this.distanceByNode.getOrDefault(node,
-          Double.MAX_VALUE);
-        final double targetShortestDistance = this.distanceByNode.getOrDefault(target,
-          Double.MAX_VALUE);
-        final double length = edge.getLength();
-        final double edgeDistance = nodeShortestDistance + length;
-        if (targetShortestDistance > edgeDistance) {
-          this.distanceByNode.put(target, edgeDistance);
-          this.predecessorEdgeByNode.put(target, edge);
-          this.nodesToProcess.add(target);
-        }
+  /**
+   * Get the edges in the shortest path from the source to the target.
+   *
+   * @return The edges, an empty list if there is no path.
+   */
+  public List<Edge<T>> getPath(final Node<T> target) {
+    final CsrGraph<T> graph = this.graph;
+    final List<Edge<T>> path = new ArrayList<>();
+    int nodeIndex = graph.getNodeIndex(target);
+    if (nodeIndex != -1) {
+      int edgeIndex = this.predecessorEdges[nodeIndex];
+      while (edgeIndex != -1) {
+        final Edge<T> edge = graph.getEdge(edgeIndex);
+        path.add(edge);
+        nodeIndex = this.predecessorNodes[nodeIndex];
+        edgeIndex = this.predecessorEdges[nodeIndex];
       }
+      Collections.reverse(path);
     }
+    return path;
   }
 
 }
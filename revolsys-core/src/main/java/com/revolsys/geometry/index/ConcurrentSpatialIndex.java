@@ -0,0 +1,215 @@
+package com.revolsys.geometry.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import com.revolsys.geometry.index.quadtree.QuadTree;
+import com.revolsys.geometry.index.rstartree.RStarTree;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.BoundingBoxProxy;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.util.ExitLoopException;
+
+/**
+ * A {@link SpatialIndex} that can be shared between threads. The wrapped index
+ * is guarded by a {@link StampedLock}. Inserts and removes hold the write lock.
+ * Queries use an optimistic read without locking, so readers don't write to any
+ * shared state and don't block each other or writers. If the index was modified
+ * during the query the result is discarded and the query is run again holding
+ * the read lock. Any exception thrown while reading the index during a write is
+ * also discarded.
+ * <p>
+ * The forEach methods get the matching items and then call the action with no
+ * lock held, so the action can query or modify the index. The action is called
+ * for the items in the index when the query was run.
+ * </p>
+ * <p>
+ * The {@link #nearestIterator(double, double, double, double, double, ToDoubleFunction)}
+ * uses an optimistic read each time it expands a node. It is weakly consistent,
+ * items inserted or removed while the iterator is in use may or may not be
+ * returned.
+ * </p>
+ * <p>
+ * The boundingBoxFunction passed to
+ * {@link #insertItems(Collection, Function, boolean)} is called while the write
+ * lock is held so it must not use the index.
+ * </p>
+ *
+ * @param <T> The type of item in the index.
+ */
+public class ConcurrentSpatialIndex<T> implements SpatialIndex<T> {
+
+  public static <V> ConcurrentSpatialIndex<V> quadTree(final GeometryFactory geometryFactory) {
+    final QuadTree<V> spatialIndex = new QuadTree<>(geometryFactory);
+    return new ConcurrentSpatialIndex<>(spatialIndex);
+  }
+
+  public static <V> ConcurrentSpatialIndex<V> rStarTree(final GeometryFactory geometryFactory) {
+    final RStarTree<V> spatialIndex = new RStarTree<>(geometryFactory);
+    return new ConcurrentSpatialIndex<>(spatialIndex);
+  }
+
+  private final StampedLock lock = new StampedLock();
+
+  private final SpatialIndex<T> spatialIndex;
+
+  public ConcurrentSpatialIndex(final SpatialIndex<T> spatialIndex) {
+    if (spatialIndex == null) {
+      throw new IllegalArgumentException("spatialIndex must not be null");
+    }
+    this.spatialIndex = spatialIndex;
+  }
+
+  @Override
+  public void clear() {
+    final long stamp = this.lock.writeLock();
+    try {
+      this.spatialIndex.clear();
+    } finally {
+      this.lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public boolean forEach(final Consumer<? super T> action) {
+    return forEachQuery(action, this.spatialIndex::forEach);
+  }
+
+  @Override
+  public boolean forEach(final double x, final double y, final Consumer<? super T> action) {
+    return forEachQuery(action, results -> this.spatialIndex.forEach(x, y, results));
+  }
+
+  @Override
+  public boolean forEach(final double minX, final double minY, final double maxX, final double maxY,
+    final Consumer<? super T> action) {
+    return forEachQuery(action,
+      results -> this.spatialIndex.forEach(minX, minY, maxX, maxY, results));
+  }
+
+  private boolean forEachQuery(final Consumer<? super T> action,
+    final Consumer<Consumer<T>> query) {
+    final List<T> items = read(() -> {
+      final List<T> results = new ArrayList<>();
+      query.accept(results::add);
+      return results;
+    });
+    try {
+      for (final T item : items) {
+        action.accept(item);
+      }
+      return true;
+    } catch (final ExitLoopException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public GeometryFactory getGeometryFactory() {
+    return read(this.spatialIndex::getGeometryFactory);
+  }
+
+  @Override
+  public List<T> getItems(final BoundingBoxProxy boundingBox) {
+    return read(() -> this.spatialIndex.getItems(boundingBox));
+  }
+
+  @Override
+  public int getSize() {
+    return read(this.spatialIndex::getSize);
+  }
+
+  public SpatialIndex<T> getSpatialIndex() {
+    return this.spatialIndex;
+  }
+
+  @Override
+  public void insertItem(final BoundingBox boundingBox, final T item) {
+    final long stamp = this.lock.writeLock();
+    try {
+      this.spatialIndex.insertItem(boundingBox, item);
+    } finally {
+      this.lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public void insertItems(final Collection<? extends T> items,
+    final Function<? super T, ? extends BoundingBoxProxy> boundingBoxFunction,
+    final boolean parallel) {
+    final long stamp = this.lock.writeLock();
+    try {
+      this.spatialIndex.insertItems(items, boundingBoxFunction, parallel);
+    } finally {
+      this.lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public NearestNeighbourIterator<?, T> nearestIterator(final double minX, final double minY,
+    final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super T> distanceFunction) {
+    return read(() -> this.spatialIndex
+      .nearestIterator(minX, minY, maxX, maxY, maxDistance, distanceFunction)
+      .setLock(this.lock));
+  }
+
+  /**
+   * Run the query using an optimistic read. If the index was modified during
+   * the query run it again holding the read lock. The query must not have any
+   * side effects as it may be run twice.
+   */
+  private <V> V read(final Supplier<V> query) {
+    final StampedLock lock = this.lock;
+    final long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        final V result = query.get();
+        if (lock.validate(stamp)) {
+          return result;
+        }
+      } catch (final RuntimeException e) {
+        if (lock.validate(stamp)) {
+          throw e;
+        }
+      }
+    }
+    final long readStamp = lock.readLock();
+    try {
+      return query.get();
+    } finally {
+      lock.unlockRead(readStamp);
+    }
+  }
+
+  @Override
+  public boolean removeItem(final BoundingBox boundingBox, final T item) {
+    final long stamp = this.lock.writeLock();
+    try {
+      return this.spatialIndex.removeItem(boundingBox, item);
+    } finally {
+      this.lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public void setGeometryFactory(final GeometryFactory geometryFactory) {
+    final long stamp = this.lock.writeLock();
+    try {
+      this.spatialIndex.setGeometryFactory(geometryFactory);
+    } finally {
+      this.lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.spatialIndex.toString();
+  }
+}
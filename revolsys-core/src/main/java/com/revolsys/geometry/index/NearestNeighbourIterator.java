@@ -0,0 +1,317 @@
+package com.revolsys.geometry.index;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.ToDoubleFunction;
+
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.BoundingBoxProxy;
+
+/**
+ * A best first nearest neighbour search over the nodes of a spatial index tree,
+ * returning the items in order of increasing distance from a point or bounding
+ * box.
+ * <p>
+ * A priority queue contains the nodes and items ordered by the minimum distance
+ * from the query to their bounding box. When a node is at the head of the queue
+ * it is expanded by the nodeExpander which calls {@link #addNode} and
+ * {@link #addItem} for the node's children. When an item is at the head of the
+ * queue its actual distance is calculated using the distanceFunction and it is
+ * re-queued, the item is returned when it is at the head of the queue with its
+ * actual distance. Nodes and items further than the maxDistance are never
+ * queued so those branches of the tree are not visited.
+ * </p>
+ * <p>
+ * The distanceFunction must not return a distance less than the distance to the
+ * item's bounding box (e.g. the distance to the item's geometry). If it is null
+ * the distance to the bounding box is used.
+ * </p>
+ *
+ * @param <N> The type of node in the tree.
+ * @param <T> The type of item in the tree.
+ */
+public class NearestNeighbourIterator<N, T> implements Iterator<T> {
+
+  private static class Entry implements Comparable<Entry> {
+    private final double distance;
+
+    private final Object value;
+
+    private final byte type;
+
+    private Entry(final byte type, final Object value, final double distance) {
+      this.type = type;
+      this.value = value;
+      this.distance = distance;
+    }
+
+    @Override
+    public int compareTo(final Entry entry) {
+      final int compare = Double.compare(this.distance, entry.distance);
+      if (compare == 0) {
+        // Return items before nodes or unmeasured items at the same distance
+        return Byte.compare(entry.type, this.type);
+      } else {
+        return compare;
+      }
+    }
+  }
+
+  private static final byte NODE = 0;
+
+  private static final byte ITEM_BOUNDS = 1;
+
+  private static final byte ITEM = 2;
+
+  /**
+   * Get the distance between the closest points on two bounding boxes, 0 if the
+   * bounding boxes intersect.
+   */
+  public static double distance(final double minX1, final double minY1, final double maxX1,
+    final double maxY1, final double minX2, final double minY2, final double maxX2,
+    final double maxY2) {
+    double deltaX;
+    if (maxX1 < minX2) {
+      deltaX = minX2 - maxX1;
+    } else if (minX1 > maxX2) {
+      deltaX = minX1 - maxX2;
+    } else {
+      deltaX = 0;
+    }
+    double deltaY;
+    if (maxY1 < minY2) {
+      deltaY = minY2 - maxY1;
+    } else if (minY1 > maxY2) {
+      deltaY = minY1 - maxY2;
+    } else {
+      deltaY = 0;
+    }
+    if (deltaX == 0) {
+      return deltaY;
+    } else if (deltaY == 0) {
+      return deltaX;
+    } else {
+      return Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+    }
+  }
+
+  private double distance = Double.NaN;
+
+  private final ToDoubleFunction<? super T> distanceFunction;
+
+  private final double maxDistance;
+
+  private List<Entry> expandEntries;
+
+  private StampedLock lock;
+
+  private T next;
+
+  private double nextDistance = Double.NaN;
+
+  private final BiConsumer<N, NearestNeighbourIterator<N, T>> nodeExpander;
+
+  private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+  private final double queryMaxX;
+
+  private final double queryMaxY;
+
+  private final double queryMinX;
+
+  private final double queryMinY;
+
+  /**
+   * @param queryMinX The minimum x coordinate of the query bounding box.
+   * @param queryMinY The minimum y coordinate of the query bounding box.
+   * @param queryMaxX The maximum x coordinate of the query bounding box.
+   * @param queryMaxY The maximum y coordinate of the query bounding box.
+   * @param maxDistance The maximum distance of items to return.
+   * @param distanceFunction The function to calculate the distance from the query to an
+   * item, or null to use the distance to the item's bounding box.
+   * @param nodeExpander The function to add the children of a node to the
+   * search.
+   * @param root The root node of the tree, or null if the tree is empty.
+   */
+  public NearestNeighbourIterator(final double queryMinX, final double queryMinY,
+    final double queryMaxX, final double queryMaxY, final double maxDistance,
+    final ToDoubleFunction<? super T> distanceFunction,
+    final BiConsumer<N, NearestNeighbourIterator<N, T>> nodeExpander, final N root) {
+    this.queryMinX = queryMinX;
+    this.queryMinY = queryMinY;
+    this.queryMaxX = queryMaxX;
+    this.queryMaxY = queryMaxY;
+    if (Double.isNaN(maxDistance)) {
+      this.maxDistance = Double.POSITIVE_INFINITY;
+    } else {
+      this.maxDistance = maxDistance;
+    }
+    this.distanceFunction = distanceFunction;
+    this.nodeExpander = nodeExpander;
+    if (root != null) {
+      this.queue.add(new Entry(NODE, root, 0));
+    }
+  }
+
+  private void addEntry(final Entry entry) {
+    final List<Entry> expandEntries = this.expandEntries;
+    if (expandEntries == null) {
+      this.queue.add(entry);
+    } else {
+      expandEntries.add(entry);
+    }
+  }
+
+  public void addItem(final T item, final BoundingBox boundingBox) {
+    final double minX = boundingBox.getMinX();
+    final double minY = boundingBox.getMinY();
+    final double maxX = boundingBox.getMaxX();
+    final double maxY = boundingBox.getMaxY();
+    addItem(item, minX, minY, maxX, maxY);
+  }
+
+  public void addItem(final T item, final double minX, final double minY, final double maxX,
+    final double maxY) {
+    final double distance = distance(this.queryMinX, this.queryMinY, this.queryMaxX,
+      this.queryMaxY, minX, minY, maxX, maxY);
+    if (distance <= this.maxDistance) {
+      if (this.distanceFunction == null) {
+        addEntry(new Entry(ITEM, item, distance));
+      } else {
+        addEntry(new Entry(ITEM_BOUNDS, item, distance));
+      }
+    }
+  }
+
+  public void addItem(final T item, final BoundingBoxProxy boundingBoxProxy) {
+    final BoundingBox boundingBox = boundingBoxProxy.getBoundingBox();
+    addItem(item, boundingBox);
+  }
+
+  public void addNode(final N node, final BoundingBox boundingBox) {
+    final double minX = boundingBox.getMinX();
+    final double minY = boundingBox.getMinY();
+    final double maxX = boundingBox.getMaxX();
+    final double maxY = boundingBox.getMaxY();
+    addNode(node, minX, minY, maxX, maxY);
+  }
+
+  public void addNode(final N node, final double minX, final double minY, final double maxX,
+    final double maxY) {
+    final double distance = distance(this.queryMinX, this.queryMinY, this.queryMaxX,
+      this.queryMaxY, minX, minY, maxX, maxY);
+    if (distance <= this.maxDistance) {
+      addEntry(new Entry(NODE, node, distance));
+    }
+  }
+
+  /**
+   * Expand the node. If there is a lock the node is expanded using an
+   * optimistic read, the children are only added to the queue if the index
+   * wasn't modified while expanding the node. Otherwise the node is expanded
+   * again holding the read lock.
+   */
+  private void expandNode(final N node) {
+    final StampedLock lock = this.lock;
+    if (lock == null) {
+      this.nodeExpander.accept(node, this);
+    } else {
+      final long stamp = lock.tryOptimisticRead();
+      if (stamp != 0) {
+        final List<Entry> entries = new ArrayList<>();
+        this.expandEntries = entries;
+        try {
+          this.nodeExpander.accept(node, this);
+        } catch (final RuntimeException e) {
+          if (lock.validate(stamp)) {
+            throw e;
+          }
+        } finally {
+          this.expandEntries = null;
+        }
+        if (lock.validate(stamp)) {
+          this.queue.addAll(entries);
+          return;
+        }
+      }
+      final long readStamp = lock.readLock();
+      try {
+        this.nodeExpander.accept(node, this);
+      } finally {
+        lock.unlockRead(readStamp);
+      }
+    }
+  }
+
+  /**
+   * Get the maximum distance of items returned.
+   */
+  public double getMaxDistance() {
+    return this.maxDistance;
+  }
+
+  /**
+   * Get the distance to the item last returned by {@link #next()}.
+   */
+  public double getDistance() {
+    return this.distance;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (this.next == null) {
+      this.next = getNext();
+    }
+    return this.next != null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T getNext() {
+    final PriorityQueue<Entry> queue = this.queue;
+    while (!queue.isEmpty()) {
+      final Entry entry = queue.poll();
+      final Object value = entry.value;
+      switch (entry.type) {
+        case NODE:
+          expandNode((N)value);
+        break;
+        case ITEM_BOUNDS:
+          final double distance = this.distanceFunction.applyAsDouble((T)value);
+          if (distance <= this.maxDistance) {
+            queue.add(new Entry(ITEM, value, distance));
+          }
+        break;
+        default:
+          this.nextDistance = entry.distance;
+          return (T)value;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public T next() {
+    if (hasNext()) {
+      final T next = this.next;
+      this.next = null;
+      this.distance = this.nextDistance;
+      return next;
+    } else {
+      throw new NoSuchElementException();
+    }
+  }
+
+  /**
+   * Set the lock used to read the index while expanding a node, used by indexes
+   * that can be modified while the iterator is in use.
+   */
+  public NearestNeighbourIterator<N, T> setLock(final StampedLock lock) {
+    this.lock = lock;
+    return this;
+  }
+}
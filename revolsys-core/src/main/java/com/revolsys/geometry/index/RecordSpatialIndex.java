@@ -7,7 +7,9 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 
 import com.revolsys.geometry.index.quadtree.QuadTree;
 import com.revolsys.geometry.model.BoundingBox;
@@ -51,7 +53,9 @@ public class RecordSpatialIndex<R extends Record> implements SpatialIndex<R> {
   }
 
   public RecordSpatialIndex<R> addRecords(final Iterable<? extends R> records) {
-    if (records != null) {
+    if (records instanceof Collection) {
+      addRecords((Collection<? extends R>)records, false);
+    } else if (records != null) {
       for (final R record : records) {
         addRecord(record);
       }
@@ -59,6 +63,25 @@ public class RecordSpatialIndex<R extends Record> implements SpatialIndex<R> {
     return this;
   }
 
+  /**
+   * Add the records using the bulk load of the spatial index.
+   *
+   * @see SpatialIndex#insertItems(Collection, Function, boolean)
+   */
+  public RecordSpatialIndex<R> addRecords(final Collection<? extends R> records,
+    final boolean parallel) {
+    if (records != null) {
+      insertItems(records, record -> {
+        if (record == null) {
+          return null;
+        } else {
+          return record.getGeometry();
+        }
+      }, parallel);
+    }
+    return this;
+  }
+
   @Override
   public void clear() {
     this.spatialIndex.clear();
@@ -126,6 +149,21 @@ public class RecordSpatialIndex<R extends Record> implements SpatialIndex<R> {
     this.spatialIndex.insertItem(boundingBox, item);
   }
 
+  @Override
+  public void insertItems(final Collection<? extends R> items,
+    final Function<? super R, ? extends BoundingBoxProxy> boundingBoxFunction,
+    final boolean parallel) {
+    this.spatialIndex.insertItems(items, boundingBoxFunction, parallel);
+  }
+
+  @Override
+  public NearestNeighbourIterator<?, R> nearestIterator(final double minX, final double minY,
+    final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super R> distanceFunction) {
+    return this.spatialIndex.nearestIterator(minX, minY, maxX, maxY, maxDistance,
+      distanceFunction);
+  }
+
   public void query(final Geometry geometry, final Consumer<R> visitor) {
     final BoundingBox boundingBox = geometry.getBoundingBox();
     forEach(boundingBox, visitor);
@@ -32,9 +32,13 @@
  */
 package com.revolsys.geometry.index;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 
 import org.jeometry.common.function.Consumer3;
 
@@ -180,6 +184,143 @@ public interface SpatialIndex<T> extends GeometryFactoryProxy {
     insertItem(boundingBox, item);
   }
 
+  /**
+   * Add all the items to the index. Items without a bounding box or with an empty
+   * bounding box are ignored.
+   *
+   * @param items The items to add.
+   * @param boundingBoxFunction The function to get the bounding box of an item.
+   * @see #insertItems(Collection, Function, boolean)
+   */
+  default void insertItems(final Collection<? extends T> items,
+    final Function<? super T, ? extends BoundingBoxProxy> boundingBoxFunction) {
+    insertItems(items, boundingBoxFunction, false);
+  }
+
+  /**
+   * Add all the items to the index. Indexes that support bulk loading build the
+   * tree from all of the items at once instead of inserting each item, the
+   * resulting index still supports {@link #insertItem(BoundingBox, Object)} and
+   * {@link #removeItem(BoundingBox, Object)}. Items without a bounding box or with
+   * an empty bounding box are ignored.
+   *
+   * @param items The items to add.
+   * @param boundingBoxFunction The function to get the bounding box of an item.
+   * @param parallel True if the bulk load can use multiple threads.
+   */
+  default void insertItems(final Collection<? extends T> items,
+    final Function<? super T, ? extends BoundingBoxProxy> boundingBoxFunction,
+    final boolean parallel) {
+    for (final T item : items) {
+      final BoundingBoxProxy boundingBoxProxy = boundingBoxFunction.apply(item);
+      if (boundingBoxProxy != null) {
+        final BoundingBox boundingBox = boundingBoxProxy.getBoundingBox();
+        if (boundingBox != null && !boundingBox.isEmpty()) {
+          insertItem(boundingBox, item);
+        }
+      }
+    }
+  }
+
+  /**
+   * Get up to k items in order of increasing distance from the point.
+   *
+   * @param x The x coordinate of the point.
+   * @param y The y coordinate of the point.
+   * @param k The maximum number of items to return.
+   * @param maxDistance The maximum distance of items to return.
+   * @param distanceFunction The function to calculate the distance from the point to an
+   * item, or null to use the distance to the item's bounding box.
+   * @return The nearest items.
+   * @see #nearestIterator(double, double, double, double, double, ToDoubleFunction)
+   */
+  default List<T> nearest(final double x, final double y, final int k, final double maxDistance,
+    final ToDoubleFunction<? super T> distanceFunction) {
+    return nearest(x, y, x, y, k, maxDistance, distanceFunction);
+  }
+
+  /**
+   * Get up to k items in order of increasing distance from the bounding box.
+   *
+   * @see #nearestIterator(double, double, double, double, double, ToDoubleFunction)
+   */
+  default List<T> nearest(final double minX, final double minY, final double maxX,
+    final double maxY, final int k, final double maxDistance,
+    final ToDoubleFunction<? super T> distanceFunction) {
+    if (k <= 0) {
+      return new ArrayList<>();
+    }
+    final List<T> items = new ArrayList<>(Math.min(k, 64));
+    final NearestNeighbourIterator<?, T> iterator = nearestIterator(minX, minY, maxX, maxY,
+      maxDistance, distanceFunction);
+    while (items.size() < k && iterator.hasNext()) {
+      final T item = iterator.next();
+      items.add(item);
+    }
+    return items;
+  }
+
+  default NearestNeighbourIterator<?, T> nearestIterator(final BoundingBoxProxy boundingBoxProxy,
+    final double maxDistance, final ToDoubleFunction<? super T> distanceFunction) {
+    final BoundingBox boundingBox = convertBoundingBox(boundingBoxProxy);
+    final double minX = boundingBox.getMinX();
+    final double minY = boundingBox.getMinY();
+    final double maxX = boundingBox.getMaxX();
+    final double maxY = boundingBox.getMaxY();
+    return nearestIterator(minX, minY, maxX, maxY, maxDistance, distanceFunction);
+  }
+
+  default NearestNeighbourIterator<?, T> nearestIterator(final double x, final double y,
+    final double maxDistance, final ToDoubleFunction<? super T> distanceFunction) {
+    return nearestIterator(x, y, x, y, maxDistance, distanceFunction);
+  }
+
+  /**
+   * Get an iterator of the items in order of increasing distance from the
+   * bounding box using a best first search of the index. Branches of the index
+   * further than the closest item found so far or the maxDistance are not
+   * visited.
+   * <p>
+   * The distanceFunction must not return a distance less than the distance from
+   * the bounding box to the item's bounding box. If it is null the distance to
+   * the item's bounding box is used.
+   * </p>
+   * <p>
+   * The default implementation for indexes that don't expose their nodes queries
+   * all the items within the maxDistance and requires a distanceFunction or
+   * items that are {@link BoundingBoxProxy}.
+   * </p>
+   *
+   * @param minX The minimum x coordinate of the query bounding box.
+   * @param minY The minimum y coordinate of the query bounding box.
+   * @param maxX The maximum x coordinate of the query bounding box.
+   * @param maxY The maximum y coordinate of the query bounding box.
+   * @param maxDistance The maximum distance of items to return, NaN or infinity for no limit.
+   * @param distanceFunction The function to calculate the distance to an item.
+   * @return The iterator.
+   */
+  default NearestNeighbourIterator<?, T> nearestIterator(final double minX, final double minY,
+    final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super T> distanceFunction) {
+    return new NearestNeighbourIterator<SpatialIndex<T>, T>(minX, minY, maxX, maxY, maxDistance,
+      distanceFunction, (index, iterator) -> {
+        final Consumer<T> action = item -> {
+          if (distanceFunction == null && item instanceof BoundingBoxProxy) {
+            iterator.addItem(item, (BoundingBoxProxy)item);
+          } else {
+            iterator.addItem(item, minX, minY, maxX, maxY);
+          }
+        };
+        final double distance = iterator.getMaxDistance();
+        if (Double.isFinite(distance)) {
+          index.forEach(minX - distance, minY - distance, maxX + distance, maxY + distance,
+            action);
+        } else {
+          index.forEach(action);
+        }
+      }, this);
+  }
+
   /**
    * Removes a single item from the tree.
    *
@@ -0,0 +1,564 @@
+package com.revolsys.geometry.index.packed;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ToDoubleFunction;
+
+import com.revolsys.geometry.index.NearestNeighbourIterator;
+import com.revolsys.geometry.index.SpatialIndex;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.io.Buffers;
+import com.revolsys.util.ExitLoopException;
+
+/**
+ * A static R-tree packed bottom up from items sorted by the Hilbert value of the
+ * centre of their bounding boxes. The boxes of the items and nodes (minX, minY,
+ * maxX, maxY) and the int indexes are stored in a single {@link ByteBuffer}
+ * outside of the Java heap and the items are referenced by int id, so the tree can
+ * be built, saved and reloaded without creating an object per entry. A saved tree
+ * can be memory mapped using {@link #open(Path)} without reading it into memory.
+ *
+ * <p>Nodes are stored level by level, leaves first. The index of a leaf entry is the
+ * item id, the index of a branch entry is the node position of its first child.</p>
+ *
+ * <p>As a {@link SpatialIndex} the items are the Integer ids. The tree cannot be
+ * modified after it is built. The size of the tree is limited to 2GB, about 59
+ * million items.</p>
+ */
+public class HilbertPackedRTree implements SpatialIndex<Integer> {
+
+  public static final int DEFAULT_NODE_SIZE = 16;
+
+  private static final int FILE_VERSION = 1;
+
+  private static final int HEADER_SIZE = 16;
+
+  /** The bytes used by each entry, 4 doubles for the box and an int index. */
+  private static final int NODE_BYTES = 4 * 8 + 4;
+
+  private static final int HILBERT_MAX = (1 << 16) - 1;
+
+  private static final byte[] MAGIC = {
+    'R', 'S', 'P', 'R'
+  };
+
+  /**
+   * Calculate the index along a Hilbert curve of order 16 for the cell x, y.
+   *
+   * @param x The x cell (0..65535).
+   * @param y The y cell (0..65535).
+   * @return The Hilbert index.
+   */
+  public static long hilbertIndex(int x, int y) {
+    long index = 0;
+    for (int s = 1 << 15; s > 0; s >>= 1) {
+      final int rx = (x & s) > 0 ? 1 : 0;
+      final int ry = (y & s) > 0 ? 1 : 0;
+      index += (long)s * s * (3 * rx ^ ry);
+      if (ry == 0) {
+        if (rx == 1) {
+          x = HILBERT_MAX - x;
+          y = HILBERT_MAX - y;
+        }
+        final int t = x;
+        x = y;
+        y = t;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Calculate the Hilbert index of the centre of each box relative to the extent.
+   *
+   * @param bounds The boxes (minX, minY, maxX, maxY) for each item.
+   * @param count The number of items.
+   * @return The Hilbert index for each item.
+   */
+  public static long[] hilbertIndexes(final double[] bounds, final int count) {
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; i++) {
+      final int offset = i * 4;
+      minX = Math.min(minX, bounds[offset]);
+      minY = Math.min(minY, bounds[offset + 1]);
+      maxX = Math.max(maxX, bounds[offset + 2]);
+      maxY = Math.max(maxY, bounds[offset + 3]);
+    }
+    final double width = maxX - minX;
+    final double height = maxY - minY;
+    final long[] indexes = new long[count];
+    for (int i = 0; i < count; i++) {
+      final int offset = i * 4;
+      int x = 0;
+      if (width > 0) {
+        final double centreX = (bounds[offset] + bounds[offset + 2]) / 2;
+        x = (int)Math.floor(HILBERT_MAX * (centreX - minX) / width);
+      }
+      int y = 0;
+      if (height > 0) {
+        final double centreY = (bounds[offset + 1] + bounds[offset + 3]) / 2;
+        y = (int)Math.floor(HILBERT_MAX * (centreY - minY) / height);
+      }
+      indexes[i] = hilbertIndex(x, y);
+    }
+    return indexes;
+  }
+
+  private static DoubleBuffer newBoundsBuffer(final ByteBuffer data, final int nodeCount) {
+    final ByteBuffer boundsData = data.duplicate();
+    boundsData.order(ByteOrder.LITTLE_ENDIAN);
+    boundsData.clear();
+    boundsData.limit(nodeCount * 4 * 8);
+    return boundsData.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+  }
+
+  private static IntBuffer newIndicesBuffer(final ByteBuffer data, final int nodeCount) {
+    final ByteBuffer indicesData = data.duplicate();
+    indicesData.clear();
+    indicesData.position(nodeCount * 4 * 8);
+    return indicesData.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+  }
+
+  private static int[] newLevelBounds(final int itemCount, final int nodeSize) {
+    int[] levelBounds = new int[8];
+    int levelCount = 0;
+    int count = itemCount;
+    int nodeCount = count;
+    levelBounds[levelCount++] = nodeCount;
+    do {
+      count = (count + nodeSize - 1) / nodeSize;
+      nodeCount += count;
+      if (levelCount == levelBounds.length) {
+        levelBounds = Arrays.copyOf(levelBounds, levelCount * 2);
+      }
+      levelBounds[levelCount++] = nodeCount;
+    } while (count > 1);
+    return Arrays.copyOf(levelBounds, levelCount);
+  }
+
+  /**
+   * Sort the values and the parallel indexes in place by the values.
+   */
+  public static void sort(final long[] values, final int[] indexes, int left, int right) {
+    while (left < right) {
+      final long pivot = values[left + right >>> 1];
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (values[i] < pivot) {
+          i++;
+        }
+        while (values[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          final long value = values[i];
+          values[i] = values[j];
+          values[j] = value;
+          final int index = indexes[i];
+          indexes[i] = indexes[j];
+          indexes[j] = index;
+          i++;
+          j--;
+        }
+      }
+      if (j - left < right - i) {
+        sort(values, indexes, left, j);
+        left = i;
+      } else {
+        sort(values, indexes, i, right);
+        right = j;
+      }
+    }
+  }
+
+  /**
+   * Memory map a tree written by {@link #write(WritableByteChannel)} starting at
+   * the position in the file. The tree is not copied into memory, the nodes are
+   * read from the file by the operating system as they are visited, so opening
+   * even a very large tree is instant. The mapping remains valid after the
+   * channel is closed.
+   */
+  public static HilbertPackedRTree map(final FileChannel channel, final long position)
+    throws IOException {
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    if (channel.read(header, position) != HEADER_SIZE) {
+      throw new IOException("Unexpected end of packed R-tree");
+    }
+    header.flip();
+    final int nodeSize = readHeader(header);
+    final int itemCount = header.getInt();
+    final int[] levelBounds = newLevelBounds(itemCount, nodeSize);
+    final int dataSize = getDataSize(levelBounds);
+    if (position + HEADER_SIZE + dataSize > channel.size()) {
+      throw new IOException("Unexpected end of packed R-tree");
+    }
+    final ByteBuffer data = channel.map(MapMode.READ_ONLY, position + HEADER_SIZE, dataSize);
+    return new HilbertPackedRTree(nodeSize, itemCount, levelBounds, data);
+  }
+
+  /**
+   * Memory map a tree written by {@link #write(Path)}.
+   *
+   * @see #map(FileChannel, long)
+   */
+  public static HilbertPackedRTree open(final Path path) throws IOException {
+    try (
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return map(channel, 0);
+    }
+  }
+
+  public static HilbertPackedRTree read(final ReadableByteChannel in) throws IOException {
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    if (Buffers.readAll(in, header) != HEADER_SIZE) {
+      throw new IOException("Unexpected end of packed R-tree");
+    }
+    final int nodeSize = readHeader(header);
+    final int itemCount = header.getInt();
+    final int[] levelBounds = newLevelBounds(itemCount, nodeSize);
+
+    final ByteBuffer data = ByteBuffer.allocateDirect(getDataSize(levelBounds));
+    if (Buffers.readAll(in, data) != data.capacity()) {
+      throw new IOException("Unexpected end of packed R-tree");
+    }
+    return new HilbertPackedRTree(nodeSize, itemCount, levelBounds, data);
+  }
+
+  private static int getDataSize(final int[] levelBounds) {
+    final int nodeCount = levelBounds[levelBounds.length - 1];
+    final long dataSize = (long)nodeCount * NODE_BYTES;
+    if (dataSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+        "Packed R-tree with " + levelBounds[0] + " items exceeds " + Integer.MAX_VALUE + " bytes");
+    }
+    return (int)dataSize;
+  }
+
+  private static int readHeader(final ByteBuffer header) throws IOException {
+    for (final byte b : MAGIC) {
+      if (header.get() != b) {
+        throw new IOException("Not a packed R-tree");
+      }
+    }
+    final int version = header.getInt();
+    if (version != FILE_VERSION) {
+      throw new IOException("Packed R-tree version " + version + " not supported");
+    }
+    return header.getInt();
+  }
+
+  private final DoubleBuffer bounds;
+
+  private final ByteBuffer data;
+
+  private GeometryFactory geometryFactory;
+
+  private final IntBuffer indices;
+
+  private final int itemCount;
+
+  private final int[] levelBounds;
+
+  private final int nodeSize;
+
+  /**
+   * Construct a new tree from the boxes of the items. The tree is stored outside
+   * of the Java heap in a direct {@link ByteBuffer}.
+   *
+   * @param nodeSize The maximum number of entries in each node.
+   * @param itemBounds The boxes (minX, minY, maxX, maxY) for each item.
+   * @param itemIds The id of each item.
+   * @param itemCount The number of items.
+   */
+  public HilbertPackedRTree(final int nodeSize, final double[] itemBounds, final int[] itemIds,
+    final int itemCount) {
+    if (nodeSize < 2) {
+      throw new IllegalArgumentException("nodeSize must be >= 2: " + nodeSize);
+    }
+    this.nodeSize = nodeSize;
+    this.itemCount = itemCount;
+    this.levelBounds = newLevelBounds(itemCount, nodeSize);
+    this.data = ByteBuffer.allocateDirect(getDataSize(this.levelBounds));
+    this.data.order(ByteOrder.LITTLE_ENDIAN);
+    final int nodeCount = this.levelBounds[this.levelBounds.length - 1];
+    this.bounds = newBoundsBuffer(this.data, nodeCount);
+    this.indices = newIndicesBuffer(this.data, nodeCount);
+    final DoubleBuffer bounds = this.bounds;
+    final IntBuffer indices = this.indices;
+
+    final long[] hilbertIndexes = hilbertIndexes(itemBounds, itemCount);
+    final int[] order = new int[itemCount];
+    for (int i = 0; i < itemCount; i++) {
+      order[i] = i;
+    }
+    sort(hilbertIndexes, order, 0, itemCount - 1);
+    for (int i = 0; i < itemCount; i++) {
+      final int itemIndex = order[i];
+      bounds.put(i * 4, itemBounds, itemIndex * 4, 4);
+      indices.put(i, itemIds[itemIndex]);
+    }
+
+    int position = 0;
+    int nodeIndex = itemCount;
+    for (int level = 0; level < this.levelBounds.length - 1; level++) {
+      final int end = this.levelBounds[level];
+      while (position < end) {
+        final int firstChild = position;
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < nodeSize && position < end; i++) {
+          final int offset = position * 4;
+          minX = Math.min(minX, bounds.get(offset));
+          minY = Math.min(minY, bounds.get(offset + 1));
+          maxX = Math.max(maxX, bounds.get(offset + 2));
+          maxY = Math.max(maxY, bounds.get(offset + 3));
+          position++;
+        }
+        final int offset = nodeIndex * 4;
+        bounds.put(offset, minX);
+        bounds.put(offset + 1, minY);
+        bounds.put(offset + 2, maxX);
+        bounds.put(offset + 3, maxY);
+        indices.put(nodeIndex, firstChild);
+        nodeIndex++;
+      }
+    }
+  }
+
+  private HilbertPackedRTree(final int nodeSize, final int itemCount, final int[] levelBounds,
+    final ByteBuffer data) {
+    this.nodeSize = nodeSize;
+    this.itemCount = itemCount;
+    this.levelBounds = levelBounds;
+    this.data = data;
+    data.order(ByteOrder.LITTLE_ENDIAN);
+    final int nodeCount = levelBounds[levelBounds.length - 1];
+    this.bounds = newBoundsBuffer(data, nodeCount);
+    this.indices = newIndicesBuffer(data, nodeCount);
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException("Packed R-tree cannot be modified");
+  }
+
+  private void expandNode(final int nodeIndex,
+    final NearestNeighbourIterator<Integer, Integer> iterator) {
+    final DoubleBuffer bounds = this.bounds;
+    final IntBuffer indices = this.indices;
+    final boolean leaf = nodeIndex < this.itemCount;
+    final int end = Math.min(nodeIndex + this.nodeSize, getLevelEnd(nodeIndex));
+    for (int position = nodeIndex; position < end; position++) {
+      final int offset = position * 4;
+      final double minX = bounds.get(offset);
+      final double minY = bounds.get(offset + 1);
+      final double maxX = bounds.get(offset + 2);
+      final double maxY = bounds.get(offset + 3);
+      final int index = indices.get(position);
+      if (leaf) {
+        iterator.addItem(index, minX, minY, maxX, maxY);
+      } else {
+        iterator.addNode(index, minX, minY, maxX, maxY);
+      }
+    }
+  }
+
+  @Override
+  public boolean forEach(final Consumer<? super Integer> action) {
+    return forEach(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+      Double.POSITIVE_INFINITY, action);
+  }
+
+  @Override
+  public boolean forEach(final double x, final double y, final Consumer<? super Integer> action) {
+    return forEach(x, y, x, y, action);
+  }
+
+  @Override
+  public boolean forEach(final double minX, final double minY, final double maxX,
+    final double maxY, final Consumer<? super Integer> action) {
+    try {
+      forEachId(minX, minY, maxX, maxY, action::accept);
+      return true;
+    } catch (final ExitLoopException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Visit the id of each item whose box intersects the query box.
+   *
+   * @return False if there were no items.
+   */
+  public boolean forEachId(final double minX, final double minY, final double maxX,
+    final double maxY, final IntConsumer action) {
+    if (this.itemCount == 0) {
+      return false;
+    }
+    final DoubleBuffer bounds = this.bounds;
+    final IntBuffer indices = this.indices;
+    int[] stack = new int[this.levelBounds.length * this.nodeSize];
+    int stackSize = 0;
+    int nodeIndex = this.levelBounds[this.levelBounds.length - 1] - 1;
+    while (nodeIndex >= 0) {
+      final int end = Math.min(nodeIndex + this.nodeSize, getLevelEnd(nodeIndex));
+      for (int position = nodeIndex; position < end; position++) {
+        final int offset = position * 4;
+        if (maxX >= bounds.get(offset) && maxY >= bounds.get(offset + 1)
+          && minX <= bounds.get(offset + 2) && minY <= bounds.get(offset + 3)) {
+          final int index = indices.get(position);
+          if (nodeIndex < this.itemCount) {
+            action.accept(index);
+          } else {
+            if (stackSize == stack.length) {
+              stack = Arrays.copyOf(stack, stackSize * 2);
+            }
+            stack[stackSize++] = index;
+          }
+        }
+      }
+      if (stackSize == 0) {
+        nodeIndex = -1;
+      } else {
+        nodeIndex = stack[--stackSize];
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public GeometryFactory getGeometryFactory() {
+    return this.geometryFactory;
+  }
+
+  public int getItemCount() {
+    return this.itemCount;
+  }
+
+  /**
+   * Get the ids of the items whose box intersects the query box sorted by id.
+   */
+  public int[] getItemIds(final double minX, final double minY, final double maxX,
+    final double maxY) {
+    final int[][] ids = {
+      new int[16]
+    };
+    final int[] count = {
+      0
+    };
+    forEachId(minX, minY, maxX, maxY, id -> {
+      int[] values = ids[0];
+      if (count[0] == values.length) {
+        values = Arrays.copyOf(values, values.length * 2);
+        ids[0] = values;
+      }
+      values[count[0]++] = id;
+    });
+    final int[] result = Arrays.copyOf(ids[0], count[0]);
+    Arrays.sort(result);
+    return result;
+  }
+
+  private int getLevelEnd(final int nodeIndex) {
+    for (final int levelBound : this.levelBounds) {
+      if (nodeIndex < levelBound) {
+        return levelBound;
+      }
+    }
+    return this.levelBounds[this.levelBounds.length - 1];
+  }
+
+  public int getNodeSize() {
+    return this.nodeSize;
+  }
+
+  @Override
+  public int getSize() {
+    return this.itemCount;
+  }
+
+  @Override
+  public void insertItem(final BoundingBox boundingBox, final Integer item) {
+    throw new UnsupportedOperationException("Packed R-tree cannot be modified");
+  }
+
+  /**
+   * Check if the tree is stored outside of the Java heap, in a direct buffer or a
+   * memory mapped file.
+   */
+  public boolean isDirect() {
+    return this.data.isDirect();
+  }
+
+  @Override
+  public NearestNeighbourIterator<Integer, Integer> nearestIterator(final double minX,
+    final double minY, final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super Integer> distanceFunction) {
+    Integer root = null;
+    if (this.itemCount > 0) {
+      root = this.indices.get(this.levelBounds[this.levelBounds.length - 1] - 1);
+    }
+    return new NearestNeighbourIterator<>(minX, minY, maxX, maxY, maxDistance, distanceFunction,
+      this::expandNode, root);
+  }
+
+  @Override
+  public boolean removeItem(final BoundingBox boundingBox, final Integer item) {
+    throw new UnsupportedOperationException("Packed R-tree cannot be modified");
+  }
+
+  @Override
+  public void setGeometryFactory(final GeometryFactory geometryFactory) {
+    this.geometryFactory = geometryFactory;
+  }
+
+  /**
+   * Write the tree to a new file that can be opened using {@link #open(Path)}.
+   */
+  public void write(final Path path) throws IOException {
+    try (
+      FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      write(out);
+    }
+  }
+
+  public void write(final WritableByteChannel out) throws IOException {
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    header.put(MAGIC);
+    header.putInt(FILE_VERSION);
+    header.putInt(this.nodeSize);
+    header.putInt(this.itemCount);
+    header.flip();
+    while (header.hasRemaining()) {
+      out.write(header);
+    }
+    final ByteBuffer data = this.data.duplicate();
+    data.clear();
+    while (data.hasRemaining()) {
+      out.write(data);
+    }
+  }
+}
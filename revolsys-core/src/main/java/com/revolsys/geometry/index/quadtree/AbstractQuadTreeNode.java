@@ -1,11 +1,16 @@
 package com.revolsys.geometry.index.quadtree;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
 
 import com.revolsys.geometry.index.DoubleBits;
 import com.revolsys.geometry.index.IntervalSize;
+import com.revolsys.geometry.index.NearestNeighbourIterator;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.util.RectangleUtil;
 import com.revolsys.util.Emptyable;
@@ -48,6 +53,41 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
   protected abstract boolean add(final QuadTree<T> tree, final double minX, final double minY,
     final double maxX, final double maxY, final T item);
 
+  protected void addNearest(final QuadTree<T> tree,
+    final NearestNeighbourIterator<AbstractQuadTreeNode<T>, T> iterator) {
+    addNearestItems(tree, iterator);
+    for (final AbstractQuadTreeNode<T> node : this.nodes) {
+      if (node != null) {
+        iterator.addNode(node, node.minX, node.minY, node.maxX, node.maxY);
+      }
+    }
+  }
+
+  /**
+   * Add an item in this node to the nearest neighbour search using the node's
+   * bounds, for items where the item's bounds aren't known. The distance to the
+   * node's bounds is only a lower bound of the distance to the item.
+   */
+  protected void addNearestItem(
+    final NearestNeighbourIterator<AbstractQuadTreeNode<T>, T> iterator, final T item) {
+    if (isRoot()) {
+      iterator.addItem(item, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+    } else {
+      iterator.addItem(item, this.minX, this.minY, this.maxX, this.maxY);
+    }
+  }
+
+  /**
+   * Add the items in this node to the nearest neighbour search. The items are
+   * within the node so the node's bounds are used, subclasses that store the
+   * item bounds should override this method.
+   */
+  protected void addNearestItems(final QuadTree<T> tree,
+    final NearestNeighbourIterator<AbstractQuadTreeNode<T>, T> iterator) {
+    forEachItem(tree, item -> addNearestItem(iterator, item));
+  }
+
   public void clear() {
     Arrays.fill(this.nodes, null);
   }
@@ -151,6 +191,26 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
     return node;
   }
 
+  /**
+   * Get the child node of the root for the quadrant, creating or expanding it so
+   * it covers the bounding box.
+   */
+  private AbstractQuadTreeNode<T> getRootSubnode(final int index, final double minX,
+    final double minY, final double maxX, final double maxY) {
+    final AbstractQuadTreeNode<T> node = this.nodes[index];
+    if (node == null) {
+      final AbstractQuadTreeNode<T> newNode = newNode(minX, minY, maxX, maxY);
+      this.nodes[index] = newNode;
+      return newNode;
+    } else if (!node.coversBoundingBox(minX, minY, maxX, maxY)) {
+      final AbstractQuadTreeNode<T> newNode = node.newNodeExpanded(minX, minY, maxX, maxY);
+      this.nodes[index] = newNode;
+      return newNode;
+    } else {
+      return node;
+    }
+  }
+
   private int getSubnodeIndex(final double minX, final double minY, final double maxX,
     final double maxY) {
     int subnodeIndex = -1;
@@ -173,6 +233,38 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
     return subnodeIndex;
   }
 
+  /**
+   * Group the item indexes by the sub node the item's bounds are in.
+   *
+   * @return The item indexes for sub nodes 0-3 and at index 4 the items that are
+   *         not within a sub node.
+   */
+  private int[][] groupBySubnode(final double[] bounds, final int[] indexes) {
+    final int itemCount = indexes.length;
+    final byte[] subnodeIndexes = new byte[itemCount];
+    final int[] counts = new int[5];
+    for (int i = 0; i < itemCount; i++) {
+      final int offset = indexes[i] * 4;
+      int subnodeIndex = getSubnodeIndex(bounds[offset], bounds[offset + 1], bounds[offset + 2],
+        bounds[offset + 3]);
+      if (subnodeIndex == -1) {
+        subnodeIndex = 4;
+      }
+      subnodeIndexes[i] = (byte)subnodeIndex;
+      counts[subnodeIndex]++;
+    }
+    final int[][] groups = new int[5][];
+    for (int i = 0; i < 5; i++) {
+      groups[i] = new int[counts[i]];
+      counts[i] = 0;
+    }
+    for (int i = 0; i < itemCount; i++) {
+      final int subnodeIndex = subnodeIndexes[i];
+      groups[subnodeIndex][counts[subnodeIndex]++] = indexes[i];
+    }
+    return groups;
+  }
+
   private boolean hasChildren() {
     for (final AbstractQuadTreeNode<T> node : this.nodes) {
       if (node != null) {
@@ -199,6 +291,19 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
     return node.add(tree, minX, minY, maxX, maxY, item);
   }
 
+  private int insertContained(final QuadTree<T> tree, final double[] bounds, final List<T> items,
+    final int[] indexes) {
+    int count = 0;
+    for (final int index : indexes) {
+      final int offset = index * 4;
+      if (insertContained(tree, bounds[offset], bounds[offset + 1], bounds[offset + 2],
+        bounds[offset + 3], items.get(index))) {
+        count++;
+      }
+    }
+    return count;
+  }
+
   private void insertNode(final AbstractQuadTreeNode<T> node) {
     final int index = getSubnodeIndex(node.minX, node.minY, node.maxX, node.maxY);
     if (node.level == this.level - 1) {
@@ -216,20 +321,72 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
     if (index == -1) {
       return add(tree, minX, minY, maxX, maxY, item);
     } else {
-      AbstractQuadTreeNode<T> node = this.nodes[index];
-      if (node == null) {
-        final AbstractQuadTreeNode<T> newNode = newNode(minX, minY, maxX, maxY);
-        this.nodes[index] = newNode;
-        node = newNode;
-      } else if (!node.coversBoundingBox(minX, minY, maxX, maxY)) {
-        final AbstractQuadTreeNode<T> newNode = node.newNodeExpanded(minX, minY, maxX, maxY);
-        this.nodes[index] = newNode;
-        node = newNode;
-      }
+      final AbstractQuadTreeNode<T> node = getRootSubnode(index, minX, minY, maxX, maxY);
       return node.insertContained(tree, minX, minY, maxX, maxY, item);
     }
   }
 
+  /**
+   * Insert the items into the tree, called on the root node. The items are
+   * grouped by the root quadrant and the node covering all of the items in each
+   * quadrant is created once instead of being expanded as items are added. The
+   * items in each sub node of those nodes are then inserted as separate tasks.
+   * The tasks don't share any nodes so they can be run in parallel.
+   *
+   * @param bounds The minX, minY, maxX, maxY of each item.
+   * @return The number of items added.
+   */
+  protected int insertRootItems(final QuadTree<T> tree, final double[] bounds,
+    final List<T> items, final boolean parallel) {
+    final int itemCount = items.size();
+    final int[] allIndexes = new int[itemCount];
+    for (int i = 0; i < itemCount; i++) {
+      allIndexes[i] = i;
+    }
+    final List<IntSupplier> tasks = new ArrayList<>();
+    final int[][] quadrantIndexes = groupBySubnode(bounds, allIndexes);
+    for (int quadrant = 0; quadrant < 4; quadrant++) {
+      final int[] indexes = quadrantIndexes[quadrant];
+      if (indexes.length > 0) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (final int index : indexes) {
+          final int offset = index * 4;
+          minX = Math.min(minX, bounds[offset]);
+          minY = Math.min(minY, bounds[offset + 1]);
+          maxX = Math.max(maxX, bounds[offset + 2]);
+          maxY = Math.max(maxY, bounds[offset + 3]);
+        }
+        final AbstractQuadTreeNode<T> node = getRootSubnode(quadrant, minX, minY, maxX, maxY);
+        final int[][] subnodeIndexes = node.groupBySubnode(bounds, indexes);
+        for (int subnodeIndex = 0; subnodeIndex < 4; subnodeIndex++) {
+          final int[] subnodeItemIndexes = subnodeIndexes[subnodeIndex];
+          if (subnodeItemIndexes.length > 0) {
+            final AbstractQuadTreeNode<T> subnode = node.getSubnode(subnodeIndex);
+            tasks.add(() -> subnode.insertContained(tree, bounds, items, subnodeItemIndexes));
+          }
+        }
+        final int[] nodeItemIndexes = subnodeIndexes[4];
+        if (nodeItemIndexes.length > 0) {
+          tasks.add(() -> node.insertContained(tree, bounds, items, nodeItemIndexes));
+        }
+      }
+    }
+    final int[] rootItemIndexes = quadrantIndexes[4];
+    if (rootItemIndexes.length > 0) {
+      tasks.add(() -> insertContained(tree, bounds, items, rootItemIndexes));
+    }
+    Stream<IntSupplier> taskStream;
+    if (parallel) {
+      taskStream = tasks.parallelStream();
+    } else {
+      taskStream = tasks.stream();
+    }
+    return taskStream.mapToInt(IntSupplier::getAsInt).sum();
+  }
+
   @Override
   public boolean isEmpty() {
     final boolean isEmpty = !hasItems();
@@ -2,6 +2,9 @@ package com.revolsys.geometry.index.quadtree;
 
 import java.util.function.Consumer;
 
+import com.revolsys.geometry.index.NearestNeighbourIterator;
+import com.revolsys.geometry.model.BoundingBox;
+
 public class IdObjectNode<T> extends AbstractQuadTreeNode<T> {
   private static final long serialVersionUID = 1L;
 
@@ -47,6 +50,30 @@ public class IdObjectNode<T> extends AbstractQuadTreeNode<T> {
     }
   }
 
+  /**
+   * Add the items to the nearest neighbour search using the item's bounding
+   * box from {@link IdObjectQuadTree#getItemBoundingBox(Object)}.
+   */
+  @Override
+  protected void addNearestItems(final QuadTree<T> tree,
+    final NearestNeighbourIterator<AbstractQuadTreeNode<T>, T> iterator) {
+    final IdObjectQuadTree<T> idObjectTree = (IdObjectQuadTree<T>)tree;
+    synchronized (this.nodes) {
+      final Object[] ids = this.ids;
+      final int itemCount = this.itemCount;
+      for (int i = 0; i < itemCount; i++) {
+        final Object id = ids[i];
+        final T item = idObjectTree.getItem(id);
+        final BoundingBox boundingBox = idObjectTree.getItemBoundingBox(item);
+        if (boundingBox == null) {
+          addNearestItem(iterator, item);
+        } else {
+          iterator.addItem(item, boundingBox);
+        }
+      }
+    }
+  }
+
   @Override
   protected void forEachItem(final QuadTree<T> tree, final Consumer<? super T> action) {
     final IdObjectQuadTree<T> idObjectTree = (IdObjectQuadTree<T>)tree;
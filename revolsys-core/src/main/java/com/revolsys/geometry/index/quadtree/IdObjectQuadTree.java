@@ -1,5 +1,7 @@
 package com.revolsys.geometry.index.quadtree;
 
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.BoundingBoxProxy;
 import com.revolsys.geometry.model.GeometryFactory;
 
 public abstract class IdObjectQuadTree<T> extends QuadTree<T> {
@@ -18,6 +20,24 @@ public abstract class IdObjectQuadTree<T> extends QuadTree<T> {
     return (T)id;
   }
 
+  /**
+   * Get the bounding box of the item used to order the items in a nearest
+   * neighbour search. Subclasses where the items aren't a
+   * {@link BoundingBoxProxy} should override this method. If null the bounds of
+   * the node containing the item are used so the items won't be in order of
+   * distance unless a distance function is used.
+   *
+   * @param item The item.
+   * @return The bounding box, or null if it isn't known.
+   */
+  protected BoundingBox getItemBoundingBox(final T item) {
+    if (item instanceof BoundingBoxProxy) {
+      return ((BoundingBoxProxy)item).getBoundingBox();
+    } else {
+      return null;
+    }
+  }
+
   protected abstract boolean intersectsBounds(Object id, double x, double y);
 
   protected abstract boolean intersectsBounds(Object id, double minX, double minY, double maxX,
@@ -1,10 +1,17 @@
 package com.revolsys.geometry.index.quadtree;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
+import com.revolsys.geometry.index.NearestNeighbourIterator;
 import com.revolsys.geometry.index.SpatialIndex;
 import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.BoundingBoxProxy;
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.util.ExitLoopException;
 
@@ -163,6 +170,68 @@ public class QuadTree<T> implements SpatialIndex<T>, Serializable {
     insertItem(x, y, x, y, item);
   }
 
+  /**
+   * Bulk load the items. The minimum extent is calculated from all of the items
+   * before any are inserted, then the node covering the items in each root
+   * quadrant is created once and the items are inserted into its sub nodes, in
+   * parallel if requested.
+   */
+  @Override
+  public void insertItems(final Collection<? extends T> items,
+    final Function<? super T, ? extends BoundingBoxProxy> boundingBoxFunction,
+    final boolean parallel) {
+    final List<T> insertItems = new ArrayList<>(items.size());
+    final double[] bounds = new double[items.size() * 4];
+    for (final T item : items) {
+      final BoundingBoxProxy boundingBoxProxy = boundingBoxFunction.apply(item);
+      if (boundingBoxProxy != null) {
+        final BoundingBox boundingBox = convertBoundingBox(boundingBoxProxy);
+        if (boundingBox != null && !boundingBox.isEmpty()) {
+          final int offset = insertItems.size() * 4;
+          final double minX = boundingBox.getMinX();
+          final double minY = boundingBox.getMinY();
+          final double maxX = boundingBox.getMaxX();
+          final double maxY = boundingBox.getMaxY();
+          bounds[offset] = minX;
+          bounds[offset + 1] = minY;
+          bounds[offset + 2] = maxX;
+          bounds[offset + 3] = maxY;
+          final double deltaX = maxX - minX;
+          if (deltaX > 0 && deltaX < this.minExtent) {
+            this.minExtent = deltaX;
+          }
+          final double deltaY = maxY - minY;
+          if (deltaY > 0 && deltaY < this.minExtent) {
+            this.minExtent = deltaY;
+          }
+          insertItems.add(item);
+        }
+      }
+    }
+    final int itemCount = insertItems.size();
+    for (int offset = 0; offset < itemCount * 4; offset += 4) {
+      if (bounds[offset] == bounds[offset + 2]) {
+        bounds[offset] = bounds[offset] - this.minExtent / 2.0;
+        bounds[offset + 2] = bounds[offset] + this.minExtent / 2.0;
+      }
+      if (bounds[offset + 1] == bounds[offset + 3]) {
+        bounds[offset + 1] = bounds[offset + 1] - this.minExtent / 2.0;
+        bounds[offset + 3] = bounds[offset + 1] + this.minExtent / 2.0;
+      }
+    }
+    if (itemCount > 0) {
+      this.size += this.root.insertRootItems(this, bounds, insertItems, parallel);
+    }
+  }
+
+  @Override
+  public NearestNeighbourIterator<AbstractQuadTreeNode<T>, T> nearestIterator(final double minX,
+    final double minY, final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super T> distanceFunction) {
+    return new NearestNeighbourIterator<>(minX, minY, maxX, maxY, maxDistance, distanceFunction,
+      (node, iterator) -> node.addNearest(this, iterator), this.root);
+  }
+
   @Override
   public boolean removeItem(BoundingBox boundingBox, final T item) {
     boundingBox = convertBoundingBox(boundingBox);
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+import com.revolsys.geometry.index.NearestNeighbourIterator;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.impl.BoundingBoxDoubleXY;
 
@@ -34,6 +35,15 @@ public class RStarBranch<T> extends BoundingBoxDoubleXY implements RStarNode<T>
     recalculateBoundingBox();
   }
 
+  RStarBranch(final int capacity, final boolean hasLeaves, final RStarNode<T>[] items,
+    final int startIndex, final int endIndex) {
+    this(Math.max(capacity, endIndex - startIndex));
+    this.hasLeaves = hasLeaves;
+    this.itemCount = endIndex - startIndex;
+    System.arraycopy(items, startIndex, this.items, 0, this.itemCount);
+    recalculateBoundingBox();
+  }
+
   public RStarBranch(final int capacity, final RStarLeaf<T> item) {
     this(capacity);
     setBoundingBox(item.getBoundingBox());
@@ -67,7 +77,7 @@ public class RStarBranch<T> extends BoundingBoxDoubleXY implements RStarNode<T>
 
   }
 
-  private void addItemsToList(final List<RStarLeaf<T>> itemList) {
+  void addItemsToList(final List<RStarLeaf<T>> itemList) {
     if (this.hasLeaves) {
       final int itemCount = this.itemCount;
       final RStarNode<T>[] items = this.items;
@@ -85,6 +95,22 @@ public class RStarBranch<T> extends BoundingBoxDoubleXY implements RStarNode<T>
     }
   }
 
+  void addNearest(final NearestNeighbourIterator<RStarBranch<T>, T> iterator) {
+    final int itemCount = this.itemCount;
+    final RStarNode<T>[] items = this.items;
+    if (this.hasLeaves) {
+      for (int i = 0; i < itemCount; i++) {
+        final RStarLeaf<T> leaf = (RStarLeaf<T>)items[i];
+        iterator.addItem(leaf.getItem(), leaf.getBoundingBox());
+      }
+    } else {
+      for (int i = 0; i < itemCount; i++) {
+        final RStarBranch<T> branch = (RStarBranch<T>)items[i];
+        iterator.addNode(branch, branch);
+      }
+    }
+  }
+
   public void expandBoundingBox(final RStarLeaf<T> leaf) {
     expandBbox(leaf);
     this.area = Double.NaN;
@@ -1,12 +1,18 @@
 package com.revolsys.geometry.index.rstartree;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
 
 import com.revolsys.collection.ArrayUtil;
+import com.revolsys.geometry.index.NearestNeighbourIterator;
 import com.revolsys.geometry.index.SpatialIndex;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.BoundingBoxProxy;
@@ -29,6 +35,12 @@ public class RStarTree<T> implements SpatialIndex<T> {
 
   private static final double RTREE_REINSERT_P = 0.3;
 
+  private static final Comparator<RStarNode<?>> SORT_CENTRE_X = Comparator
+    .comparingDouble(node -> node.getBoundingBox().getCentreX());
+
+  private static final Comparator<RStarNode<?>> SORT_CENTRE_Y = Comparator
+    .comparingDouble(node -> node.getBoundingBox().getCentreY());
+
   private RStarBranch<T> root;
 
   int size;
@@ -261,6 +273,53 @@ public class RStarTree<T> implements SpatialIndex<T> {
     this.size += 1;
   }
 
+  /**
+   * Bulk load the items using the Sort-Tile-Recursive (STR) algorithm. The leaves
+   * are sorted by the x of their centre and cut into vertical slices, each slice
+   * is sorted by the y of the centre and packed into nodes. The same is repeated
+   * for each level until there is a single root node. Nodes are filled to 3/4 of
+   * the nodeMaxItemCount so that later inserts don't immediately split them.
+   * <p>
+   * If the tree already contains more items than are being added, the items are
+   * inserted one at a time. Otherwise the existing items are included in the bulk
+   * load and the tree is rebuilt.
+   * </p>
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public void insertItems(final Collection<? extends T> items,
+    final Function<? super T, ? extends BoundingBoxProxy> boundingBoxFunction,
+    final boolean parallel) {
+    if (items.size() < this.size) {
+      SpatialIndex.super.insertItems(items, boundingBoxFunction, parallel);
+    } else {
+      final List<RStarLeaf<T>> leaves = new ArrayList<>(this.size + items.size());
+      if (this.root != null) {
+        this.root.addItemsToList(leaves);
+      }
+      for (final T item : items) {
+        final BoundingBoxProxy boundingBoxProxy = boundingBoxFunction.apply(item);
+        if (boundingBoxProxy != null) {
+          final BoundingBox boundingBox = boundingBoxProxy.getBoundingBox();
+          if (boundingBox != null && !boundingBox.isEmpty()) {
+            leaves.add(new RStarLeaf<>(item, boundingBox));
+          }
+        }
+      }
+      final int leafCount = leaves.size();
+      if (leafCount > 0) {
+        RStarNode<T>[] nodes = leaves.toArray(new RStarNode[leafCount]);
+        boolean hasLeaves = true;
+        do {
+          nodes = packNodes(nodes, hasLeaves, parallel);
+          hasLeaves = false;
+        } while (nodes.length > 1);
+        this.root = (RStarBranch<T>)nodes[0];
+        this.size = leafCount;
+      }
+    }
+  }
+
   private void insertLeaves(final List<RStarLeaf<T>> leaves) {
     if (!leaves.isEmpty()) {
       for (final RStarLeaf<T> leaf : leaves) {
@@ -269,6 +328,42 @@ public class RStarTree<T> implements SpatialIndex<T> {
     }
   }
 
+  /**
+   * Pack the nodes of one level of the tree into the branches for the level above
+   * using STR.
+   */
+  @SuppressWarnings("unchecked")
+  private RStarNode<T>[] packNodes(final RStarNode<T>[] nodes, final boolean hasLeaves,
+    final boolean parallel) {
+    final int nodeCount = nodes.length;
+    final int nodeItemCount = Math.max(this.nodeMinItemCount, this.nodeMaxItemCount * 3 / 4);
+    final int branchCount = (nodeCount + nodeItemCount - 1) / nodeItemCount;
+    final int sliceCount = (int)Math.ceil(Math.sqrt(branchCount));
+    final int sliceSize = (branchCount + sliceCount - 1) / sliceCount * nodeItemCount;
+    if (parallel) {
+      Arrays.parallelSort(nodes, SORT_CENTRE_X);
+    } else {
+      Arrays.sort(nodes, SORT_CENTRE_X);
+    }
+    final RStarNode<T>[] branches = new RStarNode[branchCount];
+    final int capacity = this.nodeMaxItemCount + 1;
+    IntStream slices = IntStream.range(0, (nodeCount + sliceSize - 1) / sliceSize);
+    if (parallel) {
+      slices = slices.parallel();
+    }
+    slices.forEach(sliceIndex -> {
+      final int sliceStart = sliceIndex * sliceSize;
+      final int sliceEnd = Math.min(sliceStart + sliceSize, nodeCount);
+      Arrays.sort(nodes, sliceStart, sliceEnd, SORT_CENTRE_Y);
+      for (int startIndex = sliceStart; startIndex < sliceEnd; startIndex += nodeItemCount) {
+        final int endIndex = Math.min(startIndex + nodeItemCount, sliceEnd);
+        branches[startIndex / nodeItemCount] = new RStarBranch<>(capacity, hasLeaves, nodes,
+          startIndex, endIndex);
+      }
+    });
+    return branches;
+  }
+
   // This routine is used to do the opportunistic reinsertion that the
   // R algorithm calls for
   @SuppressWarnings("unchecked")
@@ -296,6 +391,14 @@ public class RStarTree<T> implements SpatialIndex<T> {
     }
   }
 
+  @Override
+  public NearestNeighbourIterator<RStarBranch<T>, T> nearestIterator(final double minX,
+    final double minY, final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super T> distanceFunction) {
+    return new NearestNeighbourIterator<>(minX, minY, maxX, maxY, maxDistance, distanceFunction,
+      RStarBranch::addNearest, this.root);
+  }
+
   @Override
   public boolean removeItem(final BoundingBox boundingBox, final T item) {
     final List<RStarLeaf<T>> itemsToReinsert = new ArrayList<>();
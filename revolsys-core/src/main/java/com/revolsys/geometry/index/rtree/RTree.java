@@ -4,7 +4,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 
+import com.revolsys.geometry.index.NearestNeighbourIterator;
 import com.revolsys.geometry.index.SpatialIndex;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.util.ExitLoopException;
@@ -102,6 +104,14 @@ public class RTree<T> implements SpatialIndex<T> {
     this.size++;
   }
 
+  @Override
+  public NearestNeighbourIterator<RTreeNode<T>, T> nearestIterator(final double minX,
+    final double minY, final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super T> distanceFunction) {
+    return new NearestNeighbourIterator<>(minX, minY, maxX, maxY, maxDistance, distanceFunction,
+      RTreeNode::addNearest, this.root);
+  }
+
   @Override
   public boolean removeItem(final BoundingBox boundingBox, final T object) {
     final double minX = boundingBox.getMinX();
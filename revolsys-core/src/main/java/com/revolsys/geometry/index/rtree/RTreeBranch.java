@@ -6,6 +6,7 @@ import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import com.revolsys.collection.ArrayUtil;
+import com.revolsys.geometry.index.NearestNeighbourIterator;
 import com.revolsys.geometry.model.BoundingBox;
 
 public class RTreeBranch<T> extends RTreeNode<T> {
@@ -72,6 +73,17 @@ public class RTreeBranch<T> extends RTreeNode<T> {
     super.expandBoundingBox(minX, minY, maxX, maxY);
   }
 
+  @Override
+  protected void addNearest(final NearestNeighbourIterator<RTreeNode<T>, T> iterator) {
+    final int childCount = this.size;
+    final RTreeNode<T>[] childNodes = this.nodes;
+    for (int i = 0; i < childCount; i++) {
+      final RTreeNode<T> childNode = childNodes[i];
+      iterator.addNode(childNode, childNode.getMinX(), childNode.getMinY(), childNode.getMaxX(),
+        childNode.getMaxY());
+    }
+  }
+
   @Override
   public void forEach(final double x, final double y, final Consumer<? super T> action) {
     final int childCount = this.size;
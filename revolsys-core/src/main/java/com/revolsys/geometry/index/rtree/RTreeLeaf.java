@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+import com.revolsys.geometry.index.NearestNeighbourIterator;
 import com.revolsys.geometry.model.BoundingBox;
 
 public class RTreeLeaf<T> extends RTreeNode<T> {
@@ -31,6 +32,15 @@ public class RTreeLeaf<T> extends RTreeNode<T> {
     expandBoundingBox(objectBoundingBox);
   }
 
+  @Override
+  protected void addNearest(final NearestNeighbourIterator<RTreeNode<T>, T> iterator) {
+    for (int i = 0; i < this.size; i++) {
+      final BoundingBox objectBounds = this.objectBoundingBoxes[i];
+      final T object = this.objects[i];
+      iterator.addItem(object, objectBounds);
+    }
+  }
+
   @Override
   protected RTreeLeaf<T> chooseLeaf(final List<RTreeBranch<T>> path,
     final BoundingBox boundingBox) {
@@ -39,7 +39,9 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 
+import com.revolsys.geometry.index.NearestNeighbourIterator;
 import com.revolsys.geometry.index.SpatialIndex;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.BoundingBoxProxy;
@@ -413,6 +415,15 @@ public class StrTree<I>
     return nearestNeighbour(bp, itemDistance);
   }
 
+  @Override
+  public NearestNeighbourIterator<StrTreeNode<I>, I> nearestIterator(final double minX,
+    final double minY, final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super I> distanceFunction) {
+    final StrTreeNode<I> root = getRoot();
+    return new NearestNeighbourIterator<>(minX, minY, maxX, maxY, maxDistance, distanceFunction,
+      StrTreeNode::addNearest, root);
+  }
+
   protected StrTreeNode<I> newNode(final int level) {
     return new StrTreeNode<>(this.nodeCapacity, level);
   }
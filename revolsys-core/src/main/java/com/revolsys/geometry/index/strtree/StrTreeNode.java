@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.function.Consumer;
 
+import com.revolsys.geometry.index.NearestNeighbourIterator;
 import com.revolsys.geometry.model.impl.BoundingBoxDoubleXY;
 import com.revolsys.util.Emptyable;
 
@@ -36,6 +37,24 @@ public class StrTreeNode<I> extends BoundingBoxDoubleXY
     this.children[this.childCount++] = child;
   }
 
+  /**
+   * Add the child nodes and items to the nearest neighbour search, using the
+   * bounds of each child as the distance to it.
+   */
+  @SuppressWarnings("unchecked")
+  public void addNearest(final NearestNeighbourIterator<StrTreeNode<I>, I> iterator) {
+    final int childCount = this.childCount;
+    final Boundable<I>[] children = this.children;
+    for (int i = 0; i < childCount; i++) {
+      final Boundable<I> child = children[i];
+      if (child.isNode()) {
+        iterator.addNode((StrTreeNode<I>)child, child);
+      } else {
+        iterator.addItem(child.getItem(), child);
+      }
+    }
+  }
+
   /**
    * @param level -1 to get items
    */
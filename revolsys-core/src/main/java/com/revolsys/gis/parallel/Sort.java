@@ -1,23 +1,68 @@
 package com.revolsys.gis.parallel;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 
 import com.revolsys.parallel.channel.Channel;
 import com.revolsys.parallel.process.BaseInOutProcess;
 import com.revolsys.record.Record;
+import com.revolsys.record.RecordFactory;
 import com.revolsys.record.comparator.RecordFieldComparator;
 
+/**
+ * Sort the records read from the input channel and write them to the output
+ * channel once all the records have been read.
+ * <p>
+ * By default all the records are held in memory. If {@link #setMaxRecordsInMemory(int)}
+ * is set then an external merge sort is used. Each time that number of records
+ * has been read they are sorted and written to a temporary run file in
+ * {@link #setTempDirectory(Path)} using a compact binary encoding. At the end
+ * the runs are merged using a heap so the output is in the same order as an in
+ * memory sort. At most {@link #setMaxMergeRuns(int)} runs are open at the same
+ * time, if there are more runs they are first merged in groups into larger runs.
+ * If {@link #setParallel(boolean)} is true the runs are sorted using
+ * {@link Arrays#parallelSort(Object[], Comparator)}.
+ * </p>
+ * <p>
+ * Records read from the runs are created using {@link #setRecordFactory(RecordFactory)}
+ * or the record factory of the record definition. Records of any other class
+ * can't be written to a run.
+ * </p>
+ */
 public class Sort extends BaseInOutProcess<Record, Record> {
 
+  private SortRunCodec codec;
+
   private Comparator<Record> comparator;
 
   private String fieldName;
 
+  private int maxMergeRuns = 64;
+
+  private int maxRecordsInMemory = 0;
+
   private final List<Record> objects = new ArrayList<>();
 
+  private boolean parallel = false;
+
+  private RecordFactory<? extends Record> recordFactory;
+
+  private final List<SortRun> runs = new ArrayList<>();
+
+  private Path tempDirectory;
+
+  private void closeRuns() {
+    for (final SortRun run : this.runs) {
+      run.close();
+    }
+    this.runs.clear();
+  }
+
   public Comparator<Record> getComparator() {
     return this.comparator;
   }
@@ -26,19 +71,104 @@ public class Sort extends BaseInOutProcess<Record, Record> {
     return this.fieldName;
   }
 
+  public int getMaxMergeRuns() {
+    return this.maxMergeRuns;
+  }
+
+  public int getMaxRecordsInMemory() {
+    return this.maxRecordsInMemory;
+  }
+
+  public RecordFactory<? extends Record> getRecordFactory() {
+    return this.recordFactory;
+  }
+
+  public Path getTempDirectory() {
+    return this.tempDirectory;
+  }
+
+  public boolean isParallel() {
+    return this.parallel;
+  }
+
+  private void merge(final Channel<Record> out) {
+    while (this.runs.size() > this.maxMergeRuns) {
+      mergeRuns();
+    }
+    final PriorityQueue<SortRun> queue = SortRun.newQueue(this.comparator, this.runs);
+    while (!queue.isEmpty()) {
+      final SortRun run = queue.poll();
+      out.write(run.getRecord());
+      if (run.next()) {
+        queue.add(run);
+      }
+    }
+  }
+
+  /**
+   * Merge each group of {@link #maxMergeRuns} consecutive runs into a single run.
+   */
+  private void mergeRuns() {
+    final List<SortRun> runs = new ArrayList<>(this.runs);
+    this.runs.clear();
+    try {
+      final int runCount = runs.size();
+      for (int i = 0; i < runCount; i += this.maxMergeRuns) {
+        final List<SortRun> groupRuns = runs.subList(i, Math.min(i + this.maxMergeRuns, runCount));
+        if (groupRuns.size() == 1) {
+          this.runs.add(groupRuns.get(0));
+        } else {
+          final SortRun run = SortRun.merge(this.codec, this.tempDirectory, this.comparator,
+            groupRuns);
+          this.runs.add(run);
+        }
+      }
+    } catch (final RuntimeException e) {
+      for (final SortRun run : runs) {
+        run.close();
+      }
+      throw e;
+    }
+  }
+
   @Override
   protected void postRun(final Channel<Record> in, final Channel<Record> out) {
-    if (this.comparator != null) {
-      Collections.sort(this.objects, this.comparator);
-    }
-    for (final Record object : this.objects) {
-      out.write(object);
+    try {
+      if (this.runs.isEmpty()) {
+        if (this.comparator != null) {
+          if (this.parallel) {
+            final Record[] records = this.objects.toArray(new Record[this.objects.size()]);
+            Arrays.parallelSort(records, this.comparator);
+            this.objects.clear();
+            Collections.addAll(this.objects, records);
+          } else {
+            Collections.sort(this.objects, this.comparator);
+          }
+        }
+        for (final Record object : this.objects) {
+          out.write(object);
+        }
+      } else {
+        writeRun();
+        merge(out);
+      }
+    } finally {
+      this.objects.clear();
+      closeRuns();
+      this.codec = null;
     }
   }
 
   @Override
   protected void process(final Channel<Record> in, final Channel<Record> out, final Record object) {
-    this.objects.add(object);
+    if (this.maxRecordsInMemory > 0 && this.comparator == null) {
+      out.write(object);
+    } else {
+      this.objects.add(object);
+      if (this.maxRecordsInMemory > 0 && this.objects.size() >= this.maxRecordsInMemory) {
+        writeRun();
+      }
+    }
   }
 
   public void setComparator(final Comparator<Record> comparator) {
@@ -50,4 +180,63 @@ public class Sort extends BaseInOutProcess<Record, Record> {
     this.comparator = new RecordFieldComparator(fieldName);
   }
 
+  /**
+   * Set the maximum number of runs to merge at the same time, each run keeps a
+   * file open while it is merged. Defaults to 64.
+   */
+  public void setMaxMergeRuns(final int maxMergeRuns) {
+    if (maxMergeRuns < 2) {
+      throw new IllegalArgumentException("maxMergeRuns must be >= 2 not " + maxMergeRuns);
+    }
+    this.maxMergeRuns = maxMergeRuns;
+  }
+
+  /**
+   * Set the maximum number of records to hold in memory before writing a sorted
+   * run to a temporary file. If 0 (the default) all the records are sorted in
+   * memory.
+   */
+
+  public void setMaxRecordsInMemory(final int maxRecordsInMemory) {
+    this.maxRecordsInMemory = maxRecordsInMemory;
+  }
+
+  public void setParallel(final boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Set the factory used to create the records read back from the runs. Only
+   * needed if the records are not created by the record definition's factory.
+   */
+  public void setRecordFactory(final RecordFactory<? extends Record> recordFactory) {
+    this.recordFactory = recordFactory;
+  }
+
+  /**
+   * Set the directory for the temporary run files, defaults to the system
+   * temporary directory.
+   */
+  public void setTempDirectory(final Path tempDirectory) {
+    this.tempDirectory = tempDirectory;
+  }
+
+  private void writeRun() {
+    if (!this.objects.isEmpty()) {
+      final Record[] records = this.objects.toArray(new Record[this.objects.size()]);
+      this.objects.clear();
+      if (this.parallel) {
+        Arrays.parallelSort(records, this.comparator);
+      } else {
+        Arrays.sort(records, this.comparator);
+      }
+      if (this.codec == null) {
+        this.codec = new SortRunCodec(this.recordFactory);
+      }
+      final int index = this.runs.size();
+      final SortRun run = SortRun.write(this.codec, this.tempDirectory, index, records);
+      this.runs.add(run);
+    }
+  }
+
 }
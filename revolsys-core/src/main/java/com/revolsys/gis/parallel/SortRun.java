@@ -0,0 +1,195 @@
+package com.revolsys.gis.parallel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.jeometry.common.exception.Exceptions;
+import org.jeometry.common.logging.Logs;
+
+import com.revolsys.io.BaseCloseable;
+import com.revolsys.record.Record;
+
+/**
+ * A sorted run of records written to a temporary file by an external
+ * {@link Sort}. The run is read back one record at a time during the merge and
+ * the file is deleted when the run is closed.
+ */
+class SortRun implements BaseCloseable {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Merge the runs into a new run. The new run has the index of the first run so
+   * the merge is still stable if consecutive runs are merged. The merged runs
+   * are closed.
+   */
+  public static SortRun merge(final SortRunCodec codec, final Path directory,
+    final Comparator<Record> comparator, final List<SortRun> runs) {
+    try {
+      final Path file = newFile(directory);
+      int count = 0;
+      try (
+        DataOutputStream out = newOutputStream(file)) {
+        final PriorityQueue<SortRun> queue = newQueue(comparator, runs);
+        while (!queue.isEmpty()) {
+          final SortRun run = queue.poll();
+          codec.writeRecord(out, run.getRecord());
+          count++;
+          if (run.next()) {
+            queue.add(run);
+          }
+        }
+      } catch (final IOException | RuntimeException e) {
+        Files.deleteIfExists(file);
+        throw e;
+      } finally {
+        for (final SortRun run : runs) {
+          run.close();
+        }
+      }
+      return new SortRun(codec, file, runs.get(0).getIndex(), count);
+    } catch (final IOException e) {
+      throw Exceptions.wrap("Unable to merge sort runs", e);
+    }
+  }
+
+  private static Path newFile(final Path directory) throws IOException {
+    if (directory == null) {
+      return Files.createTempFile("sort", ".run");
+    } else {
+      Files.createDirectories(directory);
+      return Files.createTempFile(directory, "sort", ".run");
+    }
+  }
+
+  private static DataOutputStream newOutputStream(final Path file) throws IOException {
+    return new DataOutputStream(
+      new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+  }
+
+  /**
+   * Construct a queue ordered by the current record of each run, reading the
+   * first record of each run. Runs with equal records are ordered by their index
+   * so the merge is stable.
+   */
+  public static PriorityQueue<SortRun> newQueue(final Comparator<Record> comparator,
+    final List<SortRun> runs) {
+    final PriorityQueue<SortRun> queue = new PriorityQueue<>(runs.size(), (run1, run2) -> {
+      final int compare = comparator.compare(run1.getRecord(), run2.getRecord());
+      if (compare == 0) {
+        return Integer.compare(run1.getIndex(), run2.getIndex());
+      } else {
+        return compare;
+      }
+    });
+    for (final SortRun run : runs) {
+      if (run.next()) {
+        queue.add(run);
+      }
+    }
+    return queue;
+  }
+
+  public static SortRun write(final SortRunCodec codec, final Path directory, final int index,
+    final Record[] records) {
+    try {
+      final Path file = newFile(directory);
+      try (
+        DataOutputStream out = newOutputStream(file)) {
+        for (final Record record : records) {
+          codec.writeRecord(out, record);
+        }
+      } catch (final IOException | RuntimeException e) {
+        Files.deleteIfExists(file);
+        throw e;
+      }
+      return new SortRun(codec, file, index, records.length);
+    } catch (final IOException e) {
+      throw Exceptions.wrap("Unable to write sort run", e);
+    }
+  }
+
+  private final SortRunCodec codec;
+
+  private final Path file;
+
+  private DataInputStream in;
+
+  private final int index;
+
+  private Record record;
+
+  private int remaining;
+
+  private SortRun(final SortRunCodec codec, final Path file, final int index, final int count) {
+    this.codec = codec;
+    this.file = file;
+    this.index = index;
+    this.remaining = count;
+  }
+
+  @Override
+  public void close() {
+    this.record = null;
+    try {
+      if (this.in != null) {
+        this.in.close();
+        this.in = null;
+      }
+    } catch (final IOException e) {
+      Logs.debug(this, "Unable to close " + this.file, e);
+    }
+    try {
+      Files.deleteIfExists(this.file);
+    } catch (final IOException e) {
+      Logs.error(this, "Unable to delete " + this.file, e);
+    }
+  }
+
+  /**
+   * The position of the run in the input, used to keep the merge stable.
+   */
+  public int getIndex() {
+    return this.index;
+  }
+
+  public Record getRecord() {
+    return this.record;
+  }
+
+  /**
+   * Read the next record from the run.
+   *
+   * @return True if a record was read, false if the run has no more records.
+   */
+  public boolean next() {
+    if (this.remaining == 0) {
+      close();
+      return false;
+    } else {
+      try {
+        if (this.in == null) {
+          this.in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(this.file), BUFFER_SIZE));
+        }
+        this.record = this.codec.readRecord(this.in);
+        this.remaining--;
+        return true;
+      } catch (final IOException e) {
+        throw Exceptions.wrap("Unable to read sort run " + this.file, e);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.file.toString();
+  }
+}
@@ -0,0 +1,493 @@
+package com.revolsys.gis.parallel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.LinearRing;
+import com.revolsys.geometry.model.MultiLineString;
+import com.revolsys.geometry.model.MultiPoint;
+import com.revolsys.geometry.model.MultiPolygon;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Polygon;
+import com.revolsys.geometry.model.impl.GeometryCollectionImpl;
+import com.revolsys.geometry.model.impl.MultiLineStringImpl;
+import com.revolsys.geometry.model.impl.MultiPointImpl;
+import com.revolsys.geometry.model.impl.MultiPolygonImpl;
+import com.revolsys.record.Record;
+import com.revolsys.record.RecordFactory;
+import com.revolsys.record.RecordState;
+import com.revolsys.record.schema.FieldDefinition;
+import com.revolsys.record.schema.RecordDefinition;
+
+/**
+ * The binary encoding of the records in the run files of an external
+ * {@link Sort}. Record definitions, record factories and geometry factories are
+ * kept in memory and written as an index so each record only contains its state
+ * and a type tag and value for each field. Geometries are written as their parts
+ * and coordinates using the axis count of the geometry so Z and M are kept.
+ * Other values must be {@link Serializable} and are written using Java
+ * serialization; any other value type can't be written to a run.
+ * <p>
+ * A codec is only valid for the lifetime of the {@link Sort} that created it and
+ * must only be used by one thread at a time.
+ * </p>
+ */
+class SortRunCodec {
+  private static final byte BIG_DECIMAL = 10;
+
+  private static final byte BIG_INTEGER = 11;
+
+  private static final byte BYTE = 7;
+
+  private static final byte DATE = 14;
+
+  private static final byte DOUBLE = 4;
+
+  private static final byte FALSE = 9;
+
+  private static final byte FLOAT = 5;
+
+  private static final byte GEOMETRY = 15;
+
+  private static final byte GEOMETRY_COLLECTION = 7;
+
+  private static final byte INTEGER = 2;
+
+  private static final byte LINE_STRING = 2;
+
+  private static final byte LINEAR_RING = 8;
+
+  private static final byte LONG = 3;
+
+  private static final byte MULTI_LINE_STRING = 5;
+
+  private static final byte MULTI_POINT = 4;
+
+  private static final byte MULTI_POLYGON = 6;
+
+  private static final byte NULL = 0;
+
+  private static final byte POINT = 1;
+
+  private static final byte POLYGON = 3;
+
+  private static final RecordState[] RECORD_STATES = RecordState.values();
+
+  private static final byte SERIALIZABLE = 16;
+
+  private static final byte SHORT = 6;
+
+  private static final byte SQL_DATE = 12;
+
+  private static final byte STRING = 1;
+
+  private static final byte TIMESTAMP = 13;
+
+  private static final byte TRUE = 8;
+
+  private final List<GeometryFactory> geometryFactories = new ArrayList<>();
+
+  private final Map<GeometryFactory, Integer> geometryFactoryIndexes = new HashMap<>();
+
+  private final List<RecordDefinition> recordDefinitions = new ArrayList<>();
+
+  private final List<RecordFactory<Record>> recordFactories = new ArrayList<>();
+
+  private final RecordFactory<Record> recordFactory;
+
+  private final Map<List<Object>, Integer> recordTypeIndexes = new HashMap<>();
+
+  /**
+   * Construct a new codec.
+   *
+   * @param recordFactory The factory used to create the records read from a run,
+   *          if null the record factory of the record definition is used.
+   */
+  public SortRunCodec(final RecordFactory<? extends Record> recordFactory) {
+    @SuppressWarnings("unchecked")
+    final RecordFactory<Record> factory = (RecordFactory<Record>)recordFactory;
+    this.recordFactory = factory;
+  }
+
+  /**
+   * Get the factory that will recreate records of the same class as the record.
+   * Fail when the record is written instead of returning a different class of
+   * record when the run is read.
+   */
+  private RecordFactory<Record> getRecordFactory(final RecordDefinition recordDefinition,
+    final Record record) {
+    RecordFactory<Record> recordFactory = this.recordFactory;
+    if (recordFactory == null) {
+      recordFactory = recordDefinition.getRecordFactory();
+    }
+    final Record newRecord = recordFactory.newRecord(recordDefinition);
+    if (newRecord == null || newRecord.getClass() != record.getClass()) {
+      throw new IllegalArgumentException("Cannot write " + record.getClass().getName()
+        + " to a sort run, the record factory creates " + (newRecord == null ? null
+          : newRecord.getClass().getName())
+        + ". Use Sort.setRecordFactory to set a factory for that record class.");
+    }
+    return recordFactory;
+  }
+
+  private byte[] readBytes(final DataInput in) throws IOException {
+    final int length = readInt(in);
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private double[] readCoordinates(final DataInput in, final int axisCount)
+    throws IOException {
+    final int vertexCount = readInt(in);
+    final double[] coordinates = new double[vertexCount * axisCount];
+    for (int i = 0; i < coordinates.length; i++) {
+      coordinates[i] = in.readDouble();
+    }
+    return coordinates;
+  }
+
+  private Geometry readGeometry(final DataInput in, final GeometryFactory geometryFactory)
+    throws IOException {
+    final byte type = in.readByte();
+    switch (type) {
+      case POINT: {
+        final int axisCount = in.readUnsignedByte();
+        final double[] coordinates = readCoordinates(in, axisCount);
+        if (coordinates.length == 0) {
+          return geometryFactory.point();
+        } else {
+          return geometryFactory.point(coordinates);
+        }
+      }
+      case LINE_STRING: {
+        final int axisCount = in.readUnsignedByte();
+        return geometryFactory.lineString(axisCount, readCoordinates(in, axisCount));
+      }
+      case LINEAR_RING: {
+        final int axisCount = in.readUnsignedByte();
+        return geometryFactory.linearRing(axisCount, readCoordinates(in, axisCount));
+      }
+      case POLYGON: {
+        final int ringCount = readInt(in);
+        if (ringCount == 0) {
+          return geometryFactory.polygon();
+        } else {
+          final LinearRing[] rings = new LinearRing[ringCount];
+          for (int i = 0; i < ringCount; i++) {
+            rings[i] = (LinearRing)readGeometry(in, geometryFactory);
+          }
+          return geometryFactory.polygon(rings);
+        }
+      }
+      case MULTI_POINT: {
+        final Point[] points = readParts(in, geometryFactory, new Point[readInt(in)]);
+        if (points.length == 0) {
+          return geometryFactory.point();
+        } else {
+          return new MultiPointImpl(geometryFactory, points);
+        }
+      }
+      case MULTI_LINE_STRING: {
+        final LineString[] lines = readParts(in, geometryFactory, new LineString[readInt(in)]);
+        if (lines.length == 0) {
+          return geometryFactory.lineString();
+        } else {
+          return new MultiLineStringImpl(geometryFactory, lines);
+        }
+      }
+      case MULTI_POLYGON: {
+        final Polygon[] polygons = readParts(in, geometryFactory, new Polygon[readInt(in)]);
+        if (polygons.length == 0) {
+          return geometryFactory.polygon();
+        } else {
+          return new MultiPolygonImpl(geometryFactory, polygons);
+        }
+      }
+      case GEOMETRY_COLLECTION: {
+        final Geometry[] geometries = readParts(in, geometryFactory, new Geometry[readInt(in)]);
+        if (geometries.length == 0) {
+          return geometryFactory.geometryCollection();
+        } else {
+          return new GeometryCollectionImpl(geometryFactory, geometries);
+        }
+      }
+      default:
+        throw new IOException("Unknown geometry type " + type);
+    }
+  }
+
+  private int readInt(final DataInput in) throws IOException {
+    int value = 0;
+    int shift = 0;
+    while (true) {
+      final int b = in.readUnsignedByte();
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+      shift += 7;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <G extends Geometry> G[] readParts(final DataInput in,
+    final GeometryFactory geometryFactory, final G[] parts) throws IOException {
+    for (int i = 0; i < parts.length; i++) {
+      parts[i] = (G)readGeometry(in, geometryFactory);
+    }
+    return parts;
+  }
+
+  public Record readRecord(final DataInput in) throws IOException {
+    final int recordTypeIndex = readInt(in);
+    final RecordDefinition recordDefinition = this.recordDefinitions.get(recordTypeIndex);
+    final RecordFactory<Record> recordFactory = this.recordFactories.get(recordTypeIndex);
+    final RecordState state = RECORD_STATES[in.readUnsignedByte()];
+    final Record record = recordFactory.newRecord(recordDefinition);
+    record.setState(RecordState.INITIALIZING);
+    final int fieldCount = recordDefinition.getFieldCount();
+    for (int fieldIndex = 0; fieldIndex < fieldCount; fieldIndex++) {
+      final FieldDefinition field = recordDefinition.getField(fieldIndex);
+      final Object value = readValue(in, field);
+      record.setValue(fieldIndex, value);
+    }
+    record.setState(state);
+    return record;
+  }
+
+  private Object readValue(final DataInput in, final FieldDefinition field) throws IOException {
+    final byte type = in.readByte();
+    switch (type) {
+      case NULL:
+        return null;
+      case STRING:
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+      case INTEGER:
+        return in.readInt();
+      case LONG:
+        return in.readLong();
+      case DOUBLE:
+        return in.readDouble();
+      case FLOAT:
+        return in.readFloat();
+      case SHORT:
+        return in.readShort();
+      case BYTE:
+        return in.readByte();
+      case TRUE:
+        return Boolean.TRUE;
+      case FALSE:
+        return Boolean.FALSE;
+      case BIG_DECIMAL:
+        return new BigDecimal(new String(readBytes(in), StandardCharsets.UTF_8));
+      case BIG_INTEGER:
+        return new BigInteger(readBytes(in));
+      case SQL_DATE:
+        return new java.sql.Date(in.readLong());
+      case TIMESTAMP:
+        final Timestamp timestamp = new Timestamp(in.readLong());
+        timestamp.setNanos(in.readInt());
+        return timestamp;
+      case DATE:
+        return new Date(in.readLong());
+      case GEOMETRY:
+        final GeometryFactory geometryFactory = this.geometryFactories.get(readInt(in));
+        return readGeometry(in, geometryFactory);
+      case SERIALIZABLE:
+        try (
+          ObjectInputStream objectIn = new ObjectInputStream(
+            new ByteArrayInputStream(readBytes(in)))) {
+          return objectIn.readObject();
+        } catch (final ClassNotFoundException e) {
+          throw new IOException("Unable to read value for " + field.getName(), e);
+        }
+      default:
+        throw new IOException("Unknown value type " + type + " for " + field.getName());
+    }
+  }
+
+  private void writeBytes(final DataOutput out, final byte[] bytes) throws IOException {
+    writeInt(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private void writeCoordinates(final DataOutput out, final LineString line,
+    final int axisCount) throws IOException {
+    final int vertexCount = line.getVertexCount();
+    writeInt(out, vertexCount);
+    for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+      for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+        out.writeDouble(line.getCoordinate(vertexIndex, axisIndex));
+      }
+    }
+  }
+
+  private void writeGeometry(final DataOutput out, final Geometry geometry) throws IOException {
+    final int axisCount = geometry.getAxisCount();
+    if (geometry instanceof Point) {
+      final Point point = (Point)geometry;
+      out.writeByte(POINT);
+      out.writeByte(axisCount);
+      if (point.isEmpty()) {
+        writeInt(out, 0);
+      } else {
+        writeInt(out, 1);
+        for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+          out.writeDouble(point.getCoordinate(axisIndex));
+        }
+      }
+    } else if (geometry instanceof LinearRing) {
+      out.writeByte(LINEAR_RING);
+      out.writeByte(axisCount);
+      writeCoordinates(out, (LinearRing)geometry, axisCount);
+    } else if (geometry instanceof LineString) {
+      out.writeByte(LINE_STRING);
+      out.writeByte(axisCount);
+      writeCoordinates(out, (LineString)geometry, axisCount);
+    } else if (geometry instanceof Polygon) {
+      final Polygon polygon = (Polygon)geometry;
+      out.writeByte(POLYGON);
+      final int ringCount = polygon.isEmpty() ? 0 : polygon.getRingCount();
+      writeInt(out, ringCount);
+      for (int ringIndex = 0; ringIndex < ringCount; ringIndex++) {
+        writeGeometry(out, polygon.getRing(ringIndex));
+      }
+    } else {
+      if (geometry instanceof MultiPoint) {
+        out.writeByte(MULTI_POINT);
+      } else if (geometry instanceof MultiLineString) {
+        out.writeByte(MULTI_LINE_STRING);
+      } else if (geometry instanceof MultiPolygon) {
+        out.writeByte(MULTI_POLYGON);
+      } else {
+        out.writeByte(GEOMETRY_COLLECTION);
+      }
+      final int geometryCount = geometry.isEmpty() ? 0 : geometry.getGeometryCount();
+      writeInt(out, geometryCount);
+      for (int geometryIndex = 0; geometryIndex < geometryCount; geometryIndex++) {
+        writeGeometry(out, geometry.getGeometry(geometryIndex));
+      }
+    }
+  }
+
+  private void writeInt(final DataOutput out, int value) throws IOException {
+    while ((value & ~0x7f) != 0) {
+      out.writeByte(value & 0x7f | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  public void writeRecord(final DataOutput out, final Record record) throws IOException {
+    final RecordDefinition recordDefinition = record.getRecordDefinition();
+    final List<Object> recordType = Arrays.asList(recordDefinition, record.getClass());
+    Integer recordTypeIndex = this.recordTypeIndexes.get(recordType);
+    if (recordTypeIndex == null) {
+      final RecordFactory<Record> recordFactory = getRecordFactory(recordDefinition, record);
+      recordTypeIndex = this.recordDefinitions.size();
+      this.recordDefinitions.add(recordDefinition);
+      this.recordFactories.add(recordFactory);
+      this.recordTypeIndexes.put(recordType, recordTypeIndex);
+    }
+    writeInt(out, recordTypeIndex);
+    out.writeByte(record.getState().ordinal());
+    final int fieldCount = recordDefinition.getFieldCount();
+    for (int fieldIndex = 0; fieldIndex < fieldCount; fieldIndex++) {
+      final Object value = record.getValue(fieldIndex);
+      writeValue(out, value);
+    }
+  }
+
+  private void writeValue(final DataOutput out, final Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof String) {
+      out.writeByte(STRING);
+      writeBytes(out, ((String)value).getBytes(StandardCharsets.UTF_8));
+    } else if (value instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeInt((Integer)value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long)value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double)value);
+    } else if (value instanceof Float) {
+      out.writeByte(FLOAT);
+      out.writeFloat((Float)value);
+    } else if (value instanceof Short) {
+      out.writeByte(SHORT);
+      out.writeShort((Short)value);
+    } else if (value instanceof Byte) {
+      out.writeByte(BYTE);
+      out.writeByte((Byte)value);
+    } else if (value instanceof Boolean) {
+      if ((Boolean)value) {
+        out.writeByte(TRUE);
+      } else {
+        out.writeByte(FALSE);
+      }
+    } else if (value instanceof BigDecimal) {
+      out.writeByte(BIG_DECIMAL);
+      writeBytes(out, ((BigDecimal)value).toString().getBytes(StandardCharsets.UTF_8));
+    } else if (value instanceof BigInteger) {
+      out.writeByte(BIG_INTEGER);
+      writeBytes(out, ((BigInteger)value).toByteArray());
+    } else if (value instanceof java.sql.Date) {
+      out.writeByte(SQL_DATE);
+      out.writeLong(((java.sql.Date)value).getTime());
+    } else if (value instanceof Timestamp) {
+      final Timestamp timestamp = (Timestamp)value;
+      out.writeByte(TIMESTAMP);
+      out.writeLong(timestamp.getTime());
+      out.writeInt(timestamp.getNanos());
+    } else if (value.getClass() == Date.class) {
+      out.writeByte(DATE);
+      out.writeLong(((Date)value).getTime());
+    } else if (value instanceof Geometry) {
+      final Geometry geometry = (Geometry)value;
+      final GeometryFactory geometryFactory = geometry.getGeometryFactory();
+      Integer geometryFactoryIndex = this.geometryFactoryIndexes.get(geometryFactory);
+      if (geometryFactoryIndex == null) {
+        geometryFactoryIndex = this.geometryFactories.size();
+        this.geometryFactories.add(geometryFactory);
+        this.geometryFactoryIndexes.put(geometryFactory, geometryFactoryIndex);
+      }
+      out.writeByte(GEOMETRY);
+      writeInt(out, geometryFactoryIndex);
+      writeGeometry(out, geometry);
+    } else if (value instanceof Serializable) {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (
+        ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+        objectOut.writeObject(value);
+      }
+      out.writeByte(SERIALIZABLE);
+      writeBytes(out, bytes.toByteArray());
+    } else {
+      throw new IllegalArgumentException(
+        "Cannot write " + value.getClass().getName() + " to a sort run, it is not Serializable");
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.revolsys.gis.parallel;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.parallel.ThreadInterruptedException;
+import com.revolsys.parallel.channel.Channel;
+import com.revolsys.parallel.process.AbstractOutProcess;
+
+/**
+ * Write the values from a (parallel) stream to the out channel. If ordered is true the
+ * values are written in the encounter order of the stream, otherwise they are written
+ * as soon as they are produced by each thread. If parallelism is &gt; 0 the stream is
+ * run on a {@link ForkJoinPool} with that number of threads instead of the common pool.
+ *
+ * <pre>
+ * new StreamProcess&lt;&gt;(() -&gt; shapefileReader.parallelStream(), false)
+ * </pre>
+ */
+public class StreamProcess<T> extends AbstractOutProcess<T> {
+
+  private boolean ordered = true;
+
+  private int parallelism = 0;
+
+  private Supplier<Stream<T>> streamSupplier;
+
+  public StreamProcess() {
+  }
+
+  public StreamProcess(final Supplier<Stream<T>> streamSupplier) {
+    this.streamSupplier = streamSupplier;
+  }
+
+  public StreamProcess(final Supplier<Stream<T>> streamSupplier, final boolean ordered) {
+    this.streamSupplier = streamSupplier;
+    this.ordered = ordered;
+  }
+
+  public StreamProcess(final Supplier<Stream<T>> streamSupplier, final int bufferSize) {
+    super(bufferSize);
+    this.streamSupplier = streamSupplier;
+  }
+
+  public int getParallelism() {
+    return this.parallelism;
+  }
+
+  public Supplier<Stream<T>> getStreamSupplier() {
+    return this.streamSupplier;
+  }
+
+  public boolean isOrdered() {
+    return this.ordered;
+  }
+
+  @Override
+  protected void run(final Channel<T> out) {
+    if (this.parallelism > 0) {
+      final ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+      try {
+        pool.submit(() -> write(out)).get();
+      } catch (final InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      } catch (final ExecutionException e) {
+        Exceptions.throwUncheckedException(e.getCause());
+      } finally {
+        pool.shutdownNow();
+      }
+    } else {
+      write(out);
+    }
+  }
+
+  public StreamProcess<T> setOrdered(final boolean ordered) {
+    this.ordered = ordered;
+    return this;
+  }
+
+  public StreamProcess<T> setParallelism(final int parallelism) {
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  public StreamProcess<T> setStreamSupplier(final Supplier<Stream<T>> streamSupplier) {
+    this.streamSupplier = streamSupplier;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return getBeanName();
+  }
+
+  private void write(final Channel<T> out) {
+    try (
+      Stream<T> stream = this.streamSupplier.get()) {
+      if (this.ordered) {
+        stream.forEachOrdered(out::write);
+      } else {
+        stream.unordered().forEach(out::write);
+      }
+    }
+  }
+}
@@ -534,6 +534,35 @@ public interface Grid extends ObjectWithProperties, BoundingBoxProxy {
     return getValue(gridX, gridY);
   }
 
+  /**
+   * Get the values for a window of grid cells. The values are stored row by
+   * row starting at gridY, so the value for the cell (gridX + i, gridY + j) is
+   * stored at values[j * width + i]. Cells outside the grid are NaN.
+   *
+   * @param gridX The grid x of the first column of the window.
+   * @param gridY The grid y of the first row of the window.
+   * @param width The number of columns in the window.
+   * @param height The number of rows in the window.
+   * @param values The array to store the values in (width * height).
+   */
+  default void getValues(final int gridX, final int gridY, final int width, final int height,
+    final double[] values) {
+    final int gridWidth = getGridWidth();
+    final int gridHeight = getGridHeight();
+    int index = 0;
+    for (int j = 0; j < height; j++) {
+      final int y = gridY + j;
+      for (int i = 0; i < width; i++) {
+        final int x = gridX + i;
+        if (x < 0 || x >= gridWidth || y < 0 || y >= gridHeight) {
+          values[index++] = Double.NaN;
+        } else {
+          values[index++] = getValueFast(x, y);
+        }
+      }
+    }
+  }
+
   default double getX(final int i) {
     final double minX = getGridMinX();
     final double gridCellWidth = getGridCellWidth();
@@ -0,0 +1,220 @@
+package com.revolsys.io.endian;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.io.EndOfFileException;
+import com.revolsys.io.RandomAccess;
+
+/**
+ * A read only {@link EndianInput} over a {@link FileChannel} that reads blocks of
+ * the file into a little endian buffer. Values are decoded directly from the buffer
+ * and arrays of doubles are copied in bulk, so a record is read with a single
+ * read call instead of a call per byte.
+ */
+public class EndianFileChannelInput implements EndianInput, RandomAccess {
+
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private ByteBuffer buffer;
+
+  /** The position in the file of the first byte in the buffer. */
+  private long bufferFilePosition = 0;
+
+  private final FileChannel channel;
+
+  public EndianFileChannelInput(final Path path) throws IOException {
+    this(FileChannel.open(path, StandardOpenOption.READ));
+  }
+
+  public EndianFileChannelInput(final FileChannel channel) {
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
+    this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+    this.buffer.limit(0);
+  }
+
+  @Override
+  public void close() {
+    try {
+      this.channel.close();
+    } catch (final IOException e) {
+      throw Exceptions.wrap(e);
+    }
+  }
+
+  /**
+   * Ensure the buffer has count bytes remaining, reading more of the file and
+   * growing the buffer if required.
+   *
+   * @return False if the end of file was reached before count bytes were read.
+   */
+  private boolean ensure(final int count) throws IOException {
+    ByteBuffer buffer = this.buffer;
+    if (buffer.remaining() >= count) {
+      return true;
+    }
+    this.bufferFilePosition += buffer.position();
+    if (count > buffer.capacity()) {
+      final ByteBuffer newBuffer = ByteBuffer
+        .allocateDirect(Math.max(count, buffer.capacity() * 2));
+      newBuffer.order(ByteOrder.LITTLE_ENDIAN);
+      newBuffer.put(buffer);
+      this.buffer = buffer = newBuffer;
+    } else {
+      buffer.compact();
+    }
+    while (buffer.position() < count) {
+      final long readPosition = this.bufferFilePosition + buffer.position();
+      if (this.channel.read(buffer, readPosition) == -1) {
+        buffer.flip();
+        return false;
+      }
+    }
+    buffer.flip();
+    return true;
+  }
+
+  public long getFilePointer() {
+    return this.bufferFilePosition + this.buffer.position();
+  }
+
+  @Override
+  public long length() throws IOException {
+    return this.channel.size();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (ensure(1)) {
+      return this.buffer.get() & 0xFF;
+    } else {
+      return -1;
+    }
+  }
+
+  @Override
+  public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+    ensure(length);
+    final int count = Math.min(length, this.buffer.remaining());
+    if (count == 0 && length > 0) {
+      return -1;
+    }
+    this.buffer.get(bytes, offset, count);
+    return count;
+  }
+
+  @Override
+  public double readDouble() throws IOException {
+    return Double.longBitsToDouble(readLong());
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    requireBytes(4);
+    return Integer.reverseBytes(this.buffer.getInt());
+  }
+
+  @Override
+  public double readLEDouble() {
+    requireBytesUnchecked(8);
+    return this.buffer.getDouble();
+  }
+
+  @Override
+  public void readLEDoubles(final double[] values, final int offset, final int count) {
+    final int byteCount = count * 8;
+    requireBytesUnchecked(byteCount);
+    final ByteBuffer buffer = this.buffer;
+    final int position = buffer.position();
+    buffer.asDoubleBuffer().get(values, offset, count);
+    buffer.position(position + byteCount);
+  }
+
+  @Override
+  public float readLEFloat() {
+    requireBytesUnchecked(4);
+    return this.buffer.getFloat();
+  }
+
+  @Override
+  public int readLEInt() {
+    requireBytesUnchecked(4);
+    return this.buffer.getInt();
+  }
+
+  @Override
+  public long readLELong() {
+    requireBytesUnchecked(8);
+    return this.buffer.getLong();
+  }
+
+  @Override
+  public short readLEShort() {
+    requireBytesUnchecked(2);
+    return this.buffer.getShort();
+  }
+
+  @Override
+  public long readLong() throws IOException {
+    requireBytes(8);
+    return Long.reverseBytes(this.buffer.getLong());
+  }
+
+  @Override
+  public short readShort() throws IOException {
+    requireBytes(2);
+    return Short.reverseBytes(this.buffer.getShort());
+  }
+
+  private void requireBytes(final int count) throws IOException {
+    if (!ensure(count)) {
+      throw new EndOfFileException();
+    }
+  }
+
+  private void requireBytesUnchecked(final int count) {
+    try {
+      requireBytes(count);
+    } catch (final IOException e) {
+      throw Exceptions.wrap(e);
+    }
+  }
+
+  @Override
+  public void seek(final long position) throws IOException {
+    final long offset = position - this.bufferFilePosition;
+    if (offset >= 0 && offset <= this.buffer.limit()) {
+      this.buffer.position((int)offset);
+    } else {
+      this.bufferFilePosition = position;
+      this.buffer.clear();
+      this.buffer.limit(0);
+    }
+  }
+
+  @Override
+  public void setLength(final long length) throws IOException {
+    throw new UnsupportedOperationException("File is read only");
+  }
+
+  @Override
+  public int skipBytes(final int byteCount) throws IOException {
+    final ByteBuffer buffer = this.buffer;
+    if (buffer.remaining() >= byteCount) {
+      buffer.position(buffer.position() + byteCount);
+    } else {
+      final long position = getFilePointer() + byteCount;
+      this.bufferFilePosition = position;
+      buffer.clear();
+      buffer.limit(0);
+    }
+    return byteCount;
+  }
+}
@@ -229,6 +229,19 @@ public interface EndianInput extends Closeable {
     return Double.longBitsToDouble(value);
   }
 
+  /**
+   * Read count little endian doubles into the values array.
+   *
+   * @param values The array to read the values into.
+   * @param offset The index in the array of the first value.
+   * @param count The number of values to read.
+   */
+  default void readLEDoubles(final double[] values, final int offset, final int count) {
+    for (int i = 0; i < count; i++) {
+      values[offset + i] = readLEDouble();
+    }
+  }
+
   default float readLEFloat() {
     final int value = readLEInt();
     return Float.intBitsToFloat(value);
@@ -92,6 +92,10 @@ public abstract class AbstractJdbcRecordStore extends AbstractRecordStore
 
   private Set<String> excludeTablePaths = new HashSet<>();
 
+  private int fetchSize = 10;
+
+  private boolean fetchSizeAdaptive = false;
+
   private List<String> excludeTablePatterns = new ArrayList<>();
 
   private final Map<String, JdbcFieldAdder> fieldDefinitionAdders = new HashMap<>();
@@ -100,8 +104,12 @@ public abstract class AbstractJdbcRecordStore extends AbstractRecordStore
 
   private boolean lobAsString = false;
 
+  private int maxFetchSize = 10000;
+
   private String primaryKeySql;
 
+  private boolean queryReadAhead = false;
+
   private String schemaPermissionsSql;
 
   private String schemaTablePermissionsSql;
@@ -334,6 +342,11 @@ public abstract class AbstractJdbcRecordStore extends AbstractRecordStore
     return this.excludeTablePaths;
   }
 
+  @Override
+  public int getFetchSize() {
+    return this.fetchSize;
+  }
+
   public JdbcFieldDefinition getField(final String schemaName, final String tableName,
     final String columnName) {
     final String typePath = PathUtil.toPath(schemaName, tableName);
@@ -379,6 +392,11 @@ public abstract class AbstractJdbcRecordStore extends AbstractRecordStore
     return new JdbcConnection(this.dataSource, autoCommit);
   }
 
+  @Override
+  public int getMaxFetchSize() {
+    return this.maxFetchSize;
+  }
+
   protected Identifier getNextPrimaryKey(final String typePath) {
     return null;
   }
@@ -603,6 +621,11 @@ public abstract class AbstractJdbcRecordStore extends AbstractRecordStore
     return false;
   }
 
+  @Override
+  public boolean isFetchSizeAdaptive() {
+    return this.fetchSizeAdaptive;
+  }
+
   public boolean isFlushBetweenTypes() {
     return this.flushBetweenTypes;
   }
@@ -616,6 +639,11 @@ public abstract class AbstractJdbcRecordStore extends AbstractRecordStore
     return this.lobAsString;
   }
 
+  @Override
+  public boolean isQueryReadAhead() {
+    return this.queryReadAhead;
+  }
+
   public boolean isQuoteNames() {
     return this.quoteNames;
   }
@@ -978,6 +1006,23 @@ public abstract class AbstractJdbcRecordStore extends AbstractRecordStore
     this.excludeTablePatterns = new ArrayList<>(Arrays.asList(excludeTablePatterns));
   }
 
+  /**
+   * The number of rows the JDBC driver fetches from the database in each round
+   * trip, if not set on the {@link Query}.
+   */
+  public void setFetchSize(final int fetchSize) {
+    this.fetchSize = fetchSize;
+  }
+
+  /**
+   * Grow the fetch size of large queries up to {@link #getMaxFetchSize()} if the
+   * round trips to the database are a significant part of the time to read the
+   * rows.
+   */
+  public void setFetchSizeAdaptive(final boolean fetchSizeAdaptive) {
+    this.fetchSizeAdaptive = fetchSizeAdaptive;
+  }
+
   public void setFlushBetweenTypes(final boolean flushBetweenTypes) {
     this.flushBetweenTypes = flushBetweenTypes;
   }
@@ -986,6 +1031,10 @@ public abstract class AbstractJdbcRecordStore extends AbstractRecordStore
     this.lobAsString = lobAsString;
   }
 
+  public void setMaxFetchSize(final int maxFetchSize) {
+    this.maxFetchSize = maxFetchSize;
+  }
+
   public void setPrimaryKeySql(final String primaryKeySql) {
     this.primaryKeySql = primaryKeySql;
   }
@@ -993,6 +1042,14 @@ public abstract class AbstractJdbcRecordStore extends AbstractRecordStore
   public void setPrimaryKeyTableCondition(final String primaryKeyTableCondition) {
   }
 
+  /**
+   * Read the rows of queries into records in a background thread while the
+   * previous rows are being processed.
+   */
+  public void setQueryReadAhead(final boolean queryReadAhead) {
+    this.queryReadAhead = queryReadAhead;
+  }
+
   public void setQuoteNames(final boolean quoteNames) {
     this.quoteNames = quoteNames;
   }
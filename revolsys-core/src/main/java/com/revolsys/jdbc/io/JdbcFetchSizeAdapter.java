@@ -0,0 +1,110 @@
+package com.revolsys.jdbc.io;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Grow the fetch size of a {@link ResultSet} while it is being read. The time
+ * taken by the {@link ResultSet#next()} call at the start of each batch (the
+ * round trip to the server) is compared to the time taken to process the whole
+ * batch. If the round trip is a significant part of that time the fetch size is
+ * doubled, up to the maximum number of rows and the maximum number of bytes per
+ * fetch estimated from the column sizes.
+ */
+public class JdbcFetchSizeAdapter {
+
+  public static final long DEFAULT_MAX_FETCH_BYTES = 16 * 1024 * 1024;
+
+  private static final int MAX_COLUMN_BYTES = 1024;
+
+  private static final int UNKNOWN_COLUMN_BYTES = 16;
+
+  /**
+   * Estimate the size of a row from the column display sizes. Large and unbounded
+   * columns (e.g. geometries, text) are limited to {@link #MAX_COLUMN_BYTES}.
+   */
+  public static int estimateRowBytes(final ResultSetMetaData metaData) throws SQLException {
+    int rowBytes = 0;
+    final int columnCount = metaData.getColumnCount();
+    for (int i = 1; i <= columnCount; i++) {
+      final int displaySize = metaData.getColumnDisplaySize(i);
+      if (displaySize <= 0) {
+        rowBytes += UNKNOWN_COLUMN_BYTES;
+      } else {
+        rowBytes += Math.min(displaySize, MAX_COLUMN_BYTES);
+      }
+    }
+    return Math.max(rowBytes, 1);
+  }
+
+  /** The number of rows returned by the last fetch. */
+  private int batchSize;
+
+  private long batchStartTime = 0;
+
+  /** The fetch size for the next fetch. */
+  private int fetchSize;
+
+  private long fetchTime;
+
+  private final int maxFetchSize;
+
+  private final ResultSet resultSet;
+
+  private int rowIndex = 0;
+
+  public JdbcFetchSizeAdapter(final ResultSet resultSet, final int fetchSize,
+    final int maxFetchSize, final long maxFetchBytes) throws SQLException {
+    this.resultSet = resultSet;
+    this.fetchSize = Math.max(fetchSize, 1);
+    this.batchSize = this.fetchSize;
+    final int rowBytes = estimateRowBytes(resultSet.getMetaData());
+    final long maxRows = Math.max(maxFetchBytes / rowBytes, 1);
+    this.maxFetchSize = (int)Math.max(this.fetchSize, Math.min(maxFetchSize, maxRows));
+  }
+
+  public int getFetchSize() {
+    return this.fetchSize;
+  }
+
+  public int getMaxFetchSize() {
+    return this.maxFetchSize;
+  }
+
+  /**
+   * Call {@link ResultSet#next()} recording the time taken if the call started a
+   * new batch and adjusting the fetch size after each full batch.
+   */
+  public boolean next() throws SQLException {
+    final ResultSet resultSet = this.resultSet;
+    if (this.rowIndex == 0) {
+      final long startTime = System.nanoTime();
+      final boolean hasNext = resultSet.next();
+      final long endTime = System.nanoTime();
+      this.fetchTime = endTime - startTime;
+      this.batchSize = this.fetchSize;
+      if (this.batchStartTime != 0) {
+        adjust(startTime);
+      }
+      this.batchStartTime = startTime;
+      if (this.batchSize > 1) {
+        this.rowIndex = 1;
+      }
+      return hasNext;
+    } else {
+      if (++this.rowIndex >= this.batchSize) {
+        this.rowIndex = 0;
+      }
+      return resultSet.next();
+    }
+  }
+
+  private void adjust(final long batchEndTime) throws SQLException {
+    final long batchTime = batchEndTime - this.batchStartTime;
+    if (this.fetchSize < this.maxFetchSize && this.fetchTime * 4 > batchTime) {
+      this.fetchSize = Math.min(this.fetchSize * 2, this.maxFetchSize);
+      this.resultSet.setFetchSize(this.fetchSize);
+    }
+  }
+}
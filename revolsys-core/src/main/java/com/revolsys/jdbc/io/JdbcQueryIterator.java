@@ -67,7 +67,11 @@ public class JdbcQueryIterator extends AbstractIterator<Record>
 
   private final int currentQueryIndex = -1;
 
-  private final int fetchSize = 10;
+  private int fetchSize;
+
+  private boolean fetchSizeAdaptive;
+
+  private JdbcFetchSizeAdapter fetchSizeAdapter;
 
   private List<QueryValue> selectExpressions = new ArrayList<>();
 
@@ -87,6 +91,10 @@ public class JdbcQueryIterator extends AbstractIterator<Record>
 
   private LabelCounters labelCountMap;
 
+  private boolean readAhead;
+
+  private JdbcReadAheadQueue<Record> readAheadQueue;
+
   public JdbcQueryIterator(final JdbcRecordStore recordStore, final Query query,
     final Map<String, Object> properties) {
     Transaction.assertInTransaction();
@@ -98,6 +106,12 @@ public class JdbcQueryIterator extends AbstractIterator<Record>
     this.recordStore = recordStore;
     this.query = query;
     this.labelCountMap = query.getStatistics();
+    this.fetchSize = query.getFetchSize();
+    if (this.fetchSize <= 0) {
+      this.fetchSize = recordStore.getFetchSize();
+    }
+    this.fetchSizeAdaptive = recordStore.isFetchSizeAdaptive();
+    this.readAhead = recordStore.isQueryReadAhead();
     if (properties != null) {
       this.autoCommit = Booleans.getBoolean(properties.get("autoCommit"));
       this.internStrings = Booleans.getBoolean(properties.get("internStrings"));
@@ -109,6 +123,10 @@ public class JdbcQueryIterator extends AbstractIterator<Record>
 
   @Override
   public synchronized void closeDo() {
+    final JdbcReadAheadQueue<Record> readAheadQueue = this.readAheadQueue;
+    if (readAheadQueue != null) {
+      readAheadQueue.close();
+    }
     JdbcUtils.close(this.statement, this.resultSet);
     FileUtil.closeSilent(this.connection);
     this.selectExpressions = null;
@@ -121,6 +139,8 @@ public class JdbcQueryIterator extends AbstractIterator<Record>
     this.resultSet = null;
     this.statement = null;
     this.labelCountMap = null;
+    this.fetchSizeAdapter = null;
+    this.readAheadQueue = null;
   }
 
   protected String getErrorMessage() {
@@ -134,9 +154,14 @@ public class JdbcQueryIterator extends AbstractIterator<Record>
   @Override
   protected Record getNext() throws NoSuchElementException {
     try {
-      if (this.resultSet != null && !this.query.isCancelled() && this.resultSet.next()) {
-        final Record record = getNextRecord(this.recordStore, this.recordDefinition,
-          this.selectExpressions, this.recordFactory, this.resultSet, this.internStrings);
+      if (this.readAheadQueue != null) {
+        final Record record = getNextReadAhead();
+        if (this.labelCountMap != null) {
+          this.labelCountMap.addCount(record);
+        }
+        return record;
+      } else if (this.resultSet != null && !this.query.isCancelled() && nextRow()) {
+        final Record record = readRecord();
         if (this.labelCountMap != null) {
           this.labelCountMap.addCount(record);
         }
@@ -175,6 +200,24 @@ public class JdbcQueryIterator extends AbstractIterator<Record>
     }
   }
 
+  private Record getNextReadAhead() throws SQLException {
+    try {
+      return this.readAheadQueue.next();
+    } catch (final NoSuchElementException e) {
+      close();
+      throw e;
+    }
+  }
+
+  private int getReadAheadBatchSize() {
+    final JdbcFetchSizeAdapter fetchSizeAdapter = this.fetchSizeAdapter;
+    if (fetchSizeAdapter == null) {
+      return this.fetchSize;
+    } else {
+      return fetchSizeAdapter.getFetchSize();
+    }
+  }
+
   @Override
   public RecordDefinition getRecordDefinition() {
     if (this.recordDefinition == null) {
@@ -238,6 +281,11 @@ public class JdbcQueryIterator extends AbstractIterator<Record>
       if (this.selectExpressions.isEmpty()) {
         this.selectExpressions = (List)this.recordDefinition.getFieldDefinitions();
       }
+      if (this.fetchSizeAdaptive) {
+        final int maxFetchSize = this.recordStore.getMaxFetchSize();
+        this.fetchSizeAdapter = new JdbcFetchSizeAdapter(this.resultSet, this.fetchSize,
+          maxFetchSize, JdbcFetchSizeAdapter.DEFAULT_MAX_FETCH_BYTES);
+      }
 
     } catch (final SQLException e) {
       JdbcUtils.close(this.statement, this.resultSet);
@@ -258,6 +306,9 @@ public class JdbcQueryIterator extends AbstractIterator<Record>
       this.connection = this.recordStore.getJdbcConnection(this.autoCommit);
 
       this.resultSet = getResultSet();
+      if (this.readAhead) {
+        startReadAhead();
+      }
     }
   }
 
@@ -265,14 +316,53 @@ public class JdbcQueryIterator extends AbstractIterator<Record>
     return this.autoCommit;
   }
 
+  public boolean isFetchSizeAdaptive() {
+    return this.fetchSizeAdaptive;
+  }
+
   public boolean isInternStrings() {
     return this.internStrings;
   }
 
+  public boolean isReadAhead() {
+    return this.readAhead;
+  }
+
+  private boolean nextRow() throws SQLException {
+    final JdbcFetchSizeAdapter fetchSizeAdapter = this.fetchSizeAdapter;
+    if (fetchSizeAdapter == null) {
+      return this.resultSet.next();
+    } else {
+      return fetchSizeAdapter.next();
+    }
+  }
+
+  private boolean readAheadRow(final List<Record> records) throws SQLException {
+    if (nextRow()) {
+      records.add(readRecord());
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  private Record readRecord() {
+    return getNextRecord(this.recordStore, this.recordDefinition, this.selectExpressions,
+      this.recordFactory, this.resultSet, this.internStrings);
+  }
+
   public void setAutoCommit(final boolean autoCommit) {
     this.autoCommit = autoCommit;
   }
 
+  public void setFetchSize(final int fetchSize) {
+    this.fetchSize = fetchSize;
+  }
+
+  public void setFetchSizeAdaptive(final boolean fetchSizeAdaptive) {
+    this.fetchSizeAdaptive = fetchSizeAdaptive;
+  }
+
   public void setInternStrings(final boolean internStrings) {
     this.internStrings = internStrings;
   }
@@ -281,6 +371,20 @@ public class JdbcQueryIterator extends AbstractIterator<Record>
     this.query = query;
   }
 
+  /**
+   * Read the records in a background task while the previous records are being
+   * processed, see {@link JdbcReadAheadQueue}.
+   */
+  public void setReadAhead(final boolean readAhead) {
+    this.readAhead = readAhead;
+  }
+
+  private void startReadAhead() {
+    this.readAheadQueue = new JdbcReadAheadQueue<>(this::readAheadRow,
+      this::getReadAheadBatchSize, this.query::isCancelled);
+    this.readAheadQueue.start();
+  }
+
   private DataAccessException toSqlException(final String task, final String sql,
     final SQLException e) {
     final JdbcConnection connection = this.connection;
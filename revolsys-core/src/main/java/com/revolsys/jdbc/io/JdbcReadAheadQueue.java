@@ -0,0 +1,187 @@
+package com.revolsys.jdbc.io;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+import org.jeometry.common.exception.Exceptions;
+import org.jeometry.common.logging.Logs;
+
+import com.revolsys.io.BaseCloseable;
+import com.revolsys.parallel.ExecutorServiceFactory;
+
+/**
+ * Read rows in a background task, using the
+ * {@link ExecutorServiceFactory#getExecutorService()}, while the rows already read
+ * are being processed. The rows are read in batches and at most two batches are
+ * buffered. The task only reads the rows, the connection is still owned by the
+ * thread that created the queue. {@link #close()} waits for the task to finish so
+ * the result set can be closed safely.
+ *
+ * @param <V> The type of row.
+ */
+public class JdbcReadAheadQueue<V> implements BaseCloseable {
+
+  @FunctionalInterface
+  public interface RowReader<V> {
+    /**
+     * Read the next row and add it to the rows.
+     *
+     * @param rows The list to add the row to.
+     * @return False if there are no more rows.
+     */
+    boolean read(List<V> rows) throws SQLException;
+  }
+
+  private final IntSupplier batchSize;
+
+  private final BooleanSupplier cancelled;
+
+  private volatile boolean closed;
+
+  private final List<V> end = Collections.emptyList();
+
+  private Throwable error;
+
+  private final BlockingQueue<List<V>> queue = new ArrayBlockingQueue<>(2);
+
+  private final RowReader<V> reader;
+
+  private int rowIndex;
+
+  private List<V> rows = Collections.emptyList();
+
+  private Future<?> task;
+
+  /**
+   * @param reader The reader for the rows.
+   * @param batchSize The number of rows to read in the next batch.
+   * @param cancelled True if reading the rows has been cancelled.
+   */
+  public JdbcReadAheadQueue(final RowReader<V> reader, final IntSupplier batchSize,
+    final BooleanSupplier cancelled) {
+    this.reader = reader;
+    this.batchSize = batchSize;
+    this.cancelled = cancelled;
+  }
+
+  /**
+   * Stop reading and wait for the read ahead task to finish.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    final Future<?> task = this.task;
+    if (task != null) {
+      this.task = null;
+      try {
+        task.get();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (final CancellationException | ExecutionException e) {
+        Logs.debug(this, "Read ahead failed", e);
+      }
+    }
+  }
+
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+  /**
+   * Get the next row, waiting for it to be read.
+   *
+   * @return The row.
+   * @throws NoSuchElementException If there are no more rows, or the queue was
+   * closed, cancelled or interrupted.
+   * @throws SQLException If the reader threw an exception reading the row.
+   */
+  public V next() throws SQLException {
+    while (this.rowIndex >= this.rows.size()) {
+      if (this.closed || this.cancelled.getAsBoolean()) {
+        throw new NoSuchElementException();
+      }
+      List<V> rows;
+      try {
+        rows = this.queue.poll(100, TimeUnit.MILLISECONDS);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new NoSuchElementException();
+      }
+      if (rows == this.end) {
+        this.closed = true;
+        final Throwable error = this.error;
+        if (error instanceof SQLException) {
+          throw (SQLException)error;
+        } else if (error != null) {
+          Exceptions.throwUncheckedException(error);
+        }
+        throw new NoSuchElementException();
+      } else if (rows != null) {
+        this.rows = rows;
+        this.rowIndex = 0;
+      }
+    }
+    return this.rows.get(this.rowIndex++);
+  }
+
+  private void put(final List<V> rows) {
+    try {
+      while (!this.closed) {
+        if (this.queue.offer(rows, 100, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    } catch (final InterruptedException e) {
+      Logs.debug(this, "Read ahead interrupted", e);
+    }
+  }
+
+  /**
+   * Read batches of rows, blocking while the consumer has two batches it has not
+   * processed.
+   */
+  private void run() {
+    try {
+      boolean hasNext = true;
+      while (hasNext && !this.closed) {
+        final int batchSize = Math.max(this.batchSize.getAsInt(), 1);
+        final List<V> rows = new ArrayList<>(batchSize);
+        while (rows.size() < batchSize && !this.closed) {
+          hasNext = this.reader.read(rows);
+          if (!hasNext) {
+            break;
+          }
+        }
+        if (!rows.isEmpty()) {
+          put(rows);
+        }
+      }
+    } catch (final Throwable e) {
+      if (!this.closed) {
+        this.error = e;
+      }
+    } finally {
+      put(this.end);
+    }
+  }
+
+  /**
+   * Start the read ahead task.
+   */
+  public synchronized void start() {
+    if (this.task == null && !this.closed) {
+      this.task = ExecutorServiceFactory.getExecutorService().submit(this::run);
+    }
+  }
+}
@@ -38,12 +38,20 @@ public interface JdbcRecordStore extends RecordStore {
     }
   }
 
+  default int getFetchSize() {
+    return 10;
+  }
+
   String getGeneratePrimaryKeySql(JdbcRecordDefinition recordDefinition);
 
   JdbcConnection getJdbcConnection();
 
   JdbcConnection getJdbcConnection(boolean autoCommit);
 
+  default int getMaxFetchSize() {
+    return 10000;
+  }
+
   @Override
   default Record getRecord(final Query query) {
     try (
@@ -66,8 +74,16 @@ public interface JdbcRecordStore extends RecordStore {
   PreparedStatement insertStatementPrepareRowId(JdbcConnection connection,
     RecordDefinition recordDefinition, String sql) throws SQLException;
 
+  default boolean isFetchSizeAdaptive() {
+    return false;
+  }
+
   boolean isIdFieldRowid(RecordDefinition recordDefinition);
 
+  default boolean isQueryReadAhead() {
+    return false;
+  }
+
   default void lockTable(final PathName typeName) {
     try (
       final JdbcConnection connection = getJdbcConnection()) {
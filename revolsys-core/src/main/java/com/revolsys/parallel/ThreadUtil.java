@@ -1,6 +1,41 @@
 package com.revolsys.parallel;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import org.jeometry.common.exception.Exceptions;
+
 public class ThreadUtil {
+  private static final MethodHandle VIRTUAL_THREAD_BUILDER;
+
+  private static final MethodHandle VIRTUAL_THREAD_NAME;
+
+  private static final MethodHandle VIRTUAL_THREAD_UNSTARTED;
+
+  static {
+    MethodHandle ofVirtual = null;
+    MethodHandle name = null;
+    MethodHandle unstarted = null;
+    try {
+      // Virtual threads are looked up by reflection as they require Java 21
+      final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      final Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+      ofVirtual = lookup.findStatic(Thread.class, "ofVirtual",
+        MethodType.methodType(ofVirtualClass));
+      name = lookup.findVirtual(builderClass, "name",
+        MethodType.methodType(builderClass, String.class));
+      unstarted = lookup.findVirtual(builderClass, "unstarted",
+        MethodType.methodType(Thread.class, Runnable.class));
+      ofVirtual.invoke();
+    } catch (final Throwable e) {
+      ofVirtual = null;
+    }
+    VIRTUAL_THREAD_BUILDER = ofVirtual;
+    VIRTUAL_THREAD_NAME = name;
+    VIRTUAL_THREAD_UNSTARTED = unstarted;
+  }
 
   public static boolean isInterrupted() {
     return Thread.currentThread().isInterrupted();
@@ -39,4 +74,34 @@ public class ThreadUtil {
       }
     }
   }
+
+  /**
+   * Check if the JVM supports virtual threads (Java 21+).
+   */
+  public static boolean isVirtualThreadSupported() {
+    return VIRTUAL_THREAD_BUILDER != null;
+  }
+
+  /**
+   * Construct a new unstarted virtual thread.
+   *
+   * @param name The thread name, or null for no name.
+   * @param runnable The runnable to run.
+   * @return The thread.
+   * @throws UnsupportedOperationException If virtual threads are not supported.
+   */
+  public static Thread newVirtualThread(final String name, final Runnable runnable) {
+    if (VIRTUAL_THREAD_BUILDER == null) {
+      throw new UnsupportedOperationException("Virtual threads require Java 21+");
+    }
+    try {
+      Object builder = VIRTUAL_THREAD_BUILDER.invoke();
+      if (name != null) {
+        builder = VIRTUAL_THREAD_NAME.invoke(builder, name);
+      }
+      return (Thread)VIRTUAL_THREAD_UNSTARTED.invoke(builder, runnable);
+    } catch (final Throwable e) {
+      throw Exceptions.wrap(e);
+    }
+  }
 }
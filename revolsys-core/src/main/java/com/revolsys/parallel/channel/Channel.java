@@ -1,21 +1,53 @@
 package com.revolsys.parallel.channel;
 
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.revolsys.parallel.ThreadInterruptedException;
+import com.revolsys.parallel.channel.store.RingBuffer;
 import com.revolsys.parallel.channel.store.ZeroBuffer;
 
+/**
+ * A channel between processes. Reads and writes hold the channel's locks, unless
+ * the ChannelValueStore is a {@link RingBuffer} in which case values are exchanged
+ * through the ring buffer without locking and waiting readers and writers spin
+ * then park. The channel uses {@link ReentrantLock}s instead of object monitors
+ * so that processes running on virtual threads do not pin their carrier thread
+ * while waiting.
+ */
 public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T> {
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private static final int SPIN_COUNT = 100;
+
   /** The Alternative class which will control the selection */
-  protected MultiInputSelector alt;
+  protected volatile MultiInputSelector alt;
 
   /** Flag indicating if the channel has been closed. */
-  private boolean closed = false;
+  private volatile boolean closed = false;
 
   /** The ChannelValueStore used to store the data for the Channel */
   protected ChannelValueStore<T> data;
 
-  /** The monitor reads must synchronize on */
+  /** The lock that must be held to access the data. */
+  protected final ReentrantLock lock = new ReentrantLock();
+
+  /** Signalled when data is read or written or the channel is closed. */
+  protected final Condition changed = this.lock.newCondition();
+
+  /**
+   * The monitor reads used to synchronize on.
+   *
+   * @deprecated The channel no longer synchronizes on this monitor, subclasses must
+   * hold {@link #lock} and wait on or signal {@link #changed}.
+   */
+  @Deprecated
   protected Object monitor = new Object();
 
   /** The name of the channel. */
@@ -27,13 +59,43 @@ public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T> {
   /** Number of writers connected to the channel. */
   private int numWriters = 0;
 
-  /** The monitor reads must synchronize on */
+  /** The lock reads must hold */
+  protected final ReentrantLock readLock = new ReentrantLock();
+
+  /**
+   * The monitor reads used to synchronize on.
+   *
+   * @deprecated The channel no longer synchronizes on this monitor, use
+   * {@link #readLock}.
+   */
+  @Deprecated
   protected Object readMonitor = new Object();
 
+  /** The lock-free store if data is a RingBuffer. */
+  private final RingBuffer<T> ringBuffer;
+
+  /** The reader parked waiting for a value to be written to the ring buffer. */
+  private volatile Thread waitingReader;
+
+  /** The writers parked waiting for space in the ring buffer. */
+  private final Set<Thread> waitingWriters = ConcurrentHashMap.newKeySet();
+
+  /** Flag indicating if there are writers parked waiting for space in the ring buffer. */
+  private volatile boolean writerWaiting;
+
   /** Flag indicating if the channel is closed for writing. */
-  private boolean writeClosed;
+  private volatile boolean writeClosed;
 
-  /** The monitor writes must synchronize on */
+  /** The lock writes must hold */
+  protected final ReentrantLock writeLock = new ReentrantLock();
+
+  /**
+   * The monitor writes used to synchronize on.
+   *
+   * @deprecated The channel no longer synchronizes on this monitor, use
+   * {@link #writeLock}.
+   */
+  @Deprecated
   protected Object writeMonitor = new Object();
 
   /**
@@ -49,7 +111,7 @@ public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T> {
    * @param data The ChannelValueStore used to store the data for the Channel
    */
   public Channel(final ChannelValueStore<T> data) {
-    this.data = data;
+    this(null, data);
   }
 
   public Channel(final String name) {
@@ -60,6 +122,19 @@ public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T> {
   public Channel(final String name, final ChannelValueStore<T> data) {
     this.name = name;
     this.data = data;
+    if (data instanceof RingBuffer) {
+      this.ringBuffer = (RingBuffer<T>)data;
+    } else {
+      this.ringBuffer = null;
+    }
+  }
+
+  private void await(final long timeout) throws InterruptedException {
+    if (timeout == 0) {
+      this.changed.await();
+    } else {
+      this.changed.await(timeout, TimeUnit.MILLISECONDS);
+    }
   }
 
   public void close() {
@@ -69,18 +144,82 @@ public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T> {
   @Override
   public boolean disable() {
     this.alt = null;
-    return this.data.getState() != ChannelValueStore.EMPTY;
+    final RingBuffer<T> ringBuffer = this.ringBuffer;
+    if (ringBuffer == null) {
+      return this.data.getState() != ChannelValueStore.EMPTY;
+    } else {
+      return !ringBuffer.isEmpty();
+    }
+  }
+
+  /**
+   * Read at least one value from the channel, waiting until one is available,
+   * followed by up to maxCount - 1 of the values that are available without
+   * waiting.
+   *
+   * @param values The collection to add the values to.
+   * @param maxCount The maximum number of values to read.
+   * @return The number of values read.
+   */
+  public int drainTo(final Collection<? super T> values, final int maxCount) {
+    if (maxCount <= 0) {
+      return 0;
+    }
+    final RingBuffer<T> ringBuffer = this.ringBuffer;
+    if (ringBuffer == null) {
+      this.readLock.lock();
+      try {
+        final T value = read();
+        if (value == null) {
+          return 0;
+        }
+        values.add(value);
+        int count = 1;
+        this.lock.lock();
+        try {
+          while (count < maxCount && this.data.getState() != ChannelValueStore.EMPTY) {
+            values.add(this.data.get());
+            count++;
+          }
+          this.changed.signalAll();
+        } finally {
+          this.lock.unlock();
+        }
+        return count;
+      } finally {
+        this.readLock.unlock();
+      }
+    } else {
+      final T value = readRingBuffer(ringBuffer, 0);
+      values.add(value);
+      final int count = 1 + ringBuffer.drainTo(values, maxCount - 1);
+      signalWriters();
+      return count;
+    }
   }
 
   @Override
   public boolean enable(final MultiInputSelector alt) {
-    synchronized (this.monitor) {
+    final RingBuffer<T> ringBuffer = this.ringBuffer;
+    if (ringBuffer != null) {
+      this.alt = alt;
+      if (ringBuffer.isEmpty()) {
+        return false;
+      } else {
+        this.alt = null;
+        return true;
+      }
+    }
+    this.lock.lock();
+    try {
       if (this.data.getState() == ChannelValueStore.EMPTY) {
         this.alt = alt;
         return false;
       } else {
         return true;
       }
+    } finally {
+      this.lock.unlock();
     }
   }
 
@@ -129,15 +268,21 @@ public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T> {
    */
   @Override
   public T read(final long timeout) {
-    synchronized (this.readMonitor) {
-      synchronized (this.monitor) {
+    final RingBuffer<T> ringBuffer = this.ringBuffer;
+    if (ringBuffer != null) {
+      return readRingBuffer(ringBuffer, timeout);
+    }
+    this.readLock.lock();
+    try {
+      this.lock.lock();
+      try {
         if (isClosed()) {
           throw new ClosedException();
         }
         if (this.data.getState() == ChannelValueStore.EMPTY) {
           try {
             try {
-              this.monitor.wait(timeout);
+              await(timeout);
             } catch (final InterruptedException e) {
               throw new ThreadInterruptedException(e);
             }
@@ -146,7 +291,7 @@ public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T> {
             }
           } catch (final ThreadInterruptedException e) {
             close();
-            this.monitor.notifyAll();
+            this.changed.signalAll();
             throw new ClosedException();
           }
         }
@@ -154,36 +299,114 @@ public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T> {
           return null;
         } else {
           final T value = this.data.get();
-          this.monitor.notifyAll();
+          this.changed.signalAll();
           return value;
         }
+      } finally {
+        this.lock.unlock();
       }
+    } finally {
+      this.readLock.unlock();
     }
   }
 
   @Override
   public void readConnect() {
-    synchronized (this.monitor) {
+    this.lock.lock();
+    try {
       if (isClosed()) {
         throw new IllegalStateException("Cannot connect to a closed channel");
+      } else if (this.ringBuffer != null && this.numReaders > 0) {
+        throw new IllegalStateException("A channel using a RingBuffer can only have one reader");
       } else {
         this.numReaders++;
       }
-
+    } finally {
+      this.lock.unlock();
     }
   }
 
   @Override
   public void readDisconnect() {
-    synchronized (this.monitor) {
+    this.lock.lock();
+    try {
       if (!this.closed) {
         this.numReaders--;
         if (this.numReaders <= 0) {
           close();
-          this.monitor.notifyAll();
+          this.changed.signalAll();
         }
       }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private T readRingBuffer(final RingBuffer<T> ringBuffer, final long timeout) {
+    T value = ringBuffer.poll();
+    if (value != null) {
+      signalWriters();
+      return value;
+    }
+    long deadline = 0;
+    if (timeout > 0) {
+      deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    }
+    int spins = 0;
+    while (true) {
+      if (isClosed()) {
+        throw new ClosedException();
+      }
+      value = ringBuffer.poll();
+      if (value != null) {
+        signalWriters();
+        return value;
+      } else if (spins < SPIN_COUNT) {
+        spins++;
+        Thread.onSpinWait();
+      } else {
+        long parkNanos = MAX_PARK_NANOS;
+        if (timeout > 0) {
+          final long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            return null;
+          }
+          parkNanos = Math.min(parkNanos, remaining);
+        }
+        this.waitingReader = Thread.currentThread();
+        value = ringBuffer.poll();
+        if (value == null && !this.writeClosed) {
+          LockSupport.parkNanos(this, parkNanos);
+        }
+        this.waitingReader = null;
+        if (value != null) {
+          signalWriters();
+          return value;
+        } else if (Thread.interrupted()) {
+          close();
+          throw new ClosedException();
+        }
+      }
+    }
+  }
 
+  private void signalReader() {
+    final MultiInputSelector tempAlt = this.alt;
+    if (tempAlt != null) {
+      tempAlt.schedule();
+    }
+    final Thread reader = this.waitingReader;
+    if (reader != null) {
+      LockSupport.unpark(reader);
+    }
+  }
+
+  private void signalWriters() {
+    if (this.writerWaiting) {
+      this.writerWaiting = false;
+      for (final Thread writer : this.waitingWriters) {
+        LockSupport.unpark(writer);
+      }
     }
   }
 
@@ -205,8 +428,16 @@ public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T> {
    */
   @Override
   public void write(final T value) {
-    synchronized (this.writeMonitor) {
-      synchronized (this.monitor) {
+    final RingBuffer<T> ringBuffer = this.ringBuffer;
+    if (ringBuffer != null) {
+      writeRingBuffer(ringBuffer, value);
+      signalReader();
+      return;
+    }
+    this.writeLock.lock();
+    try {
+      this.lock.lock();
+      try {
         if (this.closed) {
           throw new ClosedException();
         }
@@ -215,12 +446,12 @@ public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T> {
         if (tempAlt != null) {
           tempAlt.schedule();
         } else {
-          this.monitor.notifyAll();
+          this.changed.signalAll();
         }
         if (this.data.getState() == ChannelValueStore.FULL) {
           try {
             try {
-              this.monitor.wait();
+              this.changed.await();
             } catch (final InterruptedException e) {
               throw new ThreadInterruptedException(e);
             }
@@ -229,29 +460,67 @@ public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T> {
             }
           } catch (final ThreadInterruptedException e) {
             close();
-            this.monitor.notifyAll();
+            this.changed.signalAll();
             throw new ClosedException(e);
           }
         }
+      } finally {
+        this.lock.unlock();
       }
+    } finally {
+      this.writeLock.unlock();
+    }
+  }
+
+  /**
+   * Write all the values to the channel. For a channel using a {@link RingBuffer}
+   * the reader is only signalled once for the batch or when the buffer is full.
+   *
+   * @param values The values to write.
+   */
+  public void writeAll(final Iterable<? extends T> values) {
+    final RingBuffer<T> ringBuffer = this.ringBuffer;
+    if (ringBuffer == null) {
+      this.writeLock.lock();
+      try {
+        for (final T value : values) {
+          write(value);
+        }
+      } finally {
+        this.writeLock.unlock();
+      }
+    } else {
+      if (this.closed) {
+        throw new ClosedException();
+      }
+      for (final T value : values) {
+        if (!ringBuffer.offer(value)) {
+          signalReader();
+          writeRingBuffer(ringBuffer, value);
+        }
+      }
+      signalReader();
     }
   }
 
   @Override
   public void writeConnect() {
-    synchronized (this.monitor) {
+    this.lock.lock();
+    try {
       if (this.writeClosed) {
         throw new IllegalStateException("Cannot connect to a closed channel");
       } else {
         this.numWriters++;
       }
-
+    } finally {
+      this.lock.unlock();
     }
   }
 
   @Override
   public void writeDisconnect() {
-    synchronized (this.monitor) {
+    this.lock.lock();
+    try {
       if (!this.writeClosed) {
         this.numWriters--;
         if (this.numWriters <= 0) {
@@ -260,11 +529,48 @@ public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T> {
           if (tempAlt != null) {
             tempAlt.closeChannel();
           } else {
-            this.monitor.notifyAll();
+            this.changed.signalAll();
+          }
+          final Thread reader = this.waitingReader;
+          if (reader != null) {
+            LockSupport.unpark(reader);
           }
         }
       }
+    } finally {
+      this.lock.unlock();
+    }
+  }
 
+  private void writeRingBuffer(final RingBuffer<T> ringBuffer, final T value) {
+    if (this.closed) {
+      throw new ClosedException();
+    }
+    int spins = 0;
+    while (!ringBuffer.offer(value)) {
+      if (this.closed) {
+        throw new ClosedException();
+      } else if (spins < SPIN_COUNT) {
+        spins++;
+        Thread.onSpinWait();
+      } else {
+        final Thread writer = Thread.currentThread();
+        this.waitingWriters.add(writer);
+        this.writerWaiting = true;
+        try {
+          if (ringBuffer.offer(value)) {
+            return;
+          } else if (!this.closed) {
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+          }
+        } finally {
+          this.waitingWriters.remove(writer);
+        }
+        if (Thread.interrupted()) {
+          close();
+          throw new ClosedException(new InterruptedException());
+        }
+      }
     }
   }
 }
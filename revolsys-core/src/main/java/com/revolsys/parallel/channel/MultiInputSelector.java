@@ -3,6 +3,9 @@ package com.revolsys.parallel.channel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.revolsys.parallel.ThreadInterruptedException;
 
@@ -13,16 +16,39 @@ public class MultiInputSelector {
 
   private long maxWait;
 
-  private final Object monitor = new Object();
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition scheduledCondition = this.lock.newCondition();
 
   private boolean scheduled;
 
+  /** The lock held while selecting, so only one thread can select at a time. */
+  private final ReentrantLock selectLock = new ReentrantLock();
+
+  /**
+   * Wait for a channel to be scheduled, as for {@link Object#wait(long, int)} a
+   * time of 0 waits until signalled.
+   */
+  private void await(final long msecs, final int nsecs) throws InterruptedException {
+    if (msecs == 0 && nsecs == 0 || msecs >= Long.MAX_VALUE / 1000000) {
+      this.scheduledCondition.await();
+    } else {
+      final long nanos = TimeUnit.MILLISECONDS.toNanos(msecs) + nsecs;
+      if (nanos > 0) {
+        this.scheduledCondition.awaitNanos(nanos);
+      }
+    }
+  }
+
   void closeChannel() {
-    synchronized (this.monitor) {
+    this.lock.lock();
+    try {
       this.enabledChannels--;
       if (this.enabledChannels <= 0) {
-        this.monitor.notifyAll();
+        this.scheduledCondition.signalAll();
       }
+    } finally {
+      this.lock.unlock();
     }
   }
 
@@ -114,114 +140,140 @@ public class MultiInputSelector {
   }
 
   void schedule() {
-    synchronized (this.monitor) {
+    this.lock.lock();
+    try {
       this.scheduled = true;
-      this.monitor.notifyAll();
+      this.scheduledCondition.signalAll();
+    } finally {
+      this.lock.unlock();
     }
   }
 
-  public synchronized int select(final List<? extends SelectableInput> channels) {
+  public int select(final List<? extends SelectableInput> channels) {
     return select(Long.MAX_VALUE, channels);
   }
 
-  public synchronized int select(final List<? extends SelectableInput> channels,
-    final boolean skip) {
+  public int select(final List<? extends SelectableInput> channels, final boolean skip) {
     if (skip) {
-      enableChannels(channels);
-      return disableChannels(channels);
+      this.selectLock.lock();
+      try {
+        enableChannels(channels);
+        return disableChannels(channels);
+      } finally {
+        this.selectLock.unlock();
+      }
     } else {
       return select(channels);
     }
   }
 
-  public synchronized int select(final List<? extends SelectableInput> channels,
+  public int select(final List<? extends SelectableInput> channels,
     final List<Boolean> guard) {
     return select(channels, guard, Long.MAX_VALUE);
   }
 
-  public synchronized int select(final List<? extends SelectableInput> channels,
+  public int select(final List<? extends SelectableInput> channels,
     final List<Boolean> guard, final boolean skip) {
     if (skip) {
-      enableChannels(channels, guard);
-      return disableChannels(channels, guard);
+      this.selectLock.lock();
+      try {
+        enableChannels(channels, guard);
+        return disableChannels(channels, guard);
+      } finally {
+        this.selectLock.unlock();
+      }
     } else {
       return select(channels, guard);
     }
   }
 
-  public synchronized int select(final List<? extends SelectableInput> channels,
+  public int select(final List<? extends SelectableInput> channels,
     final List<Boolean> guard, final long msecs) {
     return select(channels, guard, msecs, 0);
   }
 
-  public synchronized int select(final List<? extends SelectableInput> channels,
+  public int select(final List<? extends SelectableInput> channels,
     final List<Boolean> guard, final long msecs, final int nsecs) {
-    if (!enableChannels(channels, guard) && this.guardEnabledChannels > 0) {
-      synchronized (this.monitor) {
-        if (!this.scheduled) {
-          try {
+    this.selectLock.lock();
+    try {
+      if (!enableChannels(channels, guard) && this.guardEnabledChannels > 0) {
+        this.lock.lock();
+        try {
+          if (!this.scheduled) {
             try {
-              this.monitor.wait(Math.min(msecs, this.maxWait), nsecs);
-            } catch (final InterruptedException e) {
-              throw new ThreadInterruptedException(e);
+              try {
+                await(Math.min(msecs, this.maxWait), nsecs);
+              } catch (final InterruptedException e) {
+                throw new ThreadInterruptedException(e);
+              }
+            } catch (final ThreadInterruptedException e) {
+              throw new ClosedException(e);
             }
-          } catch (final ThreadInterruptedException e) {
-            throw new ClosedException(e);
           }
+        } finally {
+          this.lock.unlock();
         }
       }
+      return disableChannels(channels, guard);
+    } finally {
+      this.selectLock.unlock();
     }
-    return disableChannels(channels, guard);
   }
 
-  public synchronized int select(final long msecs, final int nsecs,
+  public int select(final long msecs, final int nsecs,
     final List<? extends SelectableInput> channels) {
-    if (!enableChannels(channels)) {
-      if (msecs + nsecs >= 0) {
-        synchronized (this.monitor) {
+    this.selectLock.lock();
+    try {
+      if (!enableChannels(channels)) {
+        if (msecs + nsecs >= 0) {
+          this.lock.lock();
           try {
             if (!this.scheduled) {
               try {
-                this.monitor.wait(Math.min(msecs, this.maxWait), nsecs);
+                await(Math.min(msecs, this.maxWait), nsecs);
               } catch (final InterruptedException e) {
                 throw new ThreadInterruptedException(e);
               }
             }
           } catch (final ThreadInterruptedException e) {
             throw new ClosedException(e);
+          } finally {
+            this.lock.unlock();
           }
         }
       }
+      return disableChannels(channels);
+    } finally {
+      this.selectLock.unlock();
     }
-    return disableChannels(channels);
   }
 
-  public synchronized int select(final long msecs, final int nsecs,
+  public int select(final long msecs, final int nsecs,
     final SelectableInput... channels) {
     return select(msecs, nsecs, Arrays.asList(channels));
   }
 
-  public synchronized int select(final long msecs, final List<? extends SelectableInput> channels) {
+  public int select(final long msecs, final List<? extends SelectableInput> channels) {
     return select(msecs, 0, channels);
   }
 
-  public synchronized int select(final long msecs, final SelectableInput... channels) {
+  public int select(final long msecs, final SelectableInput... channels) {
     return select(msecs, 0, channels);
   }
 
-  public synchronized int select(final SelectableInput... channels) {
+  public int select(final SelectableInput... channels) {
     return select(Long.MAX_VALUE, channels);
   }
 
-  public synchronized int select(final SelectableInput[] channels, final boolean skip) {
+  public int select(final SelectableInput[] channels, final boolean skip) {
     return select(Arrays.asList(channels), skip);
   }
 
-  public synchronized int select(final SelectableInput[] channels, final boolean[] guard) {
+  public int select(final SelectableInput[] channels, final boolean[] guard) {
     return select(channels, guard, Long.MAX_VALUE);
   }
 
-  public synchronized int select(final SelectableInput[] channels, final boolean[] guard,
+  public int select(final SelectableInput[] channels, final boolean[] guard,
     final boolean skip) {
     final List<Boolean> guardList = new ArrayList<>();
     for (final boolean enabled : guard) {
@@ -230,12 +282,12 @@ public class MultiInputSelector {
     return select(Arrays.asList(channels), guardList, skip);
   }
 
-  public synchronized int select(final SelectableInput[] channels, final boolean[] guard,
+  public int select(final SelectableInput[] channels, final boolean[] guard,
     final long msecs) {
     return select(channels, guard, msecs, 0);
   }
 
-  public synchronized int select(final SelectableInput[] channels, final boolean[] guard,
+  public int select(final SelectableInput[] channels, final boolean[] guard,
     final long msecs, final int nsecs) {
     final List<Boolean> guardList = new ArrayList<>();
     for (final boolean enabled : guard) {
@@ -244,7 +296,7 @@ public class MultiInputSelector {
     return select(Arrays.asList(channels), guardList, msecs, nsecs);
   }
 
-  public synchronized <T extends SelectableInput> T selectChannelInput(final List<T> channels) {
+  public <T extends SelectableInput> T selectChannelInput(final List<T> channels) {
     final int index = select(Long.MAX_VALUE, channels);
     if (index == -1) {
       return null;
@@ -0,0 +1,220 @@
+package com.revolsys.parallel.channel.store;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.revolsys.parallel.channel.ChannelValueStore;
+
+/**
+ * <h2>Description</h2>
+ * <p>
+ * The RingBuffer class is a bounded lock-free implementation of
+ * ChannelValueStore. A {@link com.revolsys.parallel.channel.Channel} using a
+ * RingBuffer does not synchronize on its monitors for each read and write,
+ * instead the values are exchanged through a fixed size array of slots using
+ * per slot sequence numbers.
+ * </p>
+ * <p>
+ * Only one thread may read from the buffer at a time. The buffer can be written
+ * to by multiple threads (MPSC) or, if constructed with singleProducer=true, by
+ * only one thread (SPSC) which avoids a compare and set on each write.
+ * </p>
+ */
+public class RingBuffer<T> extends ChannelValueStore<T> {
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private static int toPowerOfTwo(final int capacity) {
+    if (capacity < 2) {
+      return 2;
+    } else if (capacity > 1 << 30) {
+      return 1 << 30;
+    } else {
+      return Integer.highestOneBit(capacity - 1) << 1;
+    }
+  }
+
+  private final int capacity;
+
+  private final AtomicLong head = new AtomicLong();
+
+  private final int mask;
+
+  private final AtomicLongArray sequences;
+
+  private final boolean singleProducer;
+
+  private final AtomicLong tail = new AtomicLong();
+
+  private final AtomicReferenceArray<T> values;
+
+  /**
+   * Construct a new multiple producer RingBuffer with the {@link #DEFAULT_CAPACITY}.
+   */
+  public RingBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Construct a new multiple producer RingBuffer.
+   *
+   * @param capacity The maximum number of Objects the buffer can store, rounded up
+   *          to a power of 2.
+   */
+  public RingBuffer(final int capacity) {
+    this(capacity, false);
+  }
+
+  /**
+   * Construct a new RingBuffer.
+   *
+   * @param capacity The maximum number of Objects the buffer can store, rounded up
+   *          to a power of 2.
+   * @param singleProducer True if only one thread will write to the buffer.
+   */
+  public RingBuffer(final int capacity, final boolean singleProducer) {
+    this.capacity = toPowerOfTwo(capacity);
+    this.mask = this.capacity - 1;
+    this.singleProducer = singleProducer;
+    this.values = new AtomicReferenceArray<>(this.capacity);
+    this.sequences = new AtomicLongArray(this.capacity);
+    for (int i = 0; i < this.capacity; i++) {
+      this.sequences.set(i, i);
+    }
+  }
+
+  @Override
+  protected Object clone() {
+    return new RingBuffer<T>(this.capacity, this.singleProducer);
+  }
+
+  /**
+   * Move up to maxCount values from the buffer to the collection without
+   * blocking.
+   *
+   * @return The number of values moved.
+   */
+  public int drainTo(final Collection<? super T> values, final int maxCount) {
+    int count = 0;
+    while (count < maxCount) {
+      final T value = poll();
+      if (value == null) {
+        return count;
+      } else {
+        values.add(value);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  protected T get() {
+    return poll();
+  }
+
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  @Override
+  protected int getState() {
+    final long head = this.head.get();
+    final long tail = this.tail.get();
+    if (tail == head) {
+      return EMPTY;
+    } else if (tail - head >= this.capacity) {
+      return FULL;
+    } else {
+      return NONEMPTYFULL;
+    }
+  }
+
+  /**
+   * Check if there are no values that can be read.
+   */
+  public boolean isEmpty() {
+    final long head = this.head.get();
+    return this.sequences.get((int)head & this.mask) != head + 1;
+  }
+
+  public boolean isSingleProducer() {
+    return this.singleProducer;
+  }
+
+  /**
+   * Add the value to the buffer without blocking.
+   *
+   * @return False if the buffer was full.
+   */
+  public boolean offer(final T value) {
+    if (value == null) {
+      throw new NullPointerException("Cannot write null values to a ring buffer");
+    }
+    final AtomicLongArray sequences = this.sequences;
+    final int mask = this.mask;
+    if (this.singleProducer) {
+      final long position = this.tail.get();
+      final int index = (int)position & mask;
+      if (sequences.get(index) != position) {
+        return false;
+      }
+      this.tail.lazySet(position + 1);
+      this.values.lazySet(index, value);
+      sequences.set(index, position + 1);
+      return true;
+    } else {
+      while (true) {
+        final long position = this.tail.get();
+        final int index = (int)position & mask;
+        final long sequence = sequences.get(index);
+        if (sequence == position) {
+          if (this.tail.compareAndSet(position, position + 1)) {
+            this.values.lazySet(index, value);
+            sequences.set(index, position + 1);
+            return true;
+          }
+        } else if (sequence < position) {
+          return false;
+        }
+      }
+    }
+  }
+
+  /**
+   * Remove the next value from the buffer without blocking.
+   *
+   * @return The value or null if the buffer was empty.
+   */
+  public T poll() {
+    final long position = this.head.get();
+    final int index = (int)position & this.mask;
+    if (this.sequences.get(index) != position + 1) {
+      return null;
+    }
+    final T value = this.values.get(index);
+    this.values.lazySet(index, null);
+    this.head.lazySet(position + 1);
+    this.sequences.set(index, position + this.capacity);
+    return value;
+  }
+
+  @Override
+  protected void put(final T value) {
+    offer(value);
+  }
+
+  /**
+   * The approximate number of values in the buffer.
+   */
+  public int size() {
+    final long size = this.tail.get() - this.head.get();
+    return (int)Math.max(0, Math.min(size, this.capacity));
+  }
+
+  @Override
+  public String toString() {
+    return "RingBuffer[" + size() + "/" + this.capacity + "]";
+  }
+}
@@ -6,6 +6,7 @@ import com.revolsys.parallel.channel.Channel;
 import com.revolsys.parallel.channel.ChannelValueStore;
 import com.revolsys.parallel.channel.ClosedException;
 import com.revolsys.parallel.channel.store.Buffer;
+import com.revolsys.parallel.channel.store.RingBuffer;
 import com.revolsys.parallel.channel.store.ZeroBuffer;
 
 public abstract class AbstractInOutProcess<I, O> extends AbstractProcess
@@ -21,6 +22,8 @@ public abstract class AbstractInOutProcess<I, O> extends AbstractProcess
 
   private boolean initialized;
 
+  private boolean ringBuffer = false;
+
   public AbstractInOutProcess() {
   }
 
@@ -79,8 +82,14 @@ public abstract class AbstractInOutProcess<I, O> extends AbstractProcess
   protected void initializeDo() {
   }
 
+  public boolean isRingBuffer() {
+    return this.ringBuffer;
+  }
+
   protected ChannelValueStore<I> newInValueStore() {
-    if (this.inBufferSize == 0) {
+    if (this.ringBuffer) {
+      return newRingBuffer(this.inBufferSize);
+    } else if (this.inBufferSize == 0) {
       return new ZeroBuffer<>();
     } else if (this.inBufferSize < 0) {
       return new Buffer<>();
@@ -90,7 +99,9 @@ public abstract class AbstractInOutProcess<I, O> extends AbstractProcess
   }
 
   protected ChannelValueStore<O> newOutValueStore() {
-    if (this.outBufferSize == 0) {
+    if (this.ringBuffer) {
+      return newRingBuffer(this.outBufferSize);
+    } else if (this.outBufferSize == 0) {
       return new ZeroBuffer<>();
     } else if (this.outBufferSize < 0) {
       return new Buffer<>();
@@ -99,6 +110,14 @@ public abstract class AbstractInOutProcess<I, O> extends AbstractProcess
     }
   }
 
+  private <V> ChannelValueStore<V> newRingBuffer(final int bufferSize) {
+    if (bufferSize > 0) {
+      return new RingBuffer<>(bufferSize);
+    } else {
+      return new RingBuffer<>();
+    }
+  }
+
   @Override
   public final void run() {
     boolean hasError = false;
@@ -181,4 +200,15 @@ public abstract class AbstractInOutProcess<I, O> extends AbstractProcess
     return this;
   }
 
+  /**
+   * Use a lock-free {@link RingBuffer} for the in and out channels created by
+   * this process, with a capacity of the buffer size (or
+   * {@link RingBuffer#DEFAULT_CAPACITY} if the size is not &gt; 0). The channels
+   * must only have one reader.
+   */
+  public AbstractInOutProcess<I, O> setRingBuffer(final boolean ringBuffer) {
+    this.ringBuffer = ringBuffer;
+    return this;
+  }
+
 }
@@ -8,6 +8,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import jakarta.annotation.PostConstruct;
@@ -17,13 +20,35 @@ import org.jeometry.common.logging.Logs;
 
 import com.revolsys.collection.map.ThreadSharedProperties;
 import com.revolsys.parallel.ThreadInterruptedException;
+import com.revolsys.parallel.ThreadUtil;
 import com.revolsys.parallel.channel.Channel;
 import com.revolsys.spring.TargetBeanProcess;
 
+/**
+ * A network of processes each run on their own thread. By default each process
+ * runs on a platform thread, {@link #setThreadMode(ProcessThreadMode)} can be
+ * used to run them on virtual threads instead. The default mode for all networks
+ * can be set using {@link #setDefaultThreadMode(ProcessThreadMode)} or the
+ * system property com.revolsys.parallel.process.threadMode (PLATFORM or
+ * VIRTUAL).
+ */
 public class ProcessNetwork {
 
   private static ThreadLocal<ProcessNetwork> PROCESS_NETWORK = new ThreadLocal<>();
 
+  private static ProcessThreadMode defaultThreadMode = ProcessThreadMode.PLATFORM;
+
+  static {
+    final String threadMode = System.getProperty("com.revolsys.parallel.process.threadMode");
+    if (threadMode != null) {
+      try {
+        defaultThreadMode = ProcessThreadMode.valueOf(threadMode.trim().toUpperCase());
+      } catch (final IllegalArgumentException e) {
+        Logs.error(ProcessNetwork.class, "Invalid thread mode " + threadMode);
+      }
+    }
+  }
+
   public static <V> void forAll(final Consumer<V> action, final Iterable<V> values) {
     final ProcessNetwork processNetwork = new ProcessNetwork();
     for (final V value : values) {
@@ -69,6 +94,10 @@ public class ProcessNetwork {
     return PROCESS_NETWORK.get();
   }
 
+  public static ProcessThreadMode getDefaultThreadMode() {
+    return defaultThreadMode;
+  }
+
   public static void processTasks(final int processCount, final Channel<Runnable> tasks) {
     final ProcessNetwork processNetwork = new ProcessNetwork();
     for (int i = 0; i < processCount; i++) {
@@ -90,6 +119,14 @@ public class ProcessNetwork {
     processNetwork.startAndWait();
   }
 
+  public static void setDefaultThreadMode(final ProcessThreadMode threadMode) {
+    if (threadMode == null) {
+      defaultThreadMode = ProcessThreadMode.PLATFORM;
+    } else {
+      defaultThreadMode = threadMode;
+    }
+  }
+
   public static void startAndWait(final Process... processes) {
     final ProcessNetwork processNetwork = new ProcessNetwork(processes);
     processNetwork.startAndWait();
@@ -107,24 +144,40 @@ public class ProcessNetwork {
     }
   }
 
+  private final AtomicInteger activeProcessCount = new AtomicInteger();
+
+  private Semaphore activeProcessLimit;
+
   private boolean autoStart;
 
+  private final AtomicLong completedProcessCount = new AtomicLong();
+
   private int count = 0;
 
+  private int maxActiveProcesses = 0;
+
   private String name = "processNetwork";
 
   private ProcessNetwork parent;
 
+  private final AtomicInteger peakActiveProcessCount = new AtomicInteger();
+
   private final Map<Process, Thread> processes = new HashMap<>();
 
   private boolean running = false;
 
+  private final AtomicLong startedProcessCount = new AtomicLong();
+
   private boolean stopping = false;
 
   private final Object sync = new Object();
 
   private ThreadGroup threadGroup;
 
+  private ProcessThreadMode threadMode = defaultThreadMode;
+
+  private final AtomicInteger waitingProcessCount = new AtomicInteger();
+
   public ProcessNetwork() {
   }
 
@@ -209,6 +262,24 @@ public class ProcessNetwork {
     }
   }
 
+  /**
+   * The number of processes currently running.
+   */
+  public int getActiveProcessCount() {
+    return this.activeProcessCount.get();
+  }
+
+  /**
+   * The number of processes that have finished running.
+   */
+  public long getCompletedProcessCount() {
+    return this.completedProcessCount.get();
+  }
+
+  public int getMaxActiveProcesses() {
+    return this.maxActiveProcesses;
+  }
+
   public String getName() {
     return this.name;
   }
@@ -217,6 +288,13 @@ public class ProcessNetwork {
     return this.parent;
   }
 
+  /**
+   * The maximum number of processes that were running at the same time.
+   */
+  public int getPeakActiveProcessCount() {
+    return this.peakActiveProcessCount.get();
+  }
+
   public Collection<Process> getProcesses() {
     if (this.processes == null) {
       return Collections.emptySet();
@@ -233,10 +311,29 @@ public class ProcessNetwork {
     return this.sync;
   }
 
+  /**
+   * The number of processes that have started running.
+   */
+  public long getStartedProcessCount() {
+    return this.startedProcessCount.get();
+  }
+
   public ThreadGroup getThreadGroup() {
     return this.threadGroup;
   }
 
+  public ProcessThreadMode getThreadMode() {
+    return this.threadMode;
+  }
+
+  /**
+   * The number of processes waiting for another process to finish as
+   * {@link #getMaxActiveProcesses()} processes are running.
+   */
+  public int getWaitingProcessCount() {
+    return this.waitingProcessCount.get();
+  }
+
   public boolean hasProcess() {
     return !this.processes.isEmpty();
   }
@@ -253,6 +350,20 @@ public class ProcessNetwork {
     return this.autoStart;
   }
 
+  private Thread newThread(final String name, final Runnable runnable) {
+    if (this.threadMode == ProcessThreadMode.VIRTUAL && ThreadUtil.isVirtualThreadSupported()) {
+      final ThreadGroup threadGroup = this.threadGroup;
+      return ThreadUtil.newVirtualThread(name, () -> {
+        ThreadSharedProperties.initialiseThread(threadGroup);
+        runnable.run();
+      });
+    } else if (name == null) {
+      return new Thread(this.threadGroup, runnable);
+    } else {
+      return new Thread(this.threadGroup, runnable, name);
+    }
+  }
+
   void removeProcess(final Process process) {
     synchronized (this.sync) {
       if (this.processes != null) {
@@ -274,10 +385,47 @@ public class ProcessNetwork {
     }
   }
 
+  private void runProcess(final Process process) {
+    final Semaphore activeProcessLimit = this.activeProcessLimit;
+    if (activeProcessLimit != null) {
+      this.waitingProcessCount.incrementAndGet();
+      try {
+        activeProcessLimit.acquire();
+      } catch (final InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      } finally {
+        this.waitingProcessCount.decrementAndGet();
+      }
+    }
+    try {
+      this.startedProcessCount.incrementAndGet();
+      final int activeCount = this.activeProcessCount.incrementAndGet();
+      this.peakActiveProcessCount.accumulateAndGet(activeCount, Math::max);
+      process.run();
+    } finally {
+      this.activeProcessCount.decrementAndGet();
+      this.completedProcessCount.incrementAndGet();
+      if (activeProcessLimit != null) {
+        activeProcessLimit.release();
+      }
+    }
+  }
+
   public void setAutoStart(final boolean autoStart) {
     this.autoStart = autoStart;
   }
 
+  /**
+   * Limit the number of processes that run at the same time, 0 for no limit. Other
+   * processes wait for a running process to finish before they start. Only use a
+   * limit if the processes are independent, a process waiting to start cannot read
+   * from or write to the channels of a running process. Must be set before the
+   * network is started.
+   */
+  public void setMaxActiveProcesses(final int maxActiveProcesses) {
+    this.maxActiveProcesses = maxActiveProcesses;
+  }
+
   public void setName(final String name) {
     this.name = name;
   }
@@ -292,10 +440,29 @@ public class ProcessNetwork {
     }
   }
 
+  /**
+   * Set the type of thread used to run the processes. Must be set before the
+   * network is started.
+   */
+  public void setThreadMode(final ProcessThreadMode threadMode) {
+    if (threadMode == null) {
+      this.threadMode = ProcessThreadMode.PLATFORM;
+    } else {
+      this.threadMode = threadMode;
+    }
+  }
+
   public void start() {
     if (this.parent == null) {
       synchronized (this.sync) {
         this.running = true;
+        if (this.maxActiveProcesses > 0 && this.activeProcessLimit == null) {
+          this.activeProcessLimit = new Semaphore(this.maxActiveProcesses, true);
+        }
+        if (this.threadMode == ProcessThreadMode.VIRTUAL
+          && !ThreadUtil.isVirtualThreadSupported()) {
+          Logs.warn(this, "Virtual threads require Java 21+, using platform threads");
+        }
         if (this.processes != null) {
           for (final Process process : new ArrayList<>(this.processes.keySet())) {
             process.setProcessNetwork(this);
@@ -322,7 +489,7 @@ public class ProcessNetwork {
           final String name = runProcess.toString();
           final Runnable runnable = () -> {
             try {
-              runProcess.run();
+              runProcess(runProcess);
             } catch (final Throwable e) {
               Logs.error(this, e);
             } finally {
@@ -333,11 +500,7 @@ public class ProcessNetwork {
               }
             }
           };
-          if (name == null) {
-            thread = new Thread(this.threadGroup, runnable);
-          } else {
-            thread = new Thread(this.threadGroup, runnable, name);
-          }
+          thread = newThread(name, runnable);
           this.processes.put(runProcess, thread);
           if (!thread.isAlive()) {
             thread.start();
@@ -3,29 +3,54 @@ package com.revolsys.parallel.process;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.revolsys.parallel.channel.Channel;
 import com.revolsys.parallel.channel.store.Buffer;
 
+/**
+ * A queue of processes run by up to maxWorkers workers. Workers are started as
+ * processes are queued and stop after they have been idle for maxWorkerIdleTime
+ * milliseconds. The workers run on platform or virtual threads depending on the
+ * {@link ProcessThreadMode}, by default {@link ProcessNetwork#getDefaultThreadMode()}.
+ */
 public class ProcessQueue {
+  private final AtomicLong completedProcessCount = new AtomicLong();
+
   private final int maxWorkerIdleTime;
 
   private final int maxWorkers;
 
   private final Buffer<Process> processBuffer = new Buffer<>(200);
 
+  private final AtomicInteger peakWorkerCount = new AtomicInteger();
+
   private final Channel<Process> processChannel = new Channel<>(this.processBuffer);
 
+  private final ProcessThreadMode threadMode;
+
   private final Set<ProcessQueueWorker> workers = Collections.synchronizedSet(new HashSet<>());
 
   public ProcessQueue(final int maxWorkers, final int maxWorkerIdleTime) {
+    this(maxWorkers, maxWorkerIdleTime, ProcessNetwork.getDefaultThreadMode());
+  }
+
+  public ProcessQueue(final int maxWorkers, final int maxWorkerIdleTime,
+    final ProcessThreadMode threadMode) {
     this.maxWorkers = maxWorkers;
     this.maxWorkerIdleTime = maxWorkerIdleTime;
+    if (threadMode == null) {
+      this.threadMode = ProcessThreadMode.PLATFORM;
+    } else {
+      this.threadMode = threadMode;
+    }
   }
 
   void addWorker(final ProcessQueueWorker worker) {
     synchronized (this.workers) {
       this.workers.add(worker);
+      this.peakWorkerCount.accumulateAndGet(this.workers.size(), Math::max);
     }
   }
 
@@ -46,14 +71,47 @@ public class ProcessQueue {
     this.processBuffer.clear();
   }
 
+  /**
+   * The number of processes that have finished running.
+   */
+  public long getCompletedProcessCount() {
+    return this.completedProcessCount.get();
+  }
+
   public int getMaxWorkerIdleTime() {
     return this.maxWorkerIdleTime;
   }
 
+  public int getMaxWorkers() {
+    return this.maxWorkers;
+  }
+
+  /**
+   * The maximum number of workers that were running at the same time.
+   */
+  public int getPeakWorkerCount() {
+    return this.peakWorkerCount.get();
+  }
+
   Channel<Process> getProcessChannel() {
     return this.processChannel;
   }
 
+  public ProcessThreadMode getThreadMode() {
+    return this.threadMode;
+  }
+
+  /**
+   * The number of workers currently running.
+   */
+  public int getWorkerCount() {
+    return this.workers.size();
+  }
+
+  void processCompleted() {
+    this.completedProcessCount.incrementAndGet();
+  }
+
   void removeWorker(final ProcessQueueWorker worker) {
     synchronized (this.workers) {
       this.workers.remove(worker);
@@ -64,6 +122,7 @@ public class ProcessQueue {
     this.processChannel.write(process);
     if (this.workers.size() < this.maxWorkers && this.processBuffer.size() > this.workers.size()) {
       final ProcessQueueWorker worker = new ProcessQueueWorker(this);
+      addWorker(worker);
       worker.start();
     }
   }
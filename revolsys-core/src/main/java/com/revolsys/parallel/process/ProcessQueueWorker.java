@@ -3,20 +3,26 @@ package com.revolsys.parallel.process;
 import org.jeometry.common.logging.Logs;
 
 import com.revolsys.parallel.ThreadInterruptedException;
+import com.revolsys.parallel.ThreadUtil;
 import com.revolsys.parallel.channel.Channel;
 import com.revolsys.parallel.channel.ClosedException;
 
-public class ProcessQueueWorker extends Thread {
+/**
+ * A worker that runs the processes from a {@link ProcessQueue} on a platform or
+ * virtual thread depending on the queue's {@link ProcessThreadMode}.
+ */
+public class ProcessQueueWorker implements Runnable {
   private final Channel<Process> in;
 
   private Process process;
 
   private final ProcessQueue queue;
 
+  private Thread thread;
+
   public ProcessQueueWorker(final ProcessQueue queue) {
     this.queue = queue;
     this.in = queue.getProcessChannel();
-    setDaemon(true);
   }
 
   public String getBeanName() {
@@ -27,9 +33,19 @@ public class ProcessQueueWorker extends Thread {
     return this.process;
   }
 
+  public Thread getThread() {
+    return this.thread;
+  }
+
+  public void interrupt() {
+    final Thread thread = this.thread;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
   @Override
   public void run() {
-    this.queue.addWorker(this);
     try {
       while (true) {
         this.process = this.in.read(this.queue.getMaxWorkerIdleTime());
@@ -44,6 +60,8 @@ public class ProcessQueueWorker extends Thread {
             } else {
               Logs.error(this.process, e.getMessage(), e);
             }
+          } finally {
+            this.queue.processCompleted();
           }
         }
         this.process = null;
@@ -57,4 +75,19 @@ public class ProcessQueueWorker extends Thread {
 
   public void setBeanName(final String name) {
   }
+
+  public synchronized void start() {
+    if (this.thread == null) {
+      final Thread thread;
+      if (this.queue.getThreadMode() == ProcessThreadMode.VIRTUAL
+        && ThreadUtil.isVirtualThreadSupported()) {
+        thread = ThreadUtil.newVirtualThread(null, this);
+      } else {
+        thread = new Thread(this);
+        thread.setDaemon(true);
+      }
+      this.thread = thread;
+      thread.start();
+    }
+  }
 }
@@ -0,0 +1,15 @@
+package com.revolsys.parallel.process;
+
+/**
+ * The type of thread a {@link ProcessNetwork} runs each {@link Process} on.
+ */
+public enum ProcessThreadMode {
+  /** A platform thread in the network's thread group. */
+  PLATFORM,
+
+  /**
+   * A virtual thread (Java 21+). If virtual threads are not supported by the JVM
+   * platform threads are used.
+   */
+  VIRTUAL
+}
@@ -2,6 +2,7 @@ package com.revolsys.record.filter;
 
 import java.util.function.Predicate;
 
+import com.revolsys.geometry.index.NearestNeighbourIterator;
 import com.revolsys.geometry.index.RecordSpatialIndex;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.Geometry;
@@ -15,8 +16,7 @@ public class ClosestRecordFilter implements Predicate<Record> {
   public static ClosestRecordFilter query(final RecordSpatialIndex<Record> index,
     final Geometry geometry, final double maxDistance) {
     final ClosestRecordFilter closestFilter = new ClosestRecordFilter(geometry, maxDistance);
-    final BoundingBox boundingBox = closestFilter.getFilterBoundingBox();
-    index.queryList(boundingBox, closestFilter);
+    closestFilter.queryNearest(index);
     return closestFilter;
   }
 
@@ -24,8 +24,7 @@ public class ClosestRecordFilter implements Predicate<Record> {
     final Geometry geometry, final double maxDistance, final Predicate<Record> filter) {
     final ClosestRecordFilter closestFilter = new ClosestRecordFilter(geometry, maxDistance,
       filter);
-    final BoundingBox boundingBox = closestFilter.getFilterBoundingBox();
-    index.queryList(boundingBox, closestFilter);
+    closestFilter.queryNearest(index);
     return closestFilter;
   }
 
@@ -50,6 +49,15 @@ public class ClosestRecordFilter implements Predicate<Record> {
     this.filter = filter;
   }
 
+  private double distance(final Record record) {
+    final Geometry geometry = record.getGeometry();
+    if (Property.hasValue(geometry)) {
+      return geometry.distanceGeometry(this.geometry);
+    } else {
+      return Double.POSITIVE_INFINITY;
+    }
+  }
+
   public double getClosestDistance() {
     return this.closestDistance;
   }
@@ -64,6 +72,25 @@ public class ClosestRecordFilter implements Predicate<Record> {
       .newBoundingBox();
   }
 
+  /**
+   * Find the closest record using a nearest neighbour search of the index. The
+   * records are visited in order of distance so the search stops at the first
+   * record that matches the filter.
+   */
+  private void queryNearest(final RecordSpatialIndex<Record> index) {
+    final BoundingBox boundingBox = this.geometry.getBoundingBox();
+    final NearestNeighbourIterator<?, Record> iterator = index.nearestIterator(boundingBox,
+      this.maxDistance, this::distance);
+    while (iterator.hasNext()) {
+      final Record record = iterator.next();
+      if (this.filter.test(record)) {
+        this.closestDistance = iterator.getDistance();
+        this.closestRecord = record;
+        return;
+      }
+    }
+  }
+
   @Override
   public boolean test(final Record record) {
     if (this.filter.test(record)) {
@@ -1,57 +1,472 @@
 package com.revolsys.record.io;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jeometry.common.data.identifier.Identifier;
+import org.jeometry.common.exception.Exceptions;
+import org.jeometry.common.io.PathName;
 
 import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.record.Record;
+import com.revolsys.record.query.Query;
+import com.revolsys.record.schema.RecordDefinition;
 import com.revolsys.record.schema.RecordStore;
 
+/**
+ * A cache of the records in a {@link RecordStore} for spatial queries. Requests
+ * are split into the tiles of a fixed grid (per type path) in the coordinate
+ * system of the record definition. Each tile is loaded once using a bounding
+ * box query and shared by all the requests that overlap it, so panning a map
+ * only loads the tiles that were not already loaded.
+ * <p>
+ * The cache is bounded by the total number of records in the loaded tiles,
+ * the least recently used tiles are evicted once the bound is exceeded. If
+ * more than one thread requests a tile that isn't loaded, only one query is
+ * run and the other threads wait for it to complete.
+ * </p>
+ * <p>
+ * Writes made through {@link #insertRecord(Record)}, {@link #updateRecord(Record)}
+ * and {@link #deleteRecord(Record)} invalidate the tiles the record is in. Writes
+ * made directly to the record store must call one of the invalidate methods.
+ * </p>
+ */
 public class RecordStoreCache {
+  private static final class TileKey {
+    private final int tileX;
+
+    private final int tileY;
+
+    private final PathName typePath;
+
+    private TileKey(final PathName typePath, final int tileX, final int tileY) {
+      this.typePath = typePath;
+      this.tileX = tileX;
+      this.tileY = tileY;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+      if (object instanceof TileKey) {
+        final TileKey key = (TileKey)object;
+        return this.tileX == key.tileX && this.tileY == key.tileY
+          && this.typePath.equals(key.typePath);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.typePath, this.tileX, this.tileY);
+    }
+
+    @Override
+    public String toString() {
+      return this.typePath + " " + this.tileX + "," + this.tileY;
+    }
+  }
+
+  public static final int DEFAULT_MAX_RECORD_COUNT = 100000;
+
+  public static final int DEFAULT_MAX_TILES_PER_REQUEST = 256;
+
+  public static final double DEFAULT_TILE_SIZE = 1000;
+
   public static RecordStoreCache getCache(final RecordStore recordStore) {
     return new RecordStoreCache(recordStore);
   }
 
-  private final Map<BoundingBox, List> cachedObejcts = Collections.synchronizedMap(new HashMap<>());
+  private final LongAdder evictionCount = new LongAdder();
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder loadCount = new LongAdder();
 
-  private final Map<BoundingBox, RecordStoreQueryTask> loadTasks = new LinkedHashMap<>();
+  private final int maxRecordCount;
+
+  private int maxTilesPerRequest = DEFAULT_MAX_TILES_PER_REQUEST;
+
+  private final LongAdder missCount = new LongAdder();
+
+  private long recordCount;
 
   private final RecordStore recordStore;
 
-  private String typePath;
+  private final Map<TileKey, CompletableFuture<List<Record>>> tiles = new LinkedHashMap<>(16,
+    0.75f, true);
+
+  private final double tileSize;
 
   public RecordStoreCache(final RecordStore recordStore) {
+    this(recordStore, DEFAULT_TILE_SIZE, DEFAULT_MAX_RECORD_COUNT);
+  }
+
+  /**
+   * Construct a new cache.
+   *
+   * @param recordStore The record store to load the records from.
+   * @param tileSize The width and height of the tiles in the units of the
+   * record definition's coordinate system.
+   * @param maxRecordCount The maximum number of records in all the loaded tiles.
+   */
+  public RecordStoreCache(final RecordStore recordStore, final double tileSize,
+    final int maxRecordCount) {
+    if (!(tileSize > 0)) {
+      throw new IllegalArgumentException("tileSize must be > 0 not " + tileSize);
+    }
     this.recordStore = recordStore;
+    this.tileSize = tileSize;
+    this.maxRecordCount = maxRecordCount;
+  }
+
+  private void addTile(final TileKey key, final CompletableFuture<List<Record>> tile,
+    final List<Record> records) {
+    synchronized (this.tiles) {
+      tile.complete(records);
+      if (this.tiles.get(key) == tile) {
+        this.recordCount += getWeight(records);
+        evict();
+      }
+    }
+  }
+
+  public void clear() {
+    synchronized (this.tiles) {
+      this.tiles.clear();
+      this.recordCount = 0;
+    }
+  }
+
+  public boolean deleteRecord(final Record record) {
+    final boolean deleted = this.recordStore.deleteRecord(record);
+    invalidate(record);
+    return deleted;
+  }
+
+  private void evict() {
+    final Iterator<Entry<TileKey, CompletableFuture<List<Record>>>> iterator = this.tiles
+      .entrySet()
+      .iterator();
+    while (this.recordCount > this.maxRecordCount && iterator.hasNext()) {
+      final CompletableFuture<List<Record>> tile = iterator.next().getValue();
+      if (tile.isDone()) {
+        iterator.remove();
+        this.recordCount -= getWeight(tile.join());
+        this.evictionCount.increment();
+      }
+    }
+  }
+
+  public long getEvictionCount() {
+    return this.evictionCount.sum();
+  }
+
+  public long getHitCount() {
+    return this.hitCount.sum();
+  }
+
+  /**
+   * Get the ratio of the tile requests that were found in the cache.
+   */
+  public double getHitRate() {
+    final long hitCount = getHitCount();
+    final long requestCount = hitCount + getMissCount();
+    if (requestCount == 0) {
+      return 0;
+    } else {
+      return (double)hitCount / requestCount;
+    }
+  }
+
+  public long getLoadCount() {
+    return this.loadCount.sum();
+  }
+
+  public int getMaxRecordCount() {
+    return this.maxRecordCount;
   }
 
-  private void addBoundingBox(final BoundingBox boundingBox) {
-    synchronized (this.loadTasks) {
-      if (!this.loadTasks.containsKey(boundingBox)) {
-        this.loadTasks.put(boundingBox,
-          new RecordStoreQueryTask(this.recordStore, this.typePath, boundingBox));
+  public int getMaxTilesPerRequest() {
+    return this.maxTilesPerRequest;
+  }
+
+  public long getMissCount() {
+    return this.missCount.sum();
+  }
+
+  public long getRecordCount() {
+    synchronized (this.tiles) {
+      return this.recordCount;
+    }
+  }
+
+  /**
+   * Get the records that intersect the bounding box. The result is a new list
+   * but the records are shared with the cache and other callers so must not be
+   * modified.
+   *
+   * @param typePath The type of record.
+   * @param boundingBox The bounding box to get the records for.
+   * @return The records.
+   */
+  public List<Record> getRecords(final PathName typePath, BoundingBox boundingBox) {
+    final RecordDefinition recordDefinition = this.recordStore.getRecordDefinition(typePath);
+    if (recordDefinition == null || !recordDefinition.hasGeometryField() || boundingBox == null
+      || boundingBox.isBboxEmpty()) {
+      return Collections.emptyList();
+    }
+    final GeometryFactory geometryFactory = recordDefinition.getGeometryFactory();
+    boundingBox = boundingBox.bboxToCs(geometryFactory);
+    final int minTileX = getTileIndex(boundingBox.getMinX());
+    final int minTileY = getTileIndex(boundingBox.getMinY());
+    final int maxTileX = getTileIndex(boundingBox.getMaxX());
+    final int maxTileY = getTileIndex(boundingBox.getMaxY());
+    final long tileCount = ((long)maxTileX - minTileX + 1) * ((long)maxTileY - minTileY + 1);
+    if (tileCount > this.maxTilesPerRequest) {
+      this.missCount.increment();
+      return loadRecords(recordDefinition, boundingBox);
+    }
+
+    final List<Record> records = new ArrayList<>();
+    final Set<Identifier> identifiers = new HashSet<>();
+    for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+      for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+        final TileKey key = new TileKey(typePath, tileX, tileY);
+        final BoundingBox tileBoundingBox = newTileBoundingBox(geometryFactory, tileX, tileY);
+        for (final Record record : getTile(recordDefinition, key, tileBoundingBox)) {
+          final BoundingBox recordBoundingBox = record.getBoundingBox();
+          if (recordBoundingBox != null && recordBoundingBox.bboxIntersects(boundingBox)) {
+            // A record in more than one tile is only added once
+            final Identifier identifier = record.getIdentifier();
+            if (identifier == null) {
+              if (isFirstTile(geometryFactory, record, tileX, tileY, minTileX, minTileY,
+                maxTileX)) {
+                records.add(record);
+              }
+            } else if (identifiers.add(identifier)) {
+              records.add(record);
+            }
+          }
+        }
+      }
+    }
+    return records;
+  }
+
+  public RecordStore getRecordStore() {
+    return this.recordStore;
+  }
+
+  private List<Record> getTile(final RecordDefinition recordDefinition, final TileKey key,
+    final BoundingBox tileBoundingBox) {
+    CompletableFuture<List<Record>> tile;
+    boolean load = false;
+    synchronized (this.tiles) {
+      tile = this.tiles.get(key);
+      if (tile == null) {
+        tile = new CompletableFuture<>();
+        this.tiles.put(key, tile);
+        load = true;
+      }
+    }
+    if (load) {
+      this.missCount.increment();
+      try {
+        final List<Record> records = loadRecords(recordDefinition, tileBoundingBox);
+        addTile(key, tile, records);
+        return records;
+      } catch (final Throwable e) {
+        synchronized (this.tiles) {
+          this.tiles.remove(key, tile);
+          tile.completeExceptionally(e);
+        }
+        throw Exceptions.wrap("Unable to load " + key, e);
+      }
+    } else {
+      this.hitCount.increment();
+      try {
+        return tile.join();
+      } catch (final CompletionException e) {
+        throw Exceptions.wrap("Unable to load " + key, e.getCause());
+      }
+    }
+  }
+
+  private int getTileIndex(final double coordinate) {
+    return (int)Math.floor(coordinate / this.tileSize);
+  }
+
+  public double getTileSize() {
+    return this.tileSize;
+  }
+
+  private long getWeight(final List<Record> records) {
+    return records.size() + 1;
+  }
+
+  public void insertRecord(final Record record) {
+    this.recordStore.insertRecord(record);
+    invalidate(record);
+  }
+
+  /**
+   * Remove the tiles for the type path that intersect the bounding box.
+   */
+  public void invalidate(final PathName typePath, BoundingBox boundingBox) {
+    final RecordDefinition recordDefinition = this.recordStore.getRecordDefinition(typePath);
+    if (recordDefinition == null || boundingBox == null || boundingBox.isBboxEmpty()) {
+      invalidate(typePath);
+    } else {
+      boundingBox = boundingBox.bboxToCs(recordDefinition);
+      final int minTileX = getTileIndex(boundingBox.getMinX());
+      final int minTileY = getTileIndex(boundingBox.getMinY());
+      final int maxTileX = getTileIndex(boundingBox.getMaxX());
+      final int maxTileY = getTileIndex(boundingBox.getMaxY());
+      synchronized (this.tiles) {
+        for (final Iterator<Entry<TileKey, CompletableFuture<List<Record>>>> iterator = this.tiles
+          .entrySet()
+          .iterator(); iterator.hasNext();) {
+          final Entry<TileKey, CompletableFuture<List<Record>>> entry = iterator.next();
+          final TileKey key = entry.getKey();
+          if (key.typePath.equals(typePath) && key.tileX >= minTileX && key.tileX <= maxTileX
+            && key.tileY >= minTileY && key.tileY <= maxTileY) {
+            removeTile(iterator, entry.getValue());
+          }
+        }
       }
     }
   }
 
-  public List getObjects(final BoundingBox boundingBox) {
-    final List objects = this.cachedObejcts.get(boundingBox);
-    if (objects == null) {
-      addBoundingBox(boundingBox);
+  /**
+   * Remove all the tiles for the type path.
+   */
+  public void invalidate(final PathName typePath) {
+    synchronized (this.tiles) {
+      for (final Iterator<Entry<TileKey, CompletableFuture<List<Record>>>> iterator = this.tiles
+        .entrySet()
+        .iterator(); iterator.hasNext();) {
+        final Entry<TileKey, CompletableFuture<List<Record>>> entry = iterator.next();
+        if (entry.getKey().typePath.equals(typePath)) {
+          removeTile(iterator, entry.getValue());
+        }
+      }
     }
-    return objects;
   }
 
-  public void removeObjects(final BoundingBox boundingBox) {
-    synchronized (this.loadTasks) {
-      final RecordStoreQueryTask task = this.loadTasks.get(boundingBox);
-      if (task != null) {
-        task.cancel();
-        this.loadTasks.remove(task);
+  /**
+   * Remove the tiles that contain the record, either at its current location or
+   * a cached copy of the record with the same identifier.
+   */
+  public void invalidate(final Record record) {
+    final PathName typePath = record.getPathName();
+    final Object identifier = record.getIdentifier();
+    synchronized (this.tiles) {
+      if (identifier != null) {
+        for (final Iterator<Entry<TileKey, CompletableFuture<List<Record>>>> iterator = this.tiles
+          .entrySet()
+          .iterator(); iterator.hasNext();) {
+          final Entry<TileKey, CompletableFuture<List<Record>>> entry = iterator.next();
+          final CompletableFuture<List<Record>> tile = entry.getValue();
+          if (entry.getKey().typePath.equals(typePath) && tile.isDone()
+            && !tile.isCompletedExceptionally()) {
+            for (final Record cachedRecord : tile.join()) {
+              if (identifier.equals(cachedRecord.getIdentifier())) {
+                removeTile(iterator, tile);
+                break;
+              }
+            }
+          }
+        }
       }
     }
-    this.cachedObejcts.remove(boundingBox);
+    invalidate(typePath, record.getBoundingBox());
   }
 
+  /**
+   * Check if the tile is the first tile of the request, in the order the tiles
+   * are read, that the record's geometry intersects. Used to add records
+   * without an identifier only once. The geometry is used instead of the
+   * bounding box as the tiles are loaded with an intersects query.
+   */
+  private boolean isFirstTile(final GeometryFactory geometryFactory, final Record record,
+    final int tileX, final int tileY, final int minTileX, final int minTileY,
+    final int maxTileX) {
+    final Geometry geometry = record.getGeometry();
+    final BoundingBox recordBoundingBox = record.getBoundingBox();
+    final int recordMinTileX = Math.max(minTileX, getTileIndex(recordBoundingBox.getMinX()));
+    final int recordMinTileY = Math.max(minTileY, getTileIndex(recordBoundingBox.getMinY()));
+    final int recordMaxTileX = Math.min(maxTileX, getTileIndex(recordBoundingBox.getMaxX()));
+    if (geometry != null) {
+      for (int y = recordMinTileY; y <= tileY; y++) {
+        for (int x = recordMinTileX; x <= recordMaxTileX; x++) {
+          if (y == tileY && x == tileX) {
+            return true;
+          } else if (geometry.intersectsBbox(newTileBoundingBox(geometryFactory, x, y))) {
+            return false;
+          }
+        }
+      }
+    }
+    return recordMinTileX == tileX && recordMinTileY == tileY;
+  }
+
+  private List<Record> loadRecords(final RecordDefinition recordDefinition,
+    final BoundingBox boundingBox) {
+    this.loadCount.increment();
+    final Query query = Query.intersects(recordDefinition, boundingBox);
+    final List<Record> records = new ArrayList<>();
+    try (
+      RecordReader reader = this.recordStore.getRecords(query)) {
+      for (final Record record : reader) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  private BoundingBox newTileBoundingBox(final GeometryFactory geometryFactory, final int tileX,
+    final int tileY) {
+    final double tileSize = this.tileSize;
+    return geometryFactory.newBoundingBox(tileX * tileSize, tileY * tileSize,
+      (tileX + 1) * tileSize, (tileY + 1) * tileSize);
+  }
+
+  private void removeTile(final Iterator<?> iterator, final CompletableFuture<List<Record>> tile) {
+    iterator.remove();
+    if (tile.isDone() && !tile.isCompletedExceptionally()) {
+      this.recordCount -= getWeight(tile.join());
+    }
+  }
+
+  /**
+   * Set the maximum number of tiles a request can span. Larger requests are
+   * queried directly from the record store and are not cached.
+   */
+  public void setMaxTilesPerRequest(final int maxTilesPerRequest) {
+    this.maxTilesPerRequest = maxTilesPerRequest;
+  }
+
+  @Override
+  public String toString() {
+    return this.recordStore + " hits=" + getHitCount() + " misses=" + getMissCount()
+      + " evictions=" + getEvictionCount();
+  }
+
+  public void updateRecord(final Record record) {
+    this.recordStore.updateRecord(record);
+    invalidate(record);
+  }
 }
@@ -0,0 +1,162 @@
+package com.revolsys.record.io.format.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+import com.revolsys.io.BaseCloseable;
+import com.revolsys.io.FileUtil;
+
+/**
+ * Read the characters of a CSV file in blocks that start and end on a record
+ * boundary so each block can be parsed independently of the others. The reader
+ * tracks the quote state of each field so new lines inside quoted values are
+ * not treated as the end of a record. Each block is a new array so a block can be
+ * parsed on another thread while the next block is read.
+ */
+class CsvBlockReader implements BaseCloseable {
+  private int blockSize;
+
+  private char[] buffer;
+
+  /** The number of characters in the buffer. */
+  private int bufferLength;
+
+  private boolean endOfFile;
+
+  private final char fieldSeparator;
+
+  /** The current field has characters that weren't in quotes. */
+  private boolean fieldHasCharacters;
+
+  /** The current field had quotes. */
+  private boolean hadQuotes;
+
+  private Reader in;
+
+  private boolean inQuotes;
+
+  /** The index after the end of the last complete record in the buffer. */
+  private int recordEnd;
+
+  /** The index of the next character to scan for a record boundary. */
+  private int scanIndex;
+
+  private boolean start = true;
+
+  CsvBlockReader(final Reader in, final char fieldSeparator, final int blockSize) {
+    this.in = in;
+    this.fieldSeparator = fieldSeparator;
+    this.blockSize = blockSize;
+    this.buffer = new char[blockSize];
+  }
+
+  @Override
+  public void close() {
+    FileUtil.closeSilent(this.in);
+    this.in = null;
+    this.endOfFile = true;
+  }
+
+  private boolean fill() throws IOException {
+    if (this.bufferLength == this.buffer.length) {
+      this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+    }
+    final int count = this.in.read(this.buffer, this.bufferLength,
+      this.buffer.length - this.bufferLength);
+    if (count < 0) {
+      this.endOfFile = true;
+      return false;
+    } else {
+      if (this.start && count > 0) {
+        this.start = false;
+        if (this.buffer[0] == '\uFEFF') {
+          this.buffer[0] = '\n';
+        }
+      }
+      this.bufferLength += count;
+      return true;
+    }
+  }
+
+  /**
+   * Read the next block of complete records.
+   *
+   * @return The block of characters or null if there are no more characters.
+   */
+  public CharBuffer readBlock() throws IOException {
+    while (!this.endOfFile) {
+      if (fill()) {
+        scan();
+        if (this.recordEnd > 0 && this.bufferLength > this.blockSize / 2) {
+          return takeBlock(this.recordEnd);
+        }
+      }
+    }
+    if (this.bufferLength > 0) {
+      return takeBlock(this.bufferLength);
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Set the approximate number of characters in each block.
+   */
+  public void setBlockSize(final int blockSize) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("blockSize must be > 0: " + blockSize);
+    }
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * Scan the new characters for the end of the last complete record.
+   */
+  private void scan() {
+    final char[] buffer = this.buffer;
+    final char fieldSeparator = this.fieldSeparator;
+    final int length = this.bufferLength;
+    boolean inQuotes = this.inQuotes;
+    boolean hadQuotes = this.hadQuotes;
+    boolean fieldHasCharacters = this.fieldHasCharacters;
+    int recordEnd = this.recordEnd;
+    for (int i = this.scanIndex; i < length; i++) {
+      final char c = buffer[i];
+      if (c == '"') {
+        if (hadQuotes || !fieldHasCharacters) {
+          hadQuotes = true;
+          inQuotes = !inQuotes;
+        }
+      } else if (!inQuotes) {
+        if (c == '\n' || c == '\r') {
+          recordEnd = i + 1;
+          hadQuotes = false;
+          fieldHasCharacters = false;
+        } else if (c == fieldSeparator) {
+          hadQuotes = false;
+          fieldHasCharacters = false;
+        } else {
+          fieldHasCharacters = true;
+        }
+      }
+    }
+    this.scanIndex = length;
+    this.inQuotes = inQuotes;
+    this.hadQuotes = hadQuotes;
+    this.fieldHasCharacters = fieldHasCharacters;
+    this.recordEnd = recordEnd;
+  }
+
+  private CharBuffer takeBlock(final int recordEnd) {
+    final char[] block = this.buffer;
+    final int remaining = this.bufferLength - recordEnd;
+    this.buffer = new char[Math.max(this.blockSize, remaining * 2)];
+    System.arraycopy(block, recordEnd, this.buffer, 0, remaining);
+    this.bufferLength = remaining;
+    this.recordEnd = 0;
+    this.scanIndex = remaining;
+    return CharBuffer.wrap(block, 0, recordEnd);
+  }
+}
@@ -0,0 +1,579 @@
+package com.revolsys.record.io.format.csv;
+
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.jeometry.common.logging.Logs;
+
+import com.revolsys.collection.map.Maps;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.record.Record;
+import com.revolsys.record.RecordFactory;
+import com.revolsys.record.io.format.wkt.WktParser;
+import com.revolsys.record.schema.FieldDefinition;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.util.Property;
+
+/**
+ * Parse the records in a block of CSV characters that starts and ends on a
+ * record boundary. The values are parsed directly from the characters in the
+ * block; numbers, booleans, dates and WKT geometries are converted to the
+ * field's type without creating an intermediate string. A copy is only made for
+ * quoted values that contain escaped quotes. Values that aren't in the expected
+ * format are converted from a string using the field's conversion. If that
+ * fails a warning is logged and the string is stored, the same as setting the
+ * string on the record.
+ * <p>
+ * The parser doesn't hold any state between blocks, so one parser can be used
+ * by multiple threads to parse different blocks at the same time.
+ * </p>
+ */
+public class CsvRecordParser {
+  private static final int BIG_DECIMAL = 7;
+
+  private static final int BOOLEAN = 8;
+
+  private static final int BYTE = 4;
+
+  private static final int DOUBLE = 6;
+
+  private static final int GEOMETRY = 10;
+
+  private static final int INTEGER = 2;
+
+  private static final int LONG = 3;
+
+  private static final int OTHER = 0;
+
+  private static final double[] POWERS_OF_10 = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+    1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private static final int SHORT = 5;
+
+  private static final int SQL_DATE = 9;
+
+  private static final int STRING = 1;
+
+  private static char[] append(char[] chars, final int length, final char c) {
+    if (length == chars.length) {
+      chars = Arrays.copyOf(chars, length * 2);
+    }
+    chars[length] = c;
+    return chars;
+  }
+
+  private static boolean equalsIgnoreCase(final char[] chars, final int offset,
+    final int length, final String text) {
+    if (length != text.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (Character.toLowerCase(chars[offset + i]) != text.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int parseDigits(final char[] chars, final int offset, final int length) {
+    int value = 0;
+    for (int i = offset; i < offset + length; i++) {
+      final char c = chars[i];
+      if (c >= '0' && c <= '9') {
+        value = value * 10 + c - '0';
+      } else {
+        return -1;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Parse a decimal number. Exact for up to 15 significant digits and powers of
+   * 10 that are exact as a double, otherwise {@link Double#parseDouble(String)}
+   * is used.
+   *
+   * @return The number or NaN if the characters aren't a decimal number.
+   */
+  static double parseDouble(final char[] chars, final int offset, final int length) {
+    final int end = offset + length;
+    int i = offset;
+    boolean negative = false;
+    if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+      negative = chars[i] == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int digitCount = 0;
+    int significantDigitCount = 0;
+    int exponent = 0;
+    boolean fraction = false;
+    for (; i < end; i++) {
+      final char c = chars[i];
+      if (c >= '0' && c <= '9') {
+        digitCount++;
+        if (mantissa != 0 || c != '0') {
+          significantDigitCount++;
+        }
+        if (significantDigitCount <= 18) {
+          mantissa = mantissa * 10 + c - '0';
+          if (fraction) {
+            exponent--;
+          }
+        } else if (!fraction) {
+          exponent++;
+        }
+      } else if (c == '.' && !fraction) {
+        fraction = true;
+      } else {
+        break;
+      }
+    }
+    if (digitCount == 0) {
+      return Double.NaN;
+    }
+    if (i < end) {
+      final char c = chars[i];
+      if (c == 'e' || c == 'E') {
+        i++;
+        boolean negativeExponent = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+          negativeExponent = chars[i] == '-';
+          i++;
+        }
+        final int exponentStart = i;
+        int exponentValue = 0;
+        for (; i < end; i++) {
+          final char e = chars[i];
+          if (e >= '0' && e <= '9') {
+            if (exponentValue < 10000) {
+              exponentValue = exponentValue * 10 + e - '0';
+            }
+          } else {
+            return Double.NaN;
+          }
+        }
+        if (i == exponentStart) {
+          return Double.NaN;
+        } else if (negativeExponent) {
+          exponent -= exponentValue;
+        } else {
+          exponent += exponentValue;
+        }
+      } else {
+        return Double.NaN;
+      }
+    }
+    if (significantDigitCount <= 15 && exponent >= -22 && exponent <= 22) {
+      double value = mantissa;
+      if (exponent < 0) {
+        value /= POWERS_OF_10[-exponent];
+      } else {
+        value *= POWERS_OF_10[exponent];
+      }
+      if (negative) {
+        return -value;
+      } else {
+        return value;
+      }
+    } else {
+      return Double.parseDouble(new String(chars, offset, length));
+    }
+  }
+
+  /**
+   * Parse an integer.
+   *
+   * @return The number or {@link Long#MIN_VALUE} if the characters aren't an
+   *         integer or the integer is out of range.
+   */
+  static long parseLong(final char[] chars, final int offset, final int length) {
+    final int end = offset + length;
+    int i = offset;
+    boolean negative = false;
+    if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+      negative = chars[i] == '-';
+      i++;
+    }
+    if (i == end || end - i > 18) {
+      return Long.MIN_VALUE;
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      final char c = chars[i];
+      if (c >= '0' && c <= '9') {
+        value = value * 10 + c - '0';
+      } else {
+        return Long.MIN_VALUE;
+      }
+    }
+    if (negative) {
+      return -value;
+    } else {
+      return value;
+    }
+  }
+
+  private final int columnCount;
+
+  private final int[] columnTypes;
+
+  private final char fieldSeparator;
+
+  private final int[] fieldIndexes;
+
+  private GeometryFactory geometryFactory;
+
+  private String pointXFieldName;
+
+  private String pointYFieldName;
+
+  private final RecordDefinition recordDefinition;
+
+  private final RecordFactory<? extends Record> recordFactory;
+
+  private final WktParser[] wktParsers;
+
+  /**
+   * Construct a new parser.
+   *
+   * @param recordDefinition The record definition for the records.
+   * @param recordFactory The factory to create the records.
+   * @param columnNames The names of the columns in the file in the order they
+   *          appear in the file. Columns that are not fields in the record
+   *          definition are ignored.
+   * @param fieldSeparator The field separator character.
+   */
+  public CsvRecordParser(final RecordDefinition recordDefinition,
+    final RecordFactory<? extends Record> recordFactory, final List<String> columnNames,
+    final char fieldSeparator) {
+    this.recordDefinition = recordDefinition;
+    this.recordFactory = recordFactory;
+    this.fieldSeparator = fieldSeparator;
+    this.columnCount = columnNames.size();
+    this.fieldIndexes = new int[this.columnCount];
+    this.columnTypes = new int[this.columnCount];
+    this.wktParsers = new WktParser[this.columnCount];
+    for (int column = 0; column < this.columnCount; column++) {
+      final String columnName = columnNames.get(column);
+      int fieldIndex = -1;
+      if (columnName != null) {
+        fieldIndex = recordDefinition.getFieldIndex(columnName);
+      }
+      this.fieldIndexes[column] = fieldIndex;
+      if (fieldIndex != -1) {
+        final FieldDefinition field = recordDefinition.getField(fieldIndex);
+        final Class<?> javaClass = field.getDataType().getJavaClass();
+        if (javaClass == String.class) {
+          this.columnTypes[column] = STRING;
+        } else if (javaClass == Integer.class) {
+          this.columnTypes[column] = INTEGER;
+        } else if (javaClass == Long.class) {
+          this.columnTypes[column] = LONG;
+        } else if (javaClass == Byte.class) {
+          this.columnTypes[column] = BYTE;
+        } else if (javaClass == Short.class) {
+          this.columnTypes[column] = SHORT;
+        } else if (javaClass == Double.class) {
+          this.columnTypes[column] = DOUBLE;
+        } else if (javaClass == BigDecimal.class) {
+          this.columnTypes[column] = BIG_DECIMAL;
+        } else if (javaClass == Boolean.class) {
+          this.columnTypes[column] = BOOLEAN;
+        } else if (javaClass == java.sql.Date.class) {
+          this.columnTypes[column] = SQL_DATE;
+        } else if (field instanceof GeometryFieldDefinition
+          && Geometry.class.isAssignableFrom(javaClass)) {
+          this.columnTypes[column] = GEOMETRY;
+          this.wktParsers[column] = new WktParser(field.getGeometryFactory());
+        } else {
+          this.columnTypes[column] = OTHER;
+        }
+      }
+    }
+  }
+
+  public RecordDefinition getRecordDefinition() {
+    return this.recordDefinition;
+  }
+
+  /**
+   * Parse the records in the block and pass them to the action in the order
+   * they appear in the block.
+   *
+   * @param block The block of characters that starts and ends on a record
+   *          boundary.
+   * @param action The action to call for each record.
+   */
+  public void parseRecords(final CharBuffer block, final Consumer<? super Record> action) {
+    final char[] chars = block.array();
+    final int start = block.arrayOffset() + block.position();
+    final int end = block.arrayOffset() + block.limit();
+    parseRecords(chars, start, end, action);
+  }
+
+  /**
+   * Parse the records in the characters from start to end and pass them to the
+   * action in the order they appear in the characters.
+   *
+   * @param chars The characters.
+   * @param start The index of the first character of the first record.
+   * @param end The index after the last character of the last record.
+   * @param action The action to call for each record.
+   */
+  public void parseRecords(final char[] chars, final int start, final int end,
+    final Consumer<? super Record> action) {
+    final char fieldSeparator = this.fieldSeparator;
+    char[] unescaped = null;
+    int i = start;
+    while (i < end) {
+      char c = chars[i];
+      if (c == '\n' || c == '\r') {
+        // skip empty lines
+        i++;
+      } else {
+        Record record = null;
+        int column = 0;
+        boolean endOfRecord = false;
+        do {
+          boolean separator = false;
+          char[] valueChars = chars;
+          int valueStart;
+          int valueEnd;
+          boolean quoted = false;
+          if (chars[i] == '"') {
+            quoted = true;
+            int quoteIndex = i + 1;
+            while (quoteIndex < end && chars[quoteIndex] != '"') {
+              quoteIndex++;
+            }
+            final int nextIndex = quoteIndex + 1;
+            if (nextIndex >= end || chars[nextIndex] == fieldSeparator
+              || chars[nextIndex] == '\n' || chars[nextIndex] == '\r') {
+              valueStart = i + 1;
+              valueEnd = Math.min(quoteIndex, end);
+              i = Math.min(nextIndex, end);
+            } else {
+              // Escaped quotes or characters after the closing quote
+              if (unescaped == null) {
+                unescaped = new char[256];
+              }
+              int length = 0;
+              boolean inQuotes = true;
+              i++;
+              while (i < end) {
+                c = chars[i];
+                if (inQuotes) {
+                  if (c == '"') {
+                    if (i + 1 < end && chars[i + 1] == '"') {
+                      unescaped = append(unescaped, length++, '"');
+                      i++;
+                    } else {
+                      inQuotes = false;
+                    }
+                  } else {
+                    unescaped = append(unescaped, length++, c);
+                  }
+                } else if (c == fieldSeparator || c == '\n' || c == '\r') {
+                  break;
+                } else if (c == '"') {
+                  inQuotes = true;
+                } else {
+                  unescaped = append(unescaped, length++, c);
+                }
+                i++;
+              }
+              valueChars = unescaped;
+              valueStart = 0;
+              valueEnd = length;
+            }
+          } else {
+            valueStart = i;
+            while (i < end && (c = chars[i]) != fieldSeparator && c != '\n' && c != '\r') {
+              i++;
+            }
+            valueEnd = i;
+          }
+          if (i >= end) {
+            endOfRecord = true;
+          } else {
+            c = chars[i++];
+            if (c == fieldSeparator) {
+              separator = true;
+              if (i == end) {
+                // The empty last value is null
+                endOfRecord = true;
+              }
+            } else {
+              endOfRecord = true;
+              if (c == '\r' && i < end && chars[i] == '\n') {
+                i++;
+              }
+            }
+          }
+          if (record == null && endOfRecord && !separator && valueStart == valueEnd) {
+            // skip lines with a single empty value
+          } else {
+            if (record == null) {
+              record = this.recordFactory.newRecord(this.recordDefinition);
+            }
+            setValue(record, column++, valueChars, valueStart, valueEnd, quoted);
+          }
+        } while (!endOfRecord);
+        if (record != null) {
+          setPointGeometry(record);
+          action.accept(record);
+        }
+      }
+    }
+  }
+
+  private void setPointGeometry(final Record record) {
+    if (this.pointXFieldName != null) {
+      final Double x = Maps.getDouble(record, this.pointXFieldName);
+      final Double y = Maps.getDouble(record, this.pointYFieldName);
+      if (x != null && y != null) {
+        final Geometry geometry = this.geometryFactory.point(x, y);
+        record.setGeometryValue(geometry);
+      }
+    }
+  }
+
+  /**
+   * Set the names of the fields that contain the x and y coordinates used to
+   * create a point geometry for each record.
+   */
+  public void setPointFields(final GeometryFactory geometryFactory,
+    final String pointXFieldName, final String pointYFieldName) {
+    if (Property.hasValue(pointXFieldName) && Property.hasValue(pointYFieldName)) {
+      this.geometryFactory = geometryFactory;
+      this.pointXFieldName = pointXFieldName;
+      this.pointYFieldName = pointYFieldName;
+    } else {
+      this.pointXFieldName = null;
+      this.pointYFieldName = null;
+    }
+  }
+
+  private void setValue(final Record record, final int column, final char[] chars,
+    final int start, final int end, final boolean quoted) {
+    if (column >= this.columnCount) {
+      return;
+    }
+    final int fieldIndex = this.fieldIndexes[column];
+    if (fieldIndex == -1) {
+      return;
+    }
+    final int length = end - start;
+    if (length == 0) {
+      if (quoted) {
+        record.setValue(fieldIndex, "");
+      }
+      return;
+    }
+    Object value = null;
+    switch (this.columnTypes[column]) {
+      case STRING:
+        value = new String(chars, start, length);
+      break;
+      case INTEGER: {
+        final long number = parseLong(chars, start, length);
+        if (number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+          value = (int)number;
+        }
+      }
+      break;
+      case LONG: {
+        final long number = parseLong(chars, start, length);
+        if (number != Long.MIN_VALUE) {
+          value = number;
+        }
+      }
+      break;
+      case BYTE: {
+        final long number = parseLong(chars, start, length);
+        if (number >= Byte.MIN_VALUE && number <= Byte.MAX_VALUE) {
+          value = (byte)number;
+        }
+      }
+      break;
+      case SHORT: {
+        final long number = parseLong(chars, start, length);
+        if (number >= Short.MIN_VALUE && number <= Short.MAX_VALUE) {
+          value = (short)number;
+        }
+      }
+      break;
+      case DOUBLE: {
+        final double number = parseDouble(chars, start, length);
+        if (!Double.isNaN(number)) {
+          value = number;
+        }
+      }
+      break;
+      case BIG_DECIMAL:
+        try {
+          value = new BigDecimal(chars, start, length);
+        } catch (final NumberFormatException e) {
+        }
+      break;
+      case BOOLEAN:
+        if (equalsIgnoreCase(chars, start, length, "true")) {
+          value = Boolean.TRUE;
+        } else if (equalsIgnoreCase(chars, start, length, "false")) {
+          value = Boolean.FALSE;
+        }
+      break;
+      case SQL_DATE:
+        if (length == 10 && chars[start + 4] == '-' && chars[start + 7] == '-') {
+          final int year = parseDigits(chars, start, 4);
+          final int month = parseDigits(chars, start + 5, 2);
+          final int day = parseDigits(chars, start + 8, 2);
+          if (year != -1 && month >= 1 && month <= 12 && day >= 1 && day <= 31) {
+            try {
+              value = java.sql.Date.valueOf(LocalDate.of(year, month, day));
+            } catch (final RuntimeException e) {
+            }
+          }
+        }
+      break;
+      case GEOMETRY:
+        try {
+          final Geometry geometry = this.wktParsers[column].parseGeometry(chars, start,
+            length, false);
+          record.setValue(fieldIndex, geometry);
+          return;
+        } catch (final RuntimeException e) {
+        }
+      break;
+      default:
+      break;
+    }
+    if (value == null) {
+      value = toFieldValue(fieldIndex, new String(chars, start, length));
+    }
+    record.setValue(fieldIndex, value);
+  }
+
+  /**
+   * Convert the string to the field's type using the field's conversion. If the
+   * string can't be converted a warning is logged and the string is returned.
+   */
+  private Object toFieldValue(final int fieldIndex, final String string) {
+    final FieldDefinition field = this.recordDefinition.getField(fieldIndex);
+    try {
+      return field.toFieldValueException(string);
+    } catch (final Throwable e) {
+      Logs.warn(this, "Invalid value " + field.getName() + "='" + string + "' for "
+        + field.getDataType() + " in " + this.recordDefinition.getPath(), e);
+      return string;
+    }
+  }
+}
@@ -2,9 +2,12 @@ package com.revolsys.record.io.format.csv;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.jeometry.common.logging.Logs;
 
@@ -16,17 +19,33 @@ import com.revolsys.record.io.AbstractRecordReader;
 import com.revolsys.record.schema.RecordDefinition;
 import com.revolsys.spring.resource.Resource;
 
+/**
+ * Read the records from a CSV file. The header is read a character at a time,
+ * the rest of the file is read in blocks of characters that end on a record
+ * boundary and are parsed by a {@link CsvRecordParser}. Use
+ * {@link #parallelStream()} to parse the blocks on multiple threads.
+ */
 public class CsvRecordReader extends AbstractRecordReader {
+  private static final int BLOCK_SIZE = 64 * 1024;
+
+  private CsvBlockReader blockReader;
+
   private final char fieldSeparator;
 
+  private List<String> fieldNames;
+
   private BufferedReader in;
 
+  private CsvRecordParser parser;
+
+  private int recordIndex;
+
+  private final List<Record> records = new ArrayList<>();
+
   private Resource resource;
 
   private final StringBuilder sb = new StringBuilder(1024);
 
-  private List<String> fieldNames;
-
   public CsvRecordReader(final Resource resource) {
     this(resource, ArrayRecord.FACTORY, Csv.FIELD_SEPARATOR);
   }
@@ -60,6 +79,11 @@ public class CsvRecordReader extends AbstractRecordReader {
   @Override
   protected void closeDo() {
     super.closeDo();
+    this.records.clear();
+    if (this.blockReader != null) {
+      this.blockReader.close();
+      this.blockReader = null;
+    }
     final BufferedReader in = this.in;
     if (in != null) {
       try {
@@ -73,16 +97,26 @@ public class CsvRecordReader extends AbstractRecordReader {
 
   @Override
   protected Record getNext() {
-    try {
-      final List<String> row = readNextRow();
-      if (row != null && row.size() > 0) {
-        return parseRecord(this.fieldNames, row);
-      } else {
+    final List<Record> records = this.records;
+    while (this.recordIndex >= records.size()) {
+      if (this.blockReader == null) {
         throw new NoSuchElementException();
       }
-    } catch (final IOException e) {
-      throw new RuntimeException(e.getMessage(), e);
+      try {
+        final CharBuffer block = this.blockReader.readBlock();
+        if (block == null) {
+          throw new NoSuchElementException();
+        }
+        records.clear();
+        this.recordIndex = 0;
+        this.parser.parseRecords(block, records::add);
+      } catch (final IOException e) {
+        throw new RuntimeException(e.getMessage(), e);
+      }
     }
+    final Record record = records.get(this.recordIndex);
+    records.set(this.recordIndex++, null);
+    return record;
   }
 
   @Override
@@ -96,6 +130,13 @@ public class CsvRecordReader extends AbstractRecordReader {
       if (getRecordDefinition() == null) {
         newRecordDefinition(baseName, line);
       }
+      this.parser = new CsvRecordParser(getRecordDefinition(), getRecordFactory(),
+        this.fieldNames, this.fieldSeparator);
+      if (isHasPointFields()) {
+        this.parser.setPointFields(getGeometryFactory(), getPointXFieldName(),
+          getPointYFieldName());
+      }
+      this.blockReader = new CsvBlockReader(this.in, this.fieldSeparator, BLOCK_SIZE);
     } catch (final IOException e) {
       Logs.error(this, "Unable to open " + this.resource, e);
     } catch (final NoSuchElementException e) {
@@ -107,6 +148,47 @@ public class CsvRecordReader extends AbstractRecordReader {
     return GeometryFactory.floating2d(this.resource);
   }
 
+  /**
+   * Get a parallel stream of the records. The file is read in blocks of
+   * {@link CsvRecordSpliterator#DEFAULT_BLOCK_SIZE} characters that are parsed
+   * on separate threads.
+   */
+  @Override
+  public Stream<Record> parallelStream() {
+    return parallelStream(CsvRecordSpliterator.DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Get a parallel stream of the records. The file is read sequentially in blocks
+   * of approximately blockSize characters that end on a record boundary. Each
+   * block is parsed by the thread of the {@link java.util.concurrent.ForkJoinPool}
+   * running the stream that processes it. The stream is ordered, use
+   * {@link Stream#forEachOrdered} to process the records in file order or
+   * {@link Stream#unordered()} if the order is not required. This method should
+   * be called before any records are read from this reader, the stream starts
+   * after the last record read by {@link #hasNext()}. Closing the stream closes
+   * this reader.
+   *
+   * @param blockSize The number of characters in each block.
+   * @return The stream.
+   */
+  public Stream<Record> parallelStream(final int blockSize) {
+    open();
+    final CsvBlockReader blockReader = this.blockReader;
+    if (blockReader == null) {
+      return super.parallelStream();
+    } else {
+      blockReader.setBlockSize(blockSize);
+      final List<Record> records = new ArrayList<>(
+        this.records.subList(this.recordIndex, this.records.size()));
+      this.records.clear();
+      this.recordIndex = 0;
+      final CsvRecordSpliterator spliterator = new CsvRecordSpliterator(this.parser,
+        blockReader, records);
+      return StreamSupport.stream(spliterator, true).onClose(this::close);
+    }
+  }
+
   /**
    * Reads the next line from the buffer and converts to a string array.
    *
@@ -0,0 +1,120 @@
+package com.revolsys.record.io.format.csv;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.record.Record;
+
+/**
+ * A {@link Spliterator} over the records in a CSV file. The file is read
+ * sequentially in blocks that start and end on a record boundary and each block
+ * returned by {@link #trySplit()} is parsed by the thread that traverses it, so
+ * the blocks can be parsed in parallel. The prefix is returned by
+ * {@link #trySplit()} so the stream encounter order is the file order.
+ */
+public class CsvRecordSpliterator implements Spliterator<Record> {
+
+  public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+  private CharBuffer block;
+
+  /** The reader for the remaining blocks, null for a spliterator over one block. */
+  private final CsvBlockReader blockReader;
+
+  private final CsvRecordParser parser;
+
+  private int recordIndex;
+
+  private List<Record> records;
+
+  CsvRecordSpliterator(final CsvRecordParser parser, final CsvBlockReader blockReader,
+    final List<Record> records) {
+    this.parser = parser;
+    this.blockReader = blockReader;
+    this.records = records;
+  }
+
+  private CsvRecordSpliterator(final CsvRecordParser parser, final CharBuffer block) {
+    this.parser = parser;
+    this.blockReader = null;
+    this.block = block;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL;
+  }
+
+  @Override
+  public long estimateSize() {
+    if (this.blockReader != null) {
+      return Long.MAX_VALUE;
+    } else if (this.records != null) {
+      return this.records.size() - this.recordIndex;
+    } else if (this.block != null) {
+      // Assume around 100 characters per record
+      return this.block.remaining() / 100 + 1;
+    } else {
+      return 0;
+    }
+  }
+
+  private boolean hasRecords() {
+    return this.records != null && this.recordIndex < this.records.size();
+  }
+
+  private CharBuffer readBlock() {
+    try {
+      return this.blockReader.readBlock();
+    } catch (final IOException e) {
+      throw Exceptions.wrap("Unable to read CSV", e);
+    }
+  }
+
+  @Override
+  public boolean tryAdvance(final Consumer<? super Record> action) {
+    while (!hasRecords()) {
+      this.records = null;
+      if (this.block == null && this.blockReader != null) {
+        this.block = readBlock();
+      }
+      if (this.block == null) {
+        return false;
+      } else {
+        final List<Record> records = new ArrayList<>();
+        this.parser.parseRecords(this.block, records::add);
+        this.block = null;
+        this.records = records;
+        this.recordIndex = 0;
+      }
+    }
+    final Record record = this.records.get(this.recordIndex);
+    this.records.set(this.recordIndex++, null);
+    action.accept(record);
+    return true;
+  }
+
+  @Override
+  public Spliterator<Record> trySplit() {
+    if (this.blockReader == null || hasRecords()) {
+      // A single block or the current records precede the remaining records
+      return null;
+    }
+    CharBuffer block = this.block;
+    if (block == null) {
+      block = readBlock();
+      if (block == null) {
+        return null;
+      }
+    } else {
+      this.block = null;
+    }
+    return new CsvRecordSpliterator(this.parser, block);
+  }
+}
@@ -13,6 +13,7 @@ import java.util.TreeMap;
 
 import org.jeometry.common.io.PathName;
 
+import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.io.FileUtil;
 import com.revolsys.io.PathUtil;
 import com.revolsys.io.filter.ExtensionFilenameFilter;
@@ -21,7 +22,15 @@ import com.revolsys.record.Record;
 import com.revolsys.record.io.RecordIterator;
 import com.revolsys.record.io.RecordReader;
 import com.revolsys.record.io.RecordWriter;
+import com.revolsys.record.io.format.shp.ShapefileRecordReader;
+import com.revolsys.record.query.AllColumns;
+import com.revolsys.record.query.And;
+import com.revolsys.record.query.ColumnReference;
+import com.revolsys.record.query.Condition;
 import com.revolsys.record.query.Query;
+import com.revolsys.record.query.QueryValue;
+import com.revolsys.record.query.Value;
+import com.revolsys.record.query.functions.EnvelopeIntersects;
 import com.revolsys.record.schema.AbstractRecordStore;
 import com.revolsys.record.schema.FieldDefinition;
 import com.revolsys.record.schema.RecordDefinition;
@@ -35,6 +44,67 @@ import com.revolsys.spring.resource.Resource;
 
 public class DirectoryRecordStore extends AbstractRecordStore {
 
+  private static void addColumnNames(final List<String> fieldNames, final QueryValue queryValue) {
+    if (queryValue instanceof ColumnReference) {
+      final String name = ((ColumnReference)queryValue).getName();
+      if (!fieldNames.contains(name)) {
+        fieldNames.add(name);
+      }
+    } else if (queryValue != null) {
+      for (final QueryValue childValue : queryValue.getQueryValues()) {
+        addColumnNames(fieldNames, childValue);
+      }
+    }
+  }
+
+  /**
+   * Get the bounding box from an {@link EnvelopeIntersects} condition that must be
+   * matched for the condition to be true.
+   */
+  private static BoundingBox getBoundingBox(final Condition condition) {
+    if (condition instanceof EnvelopeIntersects) {
+      final QueryValue right = ((EnvelopeIntersects)condition).getBoundingBox2Value();
+      if (right instanceof Value) {
+        final Object value = ((Value)right).getValue();
+        if (value instanceof BoundingBox) {
+          return (BoundingBox)value;
+        }
+      }
+    } else if (condition instanceof And) {
+      for (final Condition childCondition : ((And)condition).getConditions()) {
+        final BoundingBox boundingBox = getBoundingBox(childCondition);
+        if (boundingBox != null) {
+          return boundingBox;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the names of the fields in the select clause followed by any fields used in
+   * the where clause or null if all the fields are selected.
+   */
+  private static List<String> getFieldNames(final Query query) {
+    final List<QueryValue> select = query.getSelect();
+    if (select.isEmpty()) {
+      return null;
+    } else {
+      final List<String> fieldNames = new ArrayList<>();
+      for (final QueryValue selectValue : select) {
+        if (selectValue instanceof AllColumns) {
+          return null;
+        } else if (selectValue instanceof ColumnReference) {
+          addColumnNames(fieldNames, selectValue);
+        } else {
+          return null;
+        }
+      }
+      addColumnNames(fieldNames, query.getWhereCondition());
+      return fieldNames;
+    }
+  }
+
   private File directory;
 
   private List<String> fileExtensions;
@@ -235,6 +305,13 @@ public class DirectoryRecordStore extends AbstractRecordStore {
     final PathName path = query.getTablePath();
     final RecordReader reader = getRecords(path);
     reader.setProperties(properties);
+    if (reader instanceof ShapefileRecordReader) {
+      final ShapefileRecordReader shapefileReader = (ShapefileRecordReader)reader;
+      final BoundingBox boundingBox = getBoundingBox(query.getWhereCondition());
+      shapefileReader.setBoundingBox(boundingBox);
+      final List<String> fieldNames = getFieldNames(query);
+      shapefileReader.setFieldNames(fieldNames);
+    }
     return new RecordReaderQueryIterator(reader, query);
   }
 
@@ -14,7 +14,10 @@ import org.jeometry.coordinatesystem.model.systems.EpsgCoordinateSystems;
 import com.revolsys.collection.map.MapEx;
 import com.revolsys.geometry.io.GeometryReader;
 import com.revolsys.io.FileUtil;
+import com.revolsys.record.Record;
+import com.revolsys.record.RecordFactory;
 import com.revolsys.record.io.GeometryRecordReaderFactory;
+import com.revolsys.record.io.RecordReader;
 import com.revolsys.record.io.RecordWriter;
 import com.revolsys.record.io.RecordWriterFactory;
 import com.revolsys.record.schema.RecordDefinitionProxy;
@@ -56,6 +59,12 @@ public class GeoJson extends GeometryRecordReaderFactory implements RecordWriter
 
   public static final String PROPERTIES = "properties";
 
+  /**
+   * Property to read the features with the {@link GeoJsonRecordReader}, which
+   * also reads the feature properties, instead of the {@link GeoJsonGeometryReader}.
+   */
+  public static final String STREAMING_RECORD_READER = "streamingRecordReader";
+
   public static final String TYPE = "type";
 
   public static final String URN_OGC_DEF_CRS_EPSG = "urn:ogc:def:crs:EPSG::";
@@ -90,6 +99,18 @@ public class GeoJson extends GeometryRecordReaderFactory implements RecordWriter
     return new GeoJsonGeometryReader(resource, properties);
   }
 
+  @Override
+  public RecordReader newRecordReader(final Resource resource,
+    final RecordFactory<? extends Record> recordFactory, final MapEx properties) {
+    if (properties != null && properties.getBoolean(STREAMING_RECORD_READER, false)) {
+      final GeoJsonRecordReader reader = new GeoJsonRecordReader(resource, recordFactory);
+      reader.setProperties(properties);
+      return reader;
+    } else {
+      return super.newRecordReader(resource, recordFactory, properties);
+    }
+  }
+
   @Override
   public RecordWriter newRecordWriter(final String baseName,
     final RecordDefinitionProxy recordDefinition, final OutputStream outputStream,
@@ -0,0 +1,1249 @@
+package com.revolsys.record.io.format.geojson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import org.jeometry.common.data.type.DataType;
+import org.jeometry.common.data.type.DataTypes;
+import org.jeometry.common.io.PathName;
+import org.jeometry.coordinatesystem.model.systems.EpsgId;
+
+import com.revolsys.geometry.model.ClockDirection;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.LinearRing;
+import com.revolsys.geometry.model.Polygon;
+import com.revolsys.geometry.model.impl.LineStringDoubleGeometryFactory;
+import com.revolsys.geometry.model.impl.LinearRingDoubleGeometryFactory;
+import com.revolsys.geometry.model.impl.PolygonImpl;
+import com.revolsys.io.FileUtil;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.RecordFactory;
+import com.revolsys.record.io.AbstractRecordReader;
+import com.revolsys.record.io.format.json.Json;
+import com.revolsys.record.io.format.json.JsonList;
+import com.revolsys.record.io.format.json.JsonObject;
+import com.revolsys.record.io.format.json.JsonObjectHash;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionImpl;
+import com.revolsys.spring.resource.Resource;
+import com.revolsys.util.Property;
+
+/**
+ * A pull based GeoJSON {@link com.revolsys.record.io.RecordReader} that reads
+ * one feature at a time from the stream. Supports a FeatureCollection, a single
+ * Feature or geometry, and a sequence of features or geometries separated by
+ * whitespace, new lines (newline-delimited GeoJSON) or record separator
+ * characters (GeoJSON text sequences).
+ * <p>
+ * The JSON is tokenized directly from a character buffer without creating a
+ * {@link JsonObject} per feature. Coordinate arrays are parsed straight into
+ * a double[] that is used for the coordinates of the geometry. Properties are
+ * set directly on the record.
+ * </p>
+ * <p>
+ * If a record definition is not set, it is created from the properties of the
+ * first {@link #getRecordDefinitionSampleSize()} features. A field has the type
+ * of its values if they all have the same type, DOUBLE for a mix of integer and
+ * decimal numbers and OBJECT for other mixed types or if all the values are null.
+ * Properties that are not in the record definition are ignored. Values in later
+ * features that cannot be converted to the field type are kept as read.
+ * </p>
+ */
+public class GeoJsonRecordReader extends AbstractRecordReader {
+  /**
+   * A feature read before the record definition has been created.
+   */
+  private static final class Feature {
+    private final Geometry geometry;
+
+    private final Object id;
+
+    private final Map<String, Object> properties;
+
+    private Feature(final Map<String, Object> properties, final Object id,
+      final Geometry geometry) {
+      this.properties = properties;
+      this.id = id;
+      this.geometry = geometry;
+    }
+  }
+
+  private static final class Positions {
+    private final int axisCount;
+
+    private final double[] coordinates;
+
+    private final int vertexCount;
+
+    private Positions(final int axisCount, final int vertexCount, final double[] coordinates) {
+      this.axisCount = axisCount;
+      this.vertexCount = vertexCount;
+      this.coordinates = coordinates;
+    }
+  }
+
+  private static final double[] POWERS_OF_10 = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+    1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private static final char RECORD_SEPARATOR = 0x1E;
+
+  private static DataType getDataType(final Object value) {
+    if (value == null) {
+      return null;
+    } else if (value instanceof Long) {
+      return DataTypes.LONG;
+    } else if (value instanceof Double) {
+      return DataTypes.DOUBLE;
+    } else if (value instanceof Boolean) {
+      return DataTypes.BOOLEAN;
+    } else if (value instanceof JsonObject) {
+      return Json.JSON_OBJECT;
+    } else if (value instanceof JsonList) {
+      return Json.JSON_LIST;
+    } else {
+      return DataTypes.STRING;
+    }
+  }
+
+  /**
+   * Get the type that can hold values of both types. Null is used for a type
+   * that is not known yet.
+   */
+  private static DataType widenDataType(final DataType type1, final DataType type2) {
+    if (type1 == null) {
+      return type2;
+    } else if (type2 == null || type1 == type2) {
+      return type1;
+    } else if ((type1 == DataTypes.LONG || type1 == DataTypes.DOUBLE)
+      && (type2 == DataTypes.LONG || type2 == DataTypes.DOUBLE)) {
+      return DataTypes.DOUBLE;
+    } else {
+      return DataTypes.OBJECT;
+    }
+  }
+
+  private final char[] buffer = new char[64 * 1024];
+
+  private int bufferIndex;
+
+  private int bufferLength;
+
+  private double[] coordinateBuffer = new double[1024];
+
+  private int currentCharacter;
+
+  private String geometryFieldName;
+
+  private Reader in;
+
+  private boolean inFeatures;
+
+  private final char[] numberCharacters = new char[64];
+
+  private int numberLength;
+
+  private final double[] position = new double[4];
+
+  private int recordDefinitionSampleSize = 1000;
+
+  private Resource resource;
+
+  private final Deque<Record> sampleRecords = new ArrayDeque<>();
+
+  private final StringBuilder string = new StringBuilder();
+
+  public GeoJsonRecordReader(final Resource resource) {
+    this(resource, ArrayRecord.FACTORY);
+  }
+
+  public GeoJsonRecordReader(final Resource resource,
+    final RecordFactory<? extends Record> recordFactory) {
+    super(recordFactory);
+    this.resource = resource;
+  }
+
+  private int addCoordinates(int coordinateIndex, final int axisCount,
+    final int positionAxisCount) {
+    final int newLength = coordinateIndex + axisCount;
+    if (newLength > this.coordinateBuffer.length) {
+      this.coordinateBuffer = Arrays.copyOf(this.coordinateBuffer,
+        Math.max(newLength, this.coordinateBuffer.length * 2));
+    }
+    for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+      if (axisIndex < positionAxisCount) {
+        this.coordinateBuffer[coordinateIndex++] = this.position[axisIndex];
+      } else {
+        this.coordinateBuffer[coordinateIndex++] = Double.NaN;
+      }
+    }
+    return coordinateIndex;
+  }
+
+  @Override
+  protected void closeDo() {
+    super.closeDo();
+    FileUtil.closeSilent(this.in);
+    this.in = null;
+    this.sampleRecords.clear();
+    this.resource = null;
+  }
+
+  private void expect(final char character) throws IOException {
+    skipWhitespace();
+    if (this.currentCharacter == character) {
+      read();
+    } else {
+      throw newParseException("Expecting '" + character + "'");
+    }
+  }
+
+  private int getAxisCount(final List<?> parts) {
+    int axisCount = 2;
+    for (final Object part : parts) {
+      if (part instanceof Positions) {
+        axisCount = Math.max(axisCount, ((Positions)part).axisCount);
+      } else if (part instanceof List) {
+        axisCount = Math.max(axisCount, getAxisCount((List<?>)part));
+      }
+    }
+    return axisCount;
+  }
+
+  private GeometryFactory getCoordinateSystem(final Object crs) {
+    if (crs instanceof JsonObject) {
+      final Object properties = ((JsonObject)crs).get(GeoJson.PROPERTIES);
+      if (properties instanceof JsonObject) {
+        final String name = ((JsonObject)properties).getString(GeoJson.NAME);
+        if (name != null) {
+          if (name.startsWith(GeoJson.URN_OGC_DEF_CRS_EPSG)) {
+            final int srid = Integer
+              .parseInt(name.substring(GeoJson.URN_OGC_DEF_CRS_EPSG.length()));
+            return GeometryFactory.floating3d(srid);
+          } else if (name.startsWith(GeoJson.EPSG)) {
+            final int srid = Integer.parseInt(name.substring(GeoJson.EPSG.length()));
+            return GeometryFactory.floating3d(srid);
+          }
+        }
+      }
+    }
+    return getGeometryFactory();
+  }
+
+  private GeometryFactory getGeometryFactory(final GeometryFactory geometryFactory,
+    final int axisCount) {
+    if (geometryFactory.getAxisCount() == axisCount) {
+      return geometryFactory;
+    } else {
+      return geometryFactory.convertAxisCount(axisCount);
+    }
+  }
+
+  @Override
+  protected Record getNext() {
+    final Record sampleRecord = this.sampleRecords.pollFirst();
+    if (sampleRecord != null) {
+      return sampleRecord;
+    }
+    try {
+      final Record record = readNextRecord();
+      if (record == null) {
+        throw new NoSuchElementException();
+      } else {
+        return record;
+      }
+    } catch (final IOException e) {
+      throw new RuntimeException("Error reading " + this.resource, e);
+    }
+  }
+
+  @Override
+  public ClockDirection getPolygonRingDirection() {
+    return ClockDirection.COUNTER_CLOCKWISE;
+  }
+
+  /**
+   * Get the number of features used to create the record definition if it was
+   * not set.
+   *
+   * @return The number of features.
+   */
+  public int getRecordDefinitionSampleSize() {
+    return this.recordDefinitionSampleSize;
+  }
+
+  @Override
+  protected void initDo() {
+    super.initDo();
+    this.geometryFieldName = getProperty("geometryColumnName");
+    if (!Property.hasValue(this.geometryFieldName)) {
+      this.geometryFieldName = "GEOMETRY";
+    }
+    this.in = this.resource.newBufferedReader();
+    try {
+      read();
+      if (getRecordDefinition() == null) {
+        final int sampleSize = Math.max(this.recordDefinitionSampleSize, 1);
+        final List<Feature> features = new ArrayList<>();
+        while (features.size() < sampleSize) {
+          final Feature feature = (Feature)readNextFeature();
+          if (feature == null) {
+            break;
+          } else {
+            features.add(feature);
+          }
+        }
+        newRecordDefinition(features);
+        for (final Feature feature : features) {
+          final Record record = newRecord(feature.properties, feature.id, feature.geometry);
+          this.sampleRecords.add(record);
+        }
+      }
+    } catch (final IOException e) {
+      throw new RuntimeException("Error reading " + this.resource, e);
+    }
+  }
+
+  private boolean isNumberStart() {
+    final int c = this.currentCharacter;
+    return c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.';
+  }
+
+  @Override
+  protected GeometryFactory loadGeometryFactory() {
+    return GeometryFactory.floating3d(EpsgId.WGS84);
+  }
+
+  private Geometry newGeometry(final String type, GeometryFactory geometryFactory,
+    final Object coordinates, final List<Geometry> geometries) {
+    if (GeoJson.GEOMETRY_COLLECTION.equals(type)) {
+      if (geometries == null) {
+        return geometryFactory.geometryCollection();
+      } else {
+        return geometryFactory.geometry(geometries);
+      }
+    } else if (GeoJson.POINT.equals(type)) {
+      if (coordinates instanceof double[]) {
+        final double[] position = (double[])coordinates;
+        geometryFactory = getGeometryFactory(geometryFactory, Math.max(2, position.length));
+        return geometryFactory.point(position);
+      } else {
+        return geometryFactory.point();
+      }
+    } else if (GeoJson.LINE_STRING.equals(type)) {
+      if (coordinates instanceof Positions) {
+        return newLineString(geometryFactory, (Positions)coordinates);
+      } else {
+        return geometryFactory.lineString();
+      }
+    } else if (GeoJson.POLYGON.equals(type)) {
+      if (coordinates instanceof List) {
+        final List<?> rings = (List<?>)coordinates;
+        geometryFactory = getGeometryFactory(geometryFactory, getAxisCount(rings));
+        return newPolygon(geometryFactory, rings);
+      } else {
+        return geometryFactory.polygon();
+      }
+    } else if (GeoJson.MULTI_POINT.equals(type)) {
+      if (coordinates instanceof Positions) {
+        final Positions positions = (Positions)coordinates;
+        geometryFactory = getGeometryFactory(geometryFactory, positions.axisCount);
+        return geometryFactory.punctual(positions.axisCount, positions.coordinates);
+      } else {
+        return geometryFactory.punctual();
+      }
+    } else if (GeoJson.MULTI_LINE_STRING.equals(type)) {
+      if (coordinates instanceof List) {
+        final List<?> parts = (List<?>)coordinates;
+        geometryFactory = getGeometryFactory(geometryFactory, getAxisCount(parts));
+        final List<LineString> lines = new ArrayList<>(parts.size());
+        for (final Object part : parts) {
+          if (part instanceof Positions) {
+            lines.add(newLineString(geometryFactory, (Positions)part));
+          }
+        }
+        return geometryFactory.lineal(lines);
+      } else {
+        return geometryFactory.lineal();
+      }
+    } else if (GeoJson.MULTI_POLYGON.equals(type)) {
+      if (coordinates instanceof List) {
+        final List<?> parts = (List<?>)coordinates;
+        geometryFactory = getGeometryFactory(geometryFactory, getAxisCount(parts));
+        final List<Polygon> polygons = new ArrayList<>(parts.size());
+        for (final Object part : parts) {
+          if (part instanceof List) {
+            polygons.add(newPolygon(geometryFactory, (List<?>)part));
+          }
+        }
+        return geometryFactory.polygonal(polygons);
+      } else {
+        return geometryFactory.polygonal();
+      }
+    } else {
+      return null;
+    }
+  }
+
+  private LinearRing newLinearRing(final GeometryFactory geometryFactory,
+    final Positions positions) {
+    final int axisCount = positions.axisCount;
+    final int vertexCount = positions.vertexCount;
+    final double[] coordinates = positions.coordinates;
+    if (geometryFactory.isFloating() && geometryFactory.getAxisCount() == axisCount) {
+      return new LinearRingDoubleGeometryFactory(geometryFactory, axisCount, vertexCount,
+        coordinates);
+    } else {
+      return geometryFactory.linearRing(axisCount, vertexCount, coordinates);
+    }
+  }
+
+  private LineString newLineString(GeometryFactory geometryFactory, final Positions positions) {
+    final int axisCount = positions.axisCount;
+    final int vertexCount = positions.vertexCount;
+    final double[] coordinates = positions.coordinates;
+    geometryFactory = getGeometryFactory(geometryFactory, axisCount);
+    if (geometryFactory.isFloating()) {
+      return new LineStringDoubleGeometryFactory(geometryFactory, axisCount, vertexCount,
+        coordinates);
+    } else {
+      return geometryFactory.lineString(axisCount, vertexCount, coordinates);
+    }
+  }
+
+  private IOException newParseException(final String message) {
+    return new IOException(message + " not '" + (char)this.currentCharacter + "' reading "
+      + this.resource);
+  }
+
+  private Polygon newPolygon(final GeometryFactory geometryFactory, final List<?> parts) {
+    final LinearRing[] rings = new LinearRing[parts.size()];
+    int ringCount = 0;
+    for (final Object part : parts) {
+      if (part instanceof Positions) {
+        rings[ringCount++] = newLinearRing(geometryFactory, (Positions)part);
+      }
+    }
+    if (ringCount == 0) {
+      return geometryFactory.polygon();
+    } else {
+      return new PolygonImpl(geometryFactory, rings, ringCount);
+    }
+  }
+
+  private Record newRecord(final Map<String, Object> properties, final Object id,
+    final Geometry geometry) {
+    final RecordDefinition recordDefinition = getRecordDefinition();
+    final Record record = newRecord();
+    if (properties != null) {
+      for (final Entry<String, Object> entry : properties.entrySet()) {
+        final int fieldIndex = recordDefinition.getFieldIndex(entry.getKey());
+        if (fieldIndex != -1) {
+          record.setValue(fieldIndex, entry.getValue());
+        }
+      }
+    }
+    setIdAndGeometry(record, id, geometry);
+    return record;
+  }
+
+  /**
+   * Create the record definition from the features read before the record
+   * definition was set, widening the type of a field to fit the values in all
+   * the features.
+   */
+  private void newRecordDefinition(final List<Feature> features) {
+    String typePath = getProperty("typePath");
+    if (!Property.hasValue(typePath)) {
+      typePath = "/" + this.resource.getBaseName();
+    }
+    final Map<String, DataType> dataTypes = new LinkedHashMap<>();
+    DataType idDataType = null;
+    for (final Feature feature : features) {
+      final Map<String, Object> properties = feature.properties;
+      if (properties != null) {
+        for (final Entry<String, Object> entry : properties.entrySet()) {
+          final String name = entry.getKey();
+          final DataType dataType = getDataType(entry.getValue());
+          dataTypes.put(name, widenDataType(dataTypes.get(name), dataType));
+        }
+      }
+      idDataType = widenDataType(idDataType, getDataType(feature.id));
+    }
+    final RecordDefinitionImpl recordDefinition = new RecordDefinitionImpl(
+      PathName.newPathName(typePath));
+    for (final Entry<String, DataType> entry : dataTypes.entrySet()) {
+      final String name = entry.getKey();
+      DataType dataType = entry.getValue();
+      if (dataType == null) {
+        dataType = DataTypes.OBJECT;
+      }
+      recordDefinition.addField(name, dataType);
+    }
+    if (idDataType != null && !recordDefinition.hasField("id")) {
+      if (idDataType == DataTypes.LONG) {
+        recordDefinition.addField("id", DataTypes.LONG);
+      } else {
+        recordDefinition.addField("id", DataTypes.STRING);
+      }
+    }
+    if (!recordDefinition.hasField(this.geometryFieldName)) {
+      recordDefinition.addField(this.geometryFieldName, GeometryDataTypes.GEOMETRY);
+    }
+    recordDefinition.setGeometryFactory(getGeometryFactory());
+    setRecordDefinition(recordDefinition);
+  }
+
+  private int read() throws IOException {
+    if (this.bufferIndex == this.bufferLength) {
+      this.bufferLength = this.in.read(this.buffer);
+      this.bufferIndex = 0;
+      if (this.bufferLength <= 0) {
+        this.bufferLength = 0;
+        this.currentCharacter = -1;
+        return -1;
+      }
+    }
+    return this.currentCharacter = this.buffer[this.bufferIndex++];
+  }
+
+  private JsonList readArray() throws IOException {
+    final JsonList list = JsonList.array();
+    read();
+    skipWhitespace();
+    if (this.currentCharacter == ']') {
+      read();
+      return list;
+    }
+    while (true) {
+      list.add(readValue());
+      skipWhitespace();
+      if (this.currentCharacter == ',') {
+        read();
+      } else if (this.currentCharacter == ']') {
+        read();
+        return list;
+      } else {
+        throw newParseException("Expecting ',' or ']'");
+      }
+    }
+  }
+
+  /**
+   * Read a coordinates array. Returns a double[] for a position, a
+   * {@link Positions} for an array of positions or a list for deeper arrays.
+   */
+  private Object readCoordinates() throws IOException {
+    skipWhitespace();
+    if (this.currentCharacter == 'n') {
+      readLiteral("null");
+      return null;
+    }
+    expect('[');
+    skipWhitespace();
+    return readCoordinatesAfterStart();
+  }
+
+  /**
+   * Read a coordinates array where the '[' and any whitespace after it have
+   * already been read.
+   */
+  private Object readCoordinatesAfterStart() throws IOException {
+    if (this.currentCharacter == ']') {
+      read();
+      return Collections.emptyList();
+    } else if (isNumberStart()) {
+      final int axisCount = readPositionAfterStart();
+      return Arrays.copyOf(this.position, axisCount);
+    } else if (this.currentCharacter == '[') {
+      read();
+      skipWhitespace();
+      if (isNumberStart()) {
+        return readPositionsAfterStart();
+      } else {
+        final List<Object> parts = new ArrayList<>();
+        parts.add(readCoordinatesAfterStart());
+        while (true) {
+          skipWhitespace();
+          if (this.currentCharacter == ',') {
+            read();
+            parts.add(readCoordinates());
+          } else if (this.currentCharacter == ']') {
+            read();
+            return parts;
+          } else {
+            throw newParseException("Expecting ',' or ']'");
+          }
+        }
+      }
+    } else {
+      throw newParseException("Expecting coordinates");
+    }
+  }
+
+  private double readDouble() throws IOException {
+    boolean decimal = readNumberCharacters();
+    final char[] chars = this.numberCharacters;
+    final int length = this.numberLength;
+    int index = 0;
+    boolean negative = false;
+    if (chars[0] == '-') {
+      negative = true;
+      index++;
+    } else if (chars[0] == '+') {
+      index++;
+    }
+    long mantissa = 0;
+    int digitCount = 0;
+    int exponent = 0;
+    boolean fraction = false;
+    for (; index < length; index++) {
+      final char c = chars[index];
+      if (c >= '0' && c <= '9') {
+        if (digitCount < 18) {
+          if (mantissa != 0 || c != '0') {
+            digitCount++;
+          }
+          mantissa = mantissa * 10 + (c - '0');
+          if (fraction) {
+            exponent--;
+          }
+        } else {
+          decimal = false;
+          break;
+        }
+      } else if (c == '.') {
+        fraction = true;
+      } else {
+        break;
+      }
+    }
+    if (index < length && decimal) {
+      // Exponent
+      final char c = chars[index];
+      if (c == 'e' || c == 'E') {
+        index++;
+        boolean negativeExponent = false;
+        if (index < length && (chars[index] == '-' || chars[index] == '+')) {
+          negativeExponent = chars[index] == '-';
+          index++;
+        }
+        int exponentValue = 0;
+        for (; index < length && exponentValue < 1000; index++) {
+          exponentValue = exponentValue * 10 + chars[index] - '0';
+        }
+        if (negativeExponent) {
+          exponent -= exponentValue;
+        } else {
+          exponent += exponentValue;
+        }
+      }
+    }
+    if (decimal && digitCount <= 15 && exponent >= -22 && exponent <= 22) {
+      // Exact for up to 15 significant digits and powers of 10 that are exact
+      // as a double
+      double value = mantissa;
+      if (exponent < 0) {
+        value /= POWERS_OF_10[-exponent];
+      } else {
+        value *= POWERS_OF_10[exponent];
+      }
+      if (negative) {
+        return -value;
+      } else {
+        return value;
+      }
+    } else {
+      return Double.parseDouble(new String(chars, 0, length));
+    }
+  }
+
+  /**
+   * Read a feature or geometry.
+   *
+   * @return The record, a {@link Feature} if the record definition has not been
+   * created, or null if it was not a feature or geometry.
+   */
+  private Object readFeature(final boolean topLevel) throws IOException {
+    expect('{');
+    final RecordDefinition recordDefinition = getRecordDefinition();
+    Record record = null;
+    Map<String, Object> properties = null;
+    Object id = null;
+    String type = null;
+    Geometry geometry = null;
+    Object coordinates = null;
+    List<Geometry> geometries = null;
+    GeometryFactory geometryFactory = getGeometryFactory();
+    skipWhitespace();
+    if (this.currentCharacter == '}') {
+      read();
+    } else {
+      while (true) {
+        final String name = readLabel();
+        if (GeoJson.TYPE.equals(name)) {
+          type = readString();
+        } else if (GeoJson.PROPERTIES.equals(name)) {
+          if (recordDefinition == null) {
+            properties = readPropertiesMap();
+          } else {
+            if (record == null) {
+              record = newRecord();
+            }
+            readProperties(record, recordDefinition);
+          }
+        } else if (GeoJson.GEOMETRY.equals(name)) {
+          geometry = readGeometry();
+        } else if (GeoJson.COORDINATES.equals(name)) {
+          coordinates = readCoordinates();
+        } else if (GeoJson.GEOMETRIES.equals(name)) {
+          geometries = readGeometries();
+        } else if (GeoJson.CRS.equals(name)) {
+          geometryFactory = getCoordinateSystem(readValue());
+          if (topLevel) {
+            setGeometryFactory(geometryFactory);
+          }
+        } else if ("id".equals(name)) {
+          id = readValue();
+        } else if (topLevel && GeoJson.FEATURES.equals(name)) {
+          expect('[');
+          this.inFeatures = true;
+          return null;
+        } else {
+          skipValue();
+        }
+        skipWhitespace();
+        if (this.currentCharacter == ',') {
+          read();
+        } else if (this.currentCharacter == '}') {
+          read();
+          break;
+        } else {
+          throw newParseException("Expecting ',' or '}'");
+        }
+      }
+    }
+    if (GeoJson.FEATURE.equals(type)) {
+      if (recordDefinition == null) {
+        return new Feature(properties, id, geometry);
+      } else if (record == null) {
+        return newRecord(properties, id, geometry);
+      } else {
+        setIdAndGeometry(record, id, geometry);
+        return record;
+      }
+    } else if (GeoJson.GEOMETRY_TYPE_NAMES.contains(type)) {
+      geometry = newGeometry(type, geometryFactory, coordinates, geometries);
+      if (recordDefinition == null) {
+        return new Feature(null, null, geometry);
+      } else {
+        return newRecord(null, null, geometry);
+      }
+    } else {
+      return null;
+    }
+  }
+
+  private List<Geometry> readGeometries() throws IOException {
+    skipWhitespace();
+    if (this.currentCharacter == 'n') {
+      readLiteral("null");
+      return null;
+    }
+    expect('[');
+    final List<Geometry> geometries = new ArrayList<>();
+    skipWhitespace();
+    if (this.currentCharacter == ']') {
+      read();
+      return geometries;
+    }
+    while (true) {
+      final Geometry geometry = readGeometry();
+      if (geometry != null) {
+        geometries.add(geometry);
+      }
+      skipWhitespace();
+      if (this.currentCharacter == ',') {
+        read();
+      } else if (this.currentCharacter == ']') {
+        read();
+        return geometries;
+      } else {
+        throw newParseException("Expecting ',' or ']'");
+      }
+    }
+  }
+
+  private Geometry readGeometry() throws IOException {
+    skipWhitespace();
+    if (this.currentCharacter == 'n') {
+      readLiteral("null");
+      return null;
+    }
+    expect('{');
+    String type = null;
+    Object coordinates = null;
+    List<Geometry> geometries = null;
+    GeometryFactory geometryFactory = getGeometryFactory();
+    skipWhitespace();
+    if (this.currentCharacter == '}') {
+      read();
+      return null;
+    }
+    while (true) {
+      final String name = readLabel();
+      if (GeoJson.TYPE.equals(name)) {
+        type = readString();
+      } else if (GeoJson.COORDINATES.equals(name)) {
+        coordinates = readCoordinates();
+      } else if (GeoJson.GEOMETRIES.equals(name)) {
+        geometries = readGeometries();
+      } else if (GeoJson.CRS.equals(name)) {
+        geometryFactory = getCoordinateSystem(readValue());
+      } else {
+        skipValue();
+      }
+      skipWhitespace();
+      if (this.currentCharacter == ',') {
+        read();
+      } else if (this.currentCharacter == '}') {
+        read();
+        return newGeometry(type, geometryFactory, coordinates, geometries);
+      } else {
+        throw newParseException("Expecting ',' or '}'");
+      }
+    }
+  }
+
+  private String readLabel() throws IOException {
+    final String name = readString();
+    expect(':');
+    return name;
+  }
+
+  private void readLiteral(final String literal) throws IOException {
+    for (int i = 0; i < literal.length(); i++) {
+      if (this.currentCharacter != literal.charAt(i)) {
+        throw newParseException("Expecting " + literal);
+      }
+      read();
+    }
+  }
+
+  private Object readNextFeature() throws IOException {
+    while (true) {
+      skipWhitespace();
+      if (this.inFeatures) {
+        if (this.currentCharacter == ',') {
+          read();
+          skipWhitespace();
+        }
+        if (this.currentCharacter == ']') {
+          read();
+          this.inFeatures = false;
+          readObjectEnd();
+        } else {
+          final Object feature = readFeature(false);
+          if (feature != null) {
+            return feature;
+          }
+        }
+      } else if (this.currentCharacter == -1) {
+        return null;
+      } else if (this.currentCharacter == ',') {
+        read();
+      } else {
+        final Object feature = readFeature(true);
+        if (feature != null) {
+          return feature;
+        }
+      }
+    }
+  }
+
+  private Record readNextRecord() throws IOException {
+    return (Record)readNextFeature();
+  }
+
+  /**
+   * Read a number as a Long if it is an integer that fits in a long, otherwise
+   * as a Double.
+   */
+  private Object readNumber() throws IOException {
+    final boolean decimal = readNumberCharacters();
+    final int length = this.numberLength;
+    boolean integer = decimal && length < 19;
+    for (int i = 0; integer && i < length; i++) {
+      final char c = this.numberCharacters[i];
+      if (c == '.' || c == 'e' || c == 'E') {
+        integer = false;
+      }
+    }
+    final String text = new String(this.numberCharacters, 0, length);
+    if (integer) {
+      return Long.valueOf(text);
+    } else {
+      return Double.valueOf(text);
+    }
+  }
+
+  /**
+   * Read the characters of a number into the number buffer.
+   *
+   * @return False if the number was too long for the buffer.
+   */
+  private boolean readNumberCharacters() throws IOException {
+    final char[] chars = this.numberCharacters;
+    int length = 0;
+    boolean decimal = true;
+    while (true) {
+      final int c = this.currentCharacter;
+      if (c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+        if (length < chars.length) {
+          chars[length++] = (char)c;
+        } else {
+          decimal = false;
+        }
+        read();
+      } else {
+        break;
+      }
+    }
+    if (length == 0) {
+      throw newParseException("Expecting number");
+    }
+    this.numberLength = length;
+    return decimal;
+  }
+
+  private void readObjectEnd() throws IOException {
+    while (true) {
+      skipWhitespace();
+      if (this.currentCharacter == ',') {
+        read();
+      } else if (this.currentCharacter == '}') {
+        read();
+        return;
+      } else if (this.currentCharacter == -1) {
+        return;
+      } else {
+        readLabel();
+        skipValue();
+      }
+    }
+  }
+
+  private JsonObject readObjectValue() throws IOException {
+    final JsonObject object = new JsonObjectHash();
+    read();
+    skipWhitespace();
+    if (this.currentCharacter == '}') {
+      read();
+      return object;
+    }
+    while (true) {
+      final String name = readLabel();
+      object.put(name, readValue());
+      skipWhitespace();
+      if (this.currentCharacter == ',') {
+        read();
+      } else if (this.currentCharacter == '}') {
+        read();
+        return object;
+      } else {
+        throw newParseException("Expecting ',' or '}'");
+      }
+    }
+  }
+
+  /**
+   * Read a position where the '[' and any whitespace after it have already been
+   * read into the position buffer.
+   *
+   * @return The number of ordinates.
+   */
+  private int readPositionAfterStart() throws IOException {
+    int axisCount = 0;
+    while (true) {
+      final double value = readDouble();
+      if (axisCount < this.position.length) {
+        this.position[axisCount++] = value;
+      }
+      skipWhitespace();
+      if (this.currentCharacter == ',') {
+        read();
+        skipWhitespace();
+      } else if (this.currentCharacter == ']') {
+        read();
+        return axisCount;
+      } else {
+        throw newParseException("Expecting ',' or ']'");
+      }
+    }
+  }
+
+  /**
+   * Read an array of positions where the '[' of the array and the '[' of the
+   * first position have already been read. The axis count is the axis count of
+   * the first position.
+   */
+  private Positions readPositionsAfterStart() throws IOException {
+    final int axisCount = Math.max(2, readPositionAfterStart());
+    int coordinateIndex = addCoordinates(0, axisCount, axisCount);
+    while (true) {
+      skipWhitespace();
+      if (this.currentCharacter == ',') {
+        read();
+        expect('[');
+        skipWhitespace();
+        final int positionAxisCount = readPositionAfterStart();
+        coordinateIndex = addCoordinates(coordinateIndex, axisCount, positionAxisCount);
+      } else if (this.currentCharacter == ']') {
+        read();
+        final double[] coordinates = Arrays.copyOf(this.coordinateBuffer, coordinateIndex);
+        return new Positions(axisCount, coordinateIndex / axisCount, coordinates);
+      } else {
+        throw newParseException("Expecting ',' or ']'");
+      }
+    }
+  }
+
+  private void readProperties(final Record record, final RecordDefinition recordDefinition)
+    throws IOException {
+    skipWhitespace();
+    if (this.currentCharacter == 'n') {
+      readLiteral("null");
+      return;
+    }
+    expect('{');
+    skipWhitespace();
+    if (this.currentCharacter == '}') {
+      read();
+      return;
+    }
+    while (true) {
+      final String name = readLabel();
+      final int fieldIndex = recordDefinition.getFieldIndex(name);
+      if (fieldIndex == -1) {
+        skipValue();
+      } else {
+        record.setValue(fieldIndex, readValue());
+      }
+      skipWhitespace();
+      if (this.currentCharacter == ',') {
+        read();
+      } else if (this.currentCharacter == '}') {
+        read();
+        return;
+      } else {
+        throw newParseException("Expecting ',' or '}'");
+      }
+    }
+  }
+
+  private Map<String, Object> readPropertiesMap() throws IOException {
+    final Map<String, Object> properties = new LinkedHashMap<>();
+    skipWhitespace();
+    if (this.currentCharacter == 'n') {
+      readLiteral("null");
+      return properties;
+    }
+    expect('{');
+    skipWhitespace();
+    if (this.currentCharacter == '}') {
+      read();
+      return properties;
+    }
+    while (true) {
+      final String name = readLabel();
+      properties.put(name, readValue());
+      skipWhitespace();
+      if (this.currentCharacter == ',') {
+        read();
+      } else if (this.currentCharacter == '}') {
+        read();
+        return properties;
+      } else {
+        throw newParseException("Expecting ',' or '}'");
+      }
+    }
+  }
+
+  private String readString() throws IOException {
+    skipWhitespace();
+    if (this.currentCharacter == 'n') {
+      readLiteral("null");
+      return null;
+    } else if (this.currentCharacter != '"') {
+      throw newParseException("Expecting string");
+    }
+    final StringBuilder string = this.string;
+    string.setLength(0);
+    int c = read();
+    while (c != '"') {
+      if (c == -1) {
+        throw newParseException("Unexpected end of string");
+      } else if (c == '\\') {
+        c = read();
+        switch (c) {
+          case 'b':
+            string.append('\b');
+          break;
+          case 'f':
+            string.append('\f');
+          break;
+          case 'n':
+            string.append('\n');
+          break;
+          case 'r':
+            string.append('\r');
+          break;
+          case 't':
+            string.append('\t');
+          break;
+          case 'u':
+            int unicode = 0;
+            for (int i = 0; i < 4; i++) {
+              final int digit = Character.digit(read(), 16);
+              if (digit == -1) {
+                throw newParseException("Invalid unicode escape");
+              }
+              unicode = unicode * 16 + digit;
+            }
+            string.append((char)unicode);
+          break;
+          case -1:
+            throw newParseException("Unexpected end of string");
+          default:
+            string.append((char)c);
+          break;
+        }
+      } else {
+        string.append((char)c);
+      }
+      c = read();
+    }
+    read();
+    return string.toString();
+  }
+
+  private Object readValue() throws IOException {
+    skipWhitespace();
+    switch (this.currentCharacter) {
+      case '"':
+        return readString();
+      case '{':
+        return readObjectValue();
+      case '[':
+        return readArray();
+      case 't':
+        readLiteral("true");
+        return Boolean.TRUE;
+      case 'f':
+        readLiteral("false");
+        return Boolean.FALSE;
+      case 'n':
+        readLiteral("null");
+        return null;
+      default:
+        if (isNumberStart()) {
+          return readNumber();
+        } else {
+          throw newParseException("Expecting value");
+        }
+    }
+  }
+
+  private void setIdAndGeometry(final Record record, final Object id, final Geometry geometry) {
+    if (id != null) {
+      final int idIndex = record.getRecordDefinition().getFieldIndex("id");
+      if (idIndex != -1 && record.getValue(idIndex) == null) {
+        record.setValue(idIndex, id);
+      }
+    }
+    if (geometry != null) {
+      record.setGeometryValue(geometry);
+    }
+  }
+
+  @Override
+  public void setRecordDefinition(final RecordDefinition recordDefinition) {
+    super.setRecordDefinition(recordDefinition);
+  }
+
+  public void setRecordDefinitionSampleSize(final int recordDefinitionSampleSize) {
+    this.recordDefinitionSampleSize = recordDefinitionSampleSize;
+  }
+
+  private void skipString() throws IOException {
+    int c = read();
+    while (c != '"') {
+      if (c == -1) {
+        throw newParseException("Unexpected end of string");
+      } else if (c == '\\') {
+        read();
+      }
+      c = read();
+    }
+    read();
+  }
+
+  private void skipValue() throws IOException {
+    skipWhitespace();
+    final int c = this.currentCharacter;
+    if (c == '{' || c == '[') {
+      int depth = 0;
+      do {
+        final int current = this.currentCharacter;
+        if (current == '"') {
+          skipString();
+        } else {
+          if (current == '{' || current == '[') {
+            depth++;
+          } else if (current == '}' || current == ']') {
+            depth--;
+          } else if (current == -1) {
+            throw newParseException("Unexpected end of file");
+          }
+          read();
+        }
+      } while (depth > 0);
+    } else if (c == '"') {
+      skipString();
+    } else {
+      readValue();
+    }
+  }
+
+  private void skipWhitespace() throws IOException {
+    int c = this.currentCharacter;
+    while (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == RECORD_SEPARATOR
+      || c == '\uFEFF') {
+      c = read();
+    }
+  }
+
+  @Override
+  public String toString() {
+    if (this.resource == null) {
+      return super.toString();
+    } else {
+      return this.resource.toString();
+    }
+  }
+}
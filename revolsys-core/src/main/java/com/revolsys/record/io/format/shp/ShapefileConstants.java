@@ -79,6 +79,8 @@ public class ShapefileConstants {
 
   public static final int POLYLINE_ZM_SHAPE = 13;
 
+  public static final String SPATIAL_INDEX_FILE_EXTENSION = "rsx";
+
   public static final int UNKNOWN_SHAPE = -1;
 
   public static final int VERSION = 1000;
@@ -125,6 +125,13 @@ public final class ShapefileGeometryUtil {
     return method;
   }
 
+  /**
+   * Grow only buffer the ordinates are read into before they are copied to the
+   * coordinates. The buffer isn't synchronized so readers must use their own
+   * instance, {@link #SHP_INSTANCE} is only used for writing.
+   */
+  private double[] buffer = new double[0];
+
   private final boolean shpFile;
 
   private final boolean writeLength;
@@ -134,6 +141,15 @@ public final class ShapefileGeometryUtil {
     this.writeLength = shpFile;
   }
 
+  private double[] getBuffer(final int length) {
+    double[] buffer = this.buffer;
+    if (buffer.length < length) {
+      buffer = new double[length];
+      this.buffer = buffer;
+    }
+    return buffer;
+  }
+
   public int getShapeType(final Geometry geometry) {
     if (geometry != null) {
       final GeometryFactory geometryFactory = geometry.getGeometryFactory();
@@ -252,8 +268,10 @@ public final class ShapefileGeometryUtil {
 
   public void readCoordinates(final EndianInput in, final int vertexCount, final int axisCount,
     final double[] coordinates, final int axisIndex) throws IOException {
+    final double[] values = getBuffer(vertexCount);
+    in.readLEDoubles(values, 0, vertexCount);
     for (int j = 0; j < vertexCount; j++) {
-      double value = in.readLEDouble();
+      double value = values[j];
       if (value == -Double.MAX_VALUE) {
         value = Double.NaN;
       }
@@ -627,11 +645,15 @@ public final class ShapefileGeometryUtil {
 
   public void readXYCoordinates(final EndianInput in, final int axisCount, final int vertexCount,
     final double[] coordinates) throws IOException {
-    for (int j = 0; j < vertexCount; j++) {
-      final double x = in.readLEDouble();
-      final double y = in.readLEDouble();
-      coordinates[j * axisCount] = x;
-      coordinates[j * axisCount + 1] = y;
+    if (axisCount == 2) {
+      in.readLEDoubles(coordinates, 0, vertexCount * 2);
+    } else {
+      final double[] xyCoordinates = getBuffer(vertexCount * 2);
+      in.readLEDoubles(xyCoordinates, 0, vertexCount * 2);
+      for (int j = 0; j < vertexCount; j++) {
+        coordinates[j * axisCount] = xyCoordinates[j * 2];
+        coordinates[j * axisCount + 1] = xyCoordinates[j * 2 + 1];
+      }
     }
   }
 
@@ -1,14 +1,22 @@
 package com.revolsys.record.io.format.shp;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.jeometry.common.data.type.DataType;
+import org.jeometry.common.exception.Exceptions;
 import org.jeometry.common.io.PathName;
 import org.jeometry.common.logging.Logs;
 
 import com.revolsys.collection.iterator.AbstractIterator;
+import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.ClockDirection;
 import com.revolsys.geometry.model.Geometry;
 import com.revolsys.geometry.model.GeometryDataTypes;
@@ -16,10 +24,11 @@ import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.io.EndOfFileException;
 import com.revolsys.io.FileUtil;
 import com.revolsys.io.IoConstants;
+import com.revolsys.io.RandomAccess;
+import com.revolsys.io.endian.EndianFileChannelInput;
 import com.revolsys.io.endian.EndianInput;
 import com.revolsys.io.endian.EndianInputStream;
 import com.revolsys.io.endian.EndianMappedByteBuffer;
-import com.revolsys.io.endian.LittleEndianRandomAccessFile;
 import com.revolsys.record.Record;
 import com.revolsys.record.RecordFactory;
 import com.revolsys.record.Records;
@@ -31,10 +40,16 @@ import com.revolsys.spring.resource.Resource;
 import com.revolsys.util.Property;
 
 public class ShapefileRecordReader extends AbstractIterator<Record> implements RecordReader {
+  private BoundingBox boundingBox;
+
   private boolean closeFile = true;
 
+  private List<String> fieldNames;
+
   private GeometryFactory geometryFactory;
 
+  private final ShapefileGeometryUtil geometryUtil = new ShapefileGeometryUtil(true);
+
   private EndianInput in;
 
   private EndianMappedByteBuffer indexIn;
@@ -47,12 +62,24 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
 
   private RecordFactory recordFactory;
 
+  private int[] recordIndexes;
+
+  private int recordIndexesIndex;
+
+  private int recordRangeEnd = -1;
+
+  private int recordRangeStart = 0;
+
   private Resource resource;
 
   private RecordDefinition returnRecordDefinition;
 
   private int shapeType;
 
+  private ShapefileShxIndex shxIndex;
+
+  private ShapefileSpatialIndex spatialIndex;
+
   private PathName typeName;
 
   private XbaseRecordReader xbaseRecordReader;
@@ -83,12 +110,70 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
     this.in = null;
     this.indexIn = null;
     this.recordDefinition = null;
+    this.recordIndexes = null;
     this.resource = null;
+    this.shxIndex = null;
+    this.spatialIndex = null;
     this.xbaseRecordReader = null;
   }
 
+  public BoundingBox getBoundingBox() {
+    return this.boundingBox;
+  }
+
+  public List<String> getFieldNames() {
+    return this.fieldNames;
+  }
+
   @Override
   protected Record getNext() {
+    if (this.boundingBox == null || this.spatialIndex != null) {
+      return readNext();
+    } else {
+      while (true) {
+        final Record record = readNext();
+        final Geometry geometry = record.getGeometry();
+        if (geometry != null && geometry.bboxIntersects(this.boundingBox)) {
+          return record;
+        }
+      }
+    }
+  }
+
+  /**
+   * Read the next record from the candidate records returned from the spatial index
+   * seeking directly to the shape in the .shp file and the row in the .dbf file.
+   */
+  private Record getNextIndexed() {
+    try {
+      while (this.recordIndexesIndex < this.recordIndexes.length) {
+        final int recordIndex = this.recordIndexes[this.recordIndexesIndex++];
+        final Record record;
+        if (this.xbaseRecordReader == null) {
+          record = newRecord();
+        } else {
+          record = this.xbaseRecordReader.getRecord(recordIndex);
+        }
+        if (record != null) {
+          this.position = recordIndex;
+          final long offset = this.shxIndex.getShapeOffset(recordIndex);
+          ((RandomAccess)this.in).seek(offset);
+          try {
+            final Geometry geometry = readGeometry();
+            record.setGeometryValue(geometry);
+          } catch (final IllegalArgumentException e) {
+            Logs.error(this, "Error reading geometry from:" + this.resource + "\n" + record, e);
+          }
+          return record;
+        }
+      }
+    } catch (final IOException e) {
+      throw new RuntimeException("Error reading geometry " + this.resource, e);
+    }
+    throw new NoSuchElementException();
+  }
+
+  private Record getNextSequential() {
     Record record;
     try {
       if (this.xbaseRecordReader != null) {
@@ -102,7 +187,7 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
           throw new NoSuchElementException();
         }
       } else {
-        record = this.recordFactory.newRecord(this.recordDefinition);
+        record = newRecord();
       }
 
       try {
@@ -116,13 +201,7 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
     } catch (final IOException e) {
       throw new RuntimeException("Error reading geometry " + this.resource, e);
     }
-    if (this.returnRecordDefinition == null) {
-      return record;
-    } else {
-      final Record copy = this.recordFactory.newRecord(this.returnRecordDefinition);
-      copy.setValues(record);
-      return copy;
-    }
+    return record;
   }
 
   @Override
@@ -130,6 +209,21 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
     return ClockDirection.CLOCKWISE;
   }
 
+  /**
+   * Get the .shx index for the shapefile if the records can be read by record number.
+   *
+   * @return The index or null if random access is not supported.
+   */
+  private ShapefileShxIndex getShxIndex() {
+    open();
+    if (this.shxIndex == null && this.in instanceof RandomAccess) {
+      if (this.xbaseRecordReader == null || this.xbaseRecordReader.isRandomAccess()) {
+        this.shxIndex = ShapefileShxIndex.read(this.resource);
+      }
+    }
+    return this.shxIndex;
+  }
+
   public int getPosition() {
     return this.position;
   }
@@ -155,8 +249,8 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
       try {
         try {
           if (this.resource.isFile()) {
-            final File file = this.resource.getFile();
-            this.in = new LittleEndianRandomAccessFile(file, "r");
+            final Path path = this.resource.getPath();
+            this.in = new EndianFileChannelInput(path);
           } else {
             this.in = new EndianInputStream(this.resource.getInputStream());
           }
@@ -170,6 +264,8 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
             () -> updateRecordDefinition());
           this.xbaseRecordReader.setTypeName(this.typeName);
           this.xbaseRecordReader.setCloseFile(this.closeFile);
+          this.xbaseRecordReader.setFieldNames(this.fieldNames);
+          this.xbaseRecordReader.setReturnRecordDefinition(this.returnRecordDefinition);
         }
         loadHeader();
         int axisCount;
@@ -215,16 +311,162 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
           this.recordDefinition = Records.newGeometryRecordDefinition();
         }
         this.recordDefinition.setGeometryFactory(this.geometryFactory);
+        initRecordIndexes();
       } catch (final IOException e) {
         throw new RuntimeException("Error initializing mappedFile " + this.resource, e);
       }
     }
   }
 
+  private void initRecordIndexes() {
+    if (this.boundingBox != null) {
+      this.boundingBox = this.boundingBox.bboxToCs(this.geometryFactory);
+    }
+    if (this.recordIndexes != null) {
+      return;
+    }
+    final boolean hasRange = this.recordRangeEnd >= 0;
+    if ((this.boundingBox != null || hasRange) && this.in instanceof RandomAccess) {
+      if (this.xbaseRecordReader == null || this.xbaseRecordReader.isRandomAccess()) {
+        if (this.boundingBox != null) {
+          this.spatialIndex = ShapefileSpatialIndex.getSpatialIndex(this.resource);
+        }
+        if (this.spatialIndex == null) {
+          if (hasRange) {
+            this.shxIndex = ShapefileShxIndex.read(this.resource);
+            if (this.shxIndex != null) {
+              final int end = Math.min(this.recordRangeEnd, this.shxIndex.getRecordCount());
+              this.recordIndexes = newRecordIndexes(this.recordRangeStart, end);
+            }
+          }
+        } else {
+          this.shxIndex = this.spatialIndex.getShxIndex();
+          int[] recordIndexes = this.spatialIndex.getRecordIndexes(this.boundingBox);
+          if (hasRange) {
+            int count = 0;
+            for (final int recordIndex : recordIndexes) {
+              if (recordIndex >= this.recordRangeStart && recordIndex < this.recordRangeEnd) {
+                recordIndexes[count++] = recordIndex;
+              }
+            }
+            recordIndexes = Arrays.copyOf(recordIndexes, count);
+          }
+          this.recordIndexes = recordIndexes;
+        }
+        this.recordIndexesIndex = 0;
+      }
+    }
+    if (hasRange && this.recordIndexes == null) {
+      throw new IllegalStateException(
+        "A record range can only be read from a local shapefile with a .shx file " + this.resource);
+    }
+  }
+
   public boolean isCloseFile() {
     return this.closeFile;
   }
 
+  /**
+   * Construct a reader for the records in a chunk of a parallel scan. The reader
+   * reads the .dbf header into its own record definition and field state. The
+   * records it returns use this reader's record definition, which isn't modified,
+   * so all the records share the same definition. The geometry factory and
+   * indexes are shared as they are read only.
+   */
+  ShapefileRecordReader newChunkReader(final int[] recordIndexes) {
+    try {
+      final ShapefileRecordReader reader = new ShapefileRecordReader(this.resource,
+        this.recordFactory);
+      reader.typeName = this.typeName;
+      reader.boundingBox = this.boundingBox;
+      if (this.fieldNames != null) {
+        reader.fieldNames = new ArrayList<>(this.fieldNames);
+      }
+      reader.setProperty(IoConstants.GEOMETRY_FACTORY, this.geometryFactory);
+      if (this.returnRecordDefinition == null) {
+        reader.returnRecordDefinition = this.recordDefinition;
+      } else {
+        reader.returnRecordDefinition = this.returnRecordDefinition;
+      }
+      reader.shxIndex = this.shxIndex;
+      reader.spatialIndex = this.spatialIndex;
+      reader.recordIndexes = recordIndexes;
+      return reader;
+    } catch (final IOException e) {
+      throw Exceptions.wrap(e);
+    }
+  }
+
+  private Record newRecord() {
+    if (this.returnRecordDefinition == null) {
+      return this.recordFactory.newRecord(this.recordDefinition);
+    } else {
+      return this.recordFactory.newRecord(this.returnRecordDefinition);
+    }
+  }
+
+  private int[] newRecordIndexes(final int start, final int end) {
+    final int[] recordIndexes = new int[Math.max(0, end - start)];
+    for (int i = 0; i < recordIndexes.length; i++) {
+      recordIndexes[i] = start + i;
+    }
+    return recordIndexes;
+  }
+
+  /**
+   * Get a parallel stream of the records. If the shapefile is a local file with a
+   * .shx file the records are split into chunks of
+   * {@link ShapefileRecordSpliterator#DEFAULT_CHUNK_SIZE} records that are read by
+   * separate readers, otherwise the records are read sequentially.
+   */
+  @Override
+  public Stream<Record> parallelStream() {
+    return parallelStream(ShapefileRecordSpliterator.DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Get a parallel stream of the records split into chunks of chunkSize records.
+   * Each chunk is read using its own file handles, so the chunks can be read on
+   * separate threads of the {@link java.util.concurrent.ForkJoinPool} running the
+   * stream. The stream is ordered, use {@link Stream#forEachOrdered} to process the
+   * records in file order or {@link Stream#unordered()} if the order is not required.
+   * Closing the stream closes this reader and any chunk readers still open.
+   *
+   * @param chunkSize The number of records in each chunk.
+   * @return The stream.
+   */
+  public Stream<Record> parallelStream(final int chunkSize) {
+    final Spliterator<Record> spliterator = newSpliterator(chunkSize);
+    if (spliterator == null) {
+      return RecordReader.super.parallelStream();
+    } else {
+      return StreamSupport.stream(spliterator, true).onClose(() -> {
+        ((ShapefileRecordSpliterator)spliterator).close();
+        close();
+      });
+    }
+  }
+
+  /**
+   * Construct a new spliterator that reads the records in chunks of chunkSize records
+   * using a separate reader for each chunk. This reader is only used to provide the
+   * configuration and indexes and is not read from.
+   *
+   * @param chunkSize The number of records in each chunk.
+   * @return The spliterator or null if the records can't be read by record number.
+   */
+  public Spliterator<Record> newSpliterator(final int chunkSize) {
+    final ShapefileShxIndex shxIndex = getShxIndex();
+    if (shxIndex == null) {
+      return null;
+    } else if (this.recordIndexes == null) {
+      return new ShapefileRecordSpliterator(this, null, 0, shxIndex.getRecordCount(), chunkSize);
+    } else {
+      return new ShapefileRecordSpliterator(this, this.recordIndexes, this.recordIndexesIndex,
+        this.recordIndexes.length, chunkSize);
+    }
+  }
+
   /**
    * Load the header record from the shape mappedFile.
    *
@@ -252,7 +494,7 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
     final int recordNumber = this.in.readInt();
     final int recordLength = this.in.readInt();
     final int shapeType = this.in.readLEInt();
-    final ShapefileGeometryUtil util = ShapefileGeometryUtil.SHP_INSTANCE;
+    final ShapefileGeometryUtil util = this.geometryUtil;
     switch (shapeType) {
       case ShapefileConstants.NULL_SHAPE:
         switch (this.shapeType) {
@@ -320,6 +562,22 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
     }
   }
 
+  /**
+   * Only return the records whose geometry bounding box intersects the bounding box.
+   * If the .shx file exists the records are read using the spatial index (.rsx)
+   * which is created if it does not exist or is out of date. Must be set before
+   * the reader is opened.
+   *
+   * @param boundingBox The bounding box to filter the records by.
+   */
+  public void setBoundingBox(final BoundingBox boundingBox) {
+    if (boundingBox == null || boundingBox.isEmpty()) {
+      this.boundingBox = null;
+    } else {
+      this.boundingBox = boundingBox;
+    }
+  }
+
   public void setCloseFile(final boolean closeFile) {
     this.closeFile = closeFile;
     if (this.xbaseRecordReader != null) {
@@ -327,6 +585,36 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
     }
   }
 
+  /**
+   * Only read the named fields from the .dbf file. The geometry is always read.
+   * Must be set before the reader is opened.
+   *
+   * @param fieldNames The names of the fields to read, null to read all fields.
+   */
+  public void setFieldNames(final List<String> fieldNames) {
+    if (fieldNames == null) {
+      this.fieldNames = null;
+    } else {
+      this.fieldNames = new ArrayList<>(fieldNames);
+    }
+  }
+
+  /**
+   * Only read the records with a record number (0 based) &gt;= start and &lt; end.
+   * Requires a local shapefile with a .shx file. Must be set before the reader is
+   * opened.
+   *
+   * @param start The index of the first record to read.
+   * @param end The index after the last record to read.
+   */
+  public void setRecordRange(final int start, final int end) {
+    if (start < 0 || end < start) {
+      throw new IllegalArgumentException("Invalid record range " + start + ".." + end);
+    }
+    this.recordRangeStart = start;
+    this.recordRangeEnd = end;
+  }
+
   public void setRecordDefinition(final RecordDefinition recordDefinition) {
     this.returnRecordDefinition = recordDefinition;
     ((RecordDefinitionImpl)recordDefinition).setPolygonRingDirection(ClockDirection.CLOCKWISE);
@@ -338,6 +626,14 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
     }
   }
 
+  private Record readNext() {
+    if (this.recordIndexes == null) {
+      return getNextSequential();
+    } else {
+      return getNextIndexed();
+    }
+  }
+
   @Override
   public String toString() {
     return ShapefileConstants.DESCRIPTION + " " + this.resource;
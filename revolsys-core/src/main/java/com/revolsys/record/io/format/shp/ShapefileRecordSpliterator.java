@@ -0,0 +1,136 @@
+package com.revolsys.record.io.format.shp;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import com.revolsys.record.Record;
+
+/**
+ * A {@link Spliterator} over the records in a shapefile that can be read by record
+ * number. The records are split on chunk boundaries and each chunk is read by a
+ * separate {@link ShapefileRecordReader} so that the chunks can be decoded in
+ * parallel. The records are returned in file order within a spliterator and the
+ * prefix is returned by {@link #trySplit()} so the stream encounter order is the
+ * file order.
+ */
+public class ShapefileRecordSpliterator implements Spliterator<Record> {
+
+  public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+  private final int chunkSize;
+
+  private ShapefileRecordReader chunkReader;
+
+  private int end;
+
+  /** The chunk readers that are open for this and the spliterators split from it. */
+  private final Set<ShapefileRecordReader> openReaders;
+
+  private final ShapefileRecordReader reader;
+
+  /** The candidate record numbers, null if all the records in the range are read. */
+  private final int[] recordIndexes;
+
+  private int start;
+
+  ShapefileRecordSpliterator(final ShapefileRecordReader reader, final int[] recordIndexes,
+    final int start, final int end, final int chunkSize) {
+    this(reader, recordIndexes, start, end, chunkSize, ConcurrentHashMap.newKeySet());
+  }
+
+  private ShapefileRecordSpliterator(final ShapefileRecordReader reader,
+    final int[] recordIndexes, final int start, final int end, final int chunkSize,
+    final Set<ShapefileRecordReader> openReaders) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be > 0: " + chunkSize);
+    }
+    this.reader = reader;
+    this.recordIndexes = recordIndexes;
+    this.start = start;
+    this.end = end;
+    this.chunkSize = chunkSize;
+    this.openReaders = openReaders;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL;
+  }
+
+  /**
+   * Close any chunk readers that were not read to the end.
+   */
+  public void close() {
+    for (final ShapefileRecordReader chunkReader : this.openReaders) {
+      chunkReader.close();
+    }
+    this.openReaders.clear();
+  }
+
+  private void closeChunkReader() {
+    if (this.chunkReader != null) {
+      this.chunkReader.close();
+      this.openReaders.remove(this.chunkReader);
+      this.chunkReader = null;
+    }
+  }
+
+  @Override
+  public long estimateSize() {
+    return this.end - this.start;
+  }
+
+  private boolean nextChunk() {
+    closeChunkReader();
+    if (this.start >= this.end) {
+      return false;
+    } else {
+      final int chunkEnd = Math.min(this.start + this.chunkSize, this.end);
+      final int[] chunkIndexes;
+      if (this.recordIndexes == null) {
+        chunkIndexes = new int[chunkEnd - this.start];
+        for (int i = 0; i < chunkIndexes.length; i++) {
+          chunkIndexes[i] = this.start + i;
+        }
+      } else {
+        chunkIndexes = Arrays.copyOfRange(this.recordIndexes, this.start, chunkEnd);
+      }
+      this.start = chunkEnd;
+      this.chunkReader = this.reader.newChunkReader(chunkIndexes);
+      this.openReaders.add(this.chunkReader);
+      return true;
+    }
+  }
+
+  @Override
+  public boolean tryAdvance(final Consumer<? super Record> action) {
+    do {
+      if (this.chunkReader != null && this.chunkReader.hasNext()) {
+        final Record record = this.chunkReader.next();
+        action.accept(record);
+        return true;
+      }
+    } while (nextChunk());
+    return false;
+  }
+
+  @Override
+  public Spliterator<Record> trySplit() {
+    if (this.chunkReader != null) {
+      // The current chunk precedes the remaining records so the prefix can't be split off
+      return null;
+    }
+    final int chunkCount = (this.end - this.start + this.chunkSize - 1) / this.chunkSize;
+    if (chunkCount < 2) {
+      return null;
+    }
+    final int splitStart = this.start;
+    final int splitEnd = this.start + chunkCount / 2 * this.chunkSize;
+    this.start = splitEnd;
+    return new ShapefileRecordSpliterator(this.reader, this.recordIndexes, splitStart, splitEnd,
+      this.chunkSize, this.openReaders);
+  }
+}
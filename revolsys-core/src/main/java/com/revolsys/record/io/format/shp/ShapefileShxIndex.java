@@ -0,0 +1,80 @@
+package com.revolsys.record.io.format.shp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.jeometry.common.logging.Logs;
+
+import com.revolsys.spring.resource.Resource;
+
+/**
+ * The offsets of the records in the .shp file read from the .shx file. Allows a
+ * record to be read by record number without reading the records before it.
+ */
+public class ShapefileShxIndex {
+
+  private static final int HEADER_SIZE = 100;
+
+  /**
+   * Read the .shx file for the shapefile.
+   *
+   * @param resource The .shp resource.
+   * @return The index or null if the shapefile is not a local file or there is no .shx file.
+   */
+  public static ShapefileShxIndex read(final Resource resource) {
+    if (resource == null || !resource.isFile()) {
+      return null;
+    }
+    final Resource indexResource = resource.newResourceChangeExtension("shx");
+    if (indexResource == null || !indexResource.exists() || !indexResource.isFile()) {
+      return null;
+    }
+    final Path shxPath = indexResource.getPath();
+    try {
+      return read(shxPath);
+    } catch (final IOException e) {
+      Logs.error(ShapefileShxIndex.class, "Unable to read " + shxPath, e);
+      return null;
+    }
+  }
+
+  public static ShapefileShxIndex read(final Path shxPath) throws IOException {
+    try (
+      FileChannel in = FileChannel.open(shxPath, StandardOpenOption.READ)) {
+      final long size = in.size();
+      final int recordCount = (int)(Math.max(0, size - HEADER_SIZE) / 8);
+      final int[] offsets = new int[recordCount];
+      if (recordCount > 0) {
+        final ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE,
+          recordCount * 8L);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        for (int i = 0; i < recordCount; i++) {
+          offsets[i] = buffer.getInt();
+          buffer.getInt();
+        }
+      }
+      return new ShapefileShxIndex(offsets);
+    }
+  }
+
+  private final int[] offsets;
+
+  private ShapefileShxIndex(final int[] offsets) {
+    this.offsets = offsets;
+  }
+
+  public int getRecordCount() {
+    return this.offsets.length;
+  }
+
+  /**
+   * Get the byte offset in the .shp file of the record header for the record index.
+   */
+  public long getShapeOffset(final int recordIndex) {
+    return (this.offsets[recordIndex] & 0xFFFFFFFFL) * 2;
+  }
+}
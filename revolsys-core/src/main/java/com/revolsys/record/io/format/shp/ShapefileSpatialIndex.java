@@ -0,0 +1,211 @@
+package com.revolsys.record.io.format.shp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.jeometry.common.logging.Logs;
+
+import com.revolsys.geometry.index.packed.HilbertPackedRTree;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.io.Buffers;
+import com.revolsys.spring.resource.Resource;
+
+/**
+ * Spatial index for a shapefile built from the record offsets in the .shx file and
+ * the bounding box stored in the header of each shape. The index is saved to a
+ * sidecar .rsx file next to the .shp file and rebuilt if the .shp file changes.
+ */
+public class ShapefileSpatialIndex {
+
+  private static final int SIDECAR_HEADER_SIZE = 16;
+
+  /**
+   * Get the spatial index for the shapefile, reading it from the .rsx file or
+   * building it from the .shx file. The new index is written to the .rsx file if
+   * the directory is writable.
+   *
+   * @param resource The .shp resource.
+   * @return The index or null if the shapefile is not a local file or there is no .shx file.
+   */
+  public static ShapefileSpatialIndex getSpatialIndex(final Resource resource) {
+    final ShapefileShxIndex shxIndex = ShapefileShxIndex.read(resource);
+    if (shxIndex == null) {
+      return null;
+    }
+    final Path shpPath = resource.getPath();
+    final Path rsxPath = resource.newResourceChangeExtension(
+      ShapefileConstants.SPATIAL_INDEX_FILE_EXTENSION).getPath();
+    try {
+      final long shpLength = Files.size(shpPath);
+      final long shpLastModified = Files.getLastModifiedTime(shpPath).toMillis();
+      if (Files.exists(rsxPath)) {
+        try {
+          final HilbertPackedRTree tree = readTree(rsxPath, shpLength, shpLastModified);
+          if (tree != null) {
+            return new ShapefileSpatialIndex(shxIndex, tree);
+          }
+        } catch (final IOException | RuntimeException e) {
+          Logs.debug(ShapefileSpatialIndex.class, "Unable to read spatial index " + rsxPath, e);
+        }
+      }
+      final HilbertPackedRTree tree = newTree(shpPath, shxIndex);
+      try {
+        writeTree(rsxPath, tree, shpLength, shpLastModified);
+      } catch (final IOException e) {
+        Logs.debug(ShapefileSpatialIndex.class, "Unable to write spatial index " + rsxPath, e);
+      }
+      return new ShapefileSpatialIndex(shxIndex, tree);
+    } catch (final IOException e) {
+      Logs.error(ShapefileSpatialIndex.class, "Unable to create spatial index for " + resource,
+        e);
+      return null;
+    }
+  }
+
+  private static HilbertPackedRTree newTree(final Path shpPath,
+    final ShapefileShxIndex shxIndex) throws IOException {
+    final int recordCount = shxIndex.getRecordCount();
+    final double[] bounds = new double[recordCount * 4];
+    final int[] ids = new int[recordCount];
+    int count = 0;
+    try (
+      FileChannel in = FileChannel.open(shpPath, StandardOpenOption.READ)) {
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(36);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      for (int recordIndex = 0; recordIndex < recordCount; recordIndex++) {
+        final long position = shxIndex.getShapeOffset(recordIndex) + 8;
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+          if (in.read(buffer, position + buffer.position()) == -1) {
+            break;
+          }
+        }
+        buffer.flip();
+        if (buffer.remaining() >= 4) {
+          final int shapeType = buffer.getInt();
+          final int offset = count * 4;
+          switch (shapeType) {
+            case ShapefileConstants.NULL_SHAPE:
+            break;
+            case ShapefileConstants.POINT_SHAPE:
+            case ShapefileConstants.POINT_M_SHAPE:
+            case ShapefileConstants.POINT_Z_SHAPE:
+            case ShapefileConstants.POINT_ZM_SHAPE:
+              if (buffer.remaining() >= 16) {
+                final double x = buffer.getDouble();
+                final double y = buffer.getDouble();
+                bounds[offset] = x;
+                bounds[offset + 1] = y;
+                bounds[offset + 2] = x;
+                bounds[offset + 3] = y;
+                ids[count++] = recordIndex;
+              }
+            break;
+            default:
+              if (buffer.remaining() >= 32) {
+                bounds[offset] = buffer.getDouble();
+                bounds[offset + 1] = buffer.getDouble();
+                bounds[offset + 2] = buffer.getDouble();
+                bounds[offset + 3] = buffer.getDouble();
+                ids[count++] = recordIndex;
+              }
+            break;
+          }
+        }
+      }
+    }
+    return new HilbertPackedRTree(HilbertPackedRTree.DEFAULT_NODE_SIZE, bounds, ids, count);
+  }
+
+  private static HilbertPackedRTree readTree(final Path rsxPath, final long shpLength,
+    final long shpLastModified) throws IOException {
+    try (
+      FileChannel in = FileChannel.open(rsxPath, StandardOpenOption.READ)) {
+      final ByteBuffer header = ByteBuffer.allocate(SIDECAR_HEADER_SIZE);
+      header.order(ByteOrder.LITTLE_ENDIAN);
+      if (Buffers.readAll(in, header) != SIDECAR_HEADER_SIZE) {
+        return null;
+      }
+      if (header.getLong() != shpLength || header.getLong() != shpLastModified) {
+        return null;
+      }
+      return HilbertPackedRTree.map(in, SIDECAR_HEADER_SIZE);
+    }
+  }
+
+  /**
+   * Write the tree to a temporary file in the same directory and move it over
+   * the .rsx file. The existing .rsx file is never truncated as other readers
+   * may have it memory mapped.
+   */
+  private static void writeTree(final Path rsxPath, final HilbertPackedRTree tree,
+    final long shpLength, final long shpLastModified) throws IOException {
+    final Path tempPath = Files.createTempFile(rsxPath.getParent(),
+      rsxPath.getFileName().toString(), ".tmp");
+    try {
+      try (
+        FileChannel out = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+        final ByteBuffer header = ByteBuffer.allocate(SIDECAR_HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(shpLength);
+        header.putLong(shpLastModified);
+        header.flip();
+        while (header.hasRemaining()) {
+          out.write(header);
+        }
+        tree.write(out);
+      }
+      try {
+        Files.move(tempPath, rsxPath, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      } catch (final AtomicMoveNotSupportedException e) {
+        Files.move(tempPath, rsxPath, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tempPath);
+    }
+  }
+
+  private final ShapefileShxIndex shxIndex;
+
+  private final HilbertPackedRTree tree;
+
+  private ShapefileSpatialIndex(final ShapefileShxIndex shxIndex, final HilbertPackedRTree tree) {
+    this.shxIndex = shxIndex;
+    this.tree = tree;
+  }
+
+  public int getRecordCount() {
+    return this.shxIndex.getRecordCount();
+  }
+
+  /**
+   * Get the index (0 based) of the records whose bounding box intersects the
+   * bounding box. The indexes are sorted so the files are read forwards.
+   */
+  public int[] getRecordIndexes(final BoundingBox boundingBox) {
+    final double minX = boundingBox.getMinX();
+    final double minY = boundingBox.getMinY();
+    final double maxX = boundingBox.getMaxX();
+    final double maxY = boundingBox.getMaxY();
+    return this.tree.getItemIds(minX, minY, maxX, maxY);
+  }
+
+  /**
+   * Get the byte offset in the .shp file of the record header for the record index.
+   */
+  public long getShapeOffset(final int recordIndex) {
+    return this.shxIndex.getShapeOffset(recordIndex);
+  }
+
+  public ShapefileShxIndex getShxIndex() {
+    return this.shxIndex;
+  }
+}
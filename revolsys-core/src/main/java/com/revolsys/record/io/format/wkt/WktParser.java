@@ -1,5 +1,6 @@
 package com.revolsys.record.io.format.wkt;
 
+import java.io.CharArrayReader;
 import java.io.IOException;
 import java.io.PushbackReader;
 import java.io.StringReader;
@@ -461,6 +462,32 @@ public class WktParser {
     }
   }
 
+  /**
+   * Parse the geometry from a range of characters in an array without creating
+   * a string.
+   *
+   * @param chars The characters.
+   * @param offset The index of the first character.
+   * @param length The number of characters.
+   * @param useAxisCountFromGeometryFactory Use the axis count from the geometry
+   *          factory instead of the WKT.
+   * @return The geometry or null if the characters were blank.
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends Geometry> T parseGeometry(final char[] chars, final int offset,
+    final int length, final boolean useAxisCountFromGeometryFactory) {
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      if (!Character.isWhitespace(chars[i])) {
+        final PushbackReader reader = new PushbackReader(new CharArrayReader(chars, i, end - i),
+          20);
+        final GeometryFactory geometryFactory = this.geometryFactory;
+        return (T)parseGeometry(geometryFactory, useAxisCountFromGeometryFactory, reader);
+      }
+    }
+    return null;
+  }
+
   public <T extends Geometry> T parseGeometry(final String value) {
     return parseGeometry(value, true);
   }
@@ -5,11 +5,14 @@ import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
@@ -25,6 +28,8 @@ import com.revolsys.io.FileUtil;
 import com.revolsys.record.Record;
 import com.revolsys.record.RecordFactory;
 import com.revolsys.record.io.RecordReader;
+import com.revolsys.record.schema.FieldDefinition;
+import com.revolsys.record.schema.RecordDefinition;
 import com.revolsys.record.schema.RecordDefinitionImpl;
 import com.revolsys.spring.resource.Resource;
 
@@ -64,6 +69,8 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
 
   private int deletedCount = 0;
 
+  private short headerSize;
+
   private ReadableByteChannel in;
 
   private Runnable initCallback;
@@ -88,6 +95,28 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
 
   private boolean exists = false;
 
+  /** The names of the fields to read, null to read all fields. */
+  private List<String> fieldNames;
+
+  /** The fields in the file including fields not read. */
+  private RecordDefinitionImpl fileRecordDefinition;
+
+  private int[] fileFieldLengths;
+
+  private int[] fileFieldOffsets;
+
+  private int readFieldCount;
+
+  private int[] readFieldFileIndexes;
+
+  private int[] readFieldIndexes;
+
+  private RecordDefinition readRecordDefinition;
+
+  private RecordDefinition returnRecordDefinition;
+
+  private byte[] stringBytes = new byte[256];
+
   public XbaseRecordReader(final Resource resource, final RecordFactory recordFactory)
     throws IOException {
     this.resource = resource;
@@ -125,6 +154,9 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
     this.in = null;
     this.initCallback = null;
     this.recordDefinition = null;
+    this.fileRecordDefinition = null;
+    this.readRecordDefinition = null;
+    this.returnRecordDefinition = null;
     this.recordBuffer = null;
     this.resource = null;
   }
@@ -161,6 +193,10 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
     return this.deletedCount;
   }
 
+  public List<String> getFieldNames() {
+    return this.fieldNames;
+  }
+
   private Object getMemo(final int len) throws IOException {
     return null;
     /*
@@ -216,6 +252,38 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
     }
   }
 
+  /**
+   * Read the record at the index (0 based) by seeking to its position in the file.
+   * The file must be a {@link SeekableByteChannel} such as a local file.
+   *
+   * @param index The index of the record.
+   * @return The record or null if the record was deleted or past the end of the file.
+   */
+  public Record getRecord(final int index) {
+    open();
+    if (!(this.in instanceof SeekableByteChannel)) {
+      throw new IllegalStateException("Random access not supported for " + this.resource);
+    }
+    try {
+      final long position = this.headerSize + (long)index * this.recordSize;
+      ((SeekableByteChannel)this.in).position(position);
+      this.recordBuffer.clear();
+      final int readCount = Buffers.readAll(this.in, this.recordBuffer);
+      if (readCount != this.recordSize) {
+        return null;
+      } else {
+        final int deleteFlag = this.recordBuffer.get();
+        if (deleteFlag == ' ') {
+          return loadRecord();
+        } else {
+          return null;
+        }
+      }
+    } catch (final IOException e) {
+      throw new RuntimeException("Error reading record " + index + " from " + this.resource, e);
+    }
+  }
+
   private BigDecimal getNumber(final int len) {
     BigDecimal number = null;
     final String string = getString(len);
@@ -245,10 +313,25 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
   }
 
   private String getString(final int len) {
-    final byte[] bytes = new byte[len];
+    byte[] bytes = this.stringBytes;
+    if (bytes.length < len) {
+      bytes = new byte[len];
+      this.stringBytes = bytes;
+    }
     this.recordBuffer.get(bytes, 0, len);
-    final String text = new String(bytes, this.charset);
-    return text.trim();
+    int start = 0;
+    int end = len;
+    while (start < end && (bytes[start] & 0xFF) <= ' ') {
+      start++;
+    }
+    while (end > start && (bytes[end - 1] & 0xFF) <= ' ') {
+      end--;
+    }
+    if (start == end) {
+      return "";
+    } else {
+      return new String(bytes, start, end - start, this.charset);
+    }
   }
 
   public PathName getTypeName() {
@@ -270,6 +353,7 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
       if (this.initCallback != null) {
         this.initCallback.run();
       }
+      initReadFields();
       if (this.exists) {
         this.recordBuffer = ByteBuffer.allocateDirect(this.recordSize);
       }
@@ -278,10 +362,49 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
     }
   }
 
+  /**
+   * Work out which fields in the file need to be read and the index of the field in
+   * the records returned. Fields that aren't read are skipped without decoding.
+   */
+  private void initReadFields() {
+    final RecordDefinition recordDefinition;
+    if (this.returnRecordDefinition == null) {
+      recordDefinition = this.recordDefinition;
+    } else {
+      recordDefinition = this.returnRecordDefinition;
+    }
+    this.readRecordDefinition = recordDefinition;
+
+    final int fileFieldCount = this.fileRecordDefinition.getFieldCount();
+    this.readFieldFileIndexes = new int[fileFieldCount];
+    this.readFieldIndexes = new int[fileFieldCount];
+    int readFieldCount = 0;
+    for (int fileFieldIndex = 0; fileFieldIndex < fileFieldCount; fileFieldIndex++) {
+      final String name = this.fileRecordDefinition.getFieldName(fileFieldIndex);
+      if (this.recordDefinition.hasField(name)) {
+        final int fieldIndex = recordDefinition.getFieldIndex(name);
+        if (fieldIndex != -1) {
+          this.readFieldFileIndexes[readFieldCount] = fileFieldIndex;
+          this.readFieldIndexes[readFieldCount] = fieldIndex;
+          readFieldCount++;
+        }
+      }
+    }
+    this.readFieldCount = readFieldCount;
+  }
+
   public boolean isCloseFile() {
     return this.closeFile;
   }
 
+  /**
+   * Check if the records can be read using {@link #getRecord(int)}.
+   */
+  public boolean isRandomAccess() {
+    open();
+    return this.in instanceof SeekableByteChannel;
+  }
+
   /**
    * Load the header record from the shape mappedFile.
    *
@@ -298,7 +421,7 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
       final int d = header.get();
       // properties.put(new QName("date"), new Date(y, m - 1, d));
       this.recordCount = header.getInt();
-      final short headerSize = header.getShort();
+      this.headerSize = header.getShort();
 
       this.recordSize = header.getShort();
     } else {
@@ -307,18 +430,20 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
   }
 
   protected Record loadRecord() throws IOException {
-    final Record record = this.recordFactory.newRecord(this.recordDefinition);
-    for (int i = 0; i < this.recordDefinition.getFieldCount(); i++) {
-      int length = this.recordDefinition.getFieldLength(i);
-      final DataType type = this.recordDefinition.getFieldType(i);
+    final Record record = this.recordFactory.newRecord(this.readRecordDefinition);
+    final RecordDefinitionImpl fileRecordDefinition = this.fileRecordDefinition;
+    for (int i = 0; i < this.readFieldCount; i++) {
+      final int fileFieldIndex = this.readFieldFileIndexes[i];
+      final int length = this.fileFieldLengths[fileFieldIndex];
+      final DataType type = fileRecordDefinition.getFieldType(fileFieldIndex);
+      this.recordBuffer.position(this.fileFieldOffsets[fileFieldIndex]);
       Object value = null;
 
       if (type == DataTypes.STRING) {
-        if (length < 255) {
+        if (fileRecordDefinition.getFieldLength(fileFieldIndex) < 255) {
           value = getString(length);
         } else {
           value = getMemo(length);
-          length = 10;
         }
       } else if (type == DataTypes.DECIMAL || type == DataTypes.FLOAT) {
         value = getNumber(length);
@@ -327,13 +452,16 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
       } else if (type == DataTypes.DATE_TIME) {
         value = getDate(length);
       }
-      record.setValue(i, value);
+      record.setValue(this.readFieldIndexes[i], value);
     }
     return record;
   }
 
   private void readRecordDefinition() throws IOException {
-    this.recordDefinition = new RecordDefinitionImpl(this.typeName);
+    final RecordDefinitionImpl fileRecordDefinition = new RecordDefinitionImpl(this.typeName);
+    final List<Integer> fieldLengths = new ArrayList<>();
+    final List<Integer> fieldOffsets = new ArrayList<>();
+    int fieldOffset = 1;
     if (this.exists) {
       int readCount = Buffers.readAll(this.in, this.buffer1);
       if (readCount == -1) {
@@ -371,10 +499,32 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
         }
         b = this.buffer1.get();
         final DataType dataType = DATA_TYPES.get(fieldType);
+        fieldLengths.add(length);
+        fieldOffsets.add(fieldOffset);
+        fieldOffset += length;
         if (fieldType == MEMO_TYPE) {
           length = Integer.MAX_VALUE;
         }
-        this.recordDefinition.addField(fieldName.toString(), dataType, length, decimalCount, false);
+        fileRecordDefinition.addField(fieldName.toString(), dataType, length, decimalCount, false);
+      }
+    }
+    final int fieldCount = fieldLengths.size();
+    this.fileFieldLengths = new int[fieldCount];
+    this.fileFieldOffsets = new int[fieldCount];
+    for (int i = 0; i < fieldCount; i++) {
+      this.fileFieldLengths[i] = fieldLengths.get(i);
+      this.fileFieldOffsets[i] = fieldOffsets.get(i);
+    }
+    this.fileRecordDefinition = fileRecordDefinition;
+    if (this.fieldNames == null) {
+      this.recordDefinition = fileRecordDefinition;
+    } else {
+      this.recordDefinition = new RecordDefinitionImpl(this.typeName);
+      for (final String name : this.fieldNames) {
+        final FieldDefinition field = fileRecordDefinition.getField(name);
+        if (field != null && !this.recordDefinition.hasField(field.getName())) {
+          this.recordDefinition.addField(new FieldDefinition(field));
+        }
       }
     }
   }
@@ -388,6 +538,32 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
     this.closeFile = closeFile;
   }
 
+  /**
+   * Only read the named fields. The bytes for the other fields are skipped and the
+   * record definition will only contain the named fields. Must be set before the
+   * reader is opened.
+   *
+   * @param fieldNames The names of the fields to read, null to read all fields.
+   */
+  public void setFieldNames(final List<String> fieldNames) {
+    if (fieldNames == null) {
+      this.fieldNames = null;
+    } else {
+      this.fieldNames = new ArrayList<>(fieldNames);
+    }
+  }
+
+  /**
+   * Create the records using the record definition instead of the definition
+   * read from the file. The fields are matched by name and fields not in the
+   * file are set to null. Must be set before the reader is opened.
+   *
+   * @param returnRecordDefinition The record definition for the returned records.
+   */
+  public void setReturnRecordDefinition(final RecordDefinition returnRecordDefinition) {
+    this.returnRecordDefinition = returnRecordDefinition;
+  }
+
   public void setTypeName(final PathName typeName) {
     this.typeName = typeName;
   }
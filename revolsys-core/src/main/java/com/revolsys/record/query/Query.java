@@ -176,6 +176,8 @@ public class Query extends BaseObjectWithProperties
 
   private final List<QueryValue> groupBy = new ArrayList<>();
 
+  private int fetchSize = 0;
+
   private From from;
 
   private int limit = Integer.MAX_VALUE;
@@ -317,6 +319,24 @@ public class Query extends BaseObjectWithProperties
     return this;
   }
 
+  /**
+   * Add the id fields that aren't already in the order by to the end of the
+   * order by so the order of the records is unique. Unlike
+   * {@link #addOrderById()} the direction of id fields already in the order by
+   * is not changed.
+   */
+  public Query addOrderByIdIfMissing() {
+    final RecordDefinition recordDefinition = getRecordDefinition();
+    if (recordDefinition != null) {
+      for (final FieldDefinition idField : recordDefinition.getIdFields()) {
+        if (!hasOrderBy(idField.getName())) {
+          addOrderBy(idField);
+        }
+      }
+    }
+    return this;
+  }
+
   @Deprecated
   public Query addParameter(final Object value) {
     this.parameters.add(value);
@@ -545,6 +565,13 @@ public class Query extends BaseObjectWithProperties
     return this.cancellable;
   }
 
+  /**
+   * The JDBC fetch size for the query, 0 to use the record store's fetch size.
+   */
+  public int getFetchSize() {
+    return this.fetchSize;
+  }
+
   public From getFrom() {
     return this.from;
   }
@@ -577,6 +604,36 @@ public class Query extends BaseObjectWithProperties
     return new ArrayList<>(this.orderBy);
   }
 
+  /**
+   * Get the values of the order by fields from the record. Used with
+   * {@link #seekAfter(List)} to get the next page of records.
+   *
+   * @param record The last record returned by the query.
+   * @return The values or null if an order by isn't a field on the record or
+   *         the record's value for the field is null.
+   */
+  public List<Object> getOrderByValues(final Record record) {
+    if (record == null || this.orderBy.isEmpty()) {
+      return null;
+    }
+    final List<Object> values = new ArrayList<>(this.orderBy.size());
+    for (final OrderBy order : this.orderBy) {
+      final QueryValue field = order.getField();
+      if (field instanceof ColumnReference) {
+        final String name = ((ColumnReference)field).getName();
+        if (record.hasField(name)) {
+          final Object value = record.getValue(name);
+          if (value != null) {
+            values.add(value);
+            continue;
+          }
+        }
+      }
+      return null;
+    }
+    return values;
+  }
+
   public List<Object> getParameters() {
     return this.parameters;
   }
@@ -790,6 +847,45 @@ public class Query extends BaseObjectWithProperties
     return this.distinct;
   }
 
+  /**
+   * Check if the order by can be used for keyset (seek) pagination using
+   * {@link #seekAfter(List)}. The seek condition never matches records with a
+   * null value for an order by field so all the order by fields must be
+   * required or id fields. The order by must include all the id fields so it is
+   * unique, otherwise the records with the same values as the last record of a
+   * page would be skipped.
+   *
+   * @return True if the query can seek after a record.
+   */
+  public boolean isSeekable() {
+    final RecordDefinition recordDefinition = getRecordDefinition();
+    if (recordDefinition == null || this.orderBy.isEmpty()) {
+      return false;
+    }
+    final List<String> idFieldNames = recordDefinition.getIdFieldNames();
+    if (idFieldNames.isEmpty()) {
+      return false;
+    }
+    for (final String idFieldName : idFieldNames) {
+      if (!hasOrderBy(idFieldName)) {
+        return false;
+      }
+    }
+    for (final OrderBy order : this.orderBy) {
+      final QueryValue field = order.getField();
+      if (field instanceof ColumnReference) {
+        final FieldDefinition fieldDefinition = ((ColumnReference)field).getFieldDefinition();
+        if (fieldDefinition == null
+          || !(fieldDefinition.isRequired() || fieldDefinition.isIdField())) {
+          return false;
+        }
+      } else {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public boolean isSelectEmpty() {
     return this.selectExpressions.isEmpty();
   }
@@ -897,6 +993,65 @@ public class Query extends BaseObjectWithProperties
     return operator.apply(column);
   }
 
+  /**
+   * Create a condition that matches the records that are after the record with
+   * the order by values in the order by of this query. For order by fields
+   * <code>A, B desc</code> the condition is
+   * <code>A &gt; a OR (A = a AND B &lt; b)</code>. Unlike an offset the
+   * database can use an index on the order by fields to find the first record.
+   * The query must be {@link #isSeekable()}.
+   *
+   * @param orderByValues The values of the order by fields from the last record
+   *          of the previous page.
+   * @return The condition.
+   * @throws IllegalStateException If the query isn't {@link #isSeekable()}.
+   */
+  public Condition newSeekCondition(final List<?> orderByValues) {
+    final List<OrderBy> orderBy = this.orderBy;
+    if (orderBy.isEmpty()) {
+      throw new IllegalStateException("Query must have an order by to seek");
+    } else if (!isSeekable()) {
+      throw new IllegalStateException(
+        "Order by must include the id fields and not have nullable fields to seek: " + orderBy);
+    } else if (orderByValues == null || orderByValues.size() != orderBy.size()) {
+      throw new IllegalArgumentException(
+        "Seek values " + orderByValues + " don't match order by " + orderBy);
+    }
+    final List<Condition> conditions = new ArrayList<>();
+    final List<Condition> equalConditions = new ArrayList<>();
+    for (int i = 0; i < orderBy.size(); i++) {
+      final OrderBy order = orderBy.get(i);
+      final QueryValue field = order.getField();
+      final Object orderByValue = orderByValues.get(i);
+      if (!(field instanceof ColumnReference)) {
+        throw new IllegalStateException("Can only seek using order by columns not: " + field);
+      } else if (orderByValue == null) {
+        throw new IllegalArgumentException("Seek values cannot be null: " + orderByValues);
+      }
+      final ColumnReference column = (ColumnReference)field;
+      final Value value = new Value(column, orderByValue);
+      final Condition compare;
+      if (order.isAscending()) {
+        compare = new GreaterThan(column, value);
+      } else {
+        compare = new LessThan(column, value);
+      }
+      if (equalConditions.isEmpty()) {
+        conditions.add(compare);
+      } else {
+        final List<Condition> andConditions = new ArrayList<>(equalConditions);
+        andConditions.add(compare);
+        conditions.add(new And(andConditions));
+      }
+      equalConditions.add(new Equal(column, value.clone()));
+    }
+    if (conditions.size() == 1) {
+      return conditions.get(0);
+    } else {
+      return new Or(conditions);
+    }
+  }
+
   public String newSelectSql(final List<OrderBy> orderBy, final TableReference table) {
 
     From from = getFrom();
@@ -999,6 +1154,22 @@ public class Query extends BaseObjectWithProperties
     }
   }
 
+  /**
+   * Keyset (seek) pagination. Restrict the query to the records after the
+   * record with the order by values. The order by must be unique and not
+   * nullable (see {@link #addOrderByIdIfMissing()} and {@link #isSeekable()})
+   * and must not be changed after this method is called.
+   *
+   * @param orderByValues The values from {@link #getOrderByValues(Record)} for
+   *          the last record of the previous page.
+   * @return This query.
+   * @see #newSeekCondition(List)
+   */
+  public Query seekAfter(final List<?> orderByValues) {
+    final Condition condition = newSeekCondition(orderByValues);
+    return and(condition);
+  }
+
   public Query select(final Collection<?> selectExpressions) {
     this.selectExpressions.clear();
     for (final Object selectExpression : selectExpressions) {
@@ -1119,6 +1290,15 @@ public class Query extends BaseObjectWithProperties
     return this;
   }
 
+  public Query setFetchSize(final int fetchSize) {
+    if (fetchSize < 0) {
+      this.fetchSize = 0;
+    } else {
+      this.fetchSize = fetchSize;
+    }
+    return this;
+  }
+
   public Query setFrom(final String from, final String alias) {
     final FromSql fromSql = new FromSql(from);
     this.from = new FromAlias(fromSql, alias);
@@ -541,6 +541,24 @@ public class UriBuilder {
     return null;
   }
 
+  /**
+   * Removes all the values of the parameter from the URI query.
+   */
+  public UriBuilder removeParameter(final String param) {
+    if (this.queryParams != null && !this.queryParams.isEmpty()) {
+      for (final Iterator<NameValuePair> it = this.queryParams.iterator(); it.hasNext();) {
+        final NameValuePair nvp = it.next();
+        if (nvp.getName().equals(param)) {
+          it.remove();
+        }
+      }
+      this.encodedQuery = null;
+      this.encodedSchemeSpecificPart = null;
+      this.query = null;
+    }
+    return this;
+  }
+
   /**
    * Removes URI query.
    */
@@ -0,0 +1,409 @@
+package com.revolsys.gis.postgresql;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.gis.postgresql.type.PostgreSQLEwkbWriter;
+import com.revolsys.jdbc.field.JdbcFieldDefinition;
+import com.revolsys.record.io.format.json.Json;
+
+/**
+ * Encode rows in the PostgreSQL binary COPY format. Each value is written as the
+ * byte length followed by the value in the type's binary send format (-1 for null),
+ * geometries are written as EWKB.
+ *
+ * @see PostgreSQLCopyRecordWriter
+ */
+public class PostgreSQLCopyEncoder {
+
+  private static final long POSTGRES_EPOCH_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+
+  private static final long POSTGRES_EPOCH_MICROS = POSTGRES_EPOCH_DAY * 86400L * 1000000L;
+
+  private static final byte[] SIGNATURE = {
+    'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xFF, '\r', '\n', 0
+  };
+
+  private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+  private final PostgreSQLEwkbWriter ewkbWriter = new PostgreSQLEwkbWriter();
+
+  public void clear() {
+    this.buffer.clear();
+  }
+
+  private void ensureCapacity(final int byteCount) {
+    final ByteBuffer buffer = this.buffer;
+    if (buffer.remaining() < byteCount) {
+      final int capacity = Math.max(buffer.capacity() * 2, buffer.position() + byteCount);
+      final ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+      buffer.flip();
+      newBuffer.put(buffer);
+      this.buffer = newBuffer;
+    }
+  }
+
+  /**
+   * Get the buffer containing the encoded bytes from 0 to the buffer's position. The
+   * buffer is replaced when it needs to grow so it must not be cached by the caller.
+   */
+  public ByteBuffer getBuffer() {
+    return this.buffer;
+  }
+
+  /**
+   * Get the writer that encodes the values of the field for the PostgreSQL column type.
+   *
+   * @param field The field.
+   * @param columnType The pg_type name of the column (e.g. int4, geometry).
+   * @return The value writer.
+   * @throws IllegalArgumentException If the column type is not supported.
+   */
+  public BiConsumer<JdbcFieldDefinition, Object> newValueWriter(final JdbcFieldDefinition field,
+    final String columnType) {
+    if (columnType != null) {
+      switch (columnType) {
+        case "bool":
+          return this::writeBoolean;
+        case "int2":
+          return this::writeShort;
+        case "int4":
+          return this::writeInt;
+        case "int8":
+          return this::writeLong;
+        case "float4":
+          return this::writeFloat;
+        case "float8":
+          return this::writeDouble;
+        case "numeric":
+          return this::writeNumeric;
+        case "text":
+        case "varchar":
+        case "bpchar":
+        case "name":
+        case "citext":
+        case "json":
+          return this::writeText;
+        case "jsonb":
+          return this::writeJsonb;
+        case "bytea":
+          return this::writeBytes;
+        case "uuid":
+          return this::writeUuid;
+        case "date":
+          return this::writeDate;
+        case "timestamp":
+          return this::writeTimestamp;
+        case "timestamptz":
+          return this::writeTimestampTz;
+        case "geometry":
+          return this::writeGeometry;
+        default:
+        break;
+      }
+    }
+    throw new IllegalArgumentException(
+      "Binary COPY not supported for " + field.getName() + " " + columnType);
+  }
+
+  private BigDecimal toBigDecimal(final Object value) {
+    if (value instanceof BigDecimal) {
+      return (BigDecimal)value;
+    } else if (value instanceof BigInteger) {
+      return new BigDecimal((BigInteger)value);
+    } else if (value instanceof Double || value instanceof Float) {
+      return BigDecimal.valueOf(((Number)value).doubleValue());
+    } else if (value instanceof Number) {
+      return BigDecimal.valueOf(((Number)value).longValue());
+    } else {
+      return new BigDecimal(value.toString());
+    }
+  }
+
+  public byte[] toBytes() {
+    final ByteBuffer buffer = this.buffer;
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+
+  private Number toNumber(final Object value) {
+    if (value instanceof Number) {
+      return (Number)value;
+    } else {
+      return new BigDecimal(value.toString());
+    }
+  }
+
+  private void writeBoolean(final JdbcFieldDefinition field, final Object value) {
+    boolean booleanValue;
+    if (value instanceof Boolean) {
+      booleanValue = (Boolean)value;
+    } else {
+      booleanValue = Boolean.parseBoolean(value.toString());
+    }
+    ensureCapacity(5);
+    this.buffer.putInt(1);
+    this.buffer.put((byte)(booleanValue ? 1 : 0));
+  }
+
+  private void writeBytes(final byte[] bytes) {
+    ensureCapacity(4 + bytes.length);
+    this.buffer.putInt(bytes.length);
+    this.buffer.put(bytes);
+  }
+
+  private void writeBytes(final JdbcFieldDefinition field, final Object value) {
+    if (value instanceof byte[]) {
+      writeBytes((byte[])value);
+    } else {
+      throw new IllegalArgumentException(field.getName() + " must be a byte[] not " + value);
+    }
+  }
+
+  private void writeDate(final JdbcFieldDefinition field, final Object value) {
+    LocalDate date;
+    if (value instanceof LocalDate) {
+      date = (LocalDate)value;
+    } else if (value instanceof java.sql.Date) {
+      date = ((java.sql.Date)value).toLocalDate();
+    } else if (value instanceof java.util.Date) {
+      date = new java.sql.Date(((java.util.Date)value).getTime()).toLocalDate();
+    } else if (value instanceof Temporal) {
+      date = LocalDate.from((Temporal)value);
+    } else {
+      date = LocalDate.parse(value.toString());
+    }
+    ensureCapacity(8);
+    this.buffer.putInt(4);
+    this.buffer.putInt((int)(date.toEpochDay() - POSTGRES_EPOCH_DAY));
+  }
+
+  private void writeDouble(final JdbcFieldDefinition field, final Object value) {
+    ensureCapacity(12);
+    this.buffer.putInt(8);
+    this.buffer.putDouble(toNumber(value).doubleValue());
+  }
+
+  private void writeFloat(final JdbcFieldDefinition field, final Object value) {
+    ensureCapacity(8);
+    this.buffer.putInt(4);
+    this.buffer.putFloat(toNumber(value).floatValue());
+  }
+
+  private void writeGeometry(final JdbcFieldDefinition field, final Object value) {
+    if (value instanceof Geometry) {
+      final Geometry geometry = (Geometry)value;
+      // Empty geometries are written as empty EWKB to match the JDBC insert
+      final ByteBuffer ewkb = this.ewkbWriter.write(field.getDataType(),
+        field.getGeometryFactory(), geometry);
+      ensureCapacity(4 + ewkb.remaining());
+      this.buffer.putInt(ewkb.remaining());
+      this.buffer.put(ewkb);
+    } else {
+      throw new IllegalArgumentException(field.getName() + " must be a Geometry not " + value);
+    }
+  }
+
+  /**
+   * Write the file header: the signature, flags and header extension length.
+   */
+  public void writeHeader() {
+    ensureCapacity(SIGNATURE.length + 8);
+    this.buffer.put(SIGNATURE);
+    this.buffer.putInt(0);
+    this.buffer.putInt(0);
+  }
+
+  private void writeInt(final JdbcFieldDefinition field, final Object value) {
+    ensureCapacity(8);
+    this.buffer.putInt(4);
+    this.buffer.putInt(toNumber(value).intValue());
+  }
+
+  private void writeJsonb(final JdbcFieldDefinition field, final Object value) {
+    final String string = Json.JSON_OBJECT.toString(value);
+    final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    ensureCapacity(5 + bytes.length);
+    this.buffer.putInt(1 + bytes.length);
+    // jsonb binary format version
+    this.buffer.put((byte)1);
+    this.buffer.put(bytes);
+  }
+
+  private void writeLong(final JdbcFieldDefinition field, final Object value) {
+    ensureCapacity(12);
+    this.buffer.putInt(8);
+    this.buffer.putLong(toNumber(value).longValue());
+  }
+
+  public void writeNull() {
+    ensureCapacity(4);
+    this.buffer.putInt(-1);
+  }
+
+  /**
+   * Write the value in the numeric binary format: digit count, weight, sign and
+   * display scale followed by the base 10000 digits. NaN and infinite double and
+   * float values are written using the special sign values (infinity requires
+   * PostgreSQL 14 or later).
+   */
+  private void writeNumeric(final JdbcFieldDefinition field, final Object value) {
+    if (value instanceof Double || value instanceof Float) {
+      final double doubleValue = ((Number)value).doubleValue();
+      if (Double.isNaN(doubleValue)) {
+        writeNumericSpecial(0xC000);
+        return;
+      } else if (doubleValue == Double.POSITIVE_INFINITY) {
+        writeNumericSpecial(0xD000);
+        return;
+      } else if (doubleValue == Double.NEGATIVE_INFINITY) {
+        writeNumericSpecial(0xF000);
+        return;
+      }
+    }
+    final BigDecimal decimal = toBigDecimal(value);
+    final int scale = Math.max(0, decimal.scale());
+    String digits = decimal.abs().setScale(scale).unscaledValue().toString();
+    if (digits.length() < scale) {
+      digits = "0".repeat(scale - digits.length()) + digits;
+    }
+    String integerDigits = digits.substring(0, digits.length() - scale);
+    String fractionDigits = digits.substring(digits.length() - scale);
+    integerDigits = "0".repeat((4 - integerDigits.length() % 4) % 4) + integerDigits;
+    fractionDigits = fractionDigits + "0".repeat((4 - fractionDigits.length() % 4) % 4);
+    final String groupDigits = integerDigits + fractionDigits;
+
+    final int groupCount = groupDigits.length() / 4;
+    final short[] groups = new short[groupCount];
+    for (int i = 0; i < groupCount; i++) {
+      groups[i] = Short.parseShort(groupDigits.substring(i * 4, i * 4 + 4));
+    }
+    int weight = integerDigits.length() / 4 - 1;
+    int start = 0;
+    while (start < groupCount && groups[start] == 0) {
+      start++;
+      weight--;
+    }
+    int end = groupCount;
+    while (end > start && groups[end - 1] == 0) {
+      end--;
+    }
+    final int digitCount = end - start;
+    if (digitCount == 0) {
+      weight = 0;
+    }
+    final short sign = decimal.signum() < 0 ? (short)0x4000 : 0;
+    ensureCapacity(12 + digitCount * 2);
+    this.buffer.putInt(8 + digitCount * 2);
+    this.buffer.putShort((short)digitCount);
+    this.buffer.putShort((short)weight);
+    this.buffer.putShort(sign);
+    this.buffer.putShort((short)scale);
+    for (int i = start; i < end; i++) {
+      this.buffer.putShort(groups[i]);
+    }
+  }
+
+  private void writeNumericSpecial(final int sign) {
+    ensureCapacity(12);
+    this.buffer.putInt(8);
+    this.buffer.putShort((short)0);
+    this.buffer.putShort((short)0);
+    this.buffer.putShort((short)sign);
+    this.buffer.putShort((short)0);
+  }
+
+  /**
+   * Write the start of a row, the field count, which must be followed by the values.
+   */
+  public void writeRowStart(final int fieldCount) {
+    ensureCapacity(2);
+    this.buffer.putShort((short)fieldCount);
+  }
+
+  private void writeShort(final JdbcFieldDefinition field, final Object value) {
+    ensureCapacity(6);
+    this.buffer.putInt(2);
+    this.buffer.putShort(toNumber(value).shortValue());
+  }
+
+  private void writeText(final JdbcFieldDefinition field, final Object value) {
+    final byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+    writeBytes(bytes);
+  }
+
+  private void writeTimestamp(final JdbcFieldDefinition field, final Object value) {
+    LocalDateTime dateTime;
+    if (value instanceof Timestamp) {
+      dateTime = ((Timestamp)value).toLocalDateTime();
+    } else if (value instanceof java.util.Date) {
+      dateTime = new Timestamp(((java.util.Date)value).getTime()).toLocalDateTime();
+    } else if (value instanceof LocalDateTime) {
+      dateTime = (LocalDateTime)value;
+    } else if (value instanceof Instant) {
+      dateTime = LocalDateTime.ofInstant((Instant)value, ZoneId.systemDefault());
+    } else if (value instanceof Temporal) {
+      dateTime = LocalDateTime.from((Temporal)value);
+    } else {
+      dateTime = Timestamp.valueOf(value.toString()).toLocalDateTime();
+    }
+    final long micros = dateTime.toEpochSecond(ZoneOffset.UTC) * 1000000L
+      + dateTime.getNano() / 1000;
+    ensureCapacity(12);
+    this.buffer.putInt(8);
+    this.buffer.putLong(micros - POSTGRES_EPOCH_MICROS);
+  }
+
+  private void writeTimestampTz(final JdbcFieldDefinition field, final Object value) {
+    Instant instant;
+    if (value instanceof java.util.Date) {
+      instant = ((java.util.Date)value).toInstant();
+    } else if (value instanceof Instant) {
+      instant = (Instant)value;
+    } else if (value instanceof OffsetDateTime) {
+      instant = ((OffsetDateTime)value).toInstant();
+    } else if (value instanceof ZonedDateTime) {
+      instant = ((ZonedDateTime)value).toInstant();
+    } else if (value instanceof LocalDateTime) {
+      instant = ((LocalDateTime)value).atZone(ZoneId.systemDefault()).toInstant();
+    } else {
+      instant = Timestamp.valueOf(value.toString()).toInstant();
+    }
+    final long micros = instant.getEpochSecond() * 1000000L + instant.getNano() / 1000;
+    ensureCapacity(12);
+    this.buffer.putInt(8);
+    this.buffer.putLong(micros - POSTGRES_EPOCH_MICROS);
+  }
+
+  public void writeTrailer() {
+    ensureCapacity(2);
+    this.buffer.putShort((short)-1);
+  }
+
+  private void writeUuid(final JdbcFieldDefinition field, final Object value) {
+    UUID uuid;
+    if (value instanceof UUID) {
+      uuid = (UUID)value;
+    } else {
+      uuid = UUID.fromString(value.toString());
+    }
+    ensureCapacity(20);
+    this.buffer.putInt(16);
+    this.buffer.putLong(uuid.getMostSignificantBits());
+    this.buffer.putLong(uuid.getLeastSignificantBits());
+  }
+}
@@ -0,0 +1,340 @@
+package com.revolsys.gis.postgresql;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.jeometry.common.logging.Logs;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.jdbc.PgConnection;
+import org.springframework.dao.DataAccessException;
+
+import com.revolsys.io.AbstractRecordWriter;
+import com.revolsys.io.FileUtil;
+import com.revolsys.jdbc.JdbcConnection;
+import com.revolsys.jdbc.JdbcUtils;
+import com.revolsys.jdbc.field.JdbcFieldDefinition;
+import com.revolsys.jdbc.io.JdbcRecordDefinition;
+import com.revolsys.record.Record;
+import com.revolsys.record.schema.FieldDefinition;
+import com.revolsys.transaction.Transaction;
+
+/**
+ * Bulk load records into a table using <code>COPY ... FROM STDIN (FORMAT binary)</code>.
+ * The values are encoded in the PostgreSQL binary format and geometries as EWKB so
+ * no SQL or WKT text is generated. The records are buffered and sent to the server
+ * every flushSize records.
+ *
+ * <p>If there is a current {@link Transaction} the rows are committed with that
+ * transaction, otherwise the writer commits every commitSize records (0 to commit
+ * once when the writer is closed). When the writer commits, auto commit is disabled on
+ * the connection until the writer is closed. The records written must have values for
+ * all of the columns being copied as column defaults are not used by COPY.</p>
+ */
+public class PostgreSQLCopyRecordWriter extends AbstractRecordWriter {
+
+  private int bufferedCount = 0;
+
+  private int commitSize = 0;
+
+  private JdbcConnection connection;
+
+  private CopyIn copyIn;
+
+  private final String copySql;
+
+  private final PostgreSQLCopyEncoder encoder = new PostgreSQLCopyEncoder();
+
+  private final JdbcFieldDefinition[] fields;
+
+  private int flushSize = 1000;
+
+  private final boolean ownTransaction;
+
+  private PostgreSQLRecordStore recordStore;
+
+  private boolean restoreAutoCommit = false;
+
+  private int transactionCount = 0;
+
+  private final List<BiConsumer<JdbcFieldDefinition, Object>> valueWriters = new ArrayList<>();
+
+  public PostgreSQLCopyRecordWriter(final PostgreSQLRecordStore recordStore,
+    final JdbcRecordDefinition recordDefinition, final List<String> fieldNames) {
+    super(recordDefinition);
+    this.recordStore = recordStore;
+    this.ownTransaction = !Transaction.isHasCurrentTransaction();
+    this.connection = recordStore.getJdbcConnection();
+    try {
+      if (this.ownTransaction && this.connection.getAutoCommit()) {
+        this.connection.setAutoCommit(false);
+        this.restoreAutoCommit = true;
+      }
+      final Map<String, String> columnTypes = getColumnTypes(recordDefinition);
+
+      final List<JdbcFieldDefinition> fields = new ArrayList<>();
+      if (fieldNames == null) {
+        for (final FieldDefinition field : recordDefinition.getFields()) {
+          if (!field.isGenerated()) {
+            fields.add((JdbcFieldDefinition)field);
+          }
+        }
+      } else {
+        for (final String fieldName : fieldNames) {
+          final FieldDefinition field = recordDefinition.getField(fieldName);
+          if (field == null) {
+            throw new IllegalArgumentException(
+              "Field " + fieldName + " not found in " + recordDefinition.getPathName());
+          }
+          fields.add((JdbcFieldDefinition)field);
+        }
+      }
+      this.fields = fields.toArray(new JdbcFieldDefinition[fields.size()]);
+
+      final StringBuilder sql = new StringBuilder("COPY ");
+      sql.append(recordDefinition.getDbTableQualifiedName());
+      sql.append(" (");
+      for (int i = 0; i < this.fields.length; i++) {
+        final JdbcFieldDefinition field = this.fields[i];
+        if (i > 0) {
+          sql.append(", ");
+        }
+        field.appendColumnName(sql);
+        String columnType = columnTypes.get(field.getDbName());
+        if (columnType == null) {
+          columnType = columnTypes.get(field.getDbName().toLowerCase());
+        }
+        this.valueWriters.add(this.encoder.newValueWriter(field, columnType));
+      }
+      sql.append(") FROM STDIN (FORMAT binary)");
+      this.copySql = sql.toString();
+    } catch (final SQLException e) {
+      final DataAccessException exception = this.connection.getException("Initialize COPY", null,
+        e);
+      releaseConnection();
+      throw exception;
+    } catch (final RuntimeException e) {
+      releaseConnection();
+      throw e;
+    }
+  }
+
+  private void cancelCopy() {
+    if (this.copyIn != null) {
+      try {
+        if (this.copyIn.isActive()) {
+          this.copyIn.cancelCopy();
+        }
+      } catch (final SQLException e) {
+        Logs.debug(this, "Unable to cancel copy", e);
+      } finally {
+        this.copyIn = null;
+        this.encoder.clear();
+        this.bufferedCount = 0;
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (this.connection != null) {
+      try {
+        endCopy();
+        if (this.ownTransaction) {
+          this.connection.commit();
+        }
+      } catch (final SQLException e) {
+        rollback();
+        throw this.connection.getException("Copy", this.copySql, e);
+      } catch (final RuntimeException | Error e) {
+        rollback();
+        throw e;
+      } finally {
+        releaseConnection();
+        this.recordStore = null;
+      }
+    }
+  }
+
+  /**
+   * End the current COPY and commit the transaction if the writer is not using the
+   * current {@link Transaction}.
+   */
+  public synchronized void commit() {
+    try {
+      endCopy();
+      if (this.ownTransaction) {
+        this.connection.commit();
+      }
+      this.transactionCount = 0;
+    } catch (final SQLException e) {
+      rollback();
+      throw this.connection.getException("Copy", this.copySql, e);
+    }
+  }
+
+  private void endCopy() throws SQLException {
+    if (this.copyIn != null) {
+      this.encoder.writeTrailer();
+      flushBuffer();
+      this.copyIn.endCopy();
+      this.copyIn = null;
+    }
+  }
+
+  /**
+   * End the current COPY so the records written are visible in the transaction.
+   */
+  @Override
+  public synchronized void flush() {
+    try {
+      endCopy();
+    } catch (final SQLException e) {
+      rollback();
+      throw this.connection.getException("Copy", this.copySql, e);
+    }
+  }
+
+  private void flushBuffer() throws SQLException {
+    final ByteBuffer buffer = this.encoder.getBuffer();
+    if (buffer.position() > 0) {
+      this.copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+      this.copyIn.flushCopy();
+      this.encoder.clear();
+    }
+    this.bufferedCount = 0;
+  }
+
+  private Map<String, String> getColumnTypes(final JdbcRecordDefinition recordDefinition)
+    throws SQLException {
+    final Map<String, String> columnTypes = new HashMap<>();
+    final String sql = "SELECT a.attname,"
+      + " CASE WHEN t.typtype = 'd' THEN b.typname ELSE t.typname END FROM pg_attribute a"
+      + " JOIN pg_type t ON t.oid = a.atttypid LEFT JOIN pg_type b ON b.oid = t.typbasetype"
+      + " WHERE a.attrelid = ?::regclass AND a.attnum > 0 AND NOT a.attisdropped";
+    final PreparedStatement statement = this.connection.prepareStatement(sql);
+    ResultSet resultSet = null;
+    try {
+      statement.setString(1, recordDefinition.getDbTableQualifiedName());
+      resultSet = statement.executeQuery();
+      while (resultSet.next()) {
+        columnTypes.put(resultSet.getString(1), resultSet.getString(2));
+      }
+    } finally {
+      JdbcUtils.close(statement, resultSet);
+    }
+    return columnTypes;
+  }
+
+  public int getCommitSize() {
+    return this.commitSize;
+  }
+
+  public int getFlushSize() {
+    return this.flushSize;
+  }
+
+  /**
+   * Restore the auto commit mode changed by the constructor and release the connection.
+   */
+  private void releaseConnection() {
+    final JdbcConnection connection = this.connection;
+    if (connection != null) {
+      this.connection = null;
+      if (this.restoreAutoCommit) {
+        try {
+          connection.setAutoCommit(true);
+        } catch (final SQLException e) {
+          Logs.debug(this, "Unable to restore auto commit", e);
+        }
+      }
+      FileUtil.closeSilent(connection);
+    }
+  }
+
+  private void rollback() {
+    cancelCopy();
+    if (this.ownTransaction && this.connection != null) {
+      try {
+        this.connection.rollback();
+      } catch (final SQLException e) {
+        Logs.debug(this, "Unable to rollback", e);
+      }
+    }
+    this.transactionCount = 0;
+  }
+
+  /**
+   * Set the number of records to write in each transaction. If 0 the records are
+   * committed when the writer is closed. Ignored if there is a current
+   * {@link Transaction}.
+   */
+  public void setCommitSize(final int commitSize) {
+    this.commitSize = commitSize;
+  }
+
+  /**
+   * Set the number of records to buffer before they are sent to the server.
+   */
+  public void setFlushSize(final int flushSize) {
+    this.flushSize = Math.max(1, flushSize);
+  }
+
+  private void startCopy() throws SQLException {
+    final PgConnection pgConnection = this.connection.unwrap(PgConnection.class);
+    this.copyIn = pgConnection.getCopyAPI().copyIn(this.copySql);
+    this.encoder.clear();
+    this.encoder.writeHeader();
+  }
+
+  @Override
+  public String toString() {
+    return this.copySql;
+  }
+
+  @Override
+  public synchronized void write(final Record record) {
+    if (this.connection == null) {
+      throw new IllegalStateException("Writer is closed");
+    }
+    try {
+      if (this.copyIn == null) {
+        startCopy();
+      }
+      final JdbcFieldDefinition[] fields = this.fields;
+      this.encoder.writeRowStart(fields.length);
+      for (int i = 0; i < fields.length; i++) {
+        final JdbcFieldDefinition field = fields[i];
+        Object value = record.getValue(field.getName());
+        if (value != null) {
+          value = field.toFieldValue(value);
+        }
+        if (value == null) {
+          this.encoder.writeNull();
+        } else {
+          this.valueWriters.get(i).accept(field, value);
+        }
+      }
+      this.recordStore.addStatistic("Insert", record);
+      this.transactionCount++;
+      if (++this.bufferedCount >= this.flushSize) {
+        flushBuffer();
+      }
+      if (this.commitSize > 0 && this.transactionCount >= this.commitSize && this.ownTransaction) {
+        commit();
+      }
+    } catch (final SQLException e) {
+      rollback();
+      throw this.connection.getException("Copy", this.copySql, e);
+    } catch (final RuntimeException e) {
+      rollback();
+      throw e;
+    }
+  }
+}
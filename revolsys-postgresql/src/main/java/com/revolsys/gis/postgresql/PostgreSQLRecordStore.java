@@ -57,6 +57,12 @@ public class PostgreSQLRecordStore extends AbstractJdbcRecordStore {
   public static final List<String> POSTGRESQL_INTERNAL_SCHEMAS = Arrays.asList("information_schema",
     "pg_catalog", "pg_toast_temp_1");
 
+  private int copyCommitSize = 0;
+
+  private int copyFlushSize = 1000;
+
+  private boolean geometryBinaryTransfer = false;
+
   private boolean useSchemaSequencePrefix = true;
 
   public PostgreSQLRecordStore() {
@@ -177,6 +183,14 @@ public class PostgreSQLRecordStore extends AbstractJdbcRecordStore {
     }
   }
 
+  public int getCopyCommitSize() {
+    return this.copyCommitSize;
+  }
+
+  public int getCopyFlushSize() {
+    return this.copyFlushSize;
+  }
+
   @Override
   public String getGeneratePrimaryKeySql(final JdbcRecordDefinition recordDefinition) {
     final String sequenceName = getSequenceName(recordDefinition);
@@ -377,6 +391,10 @@ order by 1, 2, 3
     return connection.prepareStatement(sql, generatedColumnNames);
   }
 
+  public boolean isGeometryBinaryTransfer() {
+    return this.geometryBinaryTransfer;
+  }
+
   @Override
   public boolean isIdFieldRowid(final RecordDefinition recordDefinition) {
     final List<FieldDefinition> idFields = recordDefinition.getIdFields();
@@ -398,6 +416,27 @@ order by 1, 2, 3
     return this.useSchemaSequencePrefix;
   }
 
+  /**
+   * Construct a new writer that bulk loads records into the table using binary COPY.
+   *
+   * @param typePath The path of the table.
+   * @param fieldNames The fields to load or null for all the non generated fields.
+   * @return The writer.
+   * @see PostgreSQLCopyRecordWriter
+   */
+  public PostgreSQLCopyRecordWriter newCopyRecordWriter(final PathName typePath,
+    final List<String> fieldNames) {
+    final JdbcRecordDefinition recordDefinition = getRecordDefinition(typePath);
+    if (recordDefinition == null) {
+      throw new IllegalArgumentException("Table does not exist " + typePath);
+    }
+    final PostgreSQLCopyRecordWriter writer = new PostgreSQLCopyRecordWriter(this,
+      recordDefinition, fieldNames);
+    writer.setFlushSize(this.copyFlushSize);
+    writer.setCommitSize(this.copyCommitSize);
+    return writer;
+  }
+
   @Override
   public RecordIterator newIterator(final Query query, final Map<String, Object> properties) {
     return new PostgreSQLJdbcQueryIterator(this, query, properties);
@@ -435,6 +474,22 @@ order by 1, 2, 3
     return new PostgreSQLJdbcQueryResultPager(this, getProperties(), query);
   }
 
+  public void setCopyCommitSize(final int copyCommitSize) {
+    this.copyCommitSize = copyCommitSize;
+  }
+
+  public void setCopyFlushSize(final int copyFlushSize) {
+    this.copyFlushSize = copyFlushSize;
+  }
+
+  /**
+   * Transfer geometries as EWKB bytes instead of text. Disabled by default. Must
+   * be set before the record definitions are loaded.
+   */
+  public void setGeometryBinaryTransfer(final boolean geometryBinaryTransfer) {
+    this.geometryBinaryTransfer = geometryBinaryTransfer;
+  }
+
   public void setUseSchemaSequencePrefix(final boolean useSchemaSequencePrefix) {
     this.useSchemaSequencePrefix = useSchemaSequencePrefix;
   }
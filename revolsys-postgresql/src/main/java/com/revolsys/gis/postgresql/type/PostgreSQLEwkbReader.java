@@ -0,0 +1,229 @@
+package com.revolsys.gis.postgresql.type;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.LinearRing;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Polygon;
+
+/**
+ * Read PostGIS extended well-known binary (EWKB) geometries directly from the bytes
+ * into coordinate arrays. The geometry is returned in the geometry factory; if the
+ * EWKB has a different SRID the geometry is converted to the geometry factory.
+ */
+public class PostgreSQLEwkbReader {
+
+  private static final int WKB_M = 0x40000000;
+
+  private static final int WKB_SRID = 0x20000000;
+
+  private static final int WKB_Z = 0x80000000;
+
+  /**
+   * Decode the hex string of an EWKB geometry as returned by the text protocol.
+   */
+  public static byte[] hexToBytes(final String hex) {
+    final int byteCount = hex.length() / 2;
+    final byte[] bytes = new byte[byteCount];
+    for (int i = 0; i < byteCount; i++) {
+      final int high = Character.digit(hex.charAt(i * 2), 16);
+      final int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+      if (high < 0 || low < 0) {
+        throw new IllegalArgumentException("Invalid hex EWKB at " + i * 2);
+      }
+      bytes[i] = (byte)(high << 4 | low);
+    }
+    return bytes;
+  }
+
+  public static Geometry read(final GeometryFactory geometryFactory, final byte[] bytes) {
+    final ByteBuffer data = ByteBuffer.wrap(bytes);
+    return readGeometry(geometryFactory, data);
+  }
+
+  private static double[] readCoordinates(final int axisCount, final ByteBuffer data,
+    final boolean hasZ, final boolean hasM) {
+    final int vertexCount = data.getInt();
+    final int dataAxisCount = 2 + (hasZ ? 1 : 0) + (hasM ? 1 : 0);
+    final double[] coordinates = new double[axisCount * vertexCount];
+    if (dataAxisCount == axisCount) {
+      data.asDoubleBuffer().get(coordinates);
+      data.position(data.position() + coordinates.length * 8);
+    } else {
+      // Only M, leave Z as 0 to match the previous text parser
+      int coordinateIndex = 0;
+      for (int vertexIndex = 0; vertexIndex < vertexCount; ++vertexIndex) {
+        coordinates[coordinateIndex++] = data.getDouble();
+        coordinates[coordinateIndex++] = data.getDouble();
+        coordinateIndex++;
+        coordinates[coordinateIndex++] = data.getDouble();
+      }
+    }
+    return coordinates;
+  }
+
+  private static Geometry readGeometry(final GeometryFactory geometryFactory,
+    final ByteBuffer data) {
+    if (data.get() == 0) {
+      data.order(ByteOrder.BIG_ENDIAN);
+    } else {
+      data.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    final int typeWord = data.getInt();
+
+    final int geometryType = typeWord & 0x1FFFFFFF;
+
+    final boolean hasZ = (typeWord & WKB_Z) != 0;
+    final boolean hasM = (typeWord & WKB_M) != 0;
+    final boolean hasS = (typeWord & WKB_SRID) != 0;
+
+    GeometryFactory currentGeometryFactory = geometryFactory;
+    if (hasS) {
+      final int coordinateSystemId = data.getInt();
+      if (coordinateSystemId >= 0
+        && currentGeometryFactory.getHorizontalCoordinateSystemId() != coordinateSystemId) {
+        currentGeometryFactory = currentGeometryFactory.convertSrid(coordinateSystemId);
+      }
+    }
+    int axisCount;
+    if (hasM) {
+      axisCount = 4;
+    } else if (hasZ) {
+      axisCount = 3;
+    } else {
+      axisCount = 2;
+    }
+    if (axisCount != currentGeometryFactory.getAxisCount()) {
+      currentGeometryFactory = currentGeometryFactory.convertAxisCount(axisCount);
+    }
+    Geometry geometry;
+    switch (geometryType) {
+      case 1:
+        geometry = readPoint(currentGeometryFactory, data, hasZ, hasM);
+      break;
+      case 2:
+        geometry = readLineString(currentGeometryFactory, data, hasZ, hasM);
+      break;
+      case 3:
+        geometry = readPolygon(currentGeometryFactory, data, hasZ, hasM);
+      break;
+      case 4:
+        geometry = readMultiPoint(currentGeometryFactory, data);
+      break;
+      case 5:
+        geometry = readMultiLineString(currentGeometryFactory, data);
+      break;
+      case 6:
+        geometry = readMultiPolygon(currentGeometryFactory, data);
+      break;
+      case 7:
+        geometry = readGeometryCollection(currentGeometryFactory, data);
+      break;
+      default:
+        throw new IllegalArgumentException("Unknown Geometry Type: " + geometryType);
+    }
+    if (geometryFactory.isSameCoordinateSystem(currentGeometryFactory)) {
+      return geometry;
+    } else {
+      return geometry.convertGeometry(geometryFactory);
+    }
+  }
+
+  private static <G extends Geometry> G[] readGeometryArray(
+    final GeometryFactory geometryFactory, final ByteBuffer data, final G[] geometries) {
+    for (int i = 0; i < geometries.length; ++i) {
+      @SuppressWarnings("unchecked")
+      final G geometry = (G)readGeometry(geometryFactory, data);
+      geometries[i] = geometry;
+    }
+    return geometries;
+  }
+
+  private static Geometry readGeometryCollection(final GeometryFactory geometryFactory,
+    final ByteBuffer data) {
+    final int count = data.getInt();
+    final Geometry[] geometries = readGeometryArray(geometryFactory, data, new Geometry[count]);
+    return geometryFactory.geometry(geometries);
+  }
+
+  private static LineString readLineString(final GeometryFactory geometryFactory,
+    final ByteBuffer data, final boolean hasZ, final boolean hasM) {
+    final int axisCount = geometryFactory.getAxisCount();
+    final double[] coordinates = readCoordinates(axisCount, data, hasZ, hasM);
+    return geometryFactory.lineString(axisCount, coordinates);
+  }
+
+  private static Geometry readMultiLineString(final GeometryFactory geometryFactory,
+    final ByteBuffer data) {
+    final int count = data.getInt();
+    final LineString[] lines = readGeometryArray(geometryFactory, data, new LineString[count]);
+    if (lines.length == 1) {
+      return lines[0];
+    } else {
+      return geometryFactory.lineal(lines);
+    }
+  }
+
+  private static Geometry readMultiPoint(final GeometryFactory geometryFactory,
+    final ByteBuffer data) {
+    final int count = data.getInt();
+    final Point[] points = readGeometryArray(geometryFactory, data, new Point[count]);
+    if (points.length == 1) {
+      return points[0];
+    } else {
+      return geometryFactory.punctual(points);
+    }
+  }
+
+  private static Geometry readMultiPolygon(final GeometryFactory geometryFactory,
+    final ByteBuffer data) {
+    final int count = data.getInt();
+    final Polygon[] polygons = readGeometryArray(geometryFactory, data, new Polygon[count]);
+    if (polygons.length == 1) {
+      return polygons[0];
+    } else {
+      return geometryFactory.polygonal(polygons);
+    }
+  }
+
+  private static Point readPoint(final GeometryFactory geometryFactory, final ByteBuffer data,
+    final boolean hasZ, final boolean hasM) {
+    final double x = data.getDouble();
+    final double y = data.getDouble();
+    if (Double.isNaN(x) && Double.isNaN(y)) {
+      // PostGIS writes POINT EMPTY as NaN coordinates
+      data.position(data.position() + ((hasZ ? 1 : 0) + (hasM ? 1 : 0)) * 8);
+      return geometryFactory.point();
+    } else if (hasM) {
+      if (hasZ) {
+        final double z = data.getDouble();
+        final double m = data.getDouble();
+        return geometryFactory.point(x, y, z, m);
+      } else {
+        final double m = data.getDouble();
+        return geometryFactory.point(x, y, Double.NaN, m);
+      }
+    } else if (hasZ) {
+      final double z = data.getDouble();
+      return geometryFactory.point(x, y, z);
+    } else {
+      return geometryFactory.point(x, y);
+    }
+  }
+
+  private static Polygon readPolygon(final GeometryFactory geometryFactory,
+    final ByteBuffer data, final boolean hasZ, final boolean hasM) {
+    final int axisCount = geometryFactory.getAxisCount();
+    final int count = data.getInt();
+    final LinearRing[] rings = new LinearRing[count];
+    for (int i = 0; i < count; ++i) {
+      final double[] coordinates = readCoordinates(axisCount, data, hasZ, hasM);
+      rings[i] = geometryFactory.linearRing(axisCount, coordinates);
+    }
+    return geometryFactory.polygon(rings);
+  }
+}
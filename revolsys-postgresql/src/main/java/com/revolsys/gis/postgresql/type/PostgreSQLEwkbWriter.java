@@ -0,0 +1,213 @@
+package com.revolsys.gis.postgresql.type;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.jeometry.common.data.type.DataType;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.Lineal;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Polygon;
+import com.revolsys.geometry.model.Polygonal;
+import com.revolsys.geometry.model.Punctual;
+
+/**
+ * Write geometries as PostGIS extended well-known binary (EWKB) in little endian
+ * byte order with the SRID of the geometry factory. The geometry is written with
+ * the axis count of the geometry factory; Z and M values that are NaN are written
+ * as 0 to match the WKT written by {@link PostgreSQLGeometryWrapper}.
+ *
+ * <p>The writer reuses its buffer so create one writer per thread.</p>
+ */
+public class PostgreSQLEwkbWriter {
+
+  private static final int WKB_M = 0x40000000;
+
+  private static final int WKB_SRID = 0x20000000;
+
+  private static final int WKB_Z = 0x80000000;
+
+  private ByteBuffer buffer = newBuffer(1024);
+
+  private ByteBuffer newBuffer(final int capacity) {
+    final ByteBuffer buffer = ByteBuffer.allocate(capacity);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    return buffer;
+  }
+
+  private void ensureCapacity(final int byteCount) {
+    final ByteBuffer buffer = this.buffer;
+    if (buffer.remaining() < byteCount) {
+      final int capacity = Math.max(buffer.capacity() * 2, buffer.position() + byteCount);
+      final ByteBuffer newBuffer = newBuffer(capacity);
+      buffer.flip();
+      newBuffer.put(buffer);
+      this.buffer = newBuffer;
+    }
+  }
+
+  /**
+   * Get the EWKB for the geometry as a new byte array.
+   *
+   * @see #write(DataType, GeometryFactory, Geometry)
+   */
+  public byte[] toBytes(final DataType dataType, final GeometryFactory geometryFactory,
+    final Geometry geometry) {
+    final ByteBuffer buffer = write(dataType, geometryFactory, geometry);
+    return Arrays.copyOf(buffer.array(), buffer.limit());
+  }
+
+  /**
+   * Write the EWKB for the geometry converted to the geometry factory. Single part
+   * geometries are written as a multi geometry with one part for multi geometry
+   * columns and single part collections are written as the part for single
+   * geometry columns.
+   *
+   * @param dataType The geometry data type of the column.
+   * @param geometryFactory The geometry factory of the column.
+   * @param geometry The geometry to write.
+   * @return The buffer containing the EWKB, only valid until the next write.
+   */
+  public ByteBuffer write(final DataType dataType, final GeometryFactory geometryFactory,
+    final Geometry geometry) {
+    this.buffer.clear();
+    final Geometry convertedGeometry = geometry.convertGeometry(geometryFactory);
+    final int axisCount = geometryFactory.getAxisCount();
+    final int srid = geometryFactory.getHorizontalCoordinateSystemId();
+    if (dataType == GeometryDataTypes.MULTI_POINT && convertedGeometry instanceof Point) {
+      writeMulti(4, convertedGeometry, axisCount, srid);
+    } else if (dataType == GeometryDataTypes.MULTI_LINE_STRING
+      && convertedGeometry instanceof LineString) {
+      writeMulti(5, convertedGeometry, axisCount, srid);
+    } else if (dataType == GeometryDataTypes.MULTI_POLYGON
+      && convertedGeometry instanceof Polygon) {
+      writeMulti(6, convertedGeometry, axisCount, srid);
+    } else if ((dataType == GeometryDataTypes.POINT || dataType == GeometryDataTypes.LINE_STRING
+      || dataType == GeometryDataTypes.POLYGON) && convertedGeometry.isGeometryCollection()
+      && convertedGeometry.getGeometryCount() == 1) {
+      writeGeometry(convertedGeometry.getGeometry(0), axisCount, srid);
+    } else {
+      writeGeometry(convertedGeometry, axisCount, srid);
+    }
+    this.buffer.flip();
+    return this.buffer;
+  }
+
+  private void writeCoordinates(final LineString line, final int axisCount,
+    final boolean reverse) {
+    final int vertexCount = line.getVertexCount();
+    ensureCapacity(4 + vertexCount * axisCount * 8);
+    final ByteBuffer buffer = this.buffer;
+    buffer.putInt(vertexCount);
+    final int lineAxisCount = line.getAxisCount();
+    for (int i = 0; i < vertexCount; i++) {
+      final int vertexIndex = reverse ? vertexCount - 1 - i : i;
+      for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+        double ordinate = 0;
+        if (axisIndex < lineAxisCount) {
+          ordinate = line.getCoordinate(vertexIndex, axisIndex);
+          if (Double.isNaN(ordinate) && axisIndex > 1) {
+            ordinate = 0;
+          }
+        }
+        buffer.putDouble(ordinate);
+      }
+    }
+  }
+
+  private void writeGeometry(final Geometry geometry, final int axisCount, final int srid) {
+    if (geometry instanceof Point) {
+      writePoint((Point)geometry, axisCount, srid);
+    } else if (geometry instanceof Punctual) {
+      writeMulti(4, geometry, axisCount, srid);
+    } else if (geometry instanceof LineString) {
+      writeHeader(2, axisCount, srid);
+      writeCoordinates((LineString)geometry, axisCount, false);
+    } else if (geometry instanceof Lineal) {
+      writeMulti(5, geometry, axisCount, srid);
+    } else if (geometry instanceof Polygon) {
+      writePolygon((Polygon)geometry, axisCount, srid);
+    } else if (geometry instanceof Polygonal) {
+      writeMulti(6, geometry, axisCount, srid);
+    } else if (geometry.isGeometryCollection()) {
+      writeMulti(7, geometry, axisCount, srid);
+    } else {
+      throw new IllegalArgumentException("Unknown geometry type" + geometry.getClass());
+    }
+  }
+
+  private void writeHeader(final int geometryType, final int axisCount, final int srid) {
+    ensureCapacity(9);
+    int typeWord = geometryType;
+    if (axisCount > 2) {
+      typeWord |= WKB_Z;
+    }
+    if (axisCount > 3) {
+      typeWord |= WKB_M;
+    }
+    if (srid > 0) {
+      typeWord |= WKB_SRID;
+    }
+    this.buffer.put((byte)1);
+    this.buffer.putInt(typeWord);
+    if (srid > 0) {
+      ensureCapacity(4);
+      this.buffer.putInt(srid);
+    }
+  }
+
+  private void writeMulti(final int geometryType, final Geometry geometry, final int axisCount,
+    final int srid) {
+    writeHeader(geometryType, axisCount, srid);
+    final int partCount = geometry.isEmpty() ? 0 : geometry.getGeometryCount();
+    ensureCapacity(4);
+    this.buffer.putInt(partCount);
+    for (int i = 0; i < partCount; i++) {
+      final Geometry part = geometry.getGeometry(i);
+      writeGeometry(part, axisCount, 0);
+    }
+  }
+
+  private void writePoint(final Point point, final int axisCount, final int srid) {
+    writeHeader(1, axisCount, srid);
+    ensureCapacity(axisCount * 8);
+    final ByteBuffer buffer = this.buffer;
+    if (point.isEmpty()) {
+      for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+        buffer.putDouble(Double.NaN);
+      }
+    } else {
+      final int pointAxisCount = point.getAxisCount();
+      for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+        double ordinate = 0;
+        if (axisIndex < pointAxisCount) {
+          ordinate = point.getCoordinate(axisIndex);
+          if (Double.isNaN(ordinate) && axisIndex > 1) {
+            ordinate = 0;
+          }
+        }
+        buffer.putDouble(ordinate);
+      }
+    }
+  }
+
+  private void writePolygon(final Polygon polygon, final int axisCount, final int srid) {
+    writeHeader(3, axisCount, srid);
+    ensureCapacity(4);
+    if (polygon.isEmpty()) {
+      this.buffer.putInt(0);
+    } else {
+      this.buffer.putInt(polygon.getRingCount());
+      final LineString shell = polygon.getShell();
+      writeCoordinates(shell, axisCount, shell.isClockwise());
+      for (final LineString hole : polygon.holes()) {
+        writeCoordinates(hole, axisCount, !hole.isClockwise());
+      }
+    }
+  }
+}
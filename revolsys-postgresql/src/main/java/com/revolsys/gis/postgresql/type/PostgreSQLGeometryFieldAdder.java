@@ -77,6 +77,7 @@ public class PostgreSQLGeometryFieldAdder extends JdbcFieldAdder {
         dbName, name, dataType, sqlType, required, description, null, srid, axisCount,
         geometryFactory);
       field.setGeometryFactory(geometryFactory);
+      field.setBinaryTransfer(this.recordStore.isGeometryBinaryTransfer());
       return field;
     } catch (final Throwable e) {
       Logs.error(this, "Attribute not registered in GEOMETRY_COLUMN table " + dbSchemaName + "."
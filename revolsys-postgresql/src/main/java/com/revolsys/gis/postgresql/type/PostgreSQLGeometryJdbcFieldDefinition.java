@@ -1,11 +1,14 @@
 package com.revolsys.gis.postgresql.type;
 
+import java.io.IOException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Map;
 
 import org.jeometry.common.data.type.DataType;
+import org.jeometry.common.exception.Exceptions;
 
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.Geometry;
@@ -14,12 +17,19 @@ import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.jdbc.field.JdbcFieldDefinition;
 import com.revolsys.record.RecordState;
 import com.revolsys.record.query.ColumnIndexes;
+import com.revolsys.record.query.Query;
 import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordStore;
 import com.revolsys.util.Property;
 
 public class PostgreSQLGeometryJdbcFieldDefinition extends JdbcFieldDefinition {
+  private static final ThreadLocal<PostgreSQLEwkbWriter> EWKB_WRITER = ThreadLocal
+    .withInitial(PostgreSQLEwkbWriter::new);
+
   private final int axisCount;
 
+  private boolean binaryTransfer = false;
+
   private final int srid;
 
   public PostgreSQLGeometryJdbcFieldDefinition(final String dbName, final String name,
@@ -32,12 +42,43 @@ public class PostgreSQLGeometryJdbcFieldDefinition extends JdbcFieldDefinition {
     setGeometryFactory(geometryFactory.convertAxisCount(axisCount));
   }
 
+  @Override
+  public void addInsertStatementPlaceHolder(final StringBuilder sql, final boolean generateKeys) {
+    if (this.binaryTransfer) {
+      sql.append("ST_GeomFromEWKB(?)");
+    } else {
+      super.addInsertStatementPlaceHolder(sql, generateKeys);
+    }
+  }
+
+  /**
+   * Select the geometry as EWKB bytes (bytea) if binary transfer is enabled.
+   * The result is aliased to the column name so the column label is unchanged.
+   */
+  @Override
+  public void appendDefaultSelect(final Query query, final RecordStore recordStore,
+    final Appendable sql) {
+    if (this.binaryTransfer) {
+      try {
+        sql.append("ST_AsEWKB(");
+        appendName(sql);
+        sql.append(") AS ");
+        appendColumnName(sql, true);
+      } catch (final IOException e) {
+        throw Exceptions.wrap(e);
+      }
+    } else {
+      super.appendDefaultSelect(query, recordStore, sql);
+    }
+  }
+
   @Override
   public JdbcFieldDefinition clone() {
     final GeometryFactory geometryFactory = getGeometryFactory();
     final PostgreSQLGeometryJdbcFieldDefinition clone = new PostgreSQLGeometryJdbcFieldDefinition(
       getDbName(), getName(), getDataType(), getSqlType(), isRequired(), getDescription(),
       getProperties(), this.srid, this.axisCount, geometryFactory);
+    clone.binaryTransfer = this.binaryTransfer;
     postClone(clone);
     return clone;
   }
@@ -74,11 +115,23 @@ public class PostgreSQLGeometryJdbcFieldDefinition extends JdbcFieldDefinition {
     return value;
   }
 
+  public boolean isBinaryTransfer() {
+    return this.binaryTransfer;
+  }
+
   @Override
   public boolean isSortable() {
     return false;
   }
 
+  /**
+   * Read geometries using ST_AsEWKB and write them using ST_GeomFromEWKB so the
+   * geometries are transferred as bytes instead of hex or WKT text.
+   */
+  public void setBinaryTransfer(final boolean binaryTransfer) {
+    this.binaryTransfer = binaryTransfer;
+  }
+
   @Override
   public void setGeometryFactory(final GeometryFactory geometryFactory) {
     if (geometryFactory != null) {
@@ -89,6 +142,15 @@ public class PostgreSQLGeometryJdbcFieldDefinition extends JdbcFieldDefinition {
   @Override
   public int setInsertPreparedStatementValue(final PreparedStatement statement,
     final int parameterIndex, final Object value) throws SQLException {
+    if (this.binaryTransfer) {
+      final byte[] ewkb = toEwkb(value);
+      if (ewkb == null) {
+        statement.setNull(parameterIndex, Types.BINARY);
+      } else {
+        statement.setBytes(parameterIndex, ewkb);
+      }
+      return parameterIndex + 1;
+    }
     final Object jdbcValue = getInsertUpdateValue(value);
     if (jdbcValue == null) {
       final int sqlType = getSqlType();
@@ -140,8 +202,28 @@ public class PostgreSQLGeometryJdbcFieldDefinition extends JdbcFieldDefinition {
     return (V)v;
   }
 
+  private byte[] toEwkb(final Object value) {
+    final GeometryFactory geometryFactory = getGeometryFactory();
+    Geometry geometry;
+    if (value instanceof Geometry) {
+      geometry = (Geometry)value;
+    } else if (value instanceof BoundingBox) {
+      geometry = ((BoundingBox)value).bboxToCs(geometryFactory).toPolygon(geometryFactory);
+    } else if (Property.hasValue(value)) {
+      geometry = geometryFactory.geometry(value.toString());
+    } else {
+      return null;
+    }
+    final DataType dataType = getDataType();
+    return EWKB_WRITER.get().toBytes(dataType, geometryFactory, geometry);
+  }
+
   public Object toJava(final Object object) throws SQLException {
-    if (object instanceof PostgreSQLGeometryWrapper) {
+    if (object instanceof byte[]) {
+      final byte[] bytes = (byte[])object;
+      final GeometryFactory geometryFactory = getGeometryFactory();
+      return PostgreSQLEwkbReader.read(geometryFactory, bytes);
+    } else if (object instanceof PostgreSQLGeometryWrapper) {
       final PostgreSQLGeometryWrapper geometryType = (PostgreSQLGeometryWrapper)object;
       final GeometryFactory geometryFactory = getGeometryFactory();
       final Geometry geometry = geometryType.getGeometry(geometryFactory);
@@ -58,6 +58,7 @@ import com.revolsys.collection.list.Lists;
 import com.revolsys.collection.map.MapEx;
 import com.revolsys.collection.map.Maps;
 import com.revolsys.collection.set.Sets;
+import com.revolsys.geometry.index.ConcurrentSpatialIndex;
 import com.revolsys.geometry.index.RecordSpatialIndex;
 import com.revolsys.geometry.index.SpatialIndex;
 import com.revolsys.geometry.index.rstartree.RStarTree;
@@ -219,12 +220,14 @@ public abstract class AbstractRecordLayer extends AbstractLayer implements
         if (index == null) {
           final RecordSpatialIndex<Record> newIndex = newSpatialIndex();
           this.index = index = newIndex;
+          final List<LayerRecord> records = new ArrayList<>();
           final Consumer<LayerRecord> action = record -> {
             if (!isDeleted(record)) {
-              newIndex.addRecord(record);
+              records.add(record);
             }
           };
           forEachRecord(action);
+          newIndex.addRecords(records, true);
         }
         return index;
       }
@@ -236,9 +239,7 @@ public abstract class AbstractRecordLayer extends AbstractLayer implements
     public <R extends Record> List<R> getRecords(final BoundingBox boundingBox) {
       final RecordSpatialIndex<Record> index = getIndex();
       if (index != null) {
-        synchronized (index) {
-          return (List)index.queryIntersects(boundingBox);
-        }
+        return (List)index.queryIntersects(boundingBox);
       }
       return Collections.emptyList();
     }
@@ -250,9 +251,7 @@ public abstract class AbstractRecordLayer extends AbstractLayer implements
       final double distance) {
       final RecordSpatialIndex<Record> index = getIndex();
       if (index != null) {
-        synchronized (index) {
-          return (List)index.getRecordsDistance(geometry, distance);
-        }
+        return (List)index.getRecordsDistance(geometry, distance);
       }
       return Collections.emptyList();
     }
@@ -2445,7 +2444,7 @@ public abstract class AbstractRecordLayer extends AbstractLayer implements
     final BiPredicate<Record, Record> equalsItemFunction = Record::isSame;
     final SpatialIndex<Record> spatialIndex = new RStarTree<Record>(geometryFactory)
       .setEqualsItemFunction(equalsItemFunction);
-    return new RecordSpatialIndex<>(spatialIndex);
+    return new RecordSpatialIndex<>(new ConcurrentSpatialIndex<>(spatialIndex));
   }
 
   protected LayerRecord newSplitRecord(final Record record, final JsonObject newValues) {
@@ -1,5 +1,6 @@
 package com.revolsys.swing.map.layer.record;
 
+import com.revolsys.geometry.index.ConcurrentSpatialIndex;
 import com.revolsys.geometry.index.RecordSpatialIndex;
 import com.revolsys.geometry.index.SpatialIndex;
 import com.revolsys.geometry.index.quadtree.QuadTree;
@@ -11,7 +12,7 @@ public class LayerRecordQuadTree extends QuadTree<LayerRecord> {
 
   public static RecordSpatialIndex<LayerRecord> newIndex(final GeometryFactory geometryFactory) {
     final SpatialIndex<LayerRecord> spatialIndex = new LayerRecordQuadTree(geometryFactory);
-    return new RecordSpatialIndex<>(spatialIndex);
+    return new RecordSpatialIndex<>(new ConcurrentSpatialIndex<>(spatialIndex));
   }
 
   public static RecordSpatialIndex<LayerRecord> newIndex(final Layer layer) {
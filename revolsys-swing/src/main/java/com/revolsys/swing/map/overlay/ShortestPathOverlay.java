@@ -21,7 +21,8 @@ import com.revolsys.collection.list.Lists;
 import com.revolsys.geometry.graph.Edge;
 import com.revolsys.geometry.graph.Node;
 import com.revolsys.geometry.graph.RecordGraph;
-import com.revolsys.geometry.graph.algorithm.ShortestPath;
+import com.revolsys.geometry.graph.algorithm.BidirectionalAStar;
+import com.revolsys.geometry.graph.algorithm.CsrGraph;
 import com.revolsys.geometry.graph.linemerge.LineMerger;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.Geometry;
@@ -431,9 +432,9 @@ public class ShortestPathOverlay extends AbstractOverlay {
         final List<LayerRecord> viewRecords = layer.getRecords(boundingBox);
         final RecordGraph graph = new RecordGraph(viewRecords);
         final Node<Record> fromNode = graph.getNode(geometry1.getPoint());
-        final ShortestPath<Record> paths = new ShortestPath<>(graph, fromNode);
         final Node<Record> toNode = graph.getNode(geometry2.getPoint());
-        final List<Edge<Record>> path = paths.getPath(toNode);
+        final BidirectionalAStar<Record> router = new BidirectionalAStar<>(new CsrGraph<>(graph));
+        final List<Edge<Record>> path = router.getPath(fromNode, toNode);
         for (final Edge<Record> edge : path) {
           final LayerRecord record = (LayerRecord)edge.getObject();
           if (!record1.isSame(record) && !record2.isSame(record)) {
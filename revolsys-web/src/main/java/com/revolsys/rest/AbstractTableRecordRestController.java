@@ -2,6 +2,10 @@ package com.revolsys.rest;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -15,22 +19,115 @@ import org.springframework.web.server.ResponseStatusException;
 
 import com.revolsys.record.Record;
 import com.revolsys.record.io.RecordReader;
+import com.revolsys.record.io.format.json.Json;
 import com.revolsys.record.io.format.json.JsonObject;
+import com.revolsys.record.io.format.json.JsonParser;
 import com.revolsys.record.io.format.json.JsonRecordWriter;
+import com.revolsys.record.query.ColumnReference;
+import com.revolsys.record.query.OrderBy;
 import com.revolsys.record.query.Query;
 import com.revolsys.record.schema.AbstractTableRecordStore;
 import com.revolsys.record.schema.TableRecordStoreConnection;
 import com.revolsys.transaction.Transaction;
 import com.revolsys.transaction.TransactionOptions;
+import com.revolsys.util.UriBuilder;
 import com.revolsys.web.HttpServletUtils;
 
+/**
+ * <p>
+ * Pages of records are returned using keyset (seek) pagination. The
+ * <code>@odata.nextLink</code> has a <code>$skiptoken</code> parameter with an
+ * opaque token containing the order by values of the last record on the page.
+ * The next page is selected using a condition on the order by fields (see
+ * {@link Query#seekAfter(List)}) instead of an offset so the database doesn't
+ * read and discard the records for all the previous pages. If the order by
+ * isn't {@link Query#isSeekable()}, because the table has no id fields or an
+ * order by field is nullable, <code>$skip</code> is used instead.
+ * </p>
+ * <p>
+ * The <code>@odata.count</code> from the first page is stored in the token and
+ * returned for the later pages instead of counting the records again.
+ * </p>
+ */
 public class AbstractTableRecordRestController extends AbstractWebController {
 
+  private static final String PAGE_OFFSET_PROPERTY = AbstractTableRecordRestController.class
+    .getName() + ".pageOffset";
+
+  private static final String SKIP_TOKEN = "$skiptoken";
+
+  private static String newSkipToken(final Query query, final List<Object> orderByValues,
+    final int offset, final Long count) {
+    final List<String> values = new ArrayList<>();
+    final List<OrderBy> orderBy = query.getOrderBy();
+    for (int i = 0; i < orderBy.size(); i++) {
+      final ColumnReference column = (ColumnReference)orderBy.get(i).getField();
+      values.add(column.toString(orderByValues.get(i)));
+    }
+    final JsonObject token = JsonObject.hash("orderBy", orderBy.toString())
+      .addValue("values", values)
+      .addValue("offset", offset)
+      .addValue("count", count);
+    final byte[] bytes = Json.toString(token).getBytes(StandardCharsets.UTF_8);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  private static JsonObject readSkipToken(final HttpServletRequest request) {
+    final String skipToken = request.getParameter(SKIP_TOKEN);
+    if (skipToken == null || skipToken.isEmpty()) {
+      return null;
+    } else {
+      try {
+        final byte[] bytes = Base64.getUrlDecoder().decode(skipToken);
+        final Object token = JsonParser.read(new String(bytes, StandardCharsets.UTF_8));
+        if (token instanceof JsonObject) {
+          return (JsonObject)token;
+        }
+      } catch (final RuntimeException e) {
+      }
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + SKIP_TOKEN);
+    }
+  }
+
+  /**
+   * Add the id fields to the order by so the order is unique and if there is a
+   * skip token add the seek condition for the records after the last record of
+   * the previous page.
+   */
+  private static void seekAfter(final Query query, final JsonObject skipToken) {
+    query.addOrderByIdIfMissing();
+    int offset = query.getOffset();
+    if (skipToken != null) {
+      final List<OrderBy> orderBy = query.getOrderBy();
+      final List<?> values = skipToken.getValue("values");
+      if (!orderBy.toString().equals(skipToken.getString("orderBy"))) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          SKIP_TOKEN + " is for a different $orderby");
+      }
+      try {
+        query.seekAfter(values);
+      } catch (final RuntimeException e) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + SKIP_TOKEN, e);
+      }
+      offset += skipToken.getInteger("offset", 0);
+    }
+    query.setProperty(PAGE_OFFSET_PROPERTY, offset);
+  }
+
   protected int maxPageSize = Integer.MAX_VALUE;
 
   public AbstractTableRecordRestController() {
   }
 
+  /**
+   * Get the number of records matching the query. Override to return a cached or
+   * estimated count for large tables.
+   */
+  protected Long getRecordCount(final TableRecordStoreConnection connection,
+    final HttpServletRequest request, final Query query) {
+    return query.getRecordCount();
+  }
+
   protected <RS extends AbstractTableRecordStore> RS getTableRecordStore(
     final TableRecordStoreConnection connection, final CharSequence tablePath) {
     final RS tableRecordStore = connection.getTableRecordStore(tablePath);
@@ -50,13 +147,22 @@ public class AbstractTableRecordRestController extends AbstractWebController {
     final HttpServletRequest request, final HttpServletResponse response, final Query query)
     throws IOException {
     try (
-      Transaction transaction = connection.newTransaction(TransactionOptions.REQUIRES_NEW_READONLY);
-      final RecordReader records = query.getRecordReader(transaction)) {
+      Transaction transaction = connection.newTransaction(TransactionOptions.REQUIRES_NEW_READONLY)) {
+      final JsonObject skipToken = readSkipToken(request);
       Long count = null;
       if (HttpServletUtils.getBooleanParameter(request, "$count")) {
-        count = query.getRecordCount();
+        if (skipToken != null) {
+          count = skipToken.getLong("count");
+        }
+        if (count == null) {
+          count = getRecordCount(connection, request, query);
+        }
+      }
+      seekAfter(query, skipToken);
+      try (
+        final RecordReader records = query.getRecordReader(transaction)) {
+        responseRecords(connection, request, response, query, records, count);
       }
-      responseRecords(connection, request, response, query, records, count);
     }
   }
 
@@ -144,9 +250,12 @@ public class AbstractTableRecordRestController extends AbstractWebController {
     final HttpServletRequest request, final HttpServletResponse response, final Query query,
     final Long count) throws IOException {
     try (
-      Transaction transaction = connection.newTransaction(TransactionOptions.REQUIRES_NEW_READONLY);
-      final RecordReader records = query.getRecordReader(transaction)) {
-      responseRecordsJson(connection, request, response, query, records, count);
+      Transaction transaction = connection.newTransaction(TransactionOptions.REQUIRES_NEW_READONLY)) {
+      seekAfter(query, readSkipToken(request));
+      try (
+        final RecordReader records = query.getRecordReader(transaction)) {
+        responseRecordsJson(connection, request, response, query, records, count);
+      }
     }
   }
 
@@ -163,23 +272,42 @@ public class AbstractTableRecordRestController extends AbstractWebController {
         jsonWriter.setHeader(JsonObject.hash("@odata.count", count));
       }
       jsonWriter.setItemsPropertyName("value");
-      final int writeCount = jsonWriter.writeAll(reader);
-      final int nextSkip = query.getOffset() + writeCount;
+      int writeCount = 0;
+      Record lastRecord = null;
+      for (final Record record : reader) {
+        jsonWriter.write(record);
+        lastRecord = record;
+        writeCount++;
+      }
+      final Integer pageOffset = query.getProperty(PAGE_OFFSET_PROPERTY);
+      final int offset = pageOffset == null ? query.getOffset() : pageOffset;
+      final int nextSkip = offset + writeCount;
       boolean writeNext = false;
       if (writeCount != 0) {
         if (count == null) {
           if (writeCount >= query.getLimit()) {
             writeNext = true;
           }
-        } else if (query.getOffset() + writeCount < count) {
+        } else if (nextSkip < count) {
           writeNext = true;
         }
       }
 
       if (writeNext) {
-        final String nextLink = HttpServletUtils.getFullRequestUriBuilder(request)
-          .setParameter("$skip", nextSkip)
-          .buildString();
+        final UriBuilder uriBuilder = HttpServletUtils.getFullRequestUriBuilder(request);
+        List<Object> orderByValues = null;
+        if (pageOffset != null && query.isSeekable()) {
+          orderByValues = query.getOrderByValues(lastRecord);
+        }
+        if (orderByValues == null) {
+          // Fall back to an offset if the order by isn't unique, has nullable
+          // fields or the order by values aren't in the record
+          uriBuilder.removeParameter(SKIP_TOKEN).setParameter("$skip", nextSkip);
+        } else {
+          final String skipToken = newSkipToken(query, orderByValues, nextSkip, count);
+          uriBuilder.removeParameter("$skip").setParameter(SKIP_TOKEN, skipToken);
+        }
+        final String nextLink = uriBuilder.buildString();
         jsonWriter.setFooter(JsonObject.hash("@odata.nextLink", nextLink));
       }
     }
@@ -17,6 +17,7 @@ import org.junit.Test;
 import com.revolsys.elevation.gridded.GriddedElevationModel;
 import com.revolsys.elevation.gridded.scaledint.ScaledIntegerGriddedDigitalElevation;
 import com.revolsys.elevation.gridded.scaledint.ScaledIntegerGriddedDigitalElevationModelFile;
+import com.revolsys.elevation.gridded.scaledint.TiledDirectFileScaledIntegerGriddedDigitalElevationModel;
 import com.revolsys.geometry.model.GeometryFactory;
 
 public class ScaledIntegerGriddedDigitalElevationModelTest extends GriddedElevationModelTest {
@@ -61,6 +62,43 @@ public class ScaledIntegerGriddedDigitalElevationModelTest extends GriddedElevat
     }
   }
 
+  @Test
+  public void test202RandomAccessWindow() {
+    final GriddedElevationModel model = GriddedElevationModelTest
+      .newIntArrayModelNaNOnDiagonal(3005);
+    final String filePath = "target/test/elevation/nanDiagonalWindow.sigdem";
+    writeModel(model, filePath);
+    for (final boolean memoryMapped : new boolean[] {
+      false, true
+    }) {
+      try (
+        final ScaledIntegerGriddedDigitalElevationModelFile actualModel = new ScaledIntegerGriddedDigitalElevationModelFile(
+          Paths.get(filePath))) {
+        actualModel.setMemoryMapped(memoryMapped);
+        assertModelEquals(model, actualModel);
+
+        final int gridX = -3;
+        final int gridY = model.getGridHeight() - 20;
+        final int width = 30;
+        final int height = 25;
+        final double[] values = new double[width * height];
+        actualModel.getValues(gridX, gridY, width, height, values);
+        for (int j = 0; j < height; j++) {
+          for (int i = 0; i < width; i++) {
+            final int x = gridX + i;
+            final int y = gridY + j;
+            double expected = Double.NaN;
+            if (x >= 0 && y < model.getGridHeight()) {
+              expected = model.getValue(x, y);
+            }
+            Assert.assertEquals("getValues(" + x + "," + y + ")", expected, values[j * width + i],
+              0);
+          }
+        }
+      }
+    }
+  }
+
   @Test
   public void test203RandomAccessMissingCreateEmpty() throws IOException {
     final String filePath = "target/test/elevation/missingCreateEmpty.sigdem";
@@ -100,4 +138,67 @@ public class ScaledIntegerGriddedDigitalElevationModelTest extends GriddedElevat
     assertModelEquals(expectedModel, actualModel);
   }
 
+  @Test
+  public void test204TiledWindow() throws IOException {
+    final Path baseDirectory = Paths.get("target/test/elevation/tiled");
+    final String filePrefix = "window";
+    final GeometryFactory geometryFactory = GeometryFactory.fixed3d(3005, 1000.0, 1000.0, 1000.0);
+    final int tileSize = 20;
+    final int gridSize = tileSize * 2;
+
+    // Write 2x2 tiles, the tiles with negative indexes and past the max don't exist
+    for (int tileY = 0; tileY < gridSize; tileY += tileSize) {
+      for (int tileX = 0; tileX < gridSize; tileX += tileSize) {
+        final String fileName = filePrefix + "_3005_" + tileSize + "_" + tileX + "_" + tileY + "."
+          + ScaledIntegerGriddedDigitalElevation.FILE_EXTENSION;
+        final Path path = baseDirectory.resolve(ScaledIntegerGriddedDigitalElevation.FILE_EXTENSION)
+          .resolve("3005")
+          .resolve(Integer.toString(tileSize))
+          .resolve(Integer.toString(tileX))
+          .resolve(fileName);
+        Files.deleteIfExists(path);
+        try (
+          final ScaledIntegerGriddedDigitalElevationModelFile tileModel = new ScaledIntegerGriddedDigitalElevationModelFile(
+            path, geometryFactory, tileX, tileY, tileSize, tileSize, 1)) {
+          tileModel.setCreateMissing(true);
+          for (int y = 0; y < tileSize; y++) {
+            for (int x = 0; x < tileSize; x++) {
+              tileModel.setValue(x, y, tileX + x + (tileY + y) * 100);
+            }
+          }
+        }
+      }
+    }
+
+    for (final boolean memoryMapped : new boolean[] {
+      false, true
+    }) {
+      final TiledDirectFileScaledIntegerGriddedDigitalElevationModel model = new TiledDirectFileScaledIntegerGriddedDigitalElevationModel(
+        baseDirectory, filePrefix, geometryFactory, 0, 0, tileSize, 1);
+      try {
+        model.setMemoryMapped(memoryMapped);
+        final int gridX = -3;
+        final int gridY = -5;
+        final int width = 50;
+        final int height = 48;
+        final double[] values = new double[width * height];
+        model.getValues(gridX, gridY, width, height, values);
+        for (int j = 0; j < height; j++) {
+          for (int i = 0; i < width; i++) {
+            final int x = gridX + i;
+            final int y = gridY + j;
+            double expected = Double.NaN;
+            if (x >= 0 && y >= 0 && x < gridSize && y < gridSize) {
+              expected = x + y * 100;
+            }
+            Assert.assertEquals("getValues(" + x + "," + y + ")", expected, values[j * width + i],
+              0);
+          }
+        }
+      } finally {
+        model.close();
+      }
+    }
+  }
+
 }
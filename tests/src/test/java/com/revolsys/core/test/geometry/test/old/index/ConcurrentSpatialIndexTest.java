@@ -0,0 +1,197 @@
+package com.revolsys.core.test.geometry.test.old.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.index.ConcurrentSpatialIndex;
+import com.revolsys.geometry.index.rstartree.RStarTree;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.impl.BoundingBoxDoubleXY;
+
+public class ConcurrentSpatialIndexTest {
+
+  @Test
+  public void testConcurrentInsertAndQuery() throws Exception {
+    final ConcurrentSpatialIndex<BoundingBox> index = ConcurrentSpatialIndex
+      .quadTree(GeometryFactory.DEFAULT_2D);
+    final int threadCount = 4;
+    final int itemCount = 2000;
+    final ExecutorService executor = Executors.newFixedThreadPool(threadCount * 2);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threadCount; t++) {
+        final int offset = t * itemCount;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < itemCount; i++) {
+            final double x = (offset + i) % 1000;
+            final double y = (offset + i) / 1000;
+            final BoundingBox boundingBox = new BoundingBoxDoubleXY(x, y, x + 0.5, y + 0.5);
+            index.insertItem(boundingBox, boundingBox);
+          }
+        }));
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < itemCount; i++) {
+            index.getItems(new BoundingBoxDoubleXY(0, 0, 100, 100));
+            index.nearest(500, 4, 5, Double.POSITIVE_INFINITY, null);
+          }
+        }));
+      }
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertEquals(threadCount * itemCount, index.getSize());
+    Assert.assertEquals(threadCount * itemCount,
+      index.getItems(new BoundingBoxDoubleXY(-1, -1, 1001, 1001)).size());
+  }
+
+  @Test
+  public void testConcurrentReaders() throws Exception {
+    final ConcurrentSpatialIndex<BoundingBox> index = ConcurrentSpatialIndex
+      .rStarTree(GeometryFactory.DEFAULT_2D);
+    // The readers only query the items in 0-99, the writer modifies 200-299
+    final List<BoundingBox> items = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      final double x = i % 100;
+      final double y = i / 100;
+      final BoundingBox boundingBox = new BoundingBoxDoubleXY(x, y, x + 0.5, y + 0.5);
+      items.add(boundingBox);
+    }
+    index.insertItems(items, item -> item, false);
+
+    final int readerCount = Math.max(4, Runtime.getRuntime().availableProcessors());
+    final ExecutorService executor = Executors.newFixedThreadPool(readerCount + 1);
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicBoolean reading = new AtomicBoolean(true);
+    try {
+      final Future<Integer> writer = executor.submit(() -> {
+        start.await();
+        int writeCount = 0;
+        while (reading.get()) {
+          final double x = 200 + writeCount % 100;
+          final double y = 200 + writeCount * 0.001;
+          final BoundingBox boundingBox = new BoundingBoxDoubleXY(x, y, x + 0.5, y + 0.5);
+          index.insertItem(boundingBox, boundingBox);
+          if (writeCount % 2 == 0) {
+            index.removeItem(boundingBox, boundingBox);
+          }
+          writeCount++;
+        }
+        return writeCount;
+      });
+      // Start all the readers at the same time while the writer is modifying the
+      // index so the optimistic reads are invalidated and retried
+      final List<Future<?>> readers = new ArrayList<>();
+      for (int t = 0; t < readerCount; t++) {
+        final int offset = t;
+        readers.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < 2000; i++) {
+            final double x = (offset + i) % 90;
+            final double y = (offset * 7 + i) % 90;
+            final BoundingBox query = new BoundingBoxDoubleXY(x, y, x + 9.9, y + 9.9);
+            Assert.assertEquals(100, index.getItems(query).size());
+
+            final AtomicInteger count = new AtomicInteger();
+            index.forEach(query, item -> count.incrementAndGet());
+            Assert.assertEquals(100, count.get());
+
+            final List<BoundingBox> nearest = index.nearest(x + 0.2, y + 0.2, 1,
+              Double.POSITIVE_INFINITY, null);
+            Assert.assertEquals(new BoundingBoxDoubleXY(x, y, x + 0.5, y + 0.5), nearest.get(0));
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      try {
+        for (final Future<?> reader : readers) {
+          reader.get(60, TimeUnit.SECONDS);
+        }
+      } finally {
+        reading.set(false);
+      }
+      final int writeCount = writer.get(60, TimeUnit.SECONDS);
+      Assert.assertTrue("Writer wasn't blocked by the readers", writeCount > 0);
+      Assert.assertEquals(10000 + writeCount / 2, index.getSize());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testModifyWhileReading() {
+    final ConcurrentSpatialIndex<BoundingBox> index = ConcurrentSpatialIndex
+      .quadTree(GeometryFactory.DEFAULT_2D);
+    for (int i = 0; i < 10; i++) {
+      final BoundingBox boundingBox = new BoundingBoxDoubleXY(i, i, i + 0.5, i + 0.5);
+      index.insertItem(boundingBox, boundingBox);
+    }
+    // The action is called after the query so it can modify the index
+    final List<BoundingBox> removed = new ArrayList<>();
+    index.forEach(item -> {
+      if (index.removeItem(item, item)) {
+        removed.add(item);
+      }
+    });
+    Assert.assertEquals(10, removed.size());
+    Assert.assertEquals(0, index.getSize());
+  }
+
+  @Test
+  public void testSpatialIndex() throws Exception {
+    final SpatialIndexTester tester = new SpatialIndexTester();
+    tester.setSpatialIndex(new ConcurrentSpatialIndex<>(new RStarTree<>()));
+    tester.init();
+    tester.run();
+    Assert.assertTrue(tester.isSuccess());
+  }
+
+  @Test
+  public void testWriteDuringForEach() throws Exception {
+    final ConcurrentSpatialIndex<BoundingBox> index = ConcurrentSpatialIndex
+      .quadTree(GeometryFactory.DEFAULT_2D);
+    for (int i = 0; i < 10; i++) {
+      final BoundingBox boundingBox = new BoundingBoxDoubleXY(i, i, i + 0.5, i + 0.5);
+      index.insertItem(boundingBox, boundingBox);
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Future<Integer> reader = executor.submit(() -> {
+        final List<Integer> counts = new ArrayList<>();
+        index.forEach(0, 0, 0.5, 0.5, item -> {
+          // A reader doesn't hold a lock so a writer on another thread isn't blocked
+          final Future<?> writer = executor.submit(() -> {
+            final BoundingBox boundingBox = new BoundingBoxDoubleXY(20, 20, 21, 21);
+            index.insertItem(boundingBox, boundingBox);
+          });
+          try {
+            writer.get(10, TimeUnit.SECONDS);
+          } catch (final Exception e) {
+            throw new RuntimeException(e);
+          }
+          counts.add(index.getItems(new BoundingBoxDoubleXY(-1, -1, 21, 21)).size());
+        });
+        return counts.get(0);
+      });
+      Assert.assertEquals(11, reader.get(10, TimeUnit.SECONDS).intValue());
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    Assert.assertEquals(11, index.getSize());
+  }
+}
@@ -0,0 +1,130 @@
+package com.revolsys.core.test.geometry.test.old.index;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.index.NearestNeighbourIterator;
+import com.revolsys.geometry.index.packed.HilbertPackedRTree;
+
+public class HilbertPackedRTreeTest {
+
+  private static final int ITEM_COUNT = 5000;
+
+  private void assertQuery(final double[] bounds, final HilbertPackedRTree tree,
+    final double minX, final double minY, final double maxX, final double maxY) {
+    int count = 0;
+    final int[] expected = new int[ITEM_COUNT];
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      final int offset = i * 4;
+      if (maxX >= bounds[offset] && maxY >= bounds[offset + 1] && minX <= bounds[offset + 2]
+        && minY <= bounds[offset + 3]) {
+        expected[count++] = i;
+      }
+    }
+    final int[] actual = tree.getItemIds(minX, minY, maxX, maxY);
+    Assert.assertArrayEquals(Arrays.copyOf(expected, count), actual);
+  }
+
+  private double[] newBounds() {
+    final Random random = new Random(42);
+    final double[] bounds = new double[ITEM_COUNT * 4];
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      final double x = random.nextDouble() * 1000;
+      final double y = random.nextDouble() * 1000;
+      final int offset = i * 4;
+      bounds[offset] = x;
+      bounds[offset + 1] = y;
+      bounds[offset + 2] = x + random.nextDouble() * 20;
+      bounds[offset + 3] = y + random.nextDouble() * 20;
+    }
+    return bounds;
+  }
+
+  private int[] newIds() {
+    final int[] ids = new int[ITEM_COUNT];
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      ids[i] = i;
+    }
+    return ids;
+  }
+
+  @Test
+  public void testNearest() {
+    final double[] bounds = newBounds();
+    final HilbertPackedRTree tree = new HilbertPackedRTree(HilbertPackedRTree.DEFAULT_NODE_SIZE,
+      bounds, newIds(), ITEM_COUNT);
+    for (int x = 0; x < 1000; x += 173) {
+      final double[] distances = new double[ITEM_COUNT];
+      for (int i = 0; i < ITEM_COUNT; i++) {
+        final int offset = i * 4;
+        final double dx = Math.max(0, Math.max(bounds[offset] - x, x - bounds[offset + 2]));
+        final double dy = Math.max(0, Math.max(bounds[offset + 1] - x, x - bounds[offset + 3]));
+        distances[i] = Math.sqrt(dx * dx + dy * dy);
+      }
+      Arrays.sort(distances);
+      final NearestNeighbourIterator<?, Integer> iterator = tree.nearestIterator(x, x,
+        Double.POSITIVE_INFINITY, null);
+      for (int i = 0; i < 20; i++) {
+        Assert.assertTrue(iterator.hasNext());
+        iterator.next();
+        Assert.assertEquals(distances[i], iterator.getDistance(), 1e-9);
+      }
+    }
+  }
+
+  @Test
+  public void testOpen() throws Exception {
+    final double[] bounds = newBounds();
+    final HilbertPackedRTree tree = new HilbertPackedRTree(8, bounds, newIds(), ITEM_COUNT);
+    Assert.assertTrue(tree.isDirect());
+    final Path path = Files.createTempFile("packed", ".rsx");
+    try {
+      tree.write(path);
+      final HilbertPackedRTree openTree = HilbertPackedRTree.open(path);
+      Assert.assertEquals(8, openTree.getNodeSize());
+      Assert.assertEquals(ITEM_COUNT, openTree.getSize());
+      for (int x = 0; x < 1000; x += 131) {
+        assertQuery(bounds, openTree, x, x, x + 100, x + 100);
+      }
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  public void testQuery() {
+    final double[] bounds = newBounds();
+    final HilbertPackedRTree tree = new HilbertPackedRTree(HilbertPackedRTree.DEFAULT_NODE_SIZE,
+      bounds, newIds(), ITEM_COUNT);
+    Assert.assertEquals(ITEM_COUNT, tree.getItemCount());
+    for (int x = 0; x < 1000; x += 97) {
+      for (int y = 0; y < 1000; y += 89) {
+        assertQuery(bounds, tree, x, y, x + 45, y + 60);
+      }
+    }
+    assertQuery(bounds, tree, -100, -100, 2000, 2000);
+    assertQuery(bounds, tree, 2000, 2000, 3000, 3000);
+  }
+
+  @Test
+  public void testWriteRead() throws Exception {
+    final double[] bounds = newBounds();
+    final HilbertPackedRTree tree = new HilbertPackedRTree(4, bounds, newIds(), ITEM_COUNT);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    tree.write(Channels.newChannel(out));
+    final HilbertPackedRTree readTree = HilbertPackedRTree
+      .read(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+    Assert.assertEquals(4, readTree.getNodeSize());
+    for (int x = 0; x < 1000; x += 131) {
+      assertQuery(bounds, readTree, x, x, x + 100, x + 100);
+    }
+  }
+}
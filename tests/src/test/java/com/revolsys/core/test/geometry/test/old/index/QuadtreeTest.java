@@ -35,7 +35,9 @@ package com.revolsys.core.test.geometry.test.old.index;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.revolsys.geometry.index.quadtree.IdObjectQuadTree;
 import com.revolsys.geometry.index.quadtree.QuadTree;
+import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.GeometryFactory;
 
 public class QuadtreeTest {
@@ -59,4 +61,36 @@ public class QuadtreeTest {
     Assert.assertTrue(tester.isSuccess());
   }
 
+  @Test
+  public void testSpatialIndexIdObject() throws Exception {
+    final SpatialIndexTester tester = new SpatialIndexTester();
+    tester.setSpatialIndex(new IdObjectQuadTree<BoundingBox>(GeometryFactory.DEFAULT_3D) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean intersectsBounds(final Object id, final double x, final double y) {
+        return ((BoundingBox)id).bboxIntersects(x, y);
+      }
+
+      @Override
+      protected boolean intersectsBounds(final Object id, final double minX, final double minY,
+        final double maxX, final double maxY) {
+        return ((BoundingBox)id).bboxIntersects(minX, minY, maxX, maxY);
+      }
+    });
+    tester.init();
+    tester.run();
+    Assert.assertTrue(tester.isSuccess());
+  }
+
+  @Test
+  public void testSpatialIndexBulkLoad() throws Exception {
+    final SpatialIndexTester tester = new SpatialIndexTester();
+    tester.setSpatialIndex(new QuadTree<>(GeometryFactory.DEFAULT_3D));
+    tester.setBulkLoad(true, true);
+    tester.init();
+    tester.run();
+    Assert.assertTrue(tester.isSuccess());
+  }
+
 }
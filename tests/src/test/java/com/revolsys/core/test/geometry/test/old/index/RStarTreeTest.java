@@ -1,12 +1,65 @@
 package com.revolsys.core.test.geometry.test.old.index;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.revolsys.geometry.index.rstartree.RStarTree;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.impl.BoundingBoxDoubleXY;
 
 public class RStarTreeTest {
 
+  private static List<BoundingBox> newBoundingBoxes(final Random random, final int count,
+    final double maxSize) {
+    final List<BoundingBox> boundingBoxes = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      final double x = random.nextDouble() * 10000;
+      final double y = random.nextDouble() * 10000;
+      boundingBoxes.add(new BoundingBoxDoubleXY(x, y, x + random.nextDouble() * maxSize,
+        y + random.nextDouble() * maxSize));
+    }
+    return boundingBoxes;
+  }
+
+  private static void assertQuery(final RStarTree<BoundingBox> index,
+    final List<BoundingBox> boundingBoxes, final BoundingBox query) {
+    final Set<BoundingBox> expected = new HashSet<>();
+    for (final BoundingBox boundingBox : boundingBoxes) {
+      if (boundingBox.bboxIntersects(query)) {
+        expected.add(boundingBox);
+      }
+    }
+    final List<BoundingBox> actual = index.getItems(query);
+    Assert.assertEquals(query.toString(), expected.size(), actual.size());
+    Assert.assertEquals(query.toString(), expected, new HashSet<>(actual));
+  }
+
+  @Test
+  public void testBulkLoadThenInsert() {
+    final Random random = new Random(1);
+    final List<BoundingBox> bulkItems = newBoundingBoxes(random, 5000, 100);
+    final List<BoundingBox> insertItems = newBoundingBoxes(random, 2000, 100);
+    final RStarTree<BoundingBox> index = new RStarTree<>();
+    index.insertItems(bulkItems, boundingBox -> boundingBox, true);
+    Assert.assertEquals(bulkItems.size(), index.getSize());
+    for (final BoundingBox boundingBox : insertItems) {
+      index.insertItem(boundingBox, boundingBox);
+    }
+    final List<BoundingBox> allItems = new ArrayList<>(bulkItems);
+    allItems.addAll(insertItems);
+    Assert.assertEquals(allItems.size(), index.getSize());
+
+    for (final BoundingBox query : newBoundingBoxes(random, 100, 1000)) {
+      assertQuery(index, allItems, query);
+    }
+  }
+
   @Test
   public void testSpatialIndex() throws Exception {
     final SpatialIndexTester tester = new SpatialIndexTester();
@@ -16,4 +69,14 @@ public class RStarTreeTest {
     Assert.assertTrue(tester.isSuccess());
   }
 
+  @Test
+  public void testSpatialIndexBulkLoad() throws Exception {
+    final SpatialIndexTester tester = new SpatialIndexTester();
+    tester.setSpatialIndex(new RStarTree<>());
+    tester.setBulkLoad(true, false);
+    tester.init();
+    tester.run();
+    Assert.assertTrue(tester.isSuccess());
+  }
+
 }
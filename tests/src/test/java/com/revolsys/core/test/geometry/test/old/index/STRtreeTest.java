@@ -33,9 +33,11 @@
 package com.revolsys.core.test.geometry.test.old.index;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
+import com.revolsys.geometry.index.NearestNeighbourIterator;
 import com.revolsys.geometry.index.strtree.Boundable;
 import com.revolsys.geometry.index.strtree.StrTree;
 import com.revolsys.geometry.index.strtree.StrTreeLeaf;
@@ -132,6 +134,28 @@ public class STRtreeTest extends TestCase {
     assertTrue(list.isEmpty());
   }
 
+  public void testNearestWithoutDistanceFunction() {
+    final StrTree<String> tree = new StrTree<>(4);
+    for (int i = 0; i < 20; i++) {
+      tree.insertItem(new BoundingBoxDoubleXY(i * 10, 0, i * 10 + 5, 5), "item" + i);
+    }
+    // The distance to the bounding box is used if the distance function is null
+    final NearestNeighbourIterator<?, String> iterator = tree.nearestIterator(52, 2, 52, 2, 26,
+      null);
+    final List<String> items = new ArrayList<>();
+    final List<Double> distances = new ArrayList<>();
+    while (iterator.hasNext()) {
+      items.add(iterator.next());
+      distances.add(iterator.getDistance());
+    }
+    assertEquals(Arrays.asList("item5", "item4", "item6", "item3", "item7"), items);
+    assertEquals(Arrays.asList(0.0, 7.0, 8.0, 17.0, 18.0), distances);
+
+    assertEquals(Arrays.asList("item5", "item4"), tree.nearest(52, 2, 2, Double.NaN, null));
+    assertTrue(tree.nearest(52, 2, 0, Double.NaN, null).isEmpty());
+    assertTrue(tree.nearest(52, 2, -1, Double.NaN, null).isEmpty());
+  }
+
   public void testQuery() throws Throwable {
     final ArrayList geometries = new ArrayList();
     geometries.add(this.factory.lineString(new Point[] {
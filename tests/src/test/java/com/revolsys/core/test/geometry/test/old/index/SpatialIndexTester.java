@@ -33,7 +33,9 @@
 package com.revolsys.core.test.geometry.test.old.index;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.ToDoubleFunction;
 
 import com.revolsys.geometry.index.SpatialIndex;
 import com.revolsys.geometry.model.BoundingBox;
@@ -55,10 +57,14 @@ public class SpatialIndexTester {
 
   private static final double QUERY_ENVELOPE_EXTENT_2 = 11.7;
 
+  private boolean bulkLoad = false;
+
   private SpatialIndex<BoundingBox> index;
 
   private boolean isSuccess = true;
 
+  private boolean parallel = false;
+
   private List<BoundingBox> sourceData;
 
   public SpatialIndexTester() {
@@ -121,6 +127,45 @@ public class SpatialIndexTester {
     }
   }
 
+  /**
+   * Test the nearest items to points over the grid. If useDistanceFunction is
+   * false the distance function is null and the item bounding boxes are used.
+   */
+  private void doNearestTest(final SpatialIndex<BoundingBox> index, final int k,
+    final double maxDistance, final boolean useDistanceFunction,
+    final List<BoundingBox> sourceData) {
+    for (double x = -10; x < CELL_EXTENT * CELLS_PER_GRID_SIDE + 10; x += 7.3) {
+      for (double y = -10; y < CELL_EXTENT * CELLS_PER_GRID_SIDE + 10; y += 7.3) {
+        final List<Double> expectedDistances = new ArrayList<>();
+        for (final BoundingBox envelope : sourceData) {
+          final double distance = envelope.bboxDistance(x, y);
+          if (distance <= maxDistance) {
+            expectedDistances.add(distance);
+          }
+        }
+        Collections.sort(expectedDistances);
+        final double queryX = x;
+        final double queryY = y;
+        ToDoubleFunction<BoundingBox> distanceFunction = null;
+        if (useDistanceFunction) {
+          distanceFunction = envelope -> envelope.bboxDistance(queryX, queryY);
+        }
+        final List<BoundingBox> actualMatches = index.nearest(x, y, k, maxDistance,
+          distanceFunction);
+        if (actualMatches.size() != Math.min(k, expectedDistances.size())) {
+          this.isSuccess = false;
+        } else {
+          for (int i = 0; i < actualMatches.size(); i++) {
+            final double actualDistance = actualMatches.get(i).bboxDistance(x, y);
+            if (Math.abs(actualDistance - expectedDistances.get(i)) > 1e-9) {
+              this.isSuccess = false;
+            }
+          }
+        }
+      }
+    }
+  }
+
   public SpatialIndex<BoundingBox> getSpatialIndex() {
     return this.index;
   }
@@ -133,8 +178,12 @@ public class SpatialIndexTester {
   }
 
   private void insert(final List<BoundingBox> sourceData, final SpatialIndex<BoundingBox> index) {
-    for (final BoundingBox envelope : sourceData) {
-      index.insertItem(envelope, envelope);
+    if (this.bulkLoad) {
+      index.insertItems(sourceData, envelope -> envelope, this.parallel);
+    } else {
+      for (final BoundingBox envelope : sourceData) {
+        index.insertItem(envelope, envelope);
+      }
     }
   }
 
@@ -156,6 +205,15 @@ public class SpatialIndexTester {
   public void run() {
     doTest(this.index, QUERY_ENVELOPE_EXTENT_1, this.sourceData);
     doTest(this.index, QUERY_ENVELOPE_EXTENT_2, this.sourceData);
+    doNearestTest(this.index, 1, Double.POSITIVE_INFINITY, true, this.sourceData);
+    doNearestTest(this.index, 10, QUERY_ENVELOPE_EXTENT_2, true, this.sourceData);
+    doNearestTest(this.index, 1, Double.POSITIVE_INFINITY, false, this.sourceData);
+    doNearestTest(this.index, 10, QUERY_ENVELOPE_EXTENT_2, false, this.sourceData);
+  }
+
+  public void setBulkLoad(final boolean bulkLoad, final boolean parallel) {
+    this.bulkLoad = bulkLoad;
+    this.parallel = parallel;
   }
 
   public void setSpatialIndex(final SpatialIndex<BoundingBox> index) {
@@ -0,0 +1,109 @@
+package com.revolsys.core.test.gis.data.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.jeometry.common.io.PathName;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.query.Condition;
+import com.revolsys.record.query.Query;
+import com.revolsys.record.schema.RecordDefinitionImpl;
+
+public class QuerySeekTest {
+
+  private final List<Record> records = new ArrayList<>();
+
+  private final RecordDefinitionImpl recordDefinition;
+
+  public QuerySeekTest() {
+    this.recordDefinition = new RecordDefinitionImpl(PathName.newPathName("/Test"));
+    this.recordDefinition.addField("ID", DataTypes.INT, true);
+    this.recordDefinition.addField("NAME", DataTypes.STRING, 255, true);
+    this.recordDefinition.addField("DESCRIPTION", DataTypes.STRING, 255, false);
+    this.recordDefinition.setIdFieldName("ID");
+
+    // Sorted by NAME desc, ID
+    final String[] names = {
+      "c", "b", "b", "b", "a"
+    };
+    for (int i = 0; i < names.length; i++) {
+      final Record record = new ArrayRecord(this.recordDefinition);
+      record.setValue("ID", i);
+      record.setValue("NAME", names[i]);
+      if (i % 2 == 0) {
+        record.setValue("DESCRIPTION", names[i]);
+      }
+      this.records.add(record);
+    }
+  }
+
+  @Test
+  public void testSeekAfter() {
+    final Query query = Query.newQuery(this.recordDefinition)
+      .addOrderBy("NAME", false)
+      .addOrderByIdIfMissing();
+    Assert.assertEquals(2, query.getOrderBy().size());
+    Assert.assertTrue(query.isSeekable());
+
+    for (int i = 0; i < this.records.size(); i++) {
+      final Record last = this.records.get(i);
+      final List<Object> values = query.getOrderByValues(last);
+      Assert.assertEquals(Arrays.asList(last.getValue("NAME"), last.getValue("ID")), values);
+
+      final Condition condition = query.newSeekCondition(values);
+      for (int j = 0; j < this.records.size(); j++) {
+        final Record record = this.records.get(j);
+        Assert.assertEquals(condition.toString(), j > i, condition.test(record));
+      }
+    }
+  }
+
+  @Test
+  public void testSeekAfterStringValues() {
+    final Query query = Query.newQuery(this.recordDefinition).addOrderByIdIfMissing();
+    final Condition condition = query.newSeekCondition(Arrays.asList("2"));
+    Assert.assertFalse(condition.test(this.records.get(2)));
+    Assert.assertTrue(condition.test(this.records.get(3)));
+  }
+
+  @Test
+  public void testSeekNoIdFields() {
+    final RecordDefinitionImpl recordDefinition = new RecordDefinitionImpl(
+      PathName.newPathName("/TestNoId"));
+    recordDefinition.addField("NAME", DataTypes.STRING, 255, true);
+    final Query query = Query.newQuery(recordDefinition)
+      .addOrderBy("NAME")
+      .addOrderByIdIfMissing();
+    // Records with the same name as the last record on a page would be skipped
+    Assert.assertFalse(query.isSeekable());
+    try {
+      query.newSeekCondition(Arrays.asList("a"));
+      Assert.fail("Order by isn't unique");
+    } catch (final IllegalStateException e) {
+    }
+  }
+
+  @Test
+  public void testSeekNullValues() {
+    final Query query = Query.newQuery(this.recordDefinition)
+      .addOrderBy("DESCRIPTION")
+      .addOrderByIdIfMissing();
+    Assert.assertFalse(query.isSeekable());
+
+    // The records with a null value are sorted last but a seek condition
+    // wouldn't match them so $skip must be used
+    final Record last = this.records.get(0);
+    Assert.assertEquals(Arrays.asList("c", 0), query.getOrderByValues(last));
+    try {
+      query.newSeekCondition(query.getOrderByValues(last));
+      Assert.fail("Order by has a nullable field");
+    } catch (final IllegalStateException e) {
+    }
+    Assert.assertNull(query.getOrderByValues(this.records.get(1)));
+  }}
@@ -0,0 +1,97 @@
+package com.revolsys.core.test.gis.graph.algorithm;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.graph.Edge;
+import com.revolsys.geometry.graph.Graph;
+import com.revolsys.geometry.graph.Node;
+import com.revolsys.geometry.graph.algorithm.BidirectionalAStar;
+import com.revolsys.geometry.graph.algorithm.CsrGraph;
+import com.revolsys.geometry.graph.algorithm.ShortestPath;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+
+public class BidirectionalAStarTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.DEFAULT_2D;
+
+  private static final int SIZE = 20;
+
+  private static double getLength(final List<Edge<Integer>> path) {
+    double length = 0;
+    for (final Edge<Integer> edge : path) {
+      length += edge.getLength();
+    }
+    return length;
+  }
+
+  private Graph<Integer> newGrid() {
+    final Random random = new Random(1);
+    final Graph<Integer> graph = new Graph<>();
+    int edgeId = 0;
+    for (int x = 0; x < SIZE; x++) {
+      for (int y = 0; y < SIZE; y++) {
+        if (x < SIZE - 1) {
+          final double bend = random.nextDouble() * 3;
+          final LineString line = GEOMETRY_FACTORY.lineString(2, x * 10, y * 10, x * 10 + 5,
+            y * 10 + bend, x * 10 + 10, y * 10);
+          graph.addEdge(edgeId++, line);
+        }
+        if (y < SIZE - 1 && random.nextInt(10) > 0) {
+          final double bend = random.nextDouble() * 3;
+          final LineString line = GEOMETRY_FACTORY.lineString(2, x * 10, y * 10, x * 10 + bend,
+            y * 10 + 5, x * 10, y * 10 + 10);
+          graph.addEdge(edgeId++, line);
+        }
+      }
+    }
+    return graph;
+  }
+
+  @Test
+  public void testNoPath() {
+    final Graph<Integer> graph = new Graph<>();
+    graph.addEdge(1, GEOMETRY_FACTORY.lineString(2, 0.0, 0, 10, 0));
+    graph.addEdge(2, GEOMETRY_FACTORY.lineString(2, 20.0, 0, 30, 0));
+    final BidirectionalAStar<Integer> router = new BidirectionalAStar<>(new CsrGraph<>(graph));
+    final List<Edge<Integer>> path = router.getPath(graph.getNode(0, 0), graph.getNode(30, 0));
+    Assert.assertTrue(path.isEmpty());
+    Assert.assertTrue(Double.isInfinite(router.getPathDistance()));
+  }
+
+  @Test
+  public void testSameAsShortestPath() {
+    final Graph<Integer> graph = newGrid();
+    final CsrGraph<Integer> csrGraph = new CsrGraph<>(graph);
+    Assert.assertEquals(SIZE * SIZE, csrGraph.getNodeCount());
+
+    final BidirectionalAStar<Integer> router = new BidirectionalAStar<>(csrGraph);
+    final Random random = new Random(2);
+    for (int i = 0; i < 20; i++) {
+      final Node<Integer> source = graph.getNode(random.nextInt(SIZE) * 10.0,
+        random.nextInt(SIZE) * 10.0);
+      final ShortestPath<Integer> shortestPath = new ShortestPath<>(csrGraph, source);
+      for (int j = 0; j < 20; j++) {
+        final Node<Integer> target = graph.getNode(random.nextInt(SIZE) * 10.0,
+          random.nextInt(SIZE) * 10.0);
+        final double expectedDistance = shortestPath.getDistance(target);
+        final List<Edge<Integer>> expectedPath = shortestPath.getPath(target);
+
+        final List<Edge<Integer>> path = router.getPath(source, target);
+        Assert.assertEquals(expectedDistance, router.getPathDistance(), 1e-9);
+        Assert.assertEquals(getLength(expectedPath), getLength(path), 1e-9);
+
+        Node<Integer> node = source;
+        for (final Edge<Integer> edge : path) {
+          Assert.assertTrue(edge.hasNode(node));
+          node = edge.getOppositeNode(node);
+        }
+        Assert.assertEquals(target.getId(), node.getId());
+      }
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package com.revolsys.core.test.gis.parallel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.jeometry.common.io.PathName;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.gis.parallel.Sort;
+import com.revolsys.io.FileUtil;
+import com.revolsys.parallel.channel.Channel;
+import com.revolsys.parallel.channel.ClosedException;
+import com.revolsys.parallel.channel.store.Buffer;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionImpl;
+
+public class SortTest {
+
+  private static class TestRecord extends ArrayRecord {
+    public TestRecord(final RecordDefinition recordDefinition) {
+      super(recordDefinition);
+    }
+  }
+
+  private void assertSorted(final List<Record> expected, final List<Record> actual,
+    final File tempDirectory) throws IOException {
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      final Record expectedRecord = expected.get(i);
+      final Record actualRecord = actual.get(i);
+      Assert.assertNotSame(expectedRecord, actualRecord);
+      Assert.assertTrue(expectedRecord.equalValuesAll(actualRecord));
+    }
+    try (
+      Stream<Path> files = Files.list(tempDirectory.toPath())) {
+      Assert.assertEquals("Temporary run files deleted", 0, files.count());
+    }
+  }
+
+  private List<Record> sort(final Sort sort, final List<Record> records) {
+    final Channel<Record> in = new Channel<>(new Buffer<>());
+    final Channel<Record> out = new Channel<>(new Buffer<>());
+    sort.setIn(in);
+    sort.setOut(out);
+    out.readConnect();
+    in.writeConnect();
+    in.writeAll(records);
+    in.writeDisconnect();
+    sort.run();
+
+    final List<Record> sortedRecords = new ArrayList<>();
+    try {
+      while (true) {
+        sortedRecords.add(out.read());
+      }
+    } catch (final ClosedException e) {
+    }
+    return sortedRecords;
+  }
+
+  @Test
+  public void testExternalSort() throws IOException {
+    final GeometryFactory geometryFactory = GeometryFactory.fixed2d(3005, 1000.0, 1000.0);
+    final RecordDefinitionImpl recordDefinition = new RecordDefinitionImpl(
+      PathName.newPathName("/TEST"));
+    recordDefinition.addField("ID", DataTypes.INT);
+    recordDefinition.addField("NAME", DataTypes.STRING);
+    recordDefinition.addField("LENGTH", DataTypes.DOUBLE);
+    recordDefinition.addField("GEOMETRY", GeometryDataTypes.POINT);
+    recordDefinition.setGeometryFactory(geometryFactory);
+
+    final Random random = new Random(1);
+    final List<Record> records = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      final Record record = new ArrayRecord(recordDefinition);
+      record.setValue("ID", i);
+      record.setValue("NAME", "N" + random.nextInt(500));
+      if (i % 7 != 0) {
+        record.setValue("LENGTH", random.nextDouble());
+      }
+      final Point point = geometryFactory.point(random.nextInt(100000) / 100.0,
+        random.nextInt(100000) / 100.0);
+      record.setValue("GEOMETRY", point);
+      records.add(record);
+    }
+
+    final List<Record> expected = sort(newSort(), records);
+
+    final File tempDirectory = FileUtil.newTempDirectory("sort", ".test");
+    try {
+      for (final boolean parallel : new boolean[] {
+        false, true
+      }) {
+        final Sort sort = newSort();
+        sort.setMaxRecordsInMemory(999);
+        sort.setParallel(parallel);
+        sort.setTempDirectory(tempDirectory.toPath());
+        final List<Record> actual = sort(sort, records);
+        assertSorted(expected, actual, tempDirectory);
+      }
+    } finally {
+      FileUtil.deleteDirectory(tempDirectory);
+    }
+  }
+
+  @Test
+  public void testExternalSortMultiplePasses() throws IOException {
+    final RecordDefinitionImpl recordDefinition = new RecordDefinitionImpl(
+      PathName.newPathName("/TEST"));
+    recordDefinition.addField("ID", DataTypes.INT);
+    recordDefinition.addField("NAME", DataTypes.STRING);
+
+    final Random random = new Random(1);
+    final List<Record> records = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      final Record record = new ArrayRecord(recordDefinition);
+      record.setValue("ID", i);
+      record.setValue("NAME", "N" + random.nextInt(200));
+      records.add(record);
+    }
+
+    final List<Record> expected = sort(newSort(), records);
+
+    final File tempDirectory = FileUtil.newTempDirectory("sort", ".test");
+    try {
+      final Sort sort = newSort();
+      // 50 runs merged 3 at a time
+      sort.setMaxRecordsInMemory(100);
+      sort.setMaxMergeRuns(3);
+      sort.setTempDirectory(tempDirectory.toPath());
+      final List<Record> actual = sort(sort, records);
+      assertSorted(expected, actual, tempDirectory);
+    } finally {
+      FileUtil.deleteDirectory(tempDirectory);
+    }
+  }
+
+  @Test
+  public void testExternalSortValues() throws IOException {
+    final GeometryFactory geometryFactory = GeometryFactory.floating(3005, 4);
+    final RecordDefinitionImpl recordDefinition = new RecordDefinitionImpl(
+      PathName.newPathName("/TEST"));
+    recordDefinition.addField("ID", DataTypes.INT);
+    recordDefinition.addField("NAME", DataTypes.STRING);
+    recordDefinition.addField("DATE", DataTypes.OBJECT);
+    recordDefinition.addField("GEOMETRY", GeometryDataTypes.GEOMETRY);
+    recordDefinition.setGeometryFactory(geometryFactory);
+
+    final Random random = new Random(1);
+    final List<Record> records = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      final Record record = new TestRecord(recordDefinition);
+      record.setValue("ID", i);
+      record.setValue("NAME", "N" + random.nextInt(50));
+      record.setValue("DATE", LocalDate.ofEpochDay(i));
+      final Geometry geometry;
+      switch (i % 4) {
+        case 0:
+          geometry = geometryFactory.point(i, i + 1, Double.NaN, i + 2);
+        break;
+        case 1:
+          geometry = geometryFactory.lineString(4, i, i, Double.NaN, 1, i + 1, i + 1, 5, 2);
+        break;
+        case 2:
+          geometry = geometryFactory.lineal(geometryFactory.lineString(4, 0, 0, 1, 2, 1, 1, 3, 4),
+            geometryFactory.lineString(4, 2, 2, 5, 6, 3, 3, 7, 8));
+        break;
+        default:
+          geometry = geometryFactory.polygon(4, 0.0, 0, 1, 10, 10, 0, 2, 11, 10, 10, 3, 12, 0, 0,
+            1, 10);
+        break;
+      }
+      record.setValue("GEOMETRY", geometry);
+      records.add(record);
+    }
+
+    final List<Record> expected = sort(newSort(), records);
+
+    final File tempDirectory = FileUtil.newTempDirectory("sort", ".test");
+    try {
+      final Sort sort = newSort();
+      sort.setMaxRecordsInMemory(99);
+      sort.setTempDirectory(tempDirectory.toPath());
+      sort.setRecordFactory(TestRecord::new);
+      final List<Record> actual = sort(sort, records);
+      assertSorted(expected, actual, tempDirectory);
+      for (int i = 0; i < expected.size(); i++) {
+        final Record expectedRecord = expected.get(i);
+        final Record actualRecord = actual.get(i);
+        Assert.assertSame(TestRecord.class, actualRecord.getClass());
+        Assert.assertEquals(expectedRecord.getValue("DATE"), actualRecord.getValue("DATE"));
+        final Geometry expectedGeometry = expectedRecord.getGeometry();
+        final Geometry actualGeometry = actualRecord.getGeometry();
+        Assert.assertEquals(expectedGeometry.getGeometryType(),
+          actualGeometry.getGeometryType());
+        Assert.assertTrue("Geometry Z and M", expectedGeometry.equals(4, actualGeometry));
+      }
+    } finally {
+      FileUtil.deleteDirectory(tempDirectory);
+    }
+  }
+
+  private Sort newSort() {
+    final Sort sort = new Sort();
+    sort.setFieldName("NAME");
+    return sort;
+  }
+}
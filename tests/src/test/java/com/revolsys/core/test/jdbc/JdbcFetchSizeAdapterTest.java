@@ -0,0 +1,167 @@
+package com.revolsys.core.test.jdbc;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.jdbc.io.JdbcFetchSizeAdapter;
+
+public class JdbcFetchSizeAdapterTest {
+
+  /**
+   * A result set with rowCount rows. The next() call at the start of each fetch
+   * sleeps for fetchMillis to simulate the round trip to the server. Like a JDBC
+   * driver a new fetch size is used from the next fetch.
+   */
+  private static class TestResultSet {
+    private final int[] columnDisplaySizes;
+
+    private final long fetchMillis;
+
+    private int fetchRowCount;
+
+    private int fetchRowIndex = 0;
+
+    private int fetchSize;
+
+    private final List<Integer> fetchSizes = new ArrayList<>();
+
+    private final int rowCount;
+
+    private int rowIndex = 0;
+
+    private TestResultSet(final int rowCount, final int fetchSize, final long fetchMillis,
+      final int... columnDisplaySizes) {
+      this.rowCount = rowCount;
+      this.fetchSize = fetchSize;
+      this.fetchMillis = fetchMillis;
+      this.columnDisplaySizes = columnDisplaySizes;
+    }
+
+    private ResultSetMetaData newMetaData() {
+      final Class<?>[] interfaces = {
+        ResultSetMetaData.class
+      };
+      return (ResultSetMetaData)Proxy.newProxyInstance(getClass().getClassLoader(), interfaces,
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getColumnCount":
+              return this.columnDisplaySizes.length;
+            case "getColumnDisplaySize":
+              return this.columnDisplaySizes[(Integer)args[0] - 1];
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+    }
+
+    private ResultSet newResultSet() {
+      final ResultSetMetaData metaData = newMetaData();
+      final Class<?>[] interfaces = {
+        ResultSet.class
+      };
+      return (ResultSet)Proxy.newProxyInstance(getClass().getClassLoader(), interfaces,
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getMetaData":
+              return metaData;
+            case "next":
+              return next();
+            case "setFetchSize":
+              this.fetchSize = (Integer)args[0];
+              this.fetchSizes.add(this.fetchSize);
+              return null;
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+    }
+
+    private boolean next() throws InterruptedException {
+      if (this.rowIndex >= this.rowCount) {
+        return false;
+      } else {
+        if (this.fetchRowIndex == 0) {
+          Thread.sleep(this.fetchMillis);
+          this.fetchRowCount = this.fetchSize;
+        }
+        this.rowIndex++;
+        if (++this.fetchRowIndex >= this.fetchRowCount) {
+          this.fetchRowIndex = 0;
+        }
+        return true;
+      }
+    }
+  }
+
+  private int readAll(final JdbcFetchSizeAdapter adapter, final long rowMillis)
+    throws SQLException, InterruptedException {
+    int count = 0;
+    while (adapter.next()) {
+      count++;
+      if (rowMillis > 0) {
+        Thread.sleep(rowMillis);
+      }
+    }
+    Assert.assertFalse("next after end", adapter.next());
+    return count;
+  }
+
+  @Test
+  public void testEstimateRowBytes() throws SQLException {
+    final TestResultSet testResultSet = new TestResultSet(0, 1, 0, 10, 0, 5000, -1);
+    final ResultSetMetaData metaData = testResultSet.newMetaData();
+    // Unknown sizes are 16 bytes and large columns are limited to 1024 bytes
+    Assert.assertEquals(10 + 16 + 1024 + 16, JdbcFetchSizeAdapter.estimateRowBytes(metaData));
+
+    final ResultSetMetaData emptyMetaData = new TestResultSet(0, 1, 0).newMetaData();
+    Assert.assertEquals(1, JdbcFetchSizeAdapter.estimateRowBytes(emptyMetaData));
+  }
+
+  @Test
+  public void testGrowWhenFetchIsSlow() throws SQLException, InterruptedException {
+    final TestResultSet testResultSet = new TestResultSet(1000, 10, 5, 8);
+    final JdbcFetchSizeAdapter adapter = new JdbcFetchSizeAdapter(testResultSet.newResultSet(),
+      10, 80, JdbcFetchSizeAdapter.DEFAULT_MAX_FETCH_BYTES);
+    Assert.assertEquals(10, adapter.getFetchSize());
+    Assert.assertEquals(80, adapter.getMaxFetchSize());
+
+    Assert.assertEquals(1000, readAll(adapter, 0));
+    Assert.assertEquals(Arrays.asList(20, 40, 80), testResultSet.fetchSizes);
+    Assert.assertEquals(80, adapter.getFetchSize());
+  }
+
+  @Test
+  public void testMaxFetchBytes() throws SQLException {
+    final TestResultSet testResultSet = new TestResultSet(0, 10, 0, 100, 100);
+    // 200 bytes per row so at most 50 rows in 10,000 bytes
+    final JdbcFetchSizeAdapter adapter = new JdbcFetchSizeAdapter(testResultSet.newResultSet(),
+      10, 1000, 10000);
+    Assert.assertEquals(50, adapter.getMaxFetchSize());
+
+    // The max is never less than the initial fetch size
+    final JdbcFetchSizeAdapter largeRowAdapter = new JdbcFetchSizeAdapter(
+      testResultSet.newResultSet(), 10, 1000, 100);
+    Assert.assertEquals(10, largeRowAdapter.getMaxFetchSize());
+    Assert.assertEquals(1, new JdbcFetchSizeAdapter(testResultSet.newResultSet(), 0, 1000, 10000)
+      .getFetchSize());
+  }
+
+  @Test
+  public void testNoGrowthWhenProcessingIsSlow() throws SQLException, InterruptedException {
+    final TestResultSet testResultSet = new TestResultSet(40, 10, 0, 8);
+    final JdbcFetchSizeAdapter adapter = new JdbcFetchSizeAdapter(testResultSet.newResultSet(),
+      10, 1000, JdbcFetchSizeAdapter.DEFAULT_MAX_FETCH_BYTES);
+
+    Assert.assertEquals(40, readAll(adapter, 2));
+    Assert.assertEquals(0, testResultSet.fetchSizes.size());
+    Assert.assertEquals(10, adapter.getFetchSize());
+  }
+}
@@ -0,0 +1,185 @@
+package com.revolsys.core.test.jdbc;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.jdbc.io.JdbcReadAheadQueue;
+import com.revolsys.jdbc.io.JdbcReadAheadQueue.RowReader;
+
+public class JdbcReadAheadQueueTest {
+
+  private static RowReader<Integer> newReader(final AtomicInteger counter, final int rowCount) {
+    return rows -> {
+      final int row = counter.get();
+      if (row < rowCount) {
+        rows.add(row);
+        counter.incrementAndGet();
+        return true;
+      } else {
+        return false;
+      }
+    };
+  }
+
+  private List<Integer> readAll(final JdbcReadAheadQueue<Integer> queue) throws SQLException {
+    final List<Integer> rows = new ArrayList<>();
+    try {
+      while (true) {
+        rows.add(queue.next());
+      }
+    } catch (final NoSuchElementException e) {
+    }
+    return rows;
+  }
+
+  @Test
+  public void testCancel() throws SQLException {
+    final AtomicBoolean cancelled = new AtomicBoolean();
+    final AtomicInteger counter = new AtomicInteger();
+    try (
+      JdbcReadAheadQueue<Integer> queue = new JdbcReadAheadQueue<>(
+        newReader(counter, Integer.MAX_VALUE), () -> 10, cancelled::get)) {
+      queue.start();
+      for (int i = 0; i < 15; i++) {
+        Assert.assertEquals(i, queue.next().intValue());
+      }
+      cancelled.set(true);
+      // The rest of the current batch is returned before the cancel is checked
+      for (int i = 15; i < 20; i++) {
+        Assert.assertEquals(i, queue.next().intValue());
+      }
+      try {
+        queue.next();
+        Assert.fail("Cancelled");
+      } catch (final NoSuchElementException e) {
+      }
+    }
+  }
+
+  @Test
+  public void testClose() throws SQLException, InterruptedException {
+    final AtomicInteger counter = new AtomicInteger();
+    final JdbcReadAheadQueue<Integer> queue = new JdbcReadAheadQueue<>(
+      newReader(counter, Integer.MAX_VALUE), () -> 100, () -> false);
+    queue.start();
+    for (int i = 0; i < 5; i++) {
+      Assert.assertEquals(i, queue.next().intValue());
+    }
+    queue.close();
+    Assert.assertTrue(queue.isClosed());
+
+    // The task has finished so no more rows are read after close. At most 4 batches
+    // were read, the current batch, 2 queued batches and 1 waiting to be queued.
+    final int readCount = counter.get();
+    Assert.assertTrue("Read ahead is limited to 4 batches " + readCount, readCount <= 400);
+    Thread.sleep(50);
+    Assert.assertEquals(readCount, counter.get());
+    try {
+      queue.next();
+      Assert.fail("Closed");
+    } catch (final NoSuchElementException e) {
+    }
+    queue.close();
+  }
+
+  @Test
+  public void testCloseBeforeStart() throws SQLException {
+    final AtomicInteger counter = new AtomicInteger();
+    final JdbcReadAheadQueue<Integer> queue = new JdbcReadAheadQueue<>(newReader(counter, 10),
+      () -> 5, () -> false);
+    queue.close();
+    queue.start();
+    Assert.assertEquals(0, readAll(queue).size());
+    Assert.assertEquals(0, counter.get());
+  }
+
+  @Test
+  public void testEmpty() throws SQLException {
+    final AtomicInteger counter = new AtomicInteger();
+    try (
+      JdbcReadAheadQueue<Integer> queue = new JdbcReadAheadQueue<>(newReader(counter, 0),
+        () -> 5, () -> false)) {
+      queue.start();
+      Assert.assertEquals(0, readAll(queue).size());
+      Assert.assertTrue(queue.isClosed());
+    }
+  }
+
+  @Test
+  public void testOrder() throws SQLException {
+    final int rowCount = 10000;
+    final AtomicInteger batchIndex = new AtomicInteger();
+    final AtomicInteger counter = new AtomicInteger();
+    final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    final RowReader<Integer> reader = newReader(counter, rowCount);
+    try (
+      JdbcReadAheadQueue<Integer> queue = new JdbcReadAheadQueue<>(rows -> {
+        threads.add(Thread.currentThread());
+        return reader.read(rows);
+      }, () -> batchIndex.getAndIncrement() % 7, () -> false)) {
+      queue.start();
+      final List<Integer> rows = readAll(queue);
+      Assert.assertEquals(rowCount, rows.size());
+      for (int i = 0; i < rowCount; i++) {
+        Assert.assertEquals(i, rows.get(i).intValue());
+      }
+      Assert.assertFalse("Rows are read in the background",
+        threads.contains(Thread.currentThread()));
+    }
+  }
+
+  @Test
+  public void testReadError() throws SQLException {
+    final SQLException error = new SQLException("Read error");
+    final AtomicInteger counter = new AtomicInteger();
+    final RowReader<Integer> reader = newReader(counter, Integer.MAX_VALUE);
+    try (
+      JdbcReadAheadQueue<Integer> queue = new JdbcReadAheadQueue<>(rows -> {
+        if (counter.get() == 25) {
+          throw error;
+        }
+        return reader.read(rows);
+      }, () -> 10, () -> false)) {
+      queue.start();
+      for (int i = 0; i < 20; i++) {
+        Assert.assertEquals(i, queue.next().intValue());
+      }
+      try {
+        queue.next();
+        Assert.fail("Expected read error");
+      } catch (final SQLException e) {
+        Assert.assertSame(error, e);
+      }
+      try {
+        queue.next();
+        Assert.fail("Closed after error");
+      } catch (final NoSuchElementException e) {
+      }
+    }
+  }
+
+  @Test
+  public void testRuntimeError() throws SQLException {
+    try (
+      JdbcReadAheadQueue<Integer> queue = new JdbcReadAheadQueue<>(rows -> {
+        throw new IllegalStateException("Runtime error");
+      }, () -> 10, () -> false)) {
+      queue.start();
+      try {
+        queue.next();
+        Assert.fail("Expected runtime error");
+      } catch (final IllegalStateException e) {
+        Assert.assertEquals("Runtime error", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package com.revolsys.core.test.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.collection.map.ThreadSharedProperties;
+import com.revolsys.parallel.ThreadUtil;
+import com.revolsys.parallel.channel.Channel;
+import com.revolsys.parallel.channel.ClosedException;
+import com.revolsys.parallel.process.ProcessNetwork;
+import com.revolsys.parallel.process.ProcessThreadMode;
+
+public class ProcessNetworkTest {
+
+  private static final String VIRTUAL_THREAD_CLASS = "java.lang.VirtualThread";
+
+  private static boolean isVirtual(final Thread thread) {
+    return VIRTUAL_THREAD_CLASS.equals(thread.getClass().getName());
+  }
+
+  private void assertLimit(final ProcessThreadMode threadMode) {
+    final int processCount = 20;
+    final int maxActiveProcesses = 3;
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final ProcessNetwork network = new ProcessNetwork();
+    network.setThreadMode(threadMode);
+    network.setMaxActiveProcesses(maxActiveProcesses);
+    for (int i = 0; i < processCount; i++) {
+      network.addProcess(() -> {
+        final int count = running.incrementAndGet();
+        maxRunning.accumulateAndGet(count, Math::max);
+        try {
+          Thread.sleep(10);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          running.decrementAndGet();
+        }
+      });
+    }
+    network.startAndWait();
+
+    Assert.assertTrue("Max running " + maxRunning, maxRunning.get() <= maxActiveProcesses);
+    Assert.assertTrue("Peak " + network.getPeakActiveProcessCount(),
+      network.getPeakActiveProcessCount() <= maxActiveProcesses);
+    Assert.assertTrue(network.getPeakActiveProcessCount() >= 1);
+    Assert.assertEquals(processCount, network.getStartedProcessCount());
+    Assert.assertEquals(processCount, network.getCompletedProcessCount());
+    Assert.assertEquals(0, network.getActiveProcessCount());
+    Assert.assertEquals(0, network.getWaitingProcessCount());
+  }
+
+  private void assertPipeline(final ProcessThreadMode threadMode, final int stageCount) {
+    final int valueCount = 1000;
+    final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    final ProcessNetwork network = new ProcessNetwork();
+    network.setThreadMode(threadMode);
+
+    // Zero buffer channels so each write blocks until the next stage reads it
+    final List<Channel<Integer>> channels = new ArrayList<>();
+    for (int i = 0; i <= stageCount; i++) {
+      channels.add(new Channel<>());
+    }
+    final Channel<Integer> first = channels.get(0);
+    first.writeConnect();
+    network.addProcess(() -> {
+      threads.add(Thread.currentThread());
+      try {
+        for (int value = 0; value < valueCount; value++) {
+          first.write(value);
+        }
+      } finally {
+        first.writeDisconnect();
+      }
+    });
+    for (int i = 0; i < stageCount; i++) {
+      final Channel<Integer> in = channels.get(i);
+      final Channel<Integer> out = channels.get(i + 1);
+      in.readConnect();
+      out.writeConnect();
+      network.addProcess(() -> {
+        threads.add(Thread.currentThread());
+        try {
+          while (true) {
+            out.write(in.read() + 1);
+          }
+        } catch (final ClosedException e) {
+        } finally {
+          out.writeDisconnect();
+        }
+      });
+    }
+    final Channel<Integer> last = channels.get(stageCount);
+    last.readConnect();
+    final AtomicLong sum = new AtomicLong();
+    final AtomicInteger count = new AtomicInteger();
+    network.addProcess(() -> {
+      threads.add(Thread.currentThread());
+      try {
+        while (true) {
+          sum.addAndGet(last.read());
+          count.incrementAndGet();
+        }
+      } catch (final ClosedException e) {
+      }
+    });
+    network.startAndWait();
+
+    Assert.assertEquals(valueCount, count.get());
+    Assert.assertEquals((long)valueCount * (valueCount - 1) / 2 + (long)valueCount * stageCount,
+      sum.get());
+    Assert.assertEquals(stageCount + 2, network.getCompletedProcessCount());
+    final boolean virtual = threadMode == ProcessThreadMode.VIRTUAL
+      && ThreadUtil.isVirtualThreadSupported();
+    for (final Thread thread : threads) {
+      Assert.assertEquals(thread.toString(), virtual, isVirtual(thread));
+    }
+  }
+
+  @Test
+  public void testDefaultThreadMode() {
+    final ProcessThreadMode savedMode = ProcessNetwork.getDefaultThreadMode();
+    try {
+      ProcessNetwork.setDefaultThreadMode(ProcessThreadMode.VIRTUAL);
+      Assert.assertEquals(ProcessThreadMode.VIRTUAL, new ProcessNetwork().getThreadMode());
+
+      ProcessNetwork.setDefaultThreadMode(null);
+      Assert.assertEquals(ProcessThreadMode.PLATFORM, ProcessNetwork.getDefaultThreadMode());
+      Assert.assertEquals(ProcessThreadMode.PLATFORM, new ProcessNetwork().getThreadMode());
+    } finally {
+      ProcessNetwork.setDefaultThreadMode(savedMode);
+    }
+  }
+
+  @Test
+  public void testMaxActiveProcesses() {
+    assertLimit(ProcessThreadMode.PLATFORM);
+  }
+
+  @Test
+  public void testMaxActiveProcessesVirtual() {
+    assertLimit(ProcessThreadMode.VIRTUAL);
+  }
+
+  @Test
+  public void testPipeline() {
+    assertPipeline(ProcessThreadMode.PLATFORM, 10);
+  }
+
+  @Test
+  public void testPipelineVirtual() {
+    assertPipeline(ProcessThreadMode.VIRTUAL, 200);
+  }
+
+  @Test
+  public void testThreadSharedPropertiesVirtual() {
+    final String name = getClass().getName() + ".property";
+    ThreadSharedProperties.setProperty(name, "value");
+    try {
+      final List<Object> values = new ArrayList<>();
+      final ProcessNetwork network = new ProcessNetwork();
+      network.setThreadMode(ProcessThreadMode.VIRTUAL);
+      network.init();
+      network.addProcess(() -> {
+        synchronized (values) {
+          values.add(ThreadSharedProperties.getProperty(name));
+        }
+      });
+      network.startAndWait();
+      Assert.assertEquals(1, values.size());
+      Assert.assertEquals("value", values.get(0));
+    } finally {
+      ThreadSharedProperties.setProperty(name, null);
+    }
+  }
+
+  @Test
+  public void testThreadUtilVirtualThread() throws InterruptedException {
+    final AtomicInteger runCount = new AtomicInteger();
+    if (ThreadUtil.isVirtualThreadSupported()) {
+      final Thread thread = ThreadUtil.newVirtualThread("virtualTest",
+        runCount::incrementAndGet);
+      Assert.assertTrue(isVirtual(thread));
+      Assert.assertEquals("virtualTest", thread.getName());
+      Assert.assertTrue("Virtual threads are daemon threads", thread.isDaemon());
+      Assert.assertFalse("Unstarted", thread.isAlive());
+      thread.start();
+      thread.join(10000);
+      Assert.assertEquals(1, runCount.get());
+
+      final Thread unnamed = ThreadUtil.newVirtualThread(null, runCount::incrementAndGet);
+      Assert.assertEquals("", unnamed.getName());
+    } else {
+      try {
+        ThreadUtil.newVirtualThread("virtualTest", runCount::incrementAndGet);
+        Assert.fail("Virtual threads are not supported");
+      } catch (final UnsupportedOperationException e) {
+      }
+    }
+  }
+}
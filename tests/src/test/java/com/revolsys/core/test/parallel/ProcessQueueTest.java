@@ -0,0 +1,84 @@
+package com.revolsys.core.test.parallel;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.parallel.ThreadUtil;
+import com.revolsys.parallel.process.ProcessQueue;
+import com.revolsys.parallel.process.ProcessThreadMode;
+import com.revolsys.parallel.process.RunnableProcess;
+
+public class ProcessQueueTest {
+
+  private void assertRunProcesses(final ProcessThreadMode threadMode)
+    throws InterruptedException {
+    final int processCount = 50;
+    final int maxWorkers = 4;
+    final ProcessQueue queue = new ProcessQueue(maxWorkers, 100, threadMode);
+    Assert.assertEquals(threadMode, queue.getThreadMode());
+    final CountDownLatch latch = new CountDownLatch(processCount);
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    try {
+      for (int i = 0; i < processCount; i++) {
+        queue.runProcess(new RunnableProcess(() -> {
+          threads.add(Thread.currentThread());
+          final int count = running.incrementAndGet();
+          maxRunning.accumulateAndGet(count, Math::max);
+          try {
+            Thread.sleep(2);
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            running.decrementAndGet();
+            latch.countDown();
+          }
+        }));
+      }
+      Assert.assertTrue("Processes completed", latch.await(10, TimeUnit.SECONDS));
+      final long maxWait = System.currentTimeMillis() + 10000;
+      while (queue.getCompletedProcessCount() < processCount
+        && System.currentTimeMillis() < maxWait) {
+        Thread.sleep(1);
+      }
+      Assert.assertEquals(processCount, queue.getCompletedProcessCount());
+      Assert.assertTrue("Max running " + maxRunning, maxRunning.get() <= maxWorkers);
+      Assert.assertTrue("Peak workers " + queue.getPeakWorkerCount(),
+        queue.getPeakWorkerCount() <= maxWorkers);
+      Assert.assertTrue(queue.getPeakWorkerCount() >= 1);
+
+      final boolean virtual = threadMode == ProcessThreadMode.VIRTUAL
+        && ThreadUtil.isVirtualThreadSupported();
+      for (final Thread thread : threads) {
+        Assert.assertEquals(thread.toString(), virtual,
+          "java.lang.VirtualThread".equals(thread.getClass().getName()));
+        Assert.assertTrue("Workers are daemon threads", thread.isDaemon());
+      }
+
+      // Idle workers stop after the max idle time
+      while (queue.getWorkerCount() > 0 && System.currentTimeMillis() < maxWait) {
+        Thread.sleep(10);
+      }
+      Assert.assertEquals(0, queue.getWorkerCount());
+    } finally {
+      queue.stop();
+    }
+  }
+
+  @Test
+  public void testRunProcesses() throws InterruptedException {
+    assertRunProcesses(ProcessThreadMode.PLATFORM);
+  }
+
+  @Test
+  public void testRunProcessesVirtual() throws InterruptedException {
+    assertRunProcesses(ProcessThreadMode.VIRTUAL);
+  }
+}
@@ -0,0 +1,104 @@
+package com.revolsys.core.test.parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.parallel.channel.Channel;
+import com.revolsys.parallel.channel.ClosedException;
+import com.revolsys.parallel.channel.MultiInputSelector;
+import com.revolsys.parallel.channel.store.RingBuffer;
+
+public class RingBufferChannelTest {
+
+  private void assertTransfer(final boolean singleProducer, final int writerCount)
+    throws InterruptedException {
+    final Channel<Integer> channel = new Channel<>(new RingBuffer<>(64, singleProducer));
+    channel.readConnect();
+    final int valueCount = 100000;
+    final List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < writerCount; i++) {
+      channel.writeConnect();
+    }
+    for (int i = 0; i < writerCount; i++) {
+      final Thread thread = new Thread(() -> {
+        final List<Integer> batch = new ArrayList<>();
+        for (int value = 0; value < valueCount; value++) {
+          batch.add(value);
+          if (batch.size() == 100) {
+            channel.writeAll(batch);
+            batch.clear();
+          }
+        }
+        channel.writeAll(batch);
+        channel.writeDisconnect();
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    long sum = 0;
+    int count = 0;
+    final List<Integer> values = new ArrayList<>();
+    try {
+      while (true) {
+        values.clear();
+        count += channel.drainTo(values, 256);
+        for (final Integer value : values) {
+          sum += value;
+        }
+      }
+    } catch (final ClosedException e) {
+    }
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertEquals(writerCount * valueCount, count);
+    Assert.assertEquals(writerCount * ((long)valueCount * (valueCount - 1) / 2), sum);
+  }
+
+  @Test
+  public void testMultipleProducer() throws InterruptedException {
+    assertTransfer(false, 4);
+  }
+
+  @Test
+  public void testOffer() {
+    final RingBuffer<String> buffer = new RingBuffer<>(3);
+    Assert.assertEquals(4, buffer.getCapacity());
+    for (int i = 0; i < 4; i++) {
+      Assert.assertTrue(buffer.offer("v" + i));
+    }
+    Assert.assertFalse(buffer.offer("full"));
+    Assert.assertEquals("v0", buffer.poll());
+    Assert.assertTrue(buffer.offer("v4"));
+    final List<String> values = new ArrayList<>();
+    Assert.assertEquals(4, buffer.drainTo(values, 10));
+    Assert.assertEquals(Arrays.asList("v1", "v2", "v3", "v4"), values);
+    Assert.assertNull(buffer.poll());
+    Assert.assertTrue(buffer.isEmpty());
+  }
+
+  @Test
+  public void testSelect() {
+    final Channel<Integer> channel1 = new Channel<>(new RingBuffer<>(8));
+    final Channel<Integer> channel2 = new Channel<>(new RingBuffer<>(8));
+    channel1.readConnect();
+    channel2.readConnect();
+    channel1.writeConnect();
+    channel2.writeConnect();
+    new Thread(() -> {
+      channel2.write(7);
+    }).start();
+    final MultiInputSelector selector = new MultiInputSelector();
+    Assert.assertEquals(1, selector.select(Arrays.asList(channel1, channel2)));
+    Assert.assertEquals(Integer.valueOf(7), channel2.read());
+  }
+
+  @Test
+  public void testSingleProducer() throws InterruptedException {
+    assertTransfer(true, 1);
+  }
+}
@@ -0,0 +1,205 @@
+package com.revolsys.core.test.record.io.test;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.jeometry.common.io.PathName;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.record.Record;
+import com.revolsys.record.io.format.csv.CsvRecordReader;
+import com.revolsys.record.io.format.wkt.WktParser;
+import com.revolsys.record.schema.RecordDefinitionImpl;
+import com.revolsys.spring.resource.ByteArrayResource;
+
+public class CsvRecordReaderTest {
+
+  private static ByteArrayResource newResource(final int rowCount) {
+    final StringBuilder csv = new StringBuilder("ID,NAME,NOTE\r\n");
+    for (int i = 0; i < rowCount; i++) {
+      csv.append(i);
+      csv.append(",name ");
+      csv.append(i);
+      csv.append(",\"line 1, \"\"quoted\"\"\nline 2\"\r\n");
+    }
+    return new ByteArrayResource("test.csv", csv.toString());
+  }
+
+  private static RecordDefinitionImpl newTypedRecordDefinition() {
+    final RecordDefinitionImpl recordDefinition = new RecordDefinitionImpl(
+      PathName.newPathName("/test"));
+    recordDefinition.addField("INT", DataTypes.INT);
+    recordDefinition.addField("LONG", DataTypes.LONG);
+    recordDefinition.addField("DOUBLE", DataTypes.DOUBLE);
+    recordDefinition.addField("DATE", DataTypes.SQL_DATE);
+    recordDefinition.addField("NAME", DataTypes.STRING);
+    return recordDefinition;
+  }
+
+  private List<Record> readTyped(final String csv) {
+    final ByteArrayResource resource = new ByteArrayResource("test.csv", csv);
+    try (
+      CsvRecordReader reader = new CsvRecordReader(resource)) {
+      reader.setRecordDefinition(newTypedRecordDefinition());
+      return reader.toList();
+    }
+  }
+
+  @Test
+  public void testDates() {
+    final List<Record> records = readTyped("DATE\n2024-02-29\n1999-12-31\n0001-01-01\n\n");
+    Assert.assertEquals(3, records.size());
+    Assert.assertEquals(Date.valueOf("2024-02-29"), records.get(0).getValue("DATE"));
+    Assert.assertEquals(Date.valueOf("1999-12-31"), records.get(1).getValue("DATE"));
+    Assert.assertEquals(Date.valueOf("0001-01-01"), records.get(2).getValue("DATE"));
+  }
+
+  @Test
+  public void testInvalidNumber() {
+    final List<Record> records = readTyped("INT,DOUBLE\nabc,1.2.3\n");
+    Assert.assertEquals(1, records.size());
+    // Values that can't be converted are stored as read, the same as before
+    Assert.assertEquals("abc", records.get(0).getValue("INT"));
+    Assert.assertEquals("1.2.3", records.get(0).getValue("DOUBLE"));
+  }
+
+  @Test
+  public void testNumbers() {
+    final String[] doubles = {
+      "0", "-0.5", "+1.25", "0.1", "123456789012345", "1234567890123456789", "0.30000000000000004",
+      "1.5e3", "-2.5E-3", "1e22", "1e23", "1E-300", "4.9e-324", "1.7976931348623157e308", ".5",
+      "5."
+    };
+    final StringBuilder csv = new StringBuilder("INT,LONG,DOUBLE\n");
+    csv.append("-2147483648,9223372036854775807,").append(doubles[0]).append('\n');
+    csv.append("2147483647,-9223372036854775808,").append(doubles[1]).append('\n');
+    csv.append("+12,123456789012345678,").append(doubles[2]).append('\n');
+    for (int i = 3; i < doubles.length; i++) {
+      csv.append("0,0,").append(doubles[i]).append('\n');
+    }
+    final List<Record> records = readTyped(csv.toString());
+    Assert.assertEquals(doubles.length, records.size());
+
+    Assert.assertEquals(Integer.MIN_VALUE, records.get(0).getInteger("INT").intValue());
+    Assert.assertEquals(Integer.MAX_VALUE, records.get(1).getInteger("INT").intValue());
+    Assert.assertEquals(12, records.get(2).getInteger("INT").intValue());
+
+    // Integers with more than 18 digits are converted from the string
+    Assert.assertEquals(Long.MAX_VALUE, records.get(0).getLong("LONG").longValue());
+    Assert.assertEquals(Long.MIN_VALUE, records.get(1).getLong("LONG").longValue());
+    Assert.assertEquals(123456789012345678L, records.get(2).getLong("LONG").longValue());
+
+    for (int i = 0; i < doubles.length; i++) {
+      final Object value = records.get(i).getValue("DOUBLE");
+      Assert.assertTrue(doubles[i], value instanceof Double);
+      Assert.assertEquals(doubles[i], Double.parseDouble(doubles[i]), (Double)value, 0);
+    }
+  }
+
+  @Test
+  public void testParallelStream() {
+    final List<Record> expected = new ArrayList<>();
+    try (
+      CsvRecordReader reader = new CsvRecordReader(newResource(20000))) {
+      for (final Record record : reader) {
+        expected.add(record);
+      }
+    }
+    try (
+      CsvRecordReader reader = new CsvRecordReader(newResource(20000));
+      Stream<Record> stream = reader.parallelStream(4096)) {
+      final List<Record> actual = stream.collect(Collectors.toList());
+      Assert.assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        Assert.assertEquals(expected.get(i).getValue("ID"), actual.get(i).getValue("ID"));
+        Assert.assertEquals(expected.get(i).getValue("NOTE"), actual.get(i).getValue("NOTE"));
+      }
+    }
+  }
+
+  @Test
+  public void testQuotedEmptyValues() {
+    final List<Record> records = readTyped("NAME,INT,DOUBLE\n\"\",\"\",\"\"\n,,\nx,1,\n");
+    Assert.assertEquals(3, records.size());
+    // Quoted and unquoted empty values are both null
+    for (final Record record : records.subList(0, 2)) {
+      Assert.assertNull(record.getValue("NAME"));
+      Assert.assertNull(record.getValue("INT"));
+      Assert.assertNull(record.getValue("DOUBLE"));
+    }
+    final Record record3 = records.get(2);
+    Assert.assertEquals("x", record3.getValue("NAME"));
+    Assert.assertEquals(1, record3.getInteger("INT").intValue());
+    Assert.assertNull(record3.getValue("DOUBLE"));
+  }
+
+  @Test
+  public void testQuotedValues() {
+    final ByteArrayResource resource = new ByteArrayResource("test.csv",
+      "A,B,C\n\"a,1\",\"\",x\"y\n\n\"say \"\"hi\"\"\",,\"multi\r\nline\"\nlast");
+    try (
+      CsvRecordReader reader = new CsvRecordReader(resource)) {
+      final List<Record> records = reader.toList();
+      Assert.assertEquals(3, records.size());
+
+      final Record record1 = records.get(0);
+      Assert.assertEquals("a,1", record1.getValue("A"));
+      Assert.assertEquals("x\"y", record1.getValue("C"));
+
+      final Record record2 = records.get(1);
+      Assert.assertEquals("say \"hi\"", record2.getValue("A"));
+      Assert.assertNull(record2.getValue("B"));
+      Assert.assertEquals("multi\r\nline", record2.getValue("C"));
+
+      final Record record3 = records.get(2);
+      Assert.assertEquals("last", record3.getValue("A"));
+      Assert.assertNull(record3.getValue("B"));
+    }
+  }
+
+  @Test
+  public void testWkt() {
+    final ByteArrayResource resource = new ByteArrayResource("test.csv",
+      "ID,GEOMETRY\n1,\"LINESTRING(0 0,1.5 2.5)\"\n2,POINT(3 4)\n3,\n");
+    try (
+      CsvRecordReader reader = new CsvRecordReader(resource)) {
+      final List<Record> records = reader.toList();
+      Assert.assertEquals(3, records.size());
+
+      final Geometry line = records.get(0).getGeometry();
+      Assert.assertTrue(line instanceof LineString);
+      Assert.assertEquals(2, line.getVertexCount());
+      Assert.assertEquals(1.5, ((LineString)line).getX(1), 0);
+      Assert.assertEquals(2.5, ((LineString)line).getY(1), 0);
+
+      final Geometry point = records.get(1).getGeometry();
+      Assert.assertTrue(point instanceof Point);
+      Assert.assertEquals(3, ((Point)point).getX(), 0);
+      Assert.assertEquals(4, ((Point)point).getY(), 0);
+
+      Assert.assertNull(records.get(2).getGeometry());
+    }
+  }
+
+  @Test
+  public void testWktParserCharArray() {
+    final WktParser parser = new WktParser(GeometryFactory.floating2d(4326));
+    final String wkt = "LINESTRING(0 0,10 10,20 0)";
+    final char[] chars = ("x," + wkt + ",y").toCharArray();
+    final Geometry expected = parser.parseGeometry(wkt, false);
+    final Geometry actual = parser.parseGeometry(chars, 2, wkt.length(), false);
+    Assert.assertEquals(expected, actual);
+
+    final char[] blank = "a,  ,b".toCharArray();
+    Assert.assertNull(parser.parseGeometry(blank, 2, 2, false));
+  }
+}
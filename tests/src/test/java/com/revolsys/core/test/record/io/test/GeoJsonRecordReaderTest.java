@@ -0,0 +1,143 @@
+package com.revolsys.core.test.record.io.test;
+
+import java.util.List;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.Polygon;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.io.GeometryRecordReader;
+import com.revolsys.record.io.RecordReader;
+import com.revolsys.record.io.format.geojson.GeoJson;
+import com.revolsys.record.io.format.geojson.GeoJsonRecordReader;
+import com.revolsys.record.io.format.json.JsonObjectHash;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.spring.resource.ByteArrayResource;
+
+public class GeoJsonRecordReaderTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.floating2d(4326);
+
+  private static String feature(final String properties) {
+    return "{\"type\":\"Feature\",\"properties\":" + properties
+      + ",\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2]}}\n";
+  }
+
+  private List<Record> read(final String json) {
+    final ByteArrayResource resource = new ByteArrayResource("test.geojson", json);
+    try (
+      GeoJsonRecordReader reader = new GeoJsonRecordReader(resource)) {
+      return reader.toList();
+    }
+  }
+
+  @Test
+  public void testFeatureCollection() {
+    final List<Record> records = read(
+      "{\"type\":\"FeatureCollection\",\"name\":\"test\",\"features\":["
+        + "{\"type\":\"Feature\",\"id\":1,"
+        + "\"properties\":{\"NAME\":\"a\\u0042\",\"COUNT\":10,\"AREA\":1.5},"
+        + "\"geometry\":{\"type\":\"Polygon\","
+        + "\"coordinates\":[[[0,0],[10,0],[10,10],[0,10],[0,0]],"
+        + "[[2,2],[2,4],[4,4],[4,2],[2,2]]]}},"
+        + "{\"type\":\"Feature\",\"id\":2,"
+        + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[1.25,-2.5]},"
+        + "\"properties\":{\"OTHER\":{\"x\":[1,2]},\"COUNT\":20,\"NAME\":null}}"
+        + "],\"bbox\":[0,0,10,10]}");
+    Assert.assertEquals(2, records.size());
+
+    final RecordDefinition recordDefinition = records.get(0).getRecordDefinition();
+    Assert.assertTrue(recordDefinition.hasField("NAME"));
+    Assert.assertTrue(recordDefinition.hasField("id"));
+    Assert.assertTrue(recordDefinition.hasField("OTHER"));
+
+    final Record record1 = records.get(0);
+    Assert.assertEquals("aB", record1.getValue("NAME"));
+    Assert.assertEquals(10L, ((Number)record1.getValue("COUNT")).longValue());
+    Assert.assertEquals(1.5, ((Number)record1.getValue("AREA")).doubleValue(), 0);
+    final Geometry polygon = record1.getGeometry();
+    Assert.assertTrue(polygon instanceof Polygon);
+    Assert.assertEquals(2, ((Polygon)polygon).getRingCount());
+    Assert.assertEquals(96, polygon.getArea(), 0);
+
+    final Record record2 = records.get(1);
+    Assert.assertNull(record2.getValue("NAME"));
+    Assert.assertEquals(20L, ((Number)record2.getValue("COUNT")).longValue());
+    Assert.assertEquals(GEOMETRY_FACTORY.point(1.25, -2.5), record2.getGeometry());
+  }
+
+  @Test
+  public void testNewlineDelimited() {
+    final List<Record> records = read("{\"type\":\"Feature\",\"properties\":{\"NAME\":\"a\"},"
+      + "\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1]]}}\n"
+      + "\u001E{\"type\":\"Feature\",\"properties\":{\"NAME\":\"b\"},"
+      + "\"geometry\":{\"type\":\"MultiPoint\",\"coordinates\":[[0,0],[1,1]]}}\n"
+      + "{\"type\":\"Feature\",\"properties\":{\"NAME\":\"c\"},\"geometry\":null}\n");
+    Assert.assertEquals(3, records.size());
+    Assert.assertEquals("a", records.get(0).getValue("NAME"));
+    Assert.assertEquals(GEOMETRY_FACTORY.lineString(2, 0.0, 0, 1, 1),
+      records.get(0).getGeometry());
+    Assert.assertEquals(2, records.get(1).getGeometry().getVertexCount());
+    Assert.assertEquals("c", records.get(2).getValue("NAME"));
+    Assert.assertNull(records.get(2).getGeometry());
+  }
+
+  @Test
+  public void testRecordDefinitionSampleSize() {
+    final ByteArrayResource resource = new ByteArrayResource("test.geojson",
+      feature("{\"VALUE\":1}") + feature("{\"VALUE\":\"a\"}"));
+    try (
+      GeoJsonRecordReader reader = new GeoJsonRecordReader(resource)) {
+      reader.setRecordDefinitionSampleSize(1);
+      final List<Record> records = reader.toList();
+      Assert.assertEquals(DataTypes.LONG,
+        reader.getRecordDefinition().getFieldType("VALUE"));
+      Assert.assertEquals(1L, ((Number)records.get(0).getValue("VALUE")).longValue());
+      // Values after the sample that cannot be converted are kept as read
+      Assert.assertEquals("a", records.get(1).getValue("VALUE"));
+    }
+  }
+
+  @Test
+  public void testRecordReaderOptIn() {
+    final ByteArrayResource resource = new ByteArrayResource("test.geojson",
+      feature("{\"NAME\":\"a\"}"));
+    final GeoJson geoJson = new GeoJson();
+    try (
+      RecordReader reader = geoJson.newRecordReader(resource, ArrayRecord.FACTORY, null)) {
+      Assert.assertTrue(reader instanceof GeometryRecordReader);
+    }
+    final JsonObjectHash properties = new JsonObjectHash(GeoJson.STREAMING_RECORD_READER, true);
+    try (
+      RecordReader reader = geoJson.newRecordReader(resource, ArrayRecord.FACTORY, properties)) {
+      Assert.assertTrue(reader instanceof GeoJsonRecordReader);
+      Assert.assertEquals("a", reader.toList().get(0).getValue("NAME"));
+    }
+  }
+
+  @Test
+  public void testWidenFieldTypes() {
+    final List<Record> records = read(feature("{\"INT\":1,\"NUM\":1,\"MIXED\":1,\"NONE\":null}")
+      + feature("{\"INT\":2,\"NUM\":2.5,\"MIXED\":\"a\",\"BOOL\":true,\"NONE\":null}")
+      + feature("{\"INT\":null,\"NUM\":3,\"MIXED\":false,\"BOOL\":null}"));
+    Assert.assertEquals(3, records.size());
+    final RecordDefinition recordDefinition = records.get(0).getRecordDefinition();
+    Assert.assertEquals(DataTypes.LONG, recordDefinition.getFieldType("INT"));
+    Assert.assertEquals(DataTypes.DOUBLE, recordDefinition.getFieldType("NUM"));
+    Assert.assertEquals(DataTypes.OBJECT, recordDefinition.getFieldType("MIXED"));
+    Assert.assertEquals(DataTypes.BOOLEAN, recordDefinition.getFieldType("BOOL"));
+    Assert.assertEquals(DataTypes.OBJECT, recordDefinition.getFieldType("NONE"));
+
+    Assert.assertEquals(1.0, ((Number)records.get(0).getValue("NUM")).doubleValue(), 0);
+    Assert.assertEquals(2.5, ((Number)records.get(1).getValue("NUM")).doubleValue(), 0);
+    Assert.assertEquals("a", records.get(1).getValue("MIXED"));
+    Assert.assertEquals(Boolean.FALSE, records.get(2).getValue("MIXED"));
+    Assert.assertEquals(Boolean.TRUE, records.get(1).getValue("BOOL"));
+    Assert.assertNull(records.get(2).getValue("INT"));
+  }
+}
@@ -0,0 +1,313 @@
+package com.revolsys.core.test.record.io.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.jeometry.common.io.PathName;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.io.ListRecordReader;
+import com.revolsys.record.io.RecordReader;
+import com.revolsys.record.io.RecordStoreCache;
+import com.revolsys.record.io.format.directory.DirectoryRecordStore;
+import com.revolsys.record.query.And;
+import com.revolsys.record.query.Condition;
+import com.revolsys.record.query.Query;
+import com.revolsys.record.query.QueryValue;
+import com.revolsys.record.query.Value;
+import com.revolsys.record.query.functions.EnvelopeIntersects;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionImpl;
+
+public class RecordStoreCacheTest {
+
+  /**
+   * An in memory record store that returns a copy of the records whose
+   * geometry intersects the bounding box of the query, in the same way as a
+   * database returns new record instances for each query.
+   */
+  private static class TestRecordStore extends DirectoryRecordStore {
+    private final AtomicInteger queryCount = new AtomicInteger();
+
+    private final Map<PathName, RecordDefinition> recordDefinitions = new HashMap<>();
+
+    private final Map<PathName, List<Record>> records = new HashMap<>();
+
+    private CountDownLatch release;
+
+    private CountDownLatch started;
+
+    private TestRecordStore() {
+      super(new File(System.getProperty("java.io.tmpdir")), "tsv");
+      for (final PathName typePath : new PathName[] {
+        TEST, TEST_NO_ID
+      }) {
+        final RecordDefinitionImpl recordDefinition = new RecordDefinitionImpl(typePath);
+        recordDefinition.addField("ID", DataTypes.INT, true);
+        recordDefinition.addField("GEOMETRY", GeometryDataTypes.GEOMETRY, true);
+        recordDefinition.setGeometryFactory(GEOMETRY_FACTORY);
+        if (typePath == TEST) {
+          recordDefinition.setIdFieldName("ID");
+        }
+        this.recordDefinitions.put(typePath, recordDefinition);
+        this.records.put(typePath, new ArrayList<>());
+      }
+    }
+
+    private Record addRecord(final PathName typePath, final int id, final Geometry geometry) {
+      final Record record = new ArrayRecord(this.recordDefinitions.get(typePath));
+      record.setValue("ID", id);
+      record.setGeometryValue(geometry);
+      this.records.get(typePath).add(record);
+      return record;
+    }
+
+    @Override
+    public boolean deleteRecord(final Record record) {
+      return this.records.get(record.getPathName()).removeIf(cachedRecord -> cachedRecord
+        .getIdentifier()
+        .equals(record.getIdentifier()));
+    }
+
+    private BoundingBox getBoundingBox(final Condition condition) {
+      if (condition instanceof EnvelopeIntersects) {
+        final QueryValue value = ((EnvelopeIntersects)condition).getBoundingBox2Value();
+        return (BoundingBox)((Value)value).getValue();
+      } else if (condition instanceof And) {
+        for (final Condition childCondition : ((And)condition).getConditions()) {
+          final BoundingBox boundingBox = getBoundingBox(childCondition);
+          if (boundingBox != null) {
+            return boundingBox;
+          }
+        }
+      }
+      return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <RD extends RecordDefinition> RD getRecordDefinition(final PathName path) {
+      return (RD)this.recordDefinitions.get(path);
+    }
+
+    @Override
+    public RecordReader getRecords(final Query query) {
+      this.queryCount.incrementAndGet();
+      if (this.started != null) {
+        this.started.countDown();
+        try {
+          this.release.await(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      final PathName typePath = query.getTablePath();
+      final BoundingBox boundingBox = getBoundingBox(query.getWhereCondition());
+      final List<Record> records = new ArrayList<>();
+      for (final Record record : this.records.get(typePath)) {
+        if (record.getGeometry().intersectsBbox(boundingBox)) {
+          records.add(new ArrayRecord(record));
+        }
+      }
+      return new ListRecordReader(this.recordDefinitions.get(typePath), records);
+    }
+
+    @Override
+    public synchronized void insertRecord(final Record record) {
+      this.records.get(record.getPathName()).add(new ArrayRecord(record));
+    }
+
+    @Override
+    public void updateRecord(final Record record) {
+      deleteRecord(record);
+      insertRecord(record);
+    }
+  }
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.fixed2d(3005, 1000.0,
+    1000.0);
+
+  private static final PathName TEST = PathName.newPathName("/TEST");
+
+  private static final PathName TEST_NO_ID = PathName.newPathName("/TEST_NO_ID");
+
+  private static List<Object> getIds(final List<Record> records) {
+    final List<Object> ids = new ArrayList<>();
+    for (final Record record : records) {
+      ids.add(record.getValue("ID"));
+    }
+    ids.sort(null);
+    return ids;
+  }
+
+  private static BoundingBox newBoundingBox(final double minX, final double minY,
+    final double maxX, final double maxY) {
+    return GEOMETRY_FACTORY.newBoundingBox(minX, minY, maxX, maxY);
+  }
+
+  private void assertIds(final List<Record> records, final Object... expectedIds) {
+    final List<Object> expected = new ArrayList<>();
+    for (final Object id : expectedIds) {
+      expected.add(id);
+    }
+    Assert.assertEquals("IDs", expected, getIds(records));
+  }
+
+  @Test
+  public void testConcurrentLoad() throws Exception {
+    final TestRecordStore recordStore = new TestRecordStore();
+    recordStore.addRecord(TEST, 1, GEOMETRY_FACTORY.point(50, 50));
+    final RecordStoreCache cache = new RecordStoreCache(recordStore, 100, 1000);
+    recordStore.started = new CountDownLatch(1);
+    recordStore.release = new CountDownLatch(1);
+
+    final BoundingBox boundingBox = newBoundingBox(10, 10, 90, 90);
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Future<List<Record>> future1 = executor
+        .submit(() -> cache.getRecords(TEST, boundingBox));
+      Assert.assertTrue("Load started", recordStore.started.await(10, TimeUnit.SECONDS));
+      final Future<List<Record>> future2 = executor
+        .submit(() -> cache.getRecords(TEST, boundingBox));
+      Thread.sleep(100);
+      recordStore.release.countDown();
+
+      assertIds(future1.get(10, TimeUnit.SECONDS), 1);
+      assertIds(future2.get(10, TimeUnit.SECONDS), 1);
+    } finally {
+      executor.shutdownNow();
+    }
+    Assert.assertEquals("Query count", 1, recordStore.queryCount.get());
+    Assert.assertEquals("Load count", 1, cache.getLoadCount());
+    Assert.assertEquals("Hit count", 1, cache.getHitCount());
+    Assert.assertEquals("Miss count", 1, cache.getMissCount());
+  }
+
+  @Test
+  public void testEviction() {
+    final TestRecordStore recordStore = new TestRecordStore();
+    recordStore.addRecord(TEST, 1, GEOMETRY_FACTORY.point(50, 50));
+    recordStore.addRecord(TEST, 2, GEOMETRY_FACTORY.point(150, 50));
+    recordStore.addRecord(TEST, 3, GEOMETRY_FACTORY.point(250, 50));
+    // Each tile has a weight of the record count + 1
+    final RecordStoreCache cache = new RecordStoreCache(recordStore, 100, 4);
+
+    final BoundingBox tile1 = newBoundingBox(10, 10, 90, 90);
+    final BoundingBox tile2 = newBoundingBox(110, 10, 190, 90);
+    final BoundingBox tile3 = newBoundingBox(210, 10, 290, 90);
+    assertIds(cache.getRecords(TEST, tile1), 1);
+    assertIds(cache.getRecords(TEST, tile2), 2);
+    Assert.assertEquals("Record count", 4, cache.getRecordCount());
+    Assert.assertEquals("Eviction count", 0, cache.getEvictionCount());
+
+    // Loading tile 3 evicts the least recently used tile 1
+    assertIds(cache.getRecords(TEST, tile3), 3);
+    Assert.assertEquals("Record count", 4, cache.getRecordCount());
+    Assert.assertEquals("Eviction count", 1, cache.getEvictionCount());
+
+    assertIds(cache.getRecords(TEST, tile2), 2);
+    Assert.assertEquals("Load count", 3, cache.getLoadCount());
+    Assert.assertEquals("Hit count", 1, cache.getHitCount());
+
+    // Tile 1 is loaded again and tile 3 is now the least recently used
+    assertIds(cache.getRecords(TEST, tile1), 1);
+    Assert.assertEquals("Load count", 4, cache.getLoadCount());
+    Assert.assertEquals("Eviction count", 2, cache.getEvictionCount());
+    assertIds(cache.getRecords(TEST, tile2), 2);
+    Assert.assertEquals("Load count", 4, cache.getLoadCount());
+    Assert.assertEquals("Hit rate", 2.0 / 6, cache.getHitRate(), 0);
+  }
+
+  @Test
+  public void testInvalidate() {
+    final TestRecordStore recordStore = new TestRecordStore();
+    final Record record1 = recordStore.addRecord(TEST, 1, GEOMETRY_FACTORY.point(50, 50));
+    recordStore.addRecord(TEST, 2, GEOMETRY_FACTORY.point(150, 50));
+    final RecordStoreCache cache = new RecordStoreCache(recordStore, 100, 1000);
+
+    final BoundingBox boundingBox = newBoundingBox(0, 0, 199, 99);
+    assertIds(cache.getRecords(TEST, boundingBox), 1, 2);
+    Assert.assertEquals("Load count", 2, cache.getLoadCount());
+
+    final Record record3 = new ArrayRecord(record1);
+    record3.setValue("ID", 3);
+    record3.setGeometryValue(GEOMETRY_FACTORY.point(160, 60));
+    cache.insertRecord(record3);
+    assertIds(cache.getRecords(TEST, boundingBox), 1, 2, 3);
+    Assert.assertEquals("Load count", 3, cache.getLoadCount());
+
+    // Moving a record invalidates the tile it was cached in and its new tile
+    final Record movedRecord = new ArrayRecord(record1);
+    movedRecord.setGeometryValue(GEOMETRY_FACTORY.point(350, 50));
+    cache.updateRecord(movedRecord);
+    assertIds(cache.getRecords(TEST, boundingBox), 2, 3);
+    Assert.assertEquals("Load count", 4, cache.getLoadCount());
+
+    cache.deleteRecord(record3);
+    assertIds(cache.getRecords(TEST, boundingBox), 2);
+
+    cache.invalidate(TEST);
+    Assert.assertEquals("Record count", 0, cache.getRecordCount());
+  }
+
+  @Test
+  public void testMultipleTileGeometry() {
+    final TestRecordStore recordStore = new TestRecordStore();
+    // The line doesn't intersect the tile containing the minimum corner of its
+    // bounding box
+    for (final PathName typePath : new PathName[] {
+      TEST, TEST_NO_ID
+    }) {
+      recordStore.addRecord(typePath, 1, GEOMETRY_FACTORY.lineString(2, 10.0, 290, 290, 10));
+      recordStore.addRecord(typePath, 2, GEOMETRY_FACTORY.lineString(2, 10.0, 10, 290, 290));
+      final RecordStoreCache cache = new RecordStoreCache(recordStore, 100, 1000);
+      assertIds(cache.getRecords(typePath, newBoundingBox(0, 0, 299, 299)), 1, 2);
+      assertIds(cache.getRecords(typePath, newBoundingBox(0, 0, 150, 150)), 1, 2);
+      assertIds(cache.getRecords(typePath, newBoundingBox(120, 120, 299, 299)), 1, 2);
+      Assert.assertEquals(typePath + " Load count", 9, cache.getLoadCount());
+    }
+  }
+
+  @Test
+  public void testTileLoading() {
+    final TestRecordStore recordStore = new TestRecordStore();
+    recordStore.addRecord(TEST, 1, GEOMETRY_FACTORY.point(50, 50));
+    recordStore.addRecord(TEST, 2, GEOMETRY_FACTORY.point(150, 50));
+    recordStore.addRecord(TEST, 3, GEOMETRY_FACTORY.point(250, 250));
+    final RecordStoreCache cache = new RecordStoreCache(recordStore, 100, 1000);
+
+    assertIds(cache.getRecords(TEST, newBoundingBox(10, 10, 160, 90)), 1, 2);
+    Assert.assertEquals("Load count", 2, cache.getLoadCount());
+    Assert.assertEquals("Miss count", 2, cache.getMissCount());
+    Assert.assertEquals("Record count", 4, cache.getRecordCount());
+
+    // Records outside the request but in a loaded tile are not returned
+    assertIds(cache.getRecords(TEST, newBoundingBox(100, 10, 140, 90)));
+    Assert.assertEquals("Load count", 2, cache.getLoadCount());
+    Assert.assertEquals("Hit count", 1, cache.getHitCount());
+
+    // Requests spanning more than the max tiles per request are not cached
+    cache.setMaxTilesPerRequest(2);
+    assertIds(cache.getRecords(TEST, newBoundingBox(0, 0, 299, 299)), 1, 2, 3);
+    Assert.assertEquals("Load count", 3, cache.getLoadCount());
+    Assert.assertEquals("Record count", 4, cache.getRecordCount());
+    Assert.assertEquals("Query count", 3, recordStore.queryCount.get());
+  }
+}
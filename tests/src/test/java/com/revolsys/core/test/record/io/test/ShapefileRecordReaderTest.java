@@ -0,0 +1,304 @@
+package com.revolsys.core.test.record.io.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.jeometry.common.io.PathName;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.gis.parallel.StreamProcess;
+import com.revolsys.io.FileUtil;
+import com.revolsys.io.IoConstants;
+import com.revolsys.parallel.channel.Channel;
+import com.revolsys.parallel.channel.ClosedException;
+import com.revolsys.parallel.channel.store.Buffer;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.io.RecordWriter;
+import com.revolsys.record.io.format.shp.ShapefileRecordReader;
+import com.revolsys.record.io.format.xbase.XbaseRecordReader;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionImpl;
+import com.revolsys.spring.resource.PathResource;
+
+public class ShapefileRecordReaderTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.fixed2d(3005, 1000.0,
+    1000.0);
+
+  private static final int RECORD_COUNT = 2500;
+
+  private static File directory;
+
+  private static PathResource resource;
+
+  @AfterClass
+  public static void deleteShapefile() {
+    FileUtil.deleteDirectory(directory);
+  }
+
+  @BeforeClass
+  public static void writeShapefile() {
+    directory = FileUtil.newTempDirectory("shapefile", ".test");
+    resource = new PathResource(new File(directory, "records.shp"));
+
+    final RecordDefinitionImpl recordDefinition = new RecordDefinitionImpl(
+      PathName.newPathName("/records"));
+    recordDefinition.addField("ID", DataTypes.INT, true);
+    recordDefinition.addField("NAME", DataTypes.STRING, 20, true);
+    recordDefinition.addField("VALUE", DataTypes.DOUBLE, 10, 3, true);
+    recordDefinition.addField("GEOMETRY", GeometryDataTypes.POINT, true);
+    recordDefinition.setGeometryFactory(GEOMETRY_FACTORY);
+    try (
+      RecordWriter writer = RecordWriter.newRecordWriter(recordDefinition, resource)) {
+      writer.setProperty(IoConstants.GEOMETRY_FACTORY, GEOMETRY_FACTORY);
+      writer.setProperty(IoConstants.GEOMETRY_TYPE, GeometryDataTypes.POINT);
+      for (int i = 0; i < RECORD_COUNT; i++) {
+        final Record record = new ArrayRecord(recordDefinition);
+        record.setValue("ID", i);
+        record.setValue("NAME", "Name " + i);
+        record.setValue("VALUE", i / 4.0);
+        record.setGeometryValue(GEOMETRY_FACTORY.point(i % 50 * 10, i / 50 * 10));
+        writer.write(record);
+      }
+    }
+  }
+
+  private void assertRecords(final List<Record> expected, final List<Record> actual) {
+    Assert.assertEquals("Record Count", expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      final Record expectedRecord = expected.get(i);
+      final Record actualRecord = actual.get(i);
+      for (final String fieldName : actualRecord.getRecordDefinition().getFieldNames()) {
+        if (fieldName.equalsIgnoreCase("GEOMETRY")) {
+          Assert.assertTrue(i + " GEOMETRY",
+            expectedRecord.getGeometry().equals(2, actualRecord.getGeometry()));
+        } else {
+          Assert.assertEquals(i + " " + fieldName, expectedRecord.getValue(fieldName),
+            actualRecord.getValue(fieldName));
+        }
+      }
+    }
+  }
+
+  private TreeSet<Integer> getIds(final List<Record> records) {
+    final TreeSet<Integer> ids = new TreeSet<>();
+    for (final Record record : records) {
+      Assert.assertTrue("Duplicate record", ids.add(record.getInteger("ID")));
+    }
+    return ids;
+  }
+
+  private ShapefileRecordReader newReader() {
+    try {
+      return new ShapefileRecordReader(resource, ArrayRecord.FACTORY);
+    } catch (final IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private List<Record> readSequential() {
+    try (
+      ShapefileRecordReader reader = newReader()) {
+      return reader.toList();
+    }
+  }
+
+  @Test
+  public void testFieldNames() {
+    final List<Record> expected = readSequential();
+    try (
+      ShapefileRecordReader reader = newReader()) {
+      reader.setFieldNames(Arrays.asList("VALUE", "ID", "MISSING"));
+      final List<Record> actual = reader.toList();
+      final RecordDefinition recordDefinition = actual.get(0).getRecordDefinition();
+      // The requested fields in the requested order followed by the geometry
+      Assert.assertEquals(3, recordDefinition.getFieldCount());
+      Assert.assertEquals("VALUE", recordDefinition.getFieldName(0));
+      Assert.assertEquals("ID", recordDefinition.getFieldName(1));
+      Assert.assertFalse(recordDefinition.hasField("NAME"));
+      Assert.assertFalse(recordDefinition.hasField("MISSING"));
+      Assert.assertNotNull(recordDefinition.getGeometryFieldName());
+      assertRecords(expected, actual);
+    }
+  }
+
+  @Test
+  public void testFieldNamesRecordRange() {
+    final List<Record> records = readSequential();
+    final List<Record> expected = records.subList(1000, 1250);
+    final List<String> fieldNames = Arrays.asList("NAME");
+    try (
+      ShapefileRecordReader reader = newReader()) {
+      reader.setFieldNames(fieldNames);
+      reader.setRecordRange(1000, 1250);
+      final List<Record> actual = reader.toList();
+      Assert.assertFalse(actual.get(0).getRecordDefinition().hasField("ID"));
+      Assert.assertEquals("Name 1000", actual.get(0).getValue("NAME"));
+      assertRecords(expected, actual);
+    }
+    try (
+      ShapefileRecordReader reader = newReader()) {
+      reader.setFieldNames(fieldNames);
+      reader.setRecordRange(1000, 1250);
+      try (
+        Stream<Record> stream = reader.parallelStream(30)) {
+        assertRecords(expected, stream.collect(Collectors.toList()));
+      }
+    }
+  }
+
+  @Test
+  public void testParallelStream() {
+    final List<Record> expected = readSequential();
+    Assert.assertEquals(RECORD_COUNT, expected.size());
+    try (
+      ShapefileRecordReader reader = newReader();
+      Stream<Record> stream = reader.parallelStream(100)) {
+      final List<Record> actual = stream.collect(Collectors.toList());
+      assertRecords(expected, actual);
+    }
+
+    try (
+      ShapefileRecordReader reader = newReader();
+      Stream<Record> stream = reader.parallelStream(99)) {
+      final List<Record> actual = stream.unordered().collect(Collectors.toList());
+      Assert.assertEquals(getIds(expected), getIds(actual));
+    }
+  }
+
+  @Test
+  public void testParallelStreamBoundingBox() {
+    final BoundingBox boundingBox = GEOMETRY_FACTORY.newBoundingBox(95, 95, 305, 205);
+    final List<Record> expected;
+    try (
+      ShapefileRecordReader reader = newReader()) {
+      reader.setBoundingBox(boundingBox);
+      expected = reader.toList();
+    }
+    Assert.assertEquals(21 * 11, expected.size());
+    try (
+      ShapefileRecordReader reader = newReader()) {
+      reader.setBoundingBox(boundingBox);
+      try (
+        Stream<Record> stream = reader.parallelStream(7)) {
+        final List<Record> actual = stream.collect(Collectors.toList());
+        assertRecords(expected, actual);
+      }
+    }
+  }
+
+  @Test
+  public void testRecordRange() {
+    final List<Record> records = readSequential();
+    final List<Record> expected = records.subList(1000, 1250);
+    try (
+      ShapefileRecordReader reader = newReader()) {
+      reader.setRecordRange(1000, 1250);
+      assertRecords(expected, reader.toList());
+    }
+    try (
+      ShapefileRecordReader reader = newReader()) {
+      reader.setRecordRange(1000, 1250);
+      try (
+        Stream<Record> stream = reader.parallelStream(30)) {
+        assertRecords(expected, stream.collect(Collectors.toList()));
+      }
+    }
+    try (
+      ShapefileRecordReader reader = newReader()) {
+      reader.setRecordRange(RECORD_COUNT - 10, RECORD_COUNT + 10);
+      assertRecords(records.subList(RECORD_COUNT - 10, RECORD_COUNT), reader.toList());
+    }
+  }
+
+  @Test
+  public void testSpliterator() {
+    final List<Record> expected = readSequential();
+    try (
+      ShapefileRecordReader reader = newReader()) {
+      final Spliterator<Record> spliterator = reader.newSpliterator(300);
+      Assert.assertEquals(RECORD_COUNT, spliterator.estimateSize());
+      final List<Spliterator<Record>> spliterators = new ArrayList<>();
+      spliterators.add(spliterator);
+      // Split the suffix until it can't be split, the prefixes are in file order
+      Spliterator<Record> prefix = spliterator.trySplit();
+      while (prefix != null) {
+        spliterators.add(spliterators.size() - 1, prefix);
+        prefix = spliterator.trySplit();
+      }
+      Assert.assertTrue("Split", spliterators.size() > 2);
+
+      final List<Record> actual = new ArrayList<>();
+      for (final Spliterator<Record> split : spliterators) {
+        split.forEachRemaining(actual::add);
+      }
+      assertRecords(expected, actual);
+      // All the chunks return records with the same record definition
+      Assert.assertSame(actual.get(0).getRecordDefinition(),
+        actual.get(actual.size() - 1).getRecordDefinition());
+    }
+  }
+
+  @Test
+  public void testStreamProcess() {
+    final List<Record> expected = readSequential();
+    for (final boolean ordered : new boolean[] {
+      true, false
+    }) {
+      try (
+        ShapefileRecordReader reader = newReader()) {
+        final StreamProcess<Record> process = new StreamProcess<>(() -> reader.parallelStream(64),
+          ordered);
+        process.setParallelism(4);
+        final Channel<Record> out = new Channel<>(new Buffer<>());
+        process.setOut(out);
+        out.readConnect();
+        process.run();
+
+        final List<Record> actual = new ArrayList<>();
+        try {
+          while (true) {
+            actual.add(out.read());
+          }
+        } catch (final ClosedException e) {
+        }
+        if (ordered) {
+          assertRecords(expected, actual);
+        } else {
+          Assert.assertEquals(getIds(expected), getIds(actual));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testXbaseGetRecordFieldNames() throws IOException {
+    try (
+      XbaseRecordReader reader = new XbaseRecordReader(
+        resource.newResourceChangeExtension("dbf"), ArrayRecord.FACTORY)) {
+      reader.setFieldNames(Arrays.asList("NAME"));
+      final Record record = reader.getRecord(1234);
+      Assert.assertEquals(1, record.getRecordDefinition().getFieldCount());
+      Assert.assertEquals("Name 1234", record.getValue("NAME"));
+      Assert.assertEquals("Name 7", reader.getRecord(7).getValue("NAME"));
+      Assert.assertEquals("Name " + (RECORD_COUNT - 1),
+        reader.getRecord(RECORD_COUNT - 1).getValue("NAME"));
+      Assert.assertNull(reader.getRecord(RECORD_COUNT));
+    }
+  }
+}
@@ -0,0 +1,303 @@
+package com.revolsys.postgresql.test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.gis.postgresql.PostgreSQLCopyEncoder;
+import com.revolsys.gis.postgresql.type.PostgreSQLEwkbWriter;
+import com.revolsys.gis.postgresql.type.PostgreSQLGeometryJdbcFieldDefinition;
+import com.revolsys.jdbc.field.JdbcFieldDefinition;
+import com.revolsys.record.io.format.json.Json;
+
+public class PostgreSQLCopyEncoderTest {
+
+  private static final JdbcFieldDefinition FIELD = new JdbcFieldDefinition("VALUE", "VALUE",
+    DataTypes.OBJECT, Types.OTHER, 0, 0, false, null, null);
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.fixed2d(3005, 1000.0,
+    1000.0);
+
+  private static ByteBuffer newBuffer() {
+    return ByteBuffer.allocate(1024);
+  }
+
+  private static ByteBuffer putNumeric(final int weight, final int sign, final int scale,
+    final int... digits) {
+    final ByteBuffer buffer = newBuffer();
+    buffer.putInt(8 + digits.length * 2);
+    buffer.putShort((short)digits.length);
+    buffer.putShort((short)weight);
+    buffer.putShort((short)sign);
+    buffer.putShort((short)scale);
+    for (final int digit : digits) {
+      buffer.putShort((short)digit);
+    }
+    return buffer;
+  }
+
+  private static byte[] toBytes(final ByteBuffer buffer) {
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+
+  private void assertEncoded(final JdbcFieldDefinition field, final String columnType,
+    final Object value, final ByteBuffer expected) {
+    final byte[] actual = encode(field, columnType, value);
+    Assert.assertArrayEquals(columnType + " " + value, toBytes(expected), actual);
+  }
+
+  private void assertEncoded(final String columnType, final Object value,
+    final ByteBuffer expected) {
+    assertEncoded(FIELD, columnType, value, expected);
+  }
+
+  private byte[] encode(final JdbcFieldDefinition field, final String columnType,
+    final Object value) {
+    final PostgreSQLCopyEncoder encoder = new PostgreSQLCopyEncoder();
+    encoder.newValueWriter(field, columnType).accept(field, value);
+    return encoder.toBytes();
+  }
+
+  @Test
+  public void testBoolean() {
+    assertEncoded("bool", true, newBuffer().putInt(1).put((byte)1));
+    assertEncoded("bool", false, newBuffer().putInt(1).put((byte)0));
+    assertEncoded("bool", "true", newBuffer().putInt(1).put((byte)1));
+  }
+
+  @Test
+  public void testBufferGrowth() {
+    final char[] chars = new char[100000];
+    Arrays.fill(chars, 'x');
+    final String text = new String(chars);
+    final PostgreSQLCopyEncoder encoder = new PostgreSQLCopyEncoder();
+    encoder.writeHeader();
+    encoder.newValueWriter(FIELD, "text").accept(FIELD, text);
+    encoder.writeTrailer();
+    final byte[] bytes = encoder.toBytes();
+    Assert.assertEquals(19 + 4 + chars.length + 2, bytes.length);
+    Assert.assertEquals(chars.length, ByteBuffer.wrap(bytes, 19, 4).getInt());
+    Assert.assertEquals(-1, ByteBuffer.wrap(bytes, bytes.length - 2, 2).getShort());
+  }
+
+  @Test
+  public void testBytes() {
+    assertEncoded("bytea", new byte[] {
+      1, 2, (byte)0xFF
+    }, newBuffer().putInt(3).put((byte)1).put((byte)2).put((byte)0xFF));
+    try {
+      encode(FIELD, "bytea", "text");
+      Assert.fail("Strings are not supported for bytea");
+    } catch (final IllegalArgumentException e) {
+    }
+  }
+
+  @Test
+  public void testDate() {
+    assertEncoded("date", LocalDate.of(2000, 1, 1), newBuffer().putInt(4).putInt(0));
+    assertEncoded("date", LocalDate.of(2000, 1, 2), newBuffer().putInt(4).putInt(1));
+    assertEncoded("date", LocalDate.of(1999, 12, 31), newBuffer().putInt(4).putInt(-1));
+    assertEncoded("date", java.sql.Date.valueOf("2000-01-11"), newBuffer().putInt(4).putInt(10));
+    assertEncoded("date", "2001-01-01", newBuffer().putInt(4).putInt(366));
+  }
+
+  @Test
+  public void testDouble() {
+    assertEncoded("float8", 2.25, newBuffer().putInt(8).putDouble(2.25));
+    assertEncoded("float8", "-1.5", newBuffer().putInt(8).putDouble(-1.5));
+    assertEncoded("float8", Double.NaN, newBuffer().putInt(8).putDouble(Double.NaN));
+  }
+
+  @Test
+  public void testFloat() {
+    assertEncoded("float4", 1.5f, newBuffer().putInt(4).putFloat(1.5f));
+    assertEncoded("float4", 0.25, newBuffer().putInt(4).putFloat(0.25f));
+  }
+
+  @Test
+  public void testGeometry() {
+    final PostgreSQLGeometryJdbcFieldDefinition field = new PostgreSQLGeometryJdbcFieldDefinition(
+      "GEOMETRY", "GEOMETRY", GeometryDataTypes.POINT, Types.OTHER, false, null, null, 3005, 2,
+      GEOMETRY_FACTORY);
+    final Point point = GEOMETRY_FACTORY.point(1000.5, 2000.25);
+    final byte[] ewkb = new PostgreSQLEwkbWriter().toBytes(GeometryDataTypes.POINT,
+      GEOMETRY_FACTORY, point);
+    assertEncoded(field, "geometry", point, newBuffer().putInt(ewkb.length).put(ewkb));
+
+    // Empty geometries are written as empty EWKB not null
+    final byte[] emptyPoint = new PostgreSQLEwkbWriter().toBytes(GeometryDataTypes.POINT,
+      GEOMETRY_FACTORY, GEOMETRY_FACTORY.point());
+    final ByteBuffer emptyPointBuffer = ByteBuffer.wrap(emptyPoint)
+      .order(ByteOrder.LITTLE_ENDIAN);
+    Assert.assertEquals(25, emptyPoint.length);
+    Assert.assertTrue(Double.isNaN(emptyPointBuffer.getDouble(9)));
+    Assert.assertTrue(Double.isNaN(emptyPointBuffer.getDouble(17)));
+    assertEncoded(field, "geometry", GEOMETRY_FACTORY.point(),
+      newBuffer().putInt(emptyPoint.length).put(emptyPoint));
+
+    final JdbcFieldDefinition polygonField = new PostgreSQLGeometryJdbcFieldDefinition(
+      "GEOMETRY", "GEOMETRY", GeometryDataTypes.POLYGON, Types.OTHER, false, null, null, 3005, 2,
+      GEOMETRY_FACTORY);
+    final byte[] emptyPolygon = new PostgreSQLEwkbWriter().toBytes(GeometryDataTypes.POLYGON,
+      GEOMETRY_FACTORY, GEOMETRY_FACTORY.polygon());
+    Assert.assertEquals(13, emptyPolygon.length);
+    Assert.assertEquals(0,
+      ByteBuffer.wrap(emptyPolygon).order(ByteOrder.LITTLE_ENDIAN).getInt(9));
+    assertEncoded(polygonField, "geometry", GEOMETRY_FACTORY.polygon(),
+      newBuffer().putInt(emptyPolygon.length).put(emptyPolygon));
+
+    try {
+      encode(field, "geometry", "POINT(1 2)");
+      Assert.fail("Strings are not supported for geometry");
+    } catch (final IllegalArgumentException e) {
+    }
+  }
+
+  @Test
+  public void testHeaderRowAndTrailer() {
+    final PostgreSQLCopyEncoder encoder = new PostgreSQLCopyEncoder();
+    encoder.writeHeader();
+    encoder.writeRowStart(2);
+    encoder.newValueWriter(FIELD, "int4").accept(FIELD, 7);
+    encoder.writeNull();
+    encoder.writeTrailer();
+
+    final ByteBuffer expected = newBuffer();
+    expected.put("PGCOPY\n".getBytes(StandardCharsets.US_ASCII));
+    expected.put((byte)0xFF).put((byte)'\r').put((byte)'\n').put((byte)0);
+    expected.putInt(0).putInt(0);
+    expected.putShort((short)2);
+    expected.putInt(4).putInt(7);
+    expected.putInt(-1);
+    expected.putShort((short)-1);
+    Assert.assertArrayEquals(toBytes(expected), encoder.toBytes());
+
+    encoder.clear();
+    Assert.assertEquals(0, encoder.toBytes().length);
+  }
+
+  @Test
+  public void testInt() {
+    assertEncoded("int4", 42, newBuffer().putInt(4).putInt(42));
+    assertEncoded("int4", -1, newBuffer().putInt(4).putInt(-1));
+    assertEncoded("int4", "123456", newBuffer().putInt(4).putInt(123456));
+  }
+
+  @Test
+  public void testJsonb() {
+    final Object value = Collections.singletonMap("a", 1);
+    final byte[] json = Json.JSON_OBJECT.toString(value).getBytes(StandardCharsets.UTF_8);
+    assertEncoded("jsonb", value, newBuffer().putInt(1 + json.length).put((byte)1).put(json));
+
+    final byte[] text = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+    assertEncoded("json", "{\"a\":1}", newBuffer().putInt(text.length).put(text));
+  }
+
+  @Test
+  public void testLong() {
+    assertEncoded("int8", Long.MAX_VALUE, newBuffer().putInt(8).putLong(Long.MAX_VALUE));
+    assertEncoded("int8", -2, newBuffer().putInt(8).putLong(-2));
+  }
+
+  @Test
+  public void testNull() {
+    final PostgreSQLCopyEncoder encoder = new PostgreSQLCopyEncoder();
+    encoder.writeNull();
+    Assert.assertArrayEquals(new byte[] {
+      -1, -1, -1, -1
+    }, encoder.toBytes());
+  }
+
+  @Test
+  public void testNumeric() {
+    assertEncoded("numeric", new BigDecimal("12345.678"), putNumeric(1, 0, 3, 1, 2345, 6780));
+    assertEncoded("numeric", -0.05, putNumeric(-1, 0x4000, 2, 500));
+    assertEncoded("numeric", BigDecimal.ZERO, putNumeric(0, 0, 0));
+    assertEncoded("numeric", 100000000L, putNumeric(2, 0, 0, 1));
+    assertEncoded("numeric", "0.0001", putNumeric(-1, 0, 4, 1));
+    assertEncoded("numeric", new BigDecimal("1E+3"), putNumeric(0, 0, 0, 1000));
+    assertEncoded("numeric", Double.NaN, putNumeric(0, 0xC000, 0));
+    assertEncoded("numeric", Double.POSITIVE_INFINITY, putNumeric(0, 0xD000, 0));
+    assertEncoded("numeric", Double.NEGATIVE_INFINITY, putNumeric(0, 0xF000, 0));
+    assertEncoded("numeric", Float.POSITIVE_INFINITY, putNumeric(0, 0xD000, 0));
+    assertEncoded("numeric", Float.NaN, putNumeric(0, 0xC000, 0));
+  }
+
+  @Test
+  public void testShort() {
+    assertEncoded("int2", (short)1234, newBuffer().putInt(2).putShort((short)1234));
+    assertEncoded("int2", -5, newBuffer().putInt(2).putShort((short)-5));
+  }
+
+  @Test
+  public void testText() {
+    final byte[] bytes = "h\u00e9llo".getBytes(StandardCharsets.UTF_8);
+    Assert.assertEquals(6, bytes.length);
+    for (final String columnType : Arrays.asList("text", "varchar", "bpchar", "name", "citext")) {
+      assertEncoded(columnType, "h\u00e9llo", newBuffer().putInt(6).put(bytes));
+    }
+    assertEncoded("text", "", newBuffer().putInt(0));
+  }
+
+  @Test
+  public void testTimestamp() {
+    assertEncoded("timestamp", LocalDateTime.of(2000, 1, 1, 0, 0, 1, 2000),
+      newBuffer().putInt(8).putLong(1000002));
+    assertEncoded("timestamp", Timestamp.valueOf("1999-12-31 23:59:59"),
+      newBuffer().putInt(8).putLong(-1000000));
+    assertEncoded("timestamp", "2000-01-02 00:00:00",
+      newBuffer().putInt(8).putLong(86400L * 1000000));
+  }
+
+  @Test
+  public void testTimestampTz() {
+    assertEncoded("timestamptz", Instant.parse("2000-01-01T00:00:00Z"),
+      newBuffer().putInt(8).putLong(0));
+    assertEncoded("timestamptz", Instant.parse("1999-12-31T23:59:59.5Z"),
+      newBuffer().putInt(8).putLong(-500000));
+    assertEncoded("timestamptz", OffsetDateTime.of(2000, 1, 1, 1, 0, 0, 0, ZoneOffset.ofHours(1)),
+      newBuffer().putInt(8).putLong(0));
+    assertEncoded("timestamptz", java.util.Date.from(Instant.parse("2000-01-01T00:00:01Z")),
+      newBuffer().putInt(8).putLong(1000000));
+  }
+
+  @Test
+  public void testUnsupportedType() {
+    for (final String columnType : Arrays.asList("interval", null)) {
+      try {
+        new PostgreSQLCopyEncoder().newValueWriter(FIELD, columnType);
+        Assert.fail("Expected IllegalArgumentException for " + columnType);
+      } catch (final IllegalArgumentException e) {
+      }
+    }
+  }
+
+  @Test
+  public void testUuid() {
+    final UUID uuid = UUID.fromString("00112233-4455-6677-8899-aabbccddeeff");
+    final ByteBuffer expected = newBuffer().putInt(16);
+    for (int i = 0; i < 16; i++) {
+      expected.put((byte)(i * 0x11));
+    }
+    assertEncoded("uuid", uuid, expected);
+    assertEncoded("uuid", uuid.toString(), expected);
+  }
+}
@@ -0,0 +1,244 @@
+package com.revolsys.postgresql.test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.jeometry.common.data.type.DataType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Polygon;
+import com.revolsys.gis.postgresql.type.PostgreSQLEwkbReader;
+import com.revolsys.gis.postgresql.type.PostgreSQLEwkbWriter;
+
+public class PostgreSQLEwkbTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY_2D = GeometryFactory.floating(3005, 2);
+
+  private static final GeometryFactory GEOMETRY_FACTORY_3D = GeometryFactory.floating(3005, 3);
+
+  private static final GeometryFactory GEOMETRY_FACTORY_4D = GeometryFactory.floating(3005, 4);
+
+  private static ByteBuffer newBuffer() {
+    return ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static ByteBuffer putHeader(final ByteBuffer buffer, final int typeWord) {
+    buffer.put((byte)1);
+    buffer.putInt(typeWord);
+    return buffer;
+  }
+
+  private static ByteBuffer putHeader(final ByteBuffer buffer, final int typeWord,
+    final int srid) {
+    putHeader(buffer, typeWord | 0x20000000);
+    buffer.putInt(srid);
+    return buffer;
+  }
+
+  private static ByteBuffer putValues(final ByteBuffer buffer, final double... values) {
+    for (final double value : values) {
+      buffer.putDouble(value);
+    }
+    return buffer;
+  }
+
+  private static byte[] toBytes(final ByteBuffer buffer) {
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+
+  private final PostgreSQLEwkbWriter writer = new PostgreSQLEwkbWriter();
+
+  private void assertRead(final GeometryFactory geometryFactory, final Geometry expected,
+    final byte[] bytes) {
+    final Geometry actual = PostgreSQLEwkbReader.read(geometryFactory, bytes);
+    Assert.assertEquals("isEmpty", expected.isEmpty(), actual.isEmpty());
+    Assert.assertEquals("geometryType", expected.getGeometryType(), actual.getGeometryType());
+    final int axisCount = geometryFactory.getAxisCount();
+    Assert.assertTrue("Expected " + expected + " != " + actual,
+      expected.equals(axisCount, actual));
+  }
+
+  private void assertRoundTrip(final DataType dataType, final GeometryFactory geometryFactory,
+    final Geometry geometry, final ByteBuffer expectedBuffer) {
+    final byte[] expectedBytes = toBytes(expectedBuffer);
+    final byte[] actualBytes = this.writer.toBytes(dataType, geometryFactory, geometry);
+    Assert.assertArrayEquals(geometry.toString(), expectedBytes, actualBytes);
+    assertRead(geometryFactory, geometry, actualBytes);
+  }
+
+  @Test
+  public void testEmpty() {
+    final GeometryFactory geometryFactory = GEOMETRY_FACTORY_2D;
+
+    assertRoundTrip(GeometryDataTypes.POINT, geometryFactory, geometryFactory.point(),
+      putValues(putHeader(newBuffer(), 0x00000001, 3005), Double.NaN, Double.NaN));
+
+    assertRoundTrip(GeometryDataTypes.LINE_STRING, geometryFactory,
+      geometryFactory.lineString(), putHeader(newBuffer(), 0x00000002, 3005).putInt(0));
+
+    assertRoundTrip(GeometryDataTypes.POLYGON, geometryFactory, geometryFactory.polygon(),
+      putHeader(newBuffer(), 0x00000003, 3005).putInt(0));
+
+    final byte[] emptyMulti = toBytes(putHeader(newBuffer(), 0x00000006, 3005).putInt(0));
+    Assert.assertArrayEquals(emptyMulti, this.writer.toBytes(GeometryDataTypes.MULTI_POLYGON,
+      geometryFactory, geometryFactory.polygon()));
+    Assert.assertTrue(PostgreSQLEwkbReader.read(geometryFactory, emptyMulti).isEmpty());
+
+    final Geometry emptyPointZ = PostgreSQLEwkbReader.read(GEOMETRY_FACTORY_3D,
+      toBytes(putValues(putHeader(newBuffer(), 0xA0000001, 3005), Double.NaN, Double.NaN,
+        Double.NaN)));
+    Assert.assertTrue(emptyPointZ.isEmpty());
+  }
+
+  @Test
+  public void testHex() {
+    final byte[] bytes = toBytes(putValues(putHeader(newBuffer(), 0x00000001, 3005), 1, 2));
+    final StringBuilder hex = new StringBuilder();
+    for (final byte b : bytes) {
+      hex.append(String.format("%02X", b & 0xFF));
+    }
+    Assert.assertEquals("0101000020BD0B0000000000000000F03F0000000000000040", hex.toString());
+    Assert.assertArrayEquals(bytes, PostgreSQLEwkbReader.hexToBytes(hex.toString()));
+    assertRead(GEOMETRY_FACTORY_2D, GEOMETRY_FACTORY_2D.point(1, 2),
+      PostgreSQLEwkbReader.hexToBytes(hex.toString().toLowerCase()));
+  }
+
+  @Test
+  public void testLineStringZ() {
+    final GeometryFactory geometryFactory = GEOMETRY_FACTORY_3D;
+    final LineString line = geometryFactory.lineString(3, 1, 2, 3, 4, 5, 6);
+    assertRoundTrip(GeometryDataTypes.LINE_STRING, geometryFactory, line,
+      putValues(putHeader(newBuffer(), 0x80000002, 3005).putInt(2), 1, 2, 3, 4, 5, 6));
+
+    final LineString lineNaNZ = geometryFactory.lineString(3, 1, 2, Double.NaN, 4, 5, 6);
+    Assert.assertArrayEquals(
+      toBytes(putValues(putHeader(newBuffer(), 0x80000002, 3005).putInt(2), 1, 2, 0, 4, 5, 6)),
+      this.writer.toBytes(GeometryDataTypes.LINE_STRING, geometryFactory, lineNaNZ));
+  }
+
+  @Test
+  public void testMultiPart() {
+    final GeometryFactory geometryFactory = GEOMETRY_FACTORY_2D;
+
+    final Geometry points = geometryFactory.punctual(2, 1, 2, 3, 4);
+    final ByteBuffer pointsBuffer = putHeader(newBuffer(), 0x00000004, 3005).putInt(2);
+    putValues(putHeader(pointsBuffer, 0x00000001), 1, 2);
+    putValues(putHeader(pointsBuffer, 0x00000001), 3, 4);
+    assertRoundTrip(GeometryDataTypes.MULTI_POINT, geometryFactory, points, pointsBuffer);
+
+    final Geometry lines = geometryFactory.lineal(geometryFactory.lineString(2, 0.0, 0, 1, 1),
+      geometryFactory.lineString(2, 2.0, 2, 3, 3, 4, 4));
+    final ByteBuffer linesBuffer = putHeader(newBuffer(), 0x00000005, 3005).putInt(2);
+    putValues(putHeader(linesBuffer, 0x00000002).putInt(2), 0, 0, 1, 1);
+    putValues(putHeader(linesBuffer, 0x00000002).putInt(3), 2, 2, 3, 3, 4, 4);
+    assertRoundTrip(GeometryDataTypes.MULTI_LINE_STRING, geometryFactory, lines, linesBuffer);
+
+    final Polygon polygon1 = geometryFactory.polygon(2, new double[] {
+      0, 0, 10, 0, 10, 10, 0, 10, 0, 0
+    }, new double[] {
+      2, 2, 2, 4, 4, 4, 4, 2, 2, 2
+    });
+    final Polygon polygon2 = geometryFactory.polygon(2, 20.0, 20, 30, 20, 30, 30, 20, 20);
+    final Geometry polygons = geometryFactory.polygonal(polygon1, polygon2);
+    final ByteBuffer polygonsBuffer = putHeader(newBuffer(), 0x00000006, 3005).putInt(2);
+    putHeader(polygonsBuffer, 0x00000003).putInt(2);
+    putValues(polygonsBuffer.putInt(5), 0, 0, 10, 0, 10, 10, 0, 10, 0, 0);
+    putValues(polygonsBuffer.putInt(5), 2, 2, 2, 4, 4, 4, 4, 2, 2, 2);
+    putHeader(polygonsBuffer, 0x00000003).putInt(1);
+    putValues(polygonsBuffer.putInt(4), 20, 20, 30, 20, 30, 30, 20, 20);
+    assertRoundTrip(GeometryDataTypes.MULTI_POLYGON, geometryFactory, polygons, polygonsBuffer);
+  }
+
+  @Test
+  public void testPoint() {
+    final GeometryFactory geometryFactory = GEOMETRY_FACTORY_2D;
+    final Point point = geometryFactory.point(1, 2);
+    assertRoundTrip(GeometryDataTypes.POINT, geometryFactory, point,
+      putValues(putHeader(newBuffer(), 0x00000001, 3005), 1, 2));
+  }
+
+  @Test
+  public void testPointBigEndian() {
+    final ByteBuffer buffer = ByteBuffer.allocate(25).order(ByteOrder.BIG_ENDIAN);
+    buffer.put((byte)0);
+    buffer.putInt(0x20000001);
+    buffer.putInt(3005);
+    buffer.putDouble(1);
+    buffer.putDouble(2);
+    assertRead(GEOMETRY_FACTORY_2D, GEOMETRY_FACTORY_2D.point(1, 2), buffer.array());
+  }
+
+  @Test
+  public void testPointZM() {
+    final GeometryFactory geometryFactory = GEOMETRY_FACTORY_4D;
+    final Point point = geometryFactory.point(1, 2, 3, 4);
+    assertRoundTrip(GeometryDataTypes.POINT, geometryFactory, point,
+      putValues(putHeader(newBuffer(), 0xC0000001, 3005), 1, 2, 3, 4));
+  }
+
+  @Test
+  public void testPolygonShellOrientation() {
+    final GeometryFactory geometryFactory = GEOMETRY_FACTORY_2D;
+    final Polygon clockwise = geometryFactory.polygon(2, 0.0, 0, 0, 10, 10, 10, 10, 0, 0, 0);
+    final byte[] bytes = this.writer.toBytes(GeometryDataTypes.POLYGON, geometryFactory,
+      clockwise);
+    Assert.assertArrayEquals(toBytes(putValues(putHeader(newBuffer(), 0x00000003, 3005).putInt(1)
+      .putInt(5), 0, 0, 10, 0, 10, 10, 0, 10, 0, 0)), bytes);
+  }
+
+  @Test
+  public void testReadM() {
+    final ByteBuffer pointBuffer = putValues(putHeader(newBuffer(), 0x40000001, 3005), 1, 2, 5);
+    final Geometry point = PostgreSQLEwkbReader.read(GEOMETRY_FACTORY_2D, toBytes(pointBuffer));
+    Assert.assertEquals(4, point.getAxisCount());
+    Assert.assertEquals(1, ((Point)point).getX(), 0);
+    Assert.assertEquals(2, ((Point)point).getY(), 0);
+    Assert.assertEquals(5, ((Point)point).getM(), 0);
+
+    final ByteBuffer lineBuffer = putValues(putHeader(newBuffer(), 0x40000002, 3005).putInt(2), 1,
+      2, 10, 3, 4, 20);
+    final LineString line = (LineString)PostgreSQLEwkbReader.read(GEOMETRY_FACTORY_2D,
+      toBytes(lineBuffer));
+    Assert.assertEquals(4, line.getAxisCount());
+    Assert.assertEquals(2, line.getVertexCount());
+    Assert.assertEquals(3, line.getX(1), 0);
+    Assert.assertEquals(4, line.getY(1), 0);
+    Assert.assertEquals(10, line.getM(0), 0);
+    Assert.assertEquals(20, line.getM(1), 0);
+  }
+
+  @Test
+  public void testReadZM() {
+    final ByteBuffer buffer = putValues(putHeader(newBuffer(), 0xC0000002, 3005).putInt(2), 1, 2,
+      3, 4, 5, 6, 7, 8);
+    final LineString line = (LineString)PostgreSQLEwkbReader.read(GEOMETRY_FACTORY_2D,
+      toBytes(buffer));
+    Assert.assertEquals(4, line.getAxisCount());
+    Assert.assertEquals(7, line.getZ(1), 0);
+    Assert.assertEquals(8, line.getM(1), 0);
+  }
+
+  @Test
+  public void testWithoutSrid() {
+    final GeometryFactory geometryFactory = GeometryFactory.floating(0, 2);
+    final Point point = geometryFactory.point(1, 2);
+    assertRoundTrip(GeometryDataTypes.POINT, geometryFactory, point,
+      putValues(putHeader(newBuffer(), 0x00000001), 1, 2));
+  }
+
+  @Test
+  public void testWriteSinglePartAsMulti() {
+    final GeometryFactory geometryFactory = GEOMETRY_FACTORY_2D;
+    final LineString line = geometryFactory.lineString(2, 0.0, 0, 1, 1);
+    final ByteBuffer buffer = putHeader(newBuffer(), 0x00000005, 3005).putInt(1);
+    putValues(putHeader(buffer, 0x00000002).putInt(2), 0, 0, 1, 1);
+    assertRoundTrip(GeometryDataTypes.MULTI_LINE_STRING, geometryFactory, line, buffer);
+  }
+}
@@ -14,6 +14,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.jeometry.common.logging.Logs;
 import org.jeometry.coordinatesystem.model.systems.EpsgId;
@@ -26,11 +28,17 @@ import org.junit.runners.MethodSorters;
 import com.revolsys.record.io.format.json.JsonObject;
 import com.revolsys.collection.map.MapEx;
 import com.revolsys.elevation.cloud.PointCloud;
+import com.revolsys.elevation.cloud.las.LasPointChunkIndex;
 import com.revolsys.elevation.cloud.las.LasPointCloud;
+import com.revolsys.elevation.cloud.las.LasPointCloudGridder;
 import com.revolsys.elevation.cloud.las.LasPointCloudHeader;
 import com.revolsys.elevation.cloud.las.LasPointCloudWriter;
+import com.revolsys.elevation.cloud.las.LasPointColumns;
+import com.revolsys.elevation.cloud.las.LasPointGridAggregation;
 import com.revolsys.elevation.cloud.las.pointformat.LasPoint;
 import com.revolsys.elevation.cloud.las.pointformat.LasPointFormat;
+import com.revolsys.elevation.gridded.GriddedElevationModel;
+import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.geometry.model.GeometryFactoryWithOffsets;
 import com.revolsys.util.Debug;
@@ -521,6 +529,101 @@ public class LasTest {
     };
   }
 
+  @Test
+  public void testChunkIndex() {
+    final Consumer<LasPointCloud> cloudAction = newPointsAction(120001);
+    final BoundingBox boundingBox = GEOMETRY_FACTORY_OFFSET.newBoundingBox(OFFSET_X - 500,
+      OFFSET_Y - 500, OFFSET_X - 100, OFFSET_Y - 100);
+    for (final String fileExtension : FILE_EXTENSIONS) {
+      for (final LasPointFormat pointFormat : LAZ_TEST_FORMATS) {
+        try (
+          LasPointCloud cloud = new LasPointCloud(pointFormat, GEOMETRY_FACTORY_OFFSET)) {
+          cloudAction.accept(cloud);
+          final List<LasPoint> expected = new ArrayList<>();
+          for (final LasPoint point : cloud.getPoints()) {
+            if (boundingBox.bboxCovers(point.getX(), point.getY())) {
+              expected.add(point);
+            }
+          }
+          final MapEx writeProperties = getWriteVariations(pointFormat, fileExtension).values()
+            .iterator()
+            .next();
+          final String label = "index_" + pointFormat.name();
+          final Path file = DIR.resolve(fileExtension + "/index/" + label + "." + fileExtension);
+          com.revolsys.io.file.Paths.createParentDirectories(file);
+          cloud.writePointCloud(file, writeProperties);
+
+          for (int i = 0; i < 2; i++) {
+            try (
+              LasPointCloud cloud2 = PointCloud.newPointCloud(file)) {
+              final LasPointChunkIndex chunkIndex = cloud2.getChunkIndex();
+              Assert.assertEquals(cloud.getPointCount(),
+                chunkIndex.getPointIndex(chunkIndex.getChunkCount()));
+              final int[] chunkIndexes = chunkIndex.getChunkIndexes(boundingBox);
+              Assert.assertTrue(label, chunkIndexes.length > 0);
+              Assert.assertTrue(label, chunkIndexes.length < chunkIndex.getChunkCount());
+
+              // Bounding boxes outside the integer coordinate range
+              final BoundingBox allBoundingBox = GEOMETRY_FACTORY_OFFSET.newBoundingBox(-1e15,
+                -1e15, 1e15, 1e15);
+              Assert.assertEquals(label, chunkIndex.getChunkCount(),
+                chunkIndex.getChunkIndexes(allBoundingBox).length);
+              final BoundingBox farBoundingBox = GEOMETRY_FACTORY_OFFSET.newBoundingBox(1e15,
+                1e15, 2e15, 2e15);
+              Assert.assertEquals(label, 0, chunkIndex.getChunkIndexes(farBoundingBox).length);
+
+              final List<LasPoint> actual = new ArrayList<>();
+              cloud2.forEachPoint(boundingBox, actual::add);
+              Assert.assertEquals(label, expected.size(), actual.size());
+              for (int j = 0; j < expected.size(); j++) {
+                assertPointEqual(expected.get(j), actual.get(j));
+              }
+              if (i == 0) {
+                // Second pass reads the index from the sidecar file
+                Assert.assertTrue(cloud2.writeChunkIndex());
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testGridder() {
+    try (
+      LasPointCloud cloud = new LasPointCloud(LasPointFormat.Core, GEOMETRY_FACTORY_0)) {
+      for (int i = 1; i <= 4; i++) {
+        cloud.addPoint(OFFSET_X + 0.25 * i - 0.1, OFFSET_Y + 0.5, i);
+      }
+      cloud.addPoint(OFFSET_X + 2.5, OFFSET_Y + 2.5, 10);
+      final LasPointCloudGridder gridder = new LasPointCloudGridder(cloud, 1).setFilter(null);
+      final Map<LasPointGridAggregation, Double> expectedValues = new LinkedHashMap<>();
+      expectedValues.put(LasPointGridAggregation.MIN, 1.0);
+      expectedValues.put(LasPointGridAggregation.MAX, 4.0);
+      expectedValues.put(LasPointGridAggregation.MEAN, 2.5);
+      expectedValues.put(LasPointGridAggregation.IDW, 2.307);
+      for (final Entry<LasPointGridAggregation, Double> entry : expectedValues.entrySet()) {
+        final LasPointGridAggregation aggregation = entry.getKey();
+        final GriddedElevationModel grid = gridder.setAggregation(aggregation)
+          .newGriddedElevationModel();
+        Assert.assertEquals(aggregation.name(), entry.getValue(),
+          grid.getValue(OFFSET_X + 0.5, OFFSET_Y + 0.5), 0.002);
+        Assert.assertEquals(aggregation.name(), 10, grid.getValue(OFFSET_X + 2.5, OFFSET_Y + 2.5),
+          0.002);
+        Assert.assertTrue(Double.isNaN(grid.getValue(OFFSET_X + 1.5, OFFSET_Y + 1.5)));
+      }
+
+      final Path tileDirectory = DIR.resolve("grid");
+      gridder.setAggregation(LasPointGridAggregation.MAX).setGridTileSize(2);
+      Assert.assertEquals(2, gridder.writeTiles(tileDirectory, "test"));
+      final GriddedElevationModel tile = GriddedElevationModel.newGriddedElevationModel(
+        tileDirectory.resolve("sigdem/26910/2/" + (int)OFFSET_X + "/test_26910_2_" + (int)OFFSET_X
+          + "_" + (int)OFFSET_Y + ".sigdem"));
+      Assert.assertEquals(4, tile.getValue(OFFSET_X + 0.5, OFFSET_Y + 0.5), 0.002);
+    }
+  }
+
   @Test
   public void testManyLas() {
     for (final LasPointFormat recordFormat : LasPointFormat.values()) {
@@ -548,6 +651,89 @@ public class LasTest {
     }
   }
 
+  @Test
+  public void testParallelStream() {
+    final Consumer<LasPointCloud> cloudAction = newPointsAction(120001);
+    for (final LasPointFormat pointFormat : LAZ_TEST_FORMATS) {
+      try (
+        LasPointCloud cloud = new LasPointCloud(pointFormat, GEOMETRY_FACTORY_OFFSET)) {
+        cloudAction.accept(cloud);
+        final List<LasPoint> points = cloud.getPoints();
+        for (final Entry<String, MapEx> entry : getWriteVariations(pointFormat, "laz")
+          .entrySet()) {
+          final String label = "parallel_" + pointFormat.name() + "_" + entry.getKey();
+          final Path file = DIR.resolve("laz/parallel/" + label + ".laz");
+          com.revolsys.io.file.Paths.createParentDirectories(file);
+          cloud.writePointCloud(file, entry.getValue());
+          try (
+            LasPointCloud cloud2 = PointCloud.newPointCloud(file);
+            Stream<LasPoint> stream = cloud2.parallelStream()) {
+            final List<LasPoint> actual = stream.collect(Collectors.toList());
+            Assert.assertEquals(label, points.size(), actual.size());
+            for (int i = 0; i < points.size(); i++) {
+              assertPointEqual(points.get(i), actual.get(i));
+            }
+          }
+          try (
+            LasPointCloud cloud2 = PointCloud.newPointCloud(file)) {
+            final LasPointColumns columns = cloud2.getPointColumns();
+            Assert.assertEquals(points.size(), columns.getPointCount());
+            int index = 0;
+            for (final LasPoint point : columns) {
+              assertPointEqual(points.get(index++), point);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPointColumns() {
+    for (final String fileExtension : FILE_EXTENSIONS) {
+      for (final LasPointFormat pointFormat : LAZ_TEST_FORMATS) {
+        try (
+          LasPointCloud cloud = new LasPointCloud(pointFormat, GEOMETRY_FACTORY_0)) {
+          addRandomPoints(cloud, 1000);
+          addIntensityPoints(cloud);
+          addClassificationAndFlags(cloud);
+          addPointSourceIDPoints(cloud);
+          final MapEx writeProperties = getWriteVariations(pointFormat, fileExtension).values()
+            .iterator()
+            .next();
+          final String label = "columns_" + pointFormat.name();
+          final Path file = DIR.resolve(fileExtension + "/columns/" + label + "." + fileExtension);
+          com.revolsys.io.file.Paths.createParentDirectories(file);
+          cloud.writePointCloud(file, writeProperties);
+
+          final List<LasPoint> points = cloud.getPoints();
+          final long[] classificationCounts = new long[256];
+          for (final LasPoint point : points) {
+            classificationCounts[point.getClassification()]++;
+          }
+          try (
+            LasPointCloud cloud2 = PointCloud.newPointCloud(file)) {
+            final LasPointColumns columns = cloud2.getPointColumns();
+            Assert.assertEquals(points.size(), columns.getPointCount());
+            int index = 0;
+            for (final LasPoint point : columns) {
+              assertPointEqual(points.get(index++), point);
+            }
+            Assert.assertArrayEquals(classificationCounts, columns.getClassificationCounts());
+            Assert.assertEquals(classificationCounts[2],
+              columns.filterClassification(2).getPointCount());
+            final BoundingBox boundingBox = cloud2.getBoundingBox();
+            final BoundingBox columnsBoundingBox = columns.getBoundingBox();
+            for (int i = 0; i < 3; i++) {
+              Assert.assertEquals(boundingBox.getMin(i), columnsBoundingBox.getMin(i), 1 / SCALE);
+              Assert.assertEquals(boundingBox.getMax(i), columnsBoundingBox.getMax(i), 1 / SCALE);
+            }
+          }
+        }
+      }
+    }
+  }
+
   @Test
   public void testWriter() {
     final BiFunction<LasPointCloudWriter, Integer, List<LasPoint>> writerAction = (writer,